@@ -0,0 +1,107 @@
+package com.iot.system.config;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Reads a readings batch through {@link RequestDecompressionFilter} the way a controller does.
+ * Besides requests per second, JMH reports the {@code bodyMegabytes} the controller reads and the
+ * {@code wireMegabytes} the device sends, both per second. Their quotient is the compression ratio.
+ * {@code identity} is the uncompressed baseline. Run with {@code ./gradlew jmh}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestDecompressionBenchmark {
+
+    private static final double MEGABYTE = 1024 * 1024;
+
+    @Param({"1000", "10000"})
+    public int readings;
+
+    @Param({"identity", "gzip", "deflate"})
+    public String encoding;
+
+    private final RequestDecompressionFilter filter = new RequestDecompressionFilter(64L * 1024 * 1024, 100);
+    private byte[] wire;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Traffic {
+        public double wireMegabytes;
+        public double bodyMegabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            wireMegabytes = 0;
+            bodyMegabytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        wire = encode(readingsJson(readings), encoding);
+    }
+
+    @Benchmark
+    public int readBody(final Traffic traffic) throws Exception {
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/monitoring/MON00001/readings");
+        request.addHeader("Content-Encoding", encoding);
+        request.setContentType("application/json");
+        request.setContent(wire);
+        final int[] read = new int[1];
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> read[0] = req.getInputStream().readAllBytes().length);
+
+        traffic.wireMegabytes += wire.length / MEGABYTE;
+        traffic.bodyMegabytes += read[0] / MEGABYTE;
+        return read[0];
+    }
+
+    private static byte[] encode(final byte[] body, final String encoding) throws IOException {
+        if (encoding.equals("identity")) {
+            return body;
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream compressed = encoding.equals("gzip") ? new GZIPOutputStream(out) : new DeflaterOutputStream(out)) {
+            compressed.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] readingsJson(final int readings) {
+        final StringBuilder timestamps = new StringBuilder();
+        final StringBuilder values = new StringBuilder();
+        for (int i = 0; i < readings; i++) {
+            timestamps.append(i == 0 ? "" : ",").append(1_720_713_600_000L + i * 1000L);
+            values.append(i == 0 ? "" : ",").append(String.format(Locale.ROOT, "%.1f", 20 + Math.sin(i / 30.0) * 3));
+        }
+        return ("[{\"metric\":\"temperature\",\"timestamps\":[" + timestamps + "],\"values\":[" + values + "]}]")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,16 @@
+package com.iot.system.admission;
+
+public enum AdmissionClass {
+    INGESTION("ingestion"),
+    COMMAND("command");
+
+    private final String tag;
+
+    AdmissionClass(final String tag) {
+        this.tag = tag;
+    }
+
+    public String tag() {
+        return tag;
+    }
+}
@@ -0,0 +1,145 @@
+package com.iot.system.admission;
+
+import com.iot.system.telemetry.MonitoredSeries;
+import com.iot.system.telemetry.ReadingRingBuffer;
+import com.iot.system.telemetry.TelemetrySeriesRegistry;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Admission control for the ingestion and command paths. Requests are shed before they reach
+ * authentication or the database when the target ingestion buffer or the connection pool is
+ * backed up (503), when a path is at its in-flight limit (503), or when one key holds more than its
+ * fair share of a loaded path (429).
+ */
+@Component
+public class AdmissionControl {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControl.class);
+
+    private enum Outcome {
+        ADMITTED, OVER_CAPACITY, OVER_FAIR_SHARE, QUEUE_DEPTH
+    }
+
+    private final TelemetrySeriesRegistry seriesRegistry;
+    private final HikariDataSource hikariDataSource;
+    private final Map<AdmissionClass, AdmissionLimiter> limiters = new EnumMap<>(AdmissionClass.class);
+    private final Map<AdmissionClass, Map<Outcome, Counter>> counters = new EnumMap<>(AdmissionClass.class);
+    private final int dbQueueThreshold;
+    private final double bufferHighWatermark;
+    private final long retryAfterSeconds;
+
+    public AdmissionControl(final TelemetrySeriesRegistry seriesRegistry,
+                            final DataSource dataSource,
+                            final MeterRegistry meterRegistry,
+                            @Value("${admission.ingestion.max-in-flight}") final int ingestionMaxInFlight,
+                            @Value("${admission.command.max-in-flight}") final int commandMaxInFlight,
+                            @Value("${admission.fair-share-threshold}") final double fairShareThreshold,
+                            @Value("${admission.db-queue-threshold}") final int dbQueueThreshold,
+                            @Value("${admission.buffer-high-watermark}") final double bufferHighWatermark,
+                            @Value("${admission.retry-after-seconds}") final long retryAfterSeconds) {
+        this.seriesRegistry = seriesRegistry;
+        this.hikariDataSource = unwrapHikari(dataSource);
+        this.dbQueueThreshold = dbQueueThreshold;
+        this.bufferHighWatermark = bufferHighWatermark;
+        this.retryAfterSeconds = retryAfterSeconds;
+        limiters.put(AdmissionClass.INGESTION, new AdmissionLimiter(ingestionMaxInFlight, fairShareThreshold));
+        limiters.put(AdmissionClass.COMMAND, new AdmissionLimiter(commandMaxInFlight, fairShareThreshold));
+
+        limiters.forEach((admissionClass, limiter) -> {
+            Gauge.builder("admission.in.flight", limiter, AdmissionLimiter::inFlight)
+                    .tag("path", admissionClass.tag())
+                    .register(meterRegistry);
+            Gauge.builder("admission.active.keys", limiter, AdmissionLimiter::activeKeys)
+                    .tag("path", admissionClass.tag())
+                    .register(meterRegistry);
+            final Map<Outcome, Counter> outcomes = new EnumMap<>(Outcome.class);
+            for (final Outcome outcome : Outcome.values()) {
+                outcomes.put(outcome, Counter.builder("admission.requests")
+                        .tag("path", admissionClass.tag())
+                        .tag("outcome", outcome.name().toLowerCase())
+                        .register(meterRegistry));
+            }
+            counters.put(admissionClass, outcomes);
+        });
+        Gauge.builder("admission.db.pending", this, AdmissionControl::pendingConnectionRequests)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits a request on the path for the key, or throws {@link AdmissionRejectedException}. An
+     * admitted request must call {@link #release(AdmissionClass, String)} when it completes.
+     */
+    public void acquire(final AdmissionClass admissionClass, final String key) {
+        final int pending = pendingConnectionRequests();
+        if (pending >= dbQueueThreshold) {
+            reject(admissionClass, Outcome.QUEUE_DEPTH, HttpStatus.SERVICE_UNAVAILABLE,
+                    "Service is overloaded, " + pending + " requests are waiting for a database connection");
+        }
+        if (admissionClass == AdmissionClass.INGESTION) {
+            // Only series already cached are checked, admission never goes to the database
+            final MonitoredSeries series = seriesRegistry.cached(key);
+            if (series != null) {
+                final ReadingRingBuffer buffer = series.getBuffer();
+                if (buffer.size() >= buffer.capacity() * bufferHighWatermark) {
+                    reject(admissionClass, Outcome.QUEUE_DEPTH, HttpStatus.SERVICE_UNAVAILABLE,
+                            "Ingestion buffer of monitoring " + key + " is full");
+                }
+            }
+        }
+
+        final AdmissionLimiter limiter = limiters.get(admissionClass);
+        switch (limiter.tryAcquire(key)) {
+            case ADMITTED -> counters.get(admissionClass).get(Outcome.ADMITTED).increment();
+            case OVER_CAPACITY -> reject(admissionClass, Outcome.OVER_CAPACITY, HttpStatus.SERVICE_UNAVAILABLE,
+                    "Service is overloaded, " + limiter.maxInFlight() + " " + admissionClass.tag() + " requests in flight");
+            case OVER_FAIR_SHARE -> reject(admissionClass, Outcome.OVER_FAIR_SHARE, HttpStatus.TOO_MANY_REQUESTS,
+                    "Too many concurrent " + admissionClass.tag() + " requests for " + key);
+        }
+    }
+
+    public void release(final AdmissionClass admissionClass, final String key) {
+        limiters.get(admissionClass).release(key);
+    }
+
+    private void reject(final AdmissionClass admissionClass, final Outcome outcome, final HttpStatus status,
+                        final String message) {
+        counters.get(admissionClass).get(outcome).increment();
+        // Jitter spreads the retries of a shed burst instead of bringing them back in lockstep
+        final long retryAfter = retryAfterSeconds + ThreadLocalRandom.current().nextLong(retryAfterSeconds + 1);
+        throw new AdmissionRejectedException(status, message, retryAfter);
+    }
+
+    private int pendingConnectionRequests() {
+        if (hikariDataSource == null) {
+            return 0;
+        }
+        final HikariPoolMXBean pool = hikariDataSource.getHikariPoolMXBean();
+        return pool != null ? pool.getThreadsAwaitingConnection() : 0;
+    }
+
+    private static HikariDataSource unwrapHikari(final DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class);
+            }
+        } catch (SQLException e) {
+            logger.warn("Could not unwrap the connection pool, database queue depth is not checked", e);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,67 @@
+package com.iot.system.admission;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded in-flight counter with per-key fair sharing. While load is below the fair-share threshold
+ * any key may take permits; above it a key holding more than its share of the limit is shed, so a
+ * burst from a few devices cannot starve the rest of the fleet.
+ */
+public class AdmissionLimiter {
+
+    public enum Decision {
+        ADMITTED, OVER_CAPACITY, OVER_FAIR_SHARE
+    }
+
+    private final int maxInFlight;
+    private final int fairShareThreshold;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ConcurrentHashMap<String, Integer> inFlightByKey = new ConcurrentHashMap<>();
+
+    public AdmissionLimiter(final int maxInFlight, final double fairShareThreshold) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        this.maxInFlight = maxInFlight;
+        this.fairShareThreshold = (int) Math.ceil(maxInFlight * fairShareThreshold);
+    }
+
+    /**
+     * Takes a permit for the key. Every {@link Decision#ADMITTED} result must be paired with one
+     * {@link #release(String)}.
+     */
+    public Decision tryAcquire(final String key) {
+        final int total = inFlight.incrementAndGet();
+        if (total > maxInFlight) {
+            inFlight.decrementAndGet();
+            return Decision.OVER_CAPACITY;
+        }
+        final int held = inFlightByKey.merge(key, 1, Integer::sum);
+        if (total > fairShareThreshold && held > 1) {
+            final int share = Math.max(1, maxInFlight / inFlightByKey.size());
+            if (held > share) {
+                release(key);
+                return Decision.OVER_FAIR_SHARE;
+            }
+        }
+        return Decision.ADMITTED;
+    }
+
+    public void release(final String key) {
+        inFlightByKey.computeIfPresent(key, (k, held) -> held == 1 ? null : held - 1);
+        inFlight.decrementAndGet();
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public int activeKeys() {
+        return inFlightByKey.size();
+    }
+
+    public int maxInFlight() {
+        return maxInFlight;
+    }
+}
@@ -0,0 +1,109 @@
+package com.iot.system.cache;
+
+import com.iot.system.event.DeviceChangedEvent;
+import com.iot.system.event.DeviceStatusChangedEvent;
+import com.iot.system.event.MonitoringChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Id pages of the pageable device and monitoring listings, keyed by the query, the user scope and
+ * the write generation of the listed entity. Writes bump the generation after commit, so pages
+ * cached before a write are never hit again and age out of the least recently used order instead
+ * of being invalidated one by one. A monitoring embeds its device, so device writes bump both
+ * generations. Changes that publish no event, such as renamed users, are bounded by the time to live.
+ */
+@Component
+public class PageQueryCache {
+
+    public enum Listing { DEVICES, MONITORINGS }
+
+    public record Key(Listing listing, long generation, Long userId, List<Object> query) {
+    }
+
+    public record CachedPage(List<Long> ids, long totalElements) {
+    }
+
+    private record Entry(CachedPage page, long expiresAt) {
+    }
+
+    private final AtomicLong deviceGeneration = new AtomicLong();
+    private final AtomicLong monitoringGeneration = new AtomicLong();
+    private final Map<Key, Entry> entries;
+    private final long ttlMs;
+
+    public PageQueryCache(@Value("${query-cache.max-entries}") final int maxEntries,
+                          @Value("${query-cache.ttl-ms}") final long ttlMs) {
+        if (maxEntries <= 0 || ttlMs <= 0) {
+            throw new IllegalArgumentException("query-cache.max-entries and query-cache.ttl-ms must be positive");
+        }
+        this.ttlMs = ttlMs;
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Key of a query at the current generation. Take the key before running the query, so a page
+     * read concurrently with a write is cached under the generation that write retires.
+     */
+    public Key key(final Listing listing, final Long userId, final Object... query) {
+        final long generation = (listing == Listing.DEVICES ? deviceGeneration : monitoringGeneration).get();
+        return new Key(listing, generation, userId, Collections.unmodifiableList(Arrays.asList(query.clone())));
+    }
+
+    public CachedPage get(final Key key) {
+        final Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() < System.currentTimeMillis()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.page();
+    }
+
+    public void put(final Key key, final List<Long> ids, final long totalElements) {
+        entries.put(key, new Entry(new CachedPage(List.copyOf(ids), totalElements), System.currentTimeMillis() + ttlMs));
+    }
+
+    /**
+     * The entities loaded for a cached page, in the order of its ids. Ids deleted since are skipped.
+     */
+    public static <E> List<E> inIdOrder(final List<Long> ids, final List<E> entities, final Function<E, Long> idOf) {
+        final Map<Long, E> byId = entities.stream().collect(Collectors.toMap(idOf, entity -> entity));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceChanged(final DeviceChangedEvent event) {
+        deviceGeneration.incrementAndGet();
+        monitoringGeneration.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceStatusChanged(final DeviceStatusChangedEvent event) {
+        deviceGeneration.incrementAndGet();
+        monitoringGeneration.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMonitoringChanged(final MonitoringChangedEvent event) {
+        monitoringGeneration.incrementAndGet();
+    }
+}
@@ -0,0 +1,40 @@
+package com.iot.system.cache;
+
+import com.iot.system.model.CommandDescription;
+import com.iot.system.model.Device;
+import com.iot.system.model.Monitoring;
+import org.hibernate.Hibernate;
+
+/**
+ * Initializes the lazy associations that the JSON of a device or monitoring reads, so an entity
+ * loaded by one request can be handed to others by {@link SingleFlight} without them touching
+ * the session it was loaded in.
+ */
+public final class SharedEntities {
+
+    private SharedEntities() {
+    }
+
+    public static Device initialize(final Device device) {
+        Hibernate.initialize(device.getUsers());
+        Hibernate.initialize(device.getCreatedBy());
+        Hibernate.initialize(device.getCommands());
+        if (device.getCommands() != null) {
+            for (final CommandDescription description : device.getCommands()) {
+                if (description.getCommand() != null) {
+                    Hibernate.initialize(description.getCommand().getParameters());
+                }
+            }
+        }
+        return device;
+    }
+
+    public static Monitoring initialize(final Monitoring monitoring) {
+        Hibernate.initialize(monitoring.getUsers());
+        Hibernate.initialize(monitoring.getCreatedBy());
+        if (monitoring.getDevice() != null) {
+            initialize(monitoring.getDevice());
+        }
+        return monitoring;
+    }
+}
@@ -0,0 +1,238 @@
+package com.iot.system.command;
+
+import com.iot.system.event.DeviceCommandEvent;
+import com.iot.system.event.DeviceStatusChangedEvent;
+import com.iot.system.model.Device;
+import com.iot.system.model.DeviceStatus;
+import com.iot.system.repository.DevicesRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends one command to a snapshot of devices. The snapshot is split into lanes by device id and
+ * every lane runs its chunks on its own thread, so at most one chunk per lane is in flight and the
+ * commands of consecutive jobs reach each device in the order the jobs were started. A chunk reads
+ * the current statuses, applies the status change with one update statement and publishes the
+ * command and status events, all in one transaction. Jobs are kept for the retention period after
+ * they complete.
+ */
+@Component
+public class CommandFanOut {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommandFanOut.class);
+
+    public record Target(long deviceId, String deviceCode) {
+    }
+
+    private final DevicesRepository devicesRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+    private final int maxDevices;
+    private final Duration retention;
+    private final ExecutorService[] lanes;
+    private final Map<String, CommandFanOutJob> jobs = new ConcurrentHashMap<>();
+
+    public CommandFanOut(final DevicesRepository devicesRepository, final EntityManager entityManager,
+                         final PlatformTransactionManager transactionManager,
+                         final ApplicationEventPublisher eventPublisher,
+                         @Value("${fan-out.lanes}") final int lanes,
+                         @Value("${fan-out.chunk-size}") final int chunkSize,
+                         @Value("${fan-out.max-devices}") final int maxDevices,
+                         @Value("${fan-out.job-retention-ms}") final long retentionMs) {
+        if (lanes <= 0 || chunkSize <= 0 || maxDevices <= 0 || retentionMs <= 0) {
+            throw new IllegalArgumentException(
+                    "fan-out.lanes, fan-out.chunk-size, fan-out.max-devices and fan-out.job-retention-ms must be positive");
+        }
+        this.devicesRepository = devicesRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+        this.maxDevices = maxDevices;
+        this.retention = Duration.ofMillis(retentionMs);
+        this.lanes = new ExecutorService[lanes];
+        for (int i = 0; i < lanes; i++) {
+            final String name = "command-fan-out-" + i;
+            this.lanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        for (final ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        for (final ExecutorService lane : lanes) {
+            lane.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Ids and codes of the devices matching the specification, ordered by id.
+     */
+    public List<Target> snapshot(final Specification<Device> spec) {
+        final CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        final Root<Device> root = query.from(Device.class);
+        query.multiselect(root.get("id"), root.get("deviceCode")).distinct(true);
+        final Predicate predicate = spec.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(builder.asc(root.get("id")));
+
+        final List<Tuple> rows = entityManager.createQuery(query).setMaxResults(maxDevices + 1).getResultList();
+        if (rows.size() > maxDevices) {
+            throw new IllegalArgumentException("The filter matches more than " + maxDevices + " devices");
+        }
+        return rows.stream()
+                .map(row -> new Target(row.get(0, Long.class), row.get(1, String.class)))
+                .toList();
+    }
+
+    public CommandFanOutJob start(final String operation, final List<Target> targets, final Long ownerId) {
+        return start(UUID.randomUUID().toString(), operation, targets, ownerId);
+    }
+
+    /**
+     * Starts a job under an id chosen by the caller, so the id can be recorded before the job runs.
+     */
+    public CommandFanOutJob start(final String jobId, final String operation, final List<Target> targets,
+                                  final Long ownerId) {
+        evictExpired();
+        final List<List<Target>> byLane = new ArrayList<>(lanes.length);
+        for (int i = 0; i < lanes.length; i++) {
+            byLane.add(new ArrayList<>());
+        }
+        for (final Target target : targets) {
+            byLane.get(lane(target.deviceId())).add(target);
+        }
+        int chunks = 0;
+        for (final List<Target> laneTargets : byLane) {
+            chunks += (laneTargets.size() + chunkSize - 1) / chunkSize;
+        }
+
+        final CommandFanOutJob job = new CommandFanOutJob(jobId, operation, ownerId, targets.size(), chunks);
+        jobs.put(job.getId(), job);
+        // Jobs enqueue on every lane before the next job does, so each device sees them in start order
+        synchronized (lanes) {
+            for (int i = 0; i < lanes.length; i++) {
+                final List<Target> laneTargets = byLane.get(i);
+                for (int from = 0; from < laneTargets.size(); from += chunkSize) {
+                    final List<Target> chunk = List.copyOf(
+                            laneTargets.subList(from, Math.min(from + chunkSize, laneTargets.size())));
+                    lanes[i].execute(() -> run(job, chunk));
+                }
+            }
+        }
+        logger.info("Started command fan-out {} of {} to {} devices", job.getId(), operation, targets.size());
+        return job;
+    }
+
+    public Optional<CommandFanOutJob> find(final String jobId) {
+        evictExpired();
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void run(final CommandFanOutJob job, final List<Target> chunk) {
+        try {
+            final Map<String, CommandFanOutJob.Outcome> outcomes =
+                    transactionTemplate.execute(status -> apply(job.getOperation(), chunk));
+            outcomes.forEach(job::record);
+        } catch (RuntimeException e) {
+            logger.error("Command fan-out {} failed for a chunk of {} devices", job.getId(), chunk.size(), e);
+            chunk.forEach(target -> job.record(target.deviceCode(), CommandFanOutJob.Outcome.FAILED));
+        } finally {
+            job.chunkDone();
+        }
+    }
+
+    private Map<String, CommandFanOutJob.Outcome> apply(final String operation, final List<Target> chunk) {
+        final DeviceStatus status = targetStatus(operation);
+        final Map<Long, DeviceStatus> current = new HashMap<>();
+        for (final Object[] row : devicesRepository.findCommandStates(chunk.stream().map(Target::deviceId).toList())) {
+            current.put((Long) row[0], (DeviceStatus) row[1]);
+        }
+
+        final LocalDateTime issuedAt = LocalDateTime.now();
+        final long changedAt = System.currentTimeMillis();
+        final List<Long> changedIds = new ArrayList<>();
+        final Map<String, CommandFanOutJob.Outcome> outcomes = new LinkedHashMap<>();
+        for (final Target target : chunk) {
+            if (!current.containsKey(target.deviceId())) {
+                outcomes.put(target.deviceCode(), CommandFanOutJob.Outcome.NOT_FOUND);
+                continue;
+            }
+            final DeviceStatus previousStatus = current.get(target.deviceId());
+            if (status != null && status != previousStatus) {
+                changedIds.add(target.deviceId());
+                eventPublisher.publishEvent(new DeviceStatusChangedEvent(target.deviceId(), target.deviceCode(),
+                        previousStatus, status, changedAt));
+                outcomes.put(target.deviceCode(), CommandFanOutJob.Outcome.CHANGED);
+            } else {
+                outcomes.put(target.deviceCode(), CommandFanOutJob.Outcome.UNCHANGED);
+            }
+            eventPublisher.publishEvent(new DeviceCommandEvent(target.deviceCode(), operation, issuedAt));
+        }
+        if (!changedIds.isEmpty()) {
+            devicesRepository.updateDeviceStatus(changedIds, status, issuedAt);
+        }
+        return outcomes;
+    }
+
+    /**
+     * The status an operation puts a device in, as in a single device command, or null when the
+     * operation leaves the status alone.
+     */
+    static DeviceStatus targetStatus(final String operation) {
+        if (Objects.equals(operation, "Deactivate")) {
+            return DeviceStatus.OFF;
+        } else if (Objects.equals(operation, "Activate")) {
+            return DeviceStatus.ON;
+        }
+        return null;
+    }
+
+    private int lane(final long deviceId) {
+        return Math.floorMod(Long.hashCode(deviceId), lanes.length);
+    }
+
+    private void evictExpired() {
+        final LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        jobs.values().removeIf(job -> job.isCompleted() && job.getCompletedAt().isBefore(cutoff));
+    }
+}
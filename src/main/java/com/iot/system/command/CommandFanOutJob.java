@@ -0,0 +1,116 @@
+package com.iot.system.command;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of one command fan-out. Outcomes are recorded by the lanes as their chunks finish, so
+ * the counters can be read while the job is still running.
+ */
+public final class CommandFanOutJob {
+
+    public enum Outcome { CHANGED, UNCHANGED, NOT_FOUND, FAILED }
+
+    private final String id;
+    private final String operation;
+    private final Long ownerId;
+    private final int total;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private final Map<String, Outcome> outcomes = new ConcurrentHashMap<>();
+    private final AtomicInteger changed = new AtomicInteger();
+    private final AtomicInteger unchanged = new AtomicInteger();
+    private final AtomicInteger notFound = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger pendingChunks;
+    private volatile LocalDateTime completedAt;
+
+    CommandFanOutJob(final String id, final String operation, final Long ownerId, final int total, final int chunks) {
+        this.id = id;
+        this.operation = operation;
+        this.ownerId = ownerId;
+        this.total = total;
+        this.pendingChunks = new AtomicInteger(chunks);
+        if (chunks == 0) {
+            completedAt = createdAt;
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * The user who started the job, or null when it was started by an admin.
+     */
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getChanged() {
+        return changed.get();
+    }
+
+    public int getUnchanged() {
+        return unchanged.get();
+    }
+
+    public int getNotFound() {
+        return notFound.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    public int getProcessed() {
+        return getChanged() + getUnchanged() + getNotFound() + getFailed();
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public boolean isCompleted() {
+        return completedAt != null;
+    }
+
+    /**
+     * Outcome of every processed device, ordered by device code.
+     */
+    public Map<String, Outcome> getOutcomes() {
+        return new TreeMap<>(outcomes);
+    }
+
+    void record(final String deviceCode, final Outcome outcome) {
+        if (outcomes.putIfAbsent(deviceCode, outcome) != null) {
+            return;
+        }
+        switch (outcome) {
+            case CHANGED -> changed.incrementAndGet();
+            case UNCHANGED -> unchanged.incrementAndGet();
+            case NOT_FOUND -> notFound.incrementAndGet();
+            case FAILED -> failed.incrementAndGet();
+        }
+    }
+
+    void chunkDone() {
+        if (pendingChunks.decrementAndGet() == 0) {
+            completedAt = LocalDateTime.now();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.iot.system.config;
+
+import com.iot.system.admission.AdmissionClass;
+import com.iot.system.admission.AdmissionControl;
+import com.iot.system.admission.AdmissionRejectedException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs first in the chain so shed requests cost neither token validation, body decompression nor a
+ * database connection.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final Pattern READINGS_PATH = Pattern.compile("^/monitoring/([^/]+)/readings$");
+    private static final Pattern COMMAND_PATH = Pattern.compile("^/devices/command/([^/]+)$");
+
+    private final AdmissionControl admissionControl;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!"POST".equals(request.getMethod())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        final String path = request.getRequestURI().substring(request.getContextPath().length());
+        AdmissionClass admissionClass = AdmissionClass.INGESTION;
+        Matcher matcher = READINGS_PATH.matcher(path);
+        if (!matcher.matches()) {
+            admissionClass = AdmissionClass.COMMAND;
+            matcher = COMMAND_PATH.matcher(path);
+            if (!matcher.matches()) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+        }
+
+        final String key = matcher.group(1);
+        try {
+            admissionControl.acquire(admissionClass, key);
+        } catch (AdmissionRejectedException e) {
+            sendErrorResponse(response, e);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            admissionControl.release(admissionClass, key);
+        }
+    }
+
+    private void sendErrorResponse(HttpServletResponse response, AdmissionRejectedException e) throws IOException {
+        response.setStatus(e.getStatus().value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()));
+        JwtAuthenticationFilter.sendErrorResponse(response, e.getStatus().value(), e.getMessage());
+    }
+}
@@ -32,6 +32,7 @@ import java.util.List;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+    private static final ObjectMapper ERROR_MAPPER = new ObjectMapper().registerModule(new JavaTimeModule());
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
     private final BlacklistedTokenRepository blacklistedTokenRepository;
@@ -107,13 +108,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
-    private void sendErrorResponse(HttpServletResponse response, int status, String message) throws IOException {
+    /**
+     * Writes the JSON error body the filters answer with before a request reaches a controller.
+     */
+    static void sendErrorResponse(HttpServletResponse response, int status, String message) throws IOException {
         response.setStatus(status);
         response.setContentType("application/json");
         ErrorResponse errorResponse = new ErrorResponse(status, message, LocalDateTime.now());
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule()); // Registro do módulo JSR310
-        response.getWriter().write(mapper.writeValueAsString(errorResponse));
+        response.getWriter().write(ERROR_MAPPER.writeValueAsString(errorResponse));
     }
 
     public static class ErrorResponse {
@@ -0,0 +1,236 @@
+package com.iot.system.config;
+
+import com.iot.system.exception.PayloadTooLargeException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Streams gzip or deflate (zlib) request bodies through an inflater, so controllers read plain
+ * content without the compressed body ever being buffered. The inflated size and the compression
+ * ratio are capped to defuse decompression bombs.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class RequestDecompressionFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestDecompressionFilter.class);
+
+    // Ratios of small bodies are noisy, so the ratio limit only applies past this size
+    private static final long RATIO_CHECK_THRESHOLD = 1024 * 1024;
+
+    private final long maxInflatedBytes;
+    private final long maxRatio;
+
+    public RequestDecompressionFilter(@Value("${request.decompression.max-inflated-bytes}") final long maxInflatedBytes,
+                                      @Value("${request.decompression.max-ratio}") final long maxRatio) {
+        this.maxInflatedBytes = maxInflatedBytes;
+        this.maxRatio = maxRatio;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        final String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (encoding == null || encoding.isBlank() || encoding.equalsIgnoreCase("identity")) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        final CountingInputStream compressed = new CountingInputStream(request.getInputStream());
+        final InputStream inflated;
+        try {
+            if (encoding.equalsIgnoreCase("gzip") || encoding.equalsIgnoreCase("x-gzip")) {
+                inflated = new GZIPInputStream(compressed, 8192);
+            } else if (encoding.equalsIgnoreCase("deflate")) {
+                inflated = new InflaterInputStream(compressed);
+            } else {
+                JwtAuthenticationFilter.sendErrorResponse(response, HttpStatus.UNSUPPORTED_MEDIA_TYPE.value(), "Unsupported Content-Encoding " + encoding);
+                return;
+            }
+        } catch (IOException e) {
+            JwtAuthenticationFilter.sendErrorResponse(response, HttpStatus.BAD_REQUEST.value(), "Malformed " + encoding + " request body");
+            return;
+        }
+
+        final InflatingServletInputStream body = new InflatingServletInputStream(inflated, compressed);
+        try {
+            filterChain.doFilter(new DecompressedRequest(request, body), response);
+        } finally {
+            body.close();
+            if (body.inflatedBytes > 0) {
+                logger.debug("Inflated {} request body from {} to {} bytes", encoding, compressed.count, body.inflatedBytes);
+            }
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            final int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+
+    private class InflatingServletInputStream extends ServletInputStream {
+        private final InputStream inflated;
+        private final CountingInputStream compressed;
+        private long inflatedBytes;
+        private boolean finished;
+
+        InflatingServletInputStream(final InputStream inflated, final CountingInputStream compressed) {
+            this.inflated = inflated;
+            this.compressed = compressed;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = inflated.read();
+            if (b < 0) {
+                finished = true;
+            } else {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            final int read = inflated.read(buffer, offset, length);
+            if (read < 0) {
+                finished = true;
+            } else {
+                count(read);
+            }
+            return read;
+        }
+
+        private void count(final int bytes) {
+            inflatedBytes += bytes;
+            if (inflatedBytes > maxInflatedBytes) {
+                throw new PayloadTooLargeException("Decompressed request body exceeds " + maxInflatedBytes + " bytes");
+            }
+            if (inflatedBytes > RATIO_CHECK_THRESHOLD && inflatedBytes > compressed.count * maxRatio) {
+                throw new PayloadTooLargeException("Request body compression ratio exceeds " + maxRatio + ":1");
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        // Non-blocking reads would need the inflater to stop at whatever compressed bytes have
+        // arrived, which InflaterInputStream cannot do. Spring MVC reads request bodies blocking
+        // and nothing in this application starts async request processing, so none is registered.
+        @Override
+        public void setReadListener(final ReadListener readListener) {
+            throw new UnsupportedOperationException("Asynchronous reads of compressed bodies are not supported");
+        }
+
+        @Override
+        public void close() throws IOException {
+            inflated.close();
+        }
+    }
+
+    private static class DecompressedRequest extends HttpServletRequestWrapper {
+        private final ServletInputStream body;
+
+        DecompressedRequest(final HttpServletRequest request, final ServletInputStream body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return body;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            final String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(body,
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(final String name) {
+            return isHidden(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(final String name) {
+            return isHidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            return Collections.enumeration(Collections.list(super.getHeaderNames()).stream()
+                    .filter(name -> !isHidden(name))
+                    .toList());
+        }
+
+        private boolean isHidden(final String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+}
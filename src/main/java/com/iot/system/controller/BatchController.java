@@ -0,0 +1,45 @@
+package com.iot.system.controller;
+
+import com.iot.system.config.JwtAuthenticationFilter;
+import com.iot.system.dto.BatchOperationRequest;
+import com.iot.system.dto.BatchResponse;
+import com.iot.system.exception.GlobalExceptionHandler;
+import com.iot.system.service.BatchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/batch")
+@RequiredArgsConstructor
+@Tag(name = "Batch", description = "API for running device and monitoring operations in one request")
+public class BatchController {
+
+    private final BatchService batchService;
+
+    @PostMapping
+    @Operation(summary = "Run a batch of operations", description = "Run up to 1000 device and monitoring operations in order, in one transaction. If an operation fails, the whole batch is rolled back and the operations after it are skipped")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch run; committed tells whether it was applied and each result carries the status of its operation"),
+            @ApiResponse(responseCode = "400", description = "No operations or too many operations", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 400, \"message\": \"At most 1000 operations can be run in one batch\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            )),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(
+                    schema = @Schema(implementation = JwtAuthenticationFilter.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 401, \"message\": \"Unauthorized\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            ))
+    })
+    public ResponseEntity<BatchResponse> execute(@RequestBody List<BatchOperationRequest> operations) {
+        return ResponseEntity.ok(batchService.execute(operations));
+    }
+}
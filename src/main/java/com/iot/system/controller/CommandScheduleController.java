@@ -0,0 +1,78 @@
+package com.iot.system.controller;
+
+import com.iot.system.config.JwtAuthenticationFilter;
+import com.iot.system.dto.ScheduleCommandRequest;
+import com.iot.system.exception.GlobalExceptionHandler;
+import com.iot.system.exception.SuccessResponse;
+import com.iot.system.model.ScheduledCommand;
+import com.iot.system.service.CommandScheduleService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/devices/{deviceCode}/schedules")
+@RequiredArgsConstructor
+@Tag(name = "Command Schedule", description = "API for scheduling one-time and recurring device commands")
+public class CommandScheduleController {
+
+    private final CommandScheduleService commandScheduleService;
+
+    @PostMapping
+    @Operation(summary = "Schedule a command", description = "Schedule a command for a device once at runAt or after delaySeconds, or every time a cron expression matches in the given time zone")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully scheduled the command"),
+            @ApiResponse(responseCode = "400", description = "Missing operation, not exactly one of runAt, delaySeconds or cron, or an invalid cron expression or time zone", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 400, \"message\": \"Exactly one of runAt, delaySeconds or cron is required\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            )),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(
+                    schema = @Schema(implementation = JwtAuthenticationFilter.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 401, \"message\": \"User not authorized to access this device.\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            )),
+            @ApiResponse(responseCode = "404", description = "Device not found", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 404, \"message\": \"Device not found\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            ))
+    })
+    public ResponseEntity<ScheduledCommand> scheduleCommand(@PathVariable String deviceCode,
+                                                            @RequestBody ScheduleCommandRequest scheduleRequest) {
+        return ResponseEntity.ok(commandScheduleService.scheduleCommand(deviceCode, scheduleRequest));
+    }
+
+    @GetMapping
+    @Operation(summary = "Get the scheduled commands of a device", description = "Retrieve the active and completed scheduled commands of a device")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved scheduled commands"),
+            @ApiResponse(responseCode = "404", description = "Device not found", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 404, \"message\": \"Device not found\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            ))
+    })
+    public ResponseEntity<List<ScheduledCommand>> getScheduledCommands(@PathVariable String deviceCode) {
+        return ResponseEntity.ok(commandScheduleService.getScheduledCommands(deviceCode));
+    }
+
+    @DeleteMapping("/{scheduleId}")
+    @Operation(summary = "Delete a scheduled command", description = "Delete a scheduled command so it does not run again")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully deleted scheduled command"),
+            @ApiResponse(responseCode = "404", description = "Device or scheduled command not found", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 404, \"message\": \"Scheduled command not found\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            ))
+    })
+    public ResponseEntity<SuccessResponse> deleteScheduledCommand(@PathVariable String deviceCode,
+                                                                  @PathVariable Long scheduleId) {
+        return ResponseEntity.ok(commandScheduleService.deleteScheduledCommand(deviceCode, scheduleId));
+    }
+}
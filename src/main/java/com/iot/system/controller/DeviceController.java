@@ -1,10 +1,18 @@
 package com.iot.system.controller;
 
 import com.iot.system.config.JwtAuthenticationFilter;
+import com.iot.system.dto.AvailabilityResponse;
+import com.iot.system.dto.CommandFanOutRequest;
+import com.iot.system.dto.CommandFanOutResponse;
 import com.iot.system.dto.CommandRequest;
+import com.iot.system.dto.DeviceBatchGetResponse;
 import com.iot.system.dto.DeviceRequest;
 import com.iot.system.dto.DeviceResponse;
+import com.iot.system.dto.DeviceSearchResponse;
+import com.iot.system.dto.FleetStatsResponse;
+import com.iot.system.dto.GatewayCredentialResponse;
 import com.iot.system.dto.MonitoringResponse;
+import com.iot.system.dto.StatusHistoryResponse;
 import com.iot.system.exception.GlobalExceptionHandler;
 import com.iot.system.exception.SuccessResponse;
 import com.iot.system.model.Device;
@@ -18,9 +26,11 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -45,6 +55,7 @@ public class DeviceController {
         @Operation(summary = "Get all devices pagination", description = "Retrieve a list of all devices with pagination and filtering")
         @ApiResponses(value = {
                         @ApiResponse(responseCode = "200", description = "Successfully retrieved devices"),
+                        @ApiResponse(responseCode = "400", description = "Invalid filter expression", content = @Content(schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class), examples = @ExampleObject(value = "{ \"status\": 400, \"message\": \"Unknown filter field url, expected one of [deviceCode, deviceName, description, deviceStatus, status, industryType, manufacturer, createdAt, updatedAt, lastSeenAt, userName]\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }"))),
                         @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema(implementation = JwtAuthenticationFilter.ErrorResponse.class), examples = @ExampleObject(value = "{ \"status\": 401, \"message\": \"Unauthorized\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")))
         })
         public ResponseEntity<DeviceResponse> getAllDevices(
@@ -57,9 +68,10 @@ public class DeviceController {
                         @RequestParam(value = "deviceName", required = false) String deviceName,
                         @RequestParam(value = "userName", required = false) String userName,
                         @RequestParam(value = "description", required = false) String description,
-                        @RequestParam(value = "deviceCode", required = false) String deviceCode) {
+                        @RequestParam(value = "deviceCode", required = false) String deviceCode,
+                        @RequestParam(value = "filter", required = false) String filter) {
                 return ResponseEntity.ok(deviceService.getAllDevices(pageNo, pageSize, sortBy, sortDir, deviceStatus,
-                                industryType, deviceName, userName, description, deviceCode));
+                                industryType, deviceName, userName, description, deviceCode, filter));
         }
 
         @GetMapping("/{deviceCode}")
@@ -78,6 +90,17 @@ public class DeviceController {
                 }
         }
 
+        @PostMapping("/batch-get")
+        @Operation(summary = "Get many devices by Device Code", description = "Retrieve up to 5000 devices by their Device Codes in one request. Results are keyed by code; each code is FOUND with its device, NOT_FOUND or FORBIDDEN")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Successfully resolved the device codes"),
+                        @ApiResponse(responseCode = "400", description = "No codes or too many codes", content = @Content(schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class), examples = @ExampleObject(value = "{ \"status\": 400, \"message\": \"At most 5000 device codes can be fetched at once\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }"))),
+                        @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema(implementation = JwtAuthenticationFilter.ErrorResponse.class), examples = @ExampleObject(value = "{ \"status\": 401, \"message\": \"Unauthorized\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")))
+        })
+        public ResponseEntity<DeviceBatchGetResponse> getDevicesByDeviceCodes(@RequestBody List<String> deviceCodes) {
+                return ResponseEntity.ok(deviceService.getDevicesByDeviceCodes(deviceCodes));
+        }
+
         @PostMapping("/command/{deviceCode}")
         @Operation(summary = "Send a command to a device", description = "Send a command to a device by its Device Code")
         @ApiResponses(value = {
@@ -95,6 +118,28 @@ public class DeviceController {
                 }
         }
 
+        @PostMapping("/commands/fan-out")
+        @Operation(summary = "Send a command to many devices", description = "Snapshot the devices matching deviceStatus, industryType and filter and send them the operation in the background. Returns the job to poll for progress")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "202", description = "Command fan-out started"),
+                        @ApiResponse(responseCode = "400", description = "Missing operation or criteria, invalid filter or too many matching devices", content = @Content(schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class), examples = @ExampleObject(value = "{ \"status\": 400, \"message\": \"At least one of deviceStatus, industryType or filter is required\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }"))),
+                        @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema(implementation = JwtAuthenticationFilter.ErrorResponse.class), examples = @ExampleObject(value = "{ \"status\": 401, \"message\": \"Unauthorized\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")))
+        })
+        public ResponseEntity<CommandFanOutResponse> startCommandFanOut(@RequestBody CommandFanOutRequest fanOutRequest) {
+                return ResponseEntity.accepted().body(deviceService.startCommandFanOut(fanOutRequest));
+        }
+
+        @GetMapping("/commands/fan-out/{jobId}")
+        @Operation(summary = "Get command fan-out progress", description = "Retrieve the counters and per-device results of a command fan-out started by the current user")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Successfully retrieved command fan-out"),
+                        @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema(implementation = JwtAuthenticationFilter.ErrorResponse.class), examples = @ExampleObject(value = "{ \"status\": 401, \"message\": \"User not authorized to access this command fan-out.\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }"))),
+                        @ApiResponse(responseCode = "404", description = "Command fan-out not found or expired", content = @Content(schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class), examples = @ExampleObject(value = "{ \"status\": 404, \"message\": \"Command fan-out not found\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")))
+        })
+        public ResponseEntity<CommandFanOutResponse> getCommandFanOut(@PathVariable String jobId) {
+                return ResponseEntity.ok(deviceService.getCommandFanOut(jobId));
+        }
+
         @PostMapping
         @Operation(summary = "Add a new device", description = "Add a new device to the system")
         @ApiResponses(value = {
@@ -173,4 +218,100 @@ public class DeviceController {
                 return ResponseEntity.ok(deviceService.getMonitoringByDeviceCode(deviceCode));
         }
 
+        @GetMapping("/{deviceCode}/gateway-credential")
+        @Operation(summary = "Get the gateway credential of a device", description = "Retrieve the credential a device presents when connecting to the binary TCP/UDP ingestion gateway")
+        @ApiResponses(value = {
+                @ApiResponse(responseCode = "200", description = "Successfully retrieved the credential"),
+                @ApiResponse(responseCode = "403", description = "Forbidden - User not authorized to access this device", content = @Content(schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class), examples = @ExampleObject(value = "{ \"status\": 403, \"message\": \"User not authorized to access this device.\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }"))),
+                @ApiResponse(responseCode = "404", description = "Device not found", content = @Content(schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class), examples = @ExampleObject(value = "{ \"status\": 404, \"message\": \"Device not found\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")))
+        })
+        public ResponseEntity<GatewayCredentialResponse> getGatewayCredential(@PathVariable String deviceCode) {
+                return ResponseEntity.ok(deviceService.getGatewayCredential(deviceCode));
+        }
+
+        @PostMapping("/{deviceCode}/heartbeat")
+        @Operation(summary = "Record a device heartbeat", description = "Mark a device as alive. Devices that stop sending heartbeats move to STANDBY and then OFF, and back to ON with the next heartbeat")
+        @ApiResponses(value = {
+                @ApiResponse(responseCode = "200", description = "Heartbeat recorded"),
+                @ApiResponse(responseCode = "403", description = "Forbidden - User not authorized to access this device", content = @Content(schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class), examples = @ExampleObject(value = "{ \"status\": 403, \"message\": \"User not authorized to access this device.\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }"))),
+                @ApiResponse(responseCode = "404", description = "Device not found", content = @Content(schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class), examples = @ExampleObject(value = "{ \"status\": 404, \"message\": \"Device not found\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")))
+        })
+        public ResponseEntity<SuccessResponse> recordHeartbeat(@PathVariable String deviceCode) {
+                return ResponseEntity.ok(deviceService.recordHeartbeat(deviceCode));
+        }
+
+        @GetMapping("/{deviceCode}/status-history")
+        @Operation(summary = "Get the status history of a device", description = "Retrieve the status of a device at 'from' and its status transitions until 'to' (epoch milliseconds)")
+        @ApiResponses(value = {
+                @ApiResponse(responseCode = "200", description = "Successfully retrieved the status history"),
+                @ApiResponse(responseCode = "400", description = "Invalid range", content = @Content(schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class), examples = @ExampleObject(value = "{ \"status\": 400, \"message\": \"from must be before to\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }"))),
+                @ApiResponse(responseCode = "403", description = "Forbidden - User not authorized to access this device", content = @Content(schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class), examples = @ExampleObject(value = "{ \"status\": 403, \"message\": \"User not authorized to access this device.\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }"))),
+                @ApiResponse(responseCode = "404", description = "Device not found", content = @Content(schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class), examples = @ExampleObject(value = "{ \"status\": 404, \"message\": \"Device not found\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")))
+        })
+        public ResponseEntity<StatusHistoryResponse> getStatusHistory(@PathVariable String deviceCode,
+                @RequestParam(value = "from") long from,
+                @RequestParam(value = "to") long to) {
+                return ResponseEntity.ok(deviceService.getStatusHistory(deviceCode, from, to));
+        }
+
+        @GetMapping("/{deviceCode}/availability")
+        @Operation(summary = "Get the availability of a device", description = "Retrieve the time a device spent ON, STANDBY and OFF on each UTC day of the range, and the share of that time it was ON")
+        @ApiResponses(value = {
+                @ApiResponse(responseCode = "200", description = "Successfully retrieved the availability"),
+                @ApiResponse(responseCode = "400", description = "Invalid range", content = @Content(schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class), examples = @ExampleObject(value = "{ \"status\": 400, \"message\": \"Range must not exceed 366 days\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }"))),
+                @ApiResponse(responseCode = "403", description = "Forbidden - User not authorized to access this device", content = @Content(schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class), examples = @ExampleObject(value = "{ \"status\": 403, \"message\": \"User not authorized to access this device.\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }"))),
+                @ApiResponse(responseCode = "404", description = "Device not found", content = @Content(schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class), examples = @ExampleObject(value = "{ \"status\": 404, \"message\": \"Device not found\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")))
+        })
+        public ResponseEntity<AvailabilityResponse> getAvailability(@PathVariable String deviceCode,
+                @RequestParam(value = "from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                @RequestParam(value = "to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+                return ResponseEntity.ok(deviceService.getAvailability(deviceCode, from, to));
+        }
+
+        @GetMapping("/availability")
+        @Operation(summary = "Get the availability of the fleet", description = "Retrieve the time the accessible devices spent ON, STANDBY and OFF on each UTC day of the range, optionally filtered by industry type")
+        @ApiResponses(value = {
+                @ApiResponse(responseCode = "200", description = "Successfully retrieved the availability"),
+                @ApiResponse(responseCode = "400", description = "Invalid range", content = @Content(schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class), examples = @ExampleObject(value = "{ \"status\": 400, \"message\": \"Range must not exceed 366 days\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }"))),
+                @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema(implementation = JwtAuthenticationFilter.ErrorResponse.class), examples = @ExampleObject(value = "{ \"status\": 401, \"message\": \"Unauthorized\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")))
+        })
+        public ResponseEntity<AvailabilityResponse> getFleetAvailability(
+                @RequestParam(value = "from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                @RequestParam(value = "to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                @RequestParam(value = "industryType", required = false) String industryType) {
+                return ResponseEntity.ok(deviceService.getFleetAvailability(from, to, industryType));
+        }
+
+        @GetMapping("/stats")
+        @Operation(summary = "Get fleet statistics", description = "Retrieve the number of devices per status, industry type and manufacturer and the number of monitorings per status. Admins read counters kept up to date by every change; other users get counts of the devices they can access")
+        @ApiResponses(value = {
+                @ApiResponse(responseCode = "200", description = "Successfully retrieved the statistics"),
+                @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema(implementation = JwtAuthenticationFilter.ErrorResponse.class), examples = @ExampleObject(value = "{ \"status\": 401, \"message\": \"Unauthorized\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")))
+        })
+        public ResponseEntity<FleetStatsResponse> getFleetStats() {
+                return ResponseEntity.ok(deviceService.getFleetStats());
+        }
+
+        @GetMapping("/search")
+        @Operation(summary = "Search devices with facet counts", description = "Retrieve a page of devices with the filters of /devices/pageable, together with the number of matching devices per deviceStatus, industryType and manufacturer. Served from an in-memory index in a single pass; sortBy must be one of id, deviceCode, deviceName, description, deviceStatus, industryType, manufacturer or createdAt")
+        @ApiResponses(value = {
+                @ApiResponse(responseCode = "200", description = "Successfully retrieved devices and facets"),
+                @ApiResponse(responseCode = "400", description = "Invalid filter or sort", content = @Content(schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class), examples = @ExampleObject(value = "{ \"status\": 400, \"message\": \"Sorting by url is not supported by the device search\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }"))),
+                @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema(implementation = JwtAuthenticationFilter.ErrorResponse.class), examples = @ExampleObject(value = "{ \"status\": 401, \"message\": \"Unauthorized\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")))
+        })
+        public ResponseEntity<DeviceSearchResponse> searchDevices(
+                @RequestParam(value = "pageNo", defaultValue = "0", required = false) int pageNo,
+                @RequestParam(value = "pageSize", defaultValue = "10", required = false) int pageSize,
+                @RequestParam(value = "sortBy", defaultValue = "deviceCode", required = false) String sortBy,
+                @RequestParam(value = "sortDir", defaultValue = "asc", required = false) String sortDir,
+                @RequestParam(value = "deviceStatus", required = false) String deviceStatus,
+                @RequestParam(value = "industryType", required = false) String industryType,
+                @RequestParam(value = "deviceName", required = false) String deviceName,
+                @RequestParam(value = "userName", required = false) String userName,
+                @RequestParam(value = "description", required = false) String description,
+                @RequestParam(value = "deviceCode", required = false) String deviceCode) {
+                return ResponseEntity.ok(deviceService.searchDevices(pageNo, pageSize, sortBy, sortDir, deviceStatus,
+                                industryType, deviceName, userName, description, deviceCode));
+        }
+
 }
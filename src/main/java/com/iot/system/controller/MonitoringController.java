@@ -1,13 +1,27 @@
 package com.iot.system.controller;
 
 import com.iot.system.config.JwtAuthenticationFilter;
+import com.iot.system.dto.AggregationResponse;
+import com.iot.system.dto.AlertRuleRequest;
 import com.iot.system.dto.MonitoringRequest;
 import com.iot.system.dto.MonitoringResponse;
+import com.iot.system.dto.PercentileResponse;
+import com.iot.system.dto.ReadingRequest;
+import com.iot.system.dto.RetentionPolicyRequest;
 import com.iot.system.exception.GlobalExceptionHandler;
 import com.iot.system.exception.SuccessResponse;
+import com.iot.system.model.Alert;
+import com.iot.system.model.AlertRule;
+import com.iot.system.model.AlertStatus;
+import com.iot.system.model.Anomaly;
 import com.iot.system.model.Monitoring;
 import com.iot.system.model.MonitoringStatus;
+import com.iot.system.model.RetentionPolicy;
+import com.iot.system.service.AlertService;
 import com.iot.system.service.MonitoringService;
+import com.iot.system.service.RetentionPolicyService;
+import com.iot.system.service.TelemetryService;
+import com.iot.system.telemetry.BinaryReadingDecoder;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
@@ -18,7 +32,9 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/monitoring")
@@ -26,6 +42,9 @@ import java.util.List;
 public class MonitoringController {
 
     private final MonitoringService monitoringService;
+    private final TelemetryService telemetryService;
+    private final RetentionPolicyService retentionPolicyService;
+    private final AlertService alertService;
 
     @GetMapping
     @Operation(summary = "Get all monitorings", description = "Retrieve a list of all monitorings")
@@ -78,6 +97,10 @@ public class MonitoringController {
     @Operation(summary = "Get all Monitoring", description = "Get all Register Monitoring with pagination and filtering")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved monitorings"),
+            @ApiResponse(responseCode = "400", description = "Invalid filter expression", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 400, \"message\": \"Expected an argument at position 8 of filter: status==\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            )),
             @ApiResponse(responseCode = "403", description = "Forbidden - User not authorized to view these monitorings", content = @Content(
                     schema = @Schema(implementation = JwtAuthenticationFilter.ErrorResponse.class),
                     examples = @ExampleObject(value = "{ \"status\": 403, \"message\": \"Forbidden\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
@@ -98,9 +121,339 @@ public class MonitoringController {
             @RequestParam(value = "userName", required = false) String userName,
             @RequestParam(value = "deviceName", required = false) String deviceName,
             @RequestParam(value = "createdAt", required = false) String createdAt,
-            @RequestParam(value = "updatedAt", required = false) String updatedAt
+            @RequestParam(value = "updatedAt", required = false) String updatedAt,
+            @RequestParam(value = "filter", required = false) String filter
+    ) {
+        return ResponseEntity.ok(monitoringService.getAllMonitoring(pageNo, pageSize, sortBy, sortDir, monitoringStatus, deviceCode, monitoringCode, userName, deviceName, createdAt, updatedAt, filter));
+    }
+
+    @PostMapping("/{monitoringCode}/readings")
+    @Operation(summary = "Ingest readings", description = "Accept a batch of timestamped metric values for a monitoring")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Readings accepted for asynchronous persistence"),
+            @ApiResponse(responseCode = "400", description = "Invalid input", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 400, \"message\": \"Invalid input\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            )),
+            @ApiResponse(responseCode = "404", description = "Monitoring not found", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 404, \"message\": \"Monitoring not found\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            )),
+            @ApiResponse(responseCode = "503", description = "Ingestion buffer is full", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 503, \"message\": \"Ingestion buffer is full\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            ))
+    })
+    public ResponseEntity<SuccessResponse> ingestReadings(@PathVariable String monitoringCode, @RequestBody List<ReadingRequest> readings) {
+        return ResponseEntity.accepted().body(telemetryService.ingestReadings(monitoringCode, readings));
+    }
+
+    @PostMapping(value = "/{monitoringCode}/readings", consumes = BinaryReadingDecoder.MEDIA_TYPE)
+    @Operation(summary = "Ingest binary readings", description = "Accept a batch of readings in the compact binary format (" + BinaryReadingDecoder.MEDIA_TYPE + ")")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Readings accepted for asynchronous persistence"),
+            @ApiResponse(responseCode = "400", description = "Malformed batch or unknown metric id", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 400, \"message\": \"Truncated binary reading batch\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            )),
+            @ApiResponse(responseCode = "404", description = "Monitoring not found", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 404, \"message\": \"Monitoring not found\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            )),
+            @ApiResponse(responseCode = "503", description = "Ingestion buffer is full", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 503, \"message\": \"Ingestion buffer is full\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            ))
+    })
+    public ResponseEntity<SuccessResponse> ingestBinaryReadings(@PathVariable String monitoringCode, @RequestBody byte[] batch) {
+        return ResponseEntity.accepted().body(telemetryService.ingestBinaryReadings(monitoringCode, ByteBuffer.wrap(batch)));
+    }
+
+    @GetMapping("/metrics")
+    @Operation(summary = "Get metric dictionary", description = "List the ids of every registered metric, used by the binary ingestion format")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved metrics")
+    })
+    public ResponseEntity<Map<String, Integer>> getMetrics() {
+        return ResponseEntity.ok(telemetryService.getMetrics());
+    }
+
+    @PostMapping("/metrics")
+    @Operation(summary = "Register metrics", description = "Register metric names and return their ids for the binary ingestion format")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully registered metrics"),
+            @ApiResponse(responseCode = "400", description = "Invalid metric name", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 400, \"message\": \"Metric name must have between 1 and 64 characters\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            ))
+    })
+    public ResponseEntity<Map<String, Integer>> registerMetrics(@RequestBody List<String> names) {
+        return ResponseEntity.ok(telemetryService.registerMetrics(names));
+    }
+
+    @GetMapping("/{monitoringCode}/readings/aggregate")
+    @Operation(summary = "Aggregate readings", description = "Min, max, avg, sum, count and last value of a metric per time bucket")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully aggregated readings"),
+            @ApiResponse(responseCode = "400", description = "Invalid time range or step", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 400, \"message\": \"Invalid step\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            )),
+            @ApiResponse(responseCode = "404", description = "Monitoring or metric not found", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 404, \"message\": \"Monitoring not found\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            ))
+    })
+    public ResponseEntity<AggregationResponse> aggregateReadings(
+            @PathVariable String monitoringCode,
+            @RequestParam(value = "metric") String metric,
+            @RequestParam(value = "from") long from,
+            @RequestParam(value = "to") long to,
+            @RequestParam(value = "step", defaultValue = "1h", required = false) String step
+    ) {
+        return ResponseEntity.ok(telemetryService.aggregate(monitoringCode, metric, from, to, step));
+    }
+
+    @GetMapping("/readings/aggregate")
+    @Operation(summary = "Aggregate fleet readings", description = "Aggregate a metric across every accessible monitoring of an industry type")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully aggregated readings"),
+            @ApiResponse(responseCode = "400", description = "Invalid time range or step", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 400, \"message\": \"Invalid step\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            )),
+            @ApiResponse(responseCode = "404", description = "Metric not found", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 404, \"message\": \"Metric temperature not found\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            ))
+    })
+    public ResponseEntity<AggregationResponse> aggregateFleetReadings(
+            @RequestParam(value = "industryType") String industryType,
+            @RequestParam(value = "metric") String metric,
+            @RequestParam(value = "from") long from,
+            @RequestParam(value = "to") long to,
+            @RequestParam(value = "step", defaultValue = "1h", required = false) String step
+    ) {
+        return ResponseEntity.ok(telemetryService.aggregateFleet(industryType, metric, from, to, step));
+    }
+
+    @GetMapping("/{monitoringCode}/readings/percentiles")
+    @Operation(summary = "Percentiles of readings", description = "Quantiles of a metric per time bucket, such as p50, p95 and p99 of a response time")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully computed percentiles"),
+            @ApiResponse(responseCode = "400", description = "Invalid time range, step or quantiles", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 400, \"message\": \"Invalid quantiles 95, use values between 0 and 1 such as 0.5,0.95,0.99\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            )),
+            @ApiResponse(responseCode = "404", description = "Monitoring or metric not found", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 404, \"message\": \"Monitoring not found\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            ))
+    })
+    public ResponseEntity<PercentileResponse> readingPercentiles(
+            @PathVariable String monitoringCode,
+            @RequestParam(value = "metric") String metric,
+            @RequestParam(value = "from") long from,
+            @RequestParam(value = "to") long to,
+            @RequestParam(value = "step", defaultValue = "1h", required = false) String step,
+            @RequestParam(value = "quantiles", defaultValue = "0.5,0.95,0.99", required = false) String quantiles
+    ) {
+        return ResponseEntity.ok(telemetryService.percentiles(monitoringCode, metric, from, to, step, quantiles));
+    }
+
+    @GetMapping("/readings/percentiles")
+    @Operation(summary = "Percentiles of fleet readings", description = "Quantiles of a metric across every accessible monitoring of an industry type")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully computed percentiles"),
+            @ApiResponse(responseCode = "400", description = "Invalid time range, step or quantiles", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 400, \"message\": \"Invalid step\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            )),
+            @ApiResponse(responseCode = "404", description = "Metric not found", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 404, \"message\": \"Metric response_time_ms not found\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            ))
+    })
+    public ResponseEntity<PercentileResponse> fleetReadingPercentiles(
+            @RequestParam(value = "industryType") String industryType,
+            @RequestParam(value = "metric") String metric,
+            @RequestParam(value = "from") long from,
+            @RequestParam(value = "to") long to,
+            @RequestParam(value = "step", defaultValue = "1h", required = false) String step,
+            @RequestParam(value = "quantiles", defaultValue = "0.5,0.95,0.99", required = false) String quantiles
+    ) {
+        return ResponseEntity.ok(telemetryService.percentilesFleet(industryType, metric, from, to, step, quantiles));
+    }
+
+    @GetMapping("/{monitoringCode}/anomalies")
+    @Operation(summary = "Get anomalies", description = "Get the runs of readings that deviated from the learned baseline of a monitoring")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved anomalies"),
+            @ApiResponse(responseCode = "400", description = "Invalid time range", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 400, \"message\": \"from must be before to\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            )),
+            @ApiResponse(responseCode = "404", description = "Monitoring not found", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 404, \"message\": \"Monitoring not found\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            ))
+    })
+    public ResponseEntity<List<Anomaly>> getAnomalies(
+            @PathVariable String monitoringCode,
+            @RequestParam(value = "metric", required = false) String metric,
+            @RequestParam(value = "from") long from,
+            @RequestParam(value = "to") long to
+    ) {
+        return ResponseEntity.ok(telemetryService.getAnomalies(monitoringCode, metric, from, to));
+    }
+
+    @GetMapping("/{monitoringCode}/retention")
+    @Operation(summary = "Get retention policy", description = "Get the effective telemetry retention of a monitoring")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved retention policy"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - User not authorized to view this monitoring", content = @Content(
+                    schema = @Schema(implementation = JwtAuthenticationFilter.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 403, \"message\": \"Forbidden\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            )),
+            @ApiResponse(responseCode = "404", description = "Monitoring not found", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 404, \"message\": \"Monitoring not found\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            ))
+    })
+    public ResponseEntity<RetentionPolicy> getRetentionPolicy(@PathVariable String monitoringCode) {
+        return ResponseEntity.ok(retentionPolicyService.getEffectivePolicy(monitoringCode));
+    }
+
+    @PutMapping("/{monitoringCode}/retention")
+    @Operation(summary = "Update retention policy", description = "Set how many days raw readings and rollups of a monitoring are kept")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully updated retention policy"),
+            @ApiResponse(responseCode = "400", description = "Invalid input", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 400, \"message\": \"Invalid input\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            )),
+            @ApiResponse(responseCode = "403", description = "Forbidden - User not authorized to update this monitoring", content = @Content(
+                    schema = @Schema(implementation = JwtAuthenticationFilter.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 403, \"message\": \"Forbidden\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            )),
+            @ApiResponse(responseCode = "404", description = "Monitoring not found", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 404, \"message\": \"Monitoring not found\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            ))
+    })
+    public ResponseEntity<RetentionPolicy> updateRetentionPolicy(@PathVariable String monitoringCode, @RequestBody RetentionPolicyRequest request) {
+        return ResponseEntity.ok(retentionPolicyService.updateMonitoringPolicy(monitoringCode, request));
+    }
+
+    @PutMapping("/retention/industry/{industryType}")
+    @Operation(summary = "Update industry retention policy", description = "Set the default telemetry retention of every monitoring of an industry type")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully updated retention policy"),
+            @ApiResponse(responseCode = "400", description = "Invalid input", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 400, \"message\": \"Invalid input\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            )),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Only administrators can update industry policies", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 401, \"message\": \"Unauthorized\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            ))
+    })
+    public ResponseEntity<RetentionPolicy> updateIndustryRetentionPolicy(@PathVariable String industryType, @RequestBody RetentionPolicyRequest request) {
+        return ResponseEntity.ok(retentionPolicyService.updateIndustryPolicy(industryType, request));
+    }
+
+    @GetMapping("/{monitoringCode}/alert-rules")
+    @Operation(summary = "Get alert rules", description = "Get the alert rules of a monitoring, including the rules of its industry type")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved alert rules"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - User not authorized to view this monitoring", content = @Content(
+                    schema = @Schema(implementation = JwtAuthenticationFilter.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 403, \"message\": \"Forbidden\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            )),
+            @ApiResponse(responseCode = "404", description = "Monitoring not found", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 404, \"message\": \"Monitoring not found\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            ))
+    })
+    public ResponseEntity<List<AlertRule>> getAlertRules(@PathVariable String monitoringCode) {
+        return ResponseEntity.ok(alertService.getRules(monitoringCode));
+    }
+
+    @PostMapping("/{monitoringCode}/alert-rules")
+    @Operation(summary = "Create alert rule", description = "Alert when a metric of a monitoring crosses a threshold, changes too fast or flatlines")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully created alert rule"),
+            @ApiResponse(responseCode = "400", description = "Invalid input", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 400, \"message\": \"Alert rule threshold is required\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            )),
+            @ApiResponse(responseCode = "403", description = "Forbidden - User not authorized to update this monitoring", content = @Content(
+                    schema = @Schema(implementation = JwtAuthenticationFilter.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 403, \"message\": \"Forbidden\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            )),
+            @ApiResponse(responseCode = "404", description = "Monitoring not found", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 404, \"message\": \"Monitoring not found\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            ))
+    })
+    public ResponseEntity<AlertRule> createAlertRule(@PathVariable String monitoringCode, @RequestBody AlertRuleRequest request) {
+        return ResponseEntity.ok(alertService.createMonitoringRule(monitoringCode, request));
+    }
+
+    @PostMapping("/alert-rules/industry/{industryType}")
+    @Operation(summary = "Create industry alert rule", description = "Create an alert rule applied to every monitoring of an industry type")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully created alert rule"),
+            @ApiResponse(responseCode = "400", description = "Invalid input", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 400, \"message\": \"Alert rule threshold is required\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            )),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Only administrators can create industry alert rules", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 401, \"message\": \"Unauthorized\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            ))
+    })
+    public ResponseEntity<AlertRule> createIndustryAlertRule(@PathVariable String industryType, @RequestBody AlertRuleRequest request) {
+        return ResponseEntity.ok(alertService.createIndustryRule(industryType, request));
+    }
+
+    @DeleteMapping("/alert-rules/{ruleId}")
+    @Operation(summary = "Delete alert rule", description = "Delete an alert rule and resolve its active alerts")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully deleted alert rule"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - User not authorized to delete this alert rule", content = @Content(
+                    schema = @Schema(implementation = JwtAuthenticationFilter.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 403, \"message\": \"Forbidden\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            )),
+            @ApiResponse(responseCode = "404", description = "Alert rule not found", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 404, \"message\": \"Alert rule not found\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            ))
+    })
+    public ResponseEntity<SuccessResponse> deleteAlertRule(@PathVariable Long ruleId) {
+        return ResponseEntity.ok(alertService.deleteRule(ruleId));
+    }
+
+    @GetMapping("/{monitoringCode}/alerts")
+    @Operation(summary = "Get alerts", description = "Get the alerts of a monitoring, most recent first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved alerts"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - User not authorized to view this monitoring", content = @Content(
+                    schema = @Schema(implementation = JwtAuthenticationFilter.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 403, \"message\": \"Forbidden\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            )),
+            @ApiResponse(responseCode = "404", description = "Monitoring not found", content = @Content(
+                    schema = @Schema(implementation = GlobalExceptionHandler.ErrorResponse.class),
+                    examples = @ExampleObject(value = "{ \"status\": 404, \"message\": \"Monitoring not found\", \"timestamp\": \"2024-07-11T18:04:42.4620788\" }")
+            ))
+    })
+    public ResponseEntity<List<Alert>> getAlerts(
+            @PathVariable String monitoringCode,
+            @RequestParam(value = "status", required = false) AlertStatus status,
+            @RequestParam(value = "pageNo", defaultValue = "0", required = false) int pageNo,
+            @RequestParam(value = "pageSize", defaultValue = "20", required = false) int pageSize
     ) {
-        return ResponseEntity.ok(monitoringService.getAllMonitoring(pageNo, pageSize, sortBy, sortDir, monitoringStatus, deviceCode, monitoringCode, userName, deviceName, createdAt, updatedAt));
+        return ResponseEntity.ok(alertService.getAlerts(monitoringCode, status, pageNo, pageSize));
     }
 
     @PutMapping("/{monitoringCode}")
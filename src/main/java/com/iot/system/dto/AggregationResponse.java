@@ -0,0 +1,21 @@
+package com.iot.system.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class AggregationResponse {
+    private String metric;
+    private long from;
+    private long to;
+    private long step;
+    private int series;
+    private long[] timestamps;
+    private double[] min;
+    private double[] max;
+    private double[] avg;
+    private double[] sum;
+    private long[] count;
+    private double[] last;
+}
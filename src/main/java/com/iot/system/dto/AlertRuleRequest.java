@@ -0,0 +1,14 @@
+package com.iot.system.dto;
+
+import com.iot.system.model.AlertRuleType;
+import lombok.Data;
+
+@Data
+public class AlertRuleRequest {
+    private String name;
+    private String metric;
+    private AlertRuleType type;
+    private Double threshold;
+    private Double clearThreshold;
+    private Long durationMs;
+}
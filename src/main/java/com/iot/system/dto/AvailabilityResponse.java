@@ -0,0 +1,31 @@
+package com.iot.system.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+public class AvailabilityResponse {
+    private String deviceCode;
+    private String industryType;
+    private LocalDate from;
+    private LocalDate to;
+    private long onMs;
+    private long standbyMs;
+    private long offMs;
+    private Double availability;
+    private List<Day> days;
+
+    @Data
+    @Builder
+    public static class Day {
+        private LocalDate day;
+        private long onMs;
+        private long standbyMs;
+        private long offMs;
+        private Double availability;
+    }
+}
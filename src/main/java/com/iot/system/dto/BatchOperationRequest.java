@@ -0,0 +1,18 @@
+package com.iot.system.dto;
+
+import lombok.Data;
+
+@Data
+public class BatchOperationRequest {
+    private Type type;
+    private String deviceCode;
+    private String monitoringCode;
+    private DeviceRequest device;
+    private MonitoringRequest monitoring;
+    private CommandRequest command;
+
+    public enum Type {
+        CREATE_DEVICE, UPDATE_DEVICE, DELETE_DEVICE, SEND_COMMAND,
+        CREATE_MONITORING, UPDATE_MONITORING, DELETE_MONITORING
+    }
+}
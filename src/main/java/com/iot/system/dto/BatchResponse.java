@@ -0,0 +1,23 @@
+package com.iot.system.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BatchResponse {
+    private boolean committed;
+    private List<Result> results;
+
+    @Data
+    @Builder
+    public static class Result {
+        private int index;
+        private BatchOperationRequest.Type type;
+        private int status;
+        private String message;
+        private Object body;
+    }
+}
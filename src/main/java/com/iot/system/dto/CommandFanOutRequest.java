@@ -0,0 +1,11 @@
+package com.iot.system.dto;
+
+import lombok.Data;
+
+@Data
+public class CommandFanOutRequest {
+    private String operation;
+    private String deviceStatus;
+    private String industryType;
+    private String filter;
+}
@@ -0,0 +1,25 @@
+package com.iot.system.dto;
+
+import com.iot.system.command.CommandFanOutJob;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@Builder
+public class CommandFanOutResponse {
+    private String jobId;
+    private String operation;
+    private boolean completed;
+    private int total;
+    private int processed;
+    private int changed;
+    private int unchanged;
+    private int notFound;
+    private int failed;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+    private Map<String, CommandFanOutJob.Outcome> results;
+}
@@ -0,0 +1,25 @@
+package com.iot.system.dto;
+
+import com.iot.system.model.Device;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@Builder
+public class DeviceBatchGetResponse {
+    private Map<String, Item> devices;
+    private int found;
+    private int notFound;
+    private int forbidden;
+
+    public enum Status { FOUND, NOT_FOUND, FORBIDDEN }
+
+    @Data
+    @Builder
+    public static class Item {
+        private Status status;
+        private Device device;
+    }
+}
@@ -0,0 +1,20 @@
+package com.iot.system.dto;
+
+import com.iot.system.model.Device;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+public class DeviceSearchResponse {
+    private List<Device> content;
+    private int pageNo;
+    private int pageSize;
+    private long totalElements;
+    private int totalPages;
+    private boolean last;
+    private Map<String, Map<String, Long>> facets;
+}
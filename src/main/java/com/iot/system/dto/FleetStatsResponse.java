@@ -0,0 +1,19 @@
+package com.iot.system.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@Builder
+public class FleetStatsResponse {
+    private long devices;
+    private Map<String, Long> devicesByStatus;
+    private Map<String, Long> devicesByIndustryType;
+    private Map<String, Long> devicesByManufacturer;
+    private long monitorings;
+    private Map<String, Long> monitoringsByStatus;
+    private LocalDateTime countedAt;
+}
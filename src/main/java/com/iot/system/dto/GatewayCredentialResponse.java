@@ -0,0 +1,13 @@
+package com.iot.system.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class GatewayCredentialResponse {
+    private String deviceCode;
+    private String credential;
+    private int tcpPort;
+    private int udpPort;
+}
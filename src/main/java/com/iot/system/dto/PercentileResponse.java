@@ -0,0 +1,19 @@
+package com.iot.system.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@Builder
+public class PercentileResponse {
+    private String metric;
+    private long from;
+    private long to;
+    private long step;
+    private int series;
+    private long[] timestamps;
+    private long[] count;
+    private Map<String, double[]> percentiles;
+}
@@ -0,0 +1,10 @@
+package com.iot.system.dto;
+
+import lombok.Data;
+
+@Data
+public class ReadingRequest {
+    private String metric;
+    private long[] timestamps;
+    private double[] values;
+}
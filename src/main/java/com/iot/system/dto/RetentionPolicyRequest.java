@@ -0,0 +1,11 @@
+package com.iot.system.dto;
+
+import lombok.Data;
+
+@Data
+public class RetentionPolicyRequest {
+    private Integer rawDays;
+    private Integer minuteDays;
+    private Integer hourDays;
+    private Integer dayDays;
+}
@@ -0,0 +1,14 @@
+package com.iot.system.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class ScheduleCommandRequest {
+    private String operation;
+    private LocalDateTime runAt;
+    private Long delaySeconds;
+    private String cron;
+    private String zone;
+}
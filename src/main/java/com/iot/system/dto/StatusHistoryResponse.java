@@ -0,0 +1,18 @@
+package com.iot.system.dto;
+
+import com.iot.system.history.StatusTransition;
+import com.iot.system.model.DeviceStatus;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class StatusHistoryResponse {
+    private String deviceCode;
+    private long from;
+    private long to;
+    private DeviceStatus initialStatus;
+    private List<StatusTransition> transitions;
+}
@@ -0,0 +1,18 @@
+package com.iot.system.event;
+
+import com.iot.system.model.Device;
+import com.iot.system.model.DeviceStatus;
+
+/**
+ * Published when a device is created, updated or deleted. {@code before} is null for a new device
+ * and {@code after} is null for a deleted one.
+ */
+public record DeviceChangedEvent(long deviceId, String deviceCode, Snapshot before, Snapshot after) {
+
+    public record Snapshot(DeviceStatus status, String industryType, String manufacturer) {
+
+        public static Snapshot of(final Device device) {
+            return new Snapshot(device.getDeviceStatus(), device.getIndustryType(), device.getManufacturer());
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.iot.system.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when a command is sent to a device, so listeners can forward it to the device.
+ */
+public record DeviceCommandEvent(String deviceCode, String operation, LocalDateTime issuedAt) {
+}
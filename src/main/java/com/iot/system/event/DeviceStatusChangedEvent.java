@@ -0,0 +1,12 @@
+package com.iot.system.event;
+
+import com.iot.system.model.DeviceStatus;
+
+/**
+ * Published when the status of a device changes, through the API or by missed and resumed
+ * heartbeats. {@code previousStatus} is null for a new device; {@code changedAt} is epoch
+ * milliseconds.
+ */
+public record DeviceStatusChangedEvent(long deviceId, String deviceCode, DeviceStatus previousStatus,
+                                       DeviceStatus status, long changedAt) {
+}
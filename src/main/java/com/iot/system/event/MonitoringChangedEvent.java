@@ -0,0 +1,18 @@
+package com.iot.system.event;
+
+import com.iot.system.model.Monitoring;
+import com.iot.system.model.MonitoringStatus;
+
+/**
+ * Published when a monitoring is created, updated or deleted. {@code before} is null for a new
+ * monitoring and {@code after} is null for a deleted one.
+ */
+public record MonitoringChangedEvent(long monitoringId, Snapshot before, Snapshot after) {
+
+    public record Snapshot(MonitoringStatus status) {
+
+        public static Snapshot of(final Monitoring monitoring) {
+            return new Snapshot(monitoring.getMonitoringStatus());
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.iot.system.event;
+
+/**
+ * Published when the stored telemetry of a monitoring is deleted, so in-memory state of the
+ * series is only dropped once the deletion commits.
+ */
+public record TelemetrySeriesDeletedEvent(long monitoringId, String monitoringCode) {
+}
@@ -0,0 +1,41 @@
+package com.iot.system.filter;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Comparison operators of the filter language, with their RSQL symbol and, where one exists, the
+ * FIQL shorthand accepted as an alias.
+ */
+public enum ComparisonOperator {
+    EQUAL("==", null),
+    NOT_EQUAL("!=", null),
+    GREATER_THAN("=gt=", ">"),
+    GREATER_THAN_OR_EQUAL("=ge=", ">="),
+    LESS_THAN("=lt=", "<"),
+    LESS_THAN_OR_EQUAL("=le=", "<="),
+    IN("=in=", null),
+    NOT_IN("=out=", null);
+
+    private final String symbol;
+    private final String alias;
+
+    ComparisonOperator(final String symbol, final String alias) {
+        this.symbol = symbol;
+        this.alias = alias;
+    }
+
+    public String symbol() {
+        return symbol;
+    }
+
+    public boolean isMultiValued() {
+        return this == IN || this == NOT_IN;
+    }
+
+    static Optional<ComparisonOperator> bySymbol(final String symbol) {
+        return Arrays.stream(values())
+                .filter(operator -> operator.symbol.equals(symbol) || symbol.equals(operator.alias))
+                .findFirst();
+    }
+}
@@ -0,0 +1,31 @@
+package com.iot.system.filter;
+
+import com.iot.system.model.Device;
+import com.iot.system.model.DeviceStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Filter expressions over devices, as accepted by the {@code filter} parameter of the device listing.
+ */
+@Component
+public class DeviceFilters extends FilterCompiler<Device> {
+
+    private static final FilterSchema<Device> SCHEMA = FilterSchema.<Device>builder()
+            .text("deviceCode", root -> root.get("deviceCode"))
+            .text("deviceName", root -> root.get("deviceName"))
+            .text("description", root -> root.get("description"))
+            .enumeration("deviceStatus", DeviceStatus.class, root -> root.get("deviceStatus"))
+            .alias("status", "deviceStatus")
+            .text("industryType", root -> root.get("industryType"))
+            .text("manufacturer", root -> root.get("manufacturer"))
+            .dateTime("createdAt", root -> root.get("createdAt"))
+            .dateTime("updatedAt", root -> root.get("updatedAt"))
+            .dateTime("lastSeenAt", root -> root.get("lastSeenAt"))
+            .joinedText("userName", root -> root.join("users").get("name"))
+            .build();
+
+    public DeviceFilters(@Value("${filter.plan-cache-size}") final int planCacheSize) {
+        super(SCHEMA, planCacheSize);
+    }
+}
@@ -0,0 +1,90 @@
+package com.iot.system.filter;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles filter expressions into {@link Specification}s over one entity. Plans are cached by
+ * normalized expression, so equivalent filters share a plan, and by the exact text, so a repeated
+ * filter is neither parsed nor normalized again. Both caches evict the least recently used plan.
+ */
+public class FilterCompiler<T> {
+
+    private final FilterSchema<T> schema;
+    private final Map<String, Plan<T>> byExpression;
+    private final Map<String, Specification<T>> byNormalizedExpression;
+
+    public FilterCompiler(final FilterSchema<T> schema, final int cacheSize) {
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("filter.plan-cache-size must be positive");
+        }
+        this.schema = schema;
+        this.byExpression = lruCache(cacheSize);
+        this.byNormalizedExpression = lruCache(cacheSize);
+    }
+
+    public Specification<T> compile(final String expression) {
+        return resolve(expression).specification();
+    }
+
+    /**
+     * The normalized text of a valid expression, which is the same for every equivalent expression.
+     */
+    public String normalize(final String expression) {
+        return resolve(expression).normalized();
+    }
+
+    private Plan<T> resolve(final String expression) {
+        final Plan<T> cached = byExpression.get(expression);
+        if (cached != null) {
+            return cached;
+        }
+        final FilterNode normalized = FilterNormalizer.normalize(FilterParser.parse(expression));
+        final String key = normalized.toString();
+        Specification<T> specification = byNormalizedExpression.get(key);
+        if (specification == null) {
+            // Compiled outside the cache lock; a concurrent compile of the same filter is harmless
+            specification = plan(normalized);
+            byNormalizedExpression.put(key, specification);
+        }
+        final Plan<T> plan = new Plan<>(key, specification);
+        byExpression.put(expression, plan);
+        return plan;
+    }
+
+    private Specification<T> plan(final FilterNode node) {
+        if (node instanceof FilterNode.Comparison comparison) {
+            return schema.field(comparison.selector()).compile(comparison.operator(), comparison.arguments());
+        }
+        final boolean and = node instanceof FilterNode.And;
+        final List<FilterNode> children = and ? ((FilterNode.And) node).children() : ((FilterNode.Or) node).children();
+        final List<Specification<T>> operands = new ArrayList<>(children.size());
+        for (final FilterNode child : children) {
+            operands.add(plan(child));
+        }
+        return (root, query, builder) -> {
+            final jakarta.persistence.criteria.Predicate[] predicates = new jakarta.persistence.criteria.Predicate[operands.size()];
+            for (int i = 0; i < predicates.length; i++) {
+                predicates[i] = operands.get(i).toPredicate(root, query, builder);
+            }
+            return and ? builder.and(predicates) : builder.or(predicates);
+        };
+    }
+
+    private record Plan<T>(String normalized, Specification<T> specification) {
+    }
+
+    private static <V> Map<String, V> lruCache(final int capacity) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, V> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+}
@@ -0,0 +1,152 @@
+package com.iot.system.filter;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A field that filters can compare, with the type its arguments are converted to. Arguments are
+ * converted once, when the comparison is compiled. Text compares exactly unless the argument
+ * contains {@code *}, which matches any characters in {@code ==} and {@code !=} only. Date-times
+ * accept ISO dates or date-times; a date stands for the whole day, so {@code createdAt==2024-07-01}
+ * matches anything on that day, {@code createdAt=gt=2024-07-01} anything from the next day on and
+ * {@code createdAt=in=(2024-07-01,2024-07-03)} anything on either day.
+ */
+public final class FilterField<T> {
+
+    enum Type { TEXT, ENUM, DATE_TIME }
+
+    private final String name;
+    private final Type type;
+    private final Class<? extends Enum<?>> enumType;
+    private final Function<Root<T>, Expression<?>> path;
+    private final boolean joinsCollection;
+
+    FilterField(final String name, final Type type, final Class<? extends Enum<?>> enumType,
+                final Function<Root<T>, Expression<?>> path, final boolean joinsCollection) {
+        this.name = name;
+        this.type = type;
+        this.enumType = enumType;
+        this.path = path;
+        this.joinsCollection = joinsCollection;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Converts the arguments and returns the predicate of the comparison.
+     */
+    Specification<T> compile(final ComparisonOperator operator, final List<String> arguments) {
+        return switch (type) {
+            case TEXT -> text(operator, arguments);
+            case ENUM -> enumeration(operator, arguments);
+            case DATE_TIME -> dateTime(operator, arguments);
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private Specification<T> text(final ComparisonOperator operator, final List<String> arguments) {
+        final String value = arguments.get(0);
+        final boolean pattern = !operator.isMultiValued() && value.indexOf('*') >= 0;
+        final String like = pattern ? value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_").replace('*', '%') : null;
+        return condition((root, builder) -> {
+            final Expression<String> field = (Expression<String>) path.apply(root);
+            return switch (operator) {
+                case EQUAL -> pattern ? builder.like(field, like, '\\') : builder.equal(field, value);
+                case NOT_EQUAL -> pattern ? builder.notLike(field, like, '\\') : builder.notEqual(field, value);
+                case GREATER_THAN -> builder.greaterThan(field, value);
+                case GREATER_THAN_OR_EQUAL -> builder.greaterThanOrEqualTo(field, value);
+                case LESS_THAN -> builder.lessThan(field, value);
+                case LESS_THAN_OR_EQUAL -> builder.lessThanOrEqualTo(field, value);
+                case IN -> field.in(arguments);
+                case NOT_IN -> builder.not(field.in(arguments));
+            };
+        });
+    }
+
+    private Specification<T> enumeration(final ComparisonOperator operator, final List<String> arguments) {
+        final List<Object> values = arguments.stream().map(this::enumValue).toList();
+        return switch (operator) {
+            case EQUAL -> condition((root, builder) -> builder.equal(path.apply(root), values.get(0)));
+            case NOT_EQUAL -> condition((root, builder) -> builder.notEqual(path.apply(root), values.get(0)));
+            case IN -> condition((root, builder) -> path.apply(root).in(values));
+            case NOT_IN -> condition((root, builder) -> builder.not(path.apply(root).in(values)));
+            default -> throw new IllegalArgumentException("Operator " + operator.symbol() + " is not supported for " + name);
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private Specification<T> dateTime(final ComparisonOperator operator, final List<String> arguments) {
+        final List<LocalDateTime[]> ranges = arguments.stream().map(this::dateRange).toList();
+        final LocalDateTime start = ranges.get(0)[0];
+        final LocalDateTime end = ranges.get(0)[1];
+        final boolean day = !start.equals(end);
+        return condition((root, builder) -> {
+            final Expression<LocalDateTime> field = (Expression<LocalDateTime>) path.apply(root);
+            return switch (operator) {
+                case EQUAL -> within(builder, field, start, end);
+                case NOT_EQUAL -> builder.not(within(builder, field, start, end));
+                case GREATER_THAN -> day ? builder.greaterThanOrEqualTo(field, end) : builder.greaterThan(field, start);
+                case GREATER_THAN_OR_EQUAL -> builder.greaterThanOrEqualTo(field, start);
+                case LESS_THAN -> builder.lessThan(field, start);
+                case LESS_THAN_OR_EQUAL -> day ? builder.lessThan(field, end) : builder.lessThanOrEqualTo(field, start);
+                case IN -> builder.or(ranges.stream().map(range -> within(builder, field, range[0], range[1])).toArray(Predicate[]::new));
+                case NOT_IN -> builder.not(builder.or(ranges.stream().map(range -> within(builder, field, range[0], range[1])).toArray(Predicate[]::new)));
+            };
+        });
+    }
+
+    /**
+     * The start and end of a date-time argument; a date spans the whole day, a date-time is a single instant.
+     */
+    private LocalDateTime[] dateRange(final String argument) {
+        try {
+            if (argument.indexOf('T') >= 0) {
+                final LocalDateTime instant = LocalDateTime.parse(argument);
+                return new LocalDateTime[] {instant, instant};
+            }
+            final LocalDateTime start = LocalDate.parse(argument).atStartOfDay();
+            return new LocalDateTime[] {start, start.plusDays(1)};
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date for " + name + ": " + argument);
+        }
+    }
+
+    private static Predicate within(final CriteriaBuilder builder, final Expression<LocalDateTime> field,
+                                    final LocalDateTime start, final LocalDateTime end) {
+        return start.equals(end) ? builder.equal(field, start)
+                : builder.and(builder.greaterThanOrEqualTo(field, start), builder.lessThan(field, end));
+    }
+
+    private Object enumValue(final String argument) {
+        for (final Enum<?> constant : enumType.getEnumConstants()) {
+            if (constant.name().equals(argument.toUpperCase(Locale.ROOT))) {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException("Invalid value for " + name + ": " + argument);
+    }
+
+    private Specification<T> condition(final BiFunction<Root<T>, CriteriaBuilder, Predicate> body) {
+        if (!joinsCollection) {
+            return (root, query, builder) -> body.apply(root, builder);
+        }
+        return (root, query, builder) -> {
+            // The join repeats a row once per matching element
+            query.distinct(true);
+            return body.apply(root, builder);
+        };
+    }
+}
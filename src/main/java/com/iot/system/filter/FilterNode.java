@@ -0,0 +1,42 @@
+package com.iot.system.filter;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Syntax tree of a filter expression. {@link #toString()} renders a node back to the filter
+ * language, so a normalized node renders to the same text however the expression was written.
+ */
+public sealed interface FilterNode permits FilterNode.And, FilterNode.Or, FilterNode.Comparison {
+
+    record And(List<FilterNode> children) implements FilterNode {
+        @Override
+        public String toString() {
+            return children.stream()
+                    .map(child -> child instanceof Or ? "(" + child + ")" : child.toString())
+                    .collect(Collectors.joining(";"));
+        }
+    }
+
+    record Or(List<FilterNode> children) implements FilterNode {
+        @Override
+        public String toString() {
+            return children.stream().map(FilterNode::toString).collect(Collectors.joining(","));
+        }
+    }
+
+    record Comparison(String selector, ComparisonOperator operator, List<String> arguments) implements FilterNode {
+        @Override
+        public String toString() {
+            final String rendered = arguments.stream().map(Comparison::quote).collect(Collectors.joining(","));
+            return selector + operator.symbol() + (operator.isMultiValued() ? "(" + rendered + ")" : rendered);
+        }
+
+        private static String quote(final String argument) {
+            if (!argument.isEmpty() && argument.chars().noneMatch(FilterParser::isReserved)) {
+                return argument;
+            }
+            return '"' + argument.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+        }
+    }
+}
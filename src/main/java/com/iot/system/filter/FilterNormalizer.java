@@ -0,0 +1,60 @@
+package com.iot.system.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Rewrites a filter into a canonical form: nested and/or groups are flattened, duplicate
+ * operands dropped and operands ordered, {@code =in=}/{@code =out=} arguments sorted and
+ * deduplicated, and single-argument {@code =in=}/{@code =out=} turned into {@code ==}/{@code !=}
+ * unless the argument contains {@code *}, which is a wildcard only in {@code ==}/{@code !=}.
+ * Expressions that differ only in order, grouping or repetition normalize to the same text.
+ */
+public final class FilterNormalizer {
+
+    private FilterNormalizer() {
+    }
+
+    public static FilterNode normalize(final FilterNode node) {
+        if (node instanceof FilterNode.And and) {
+            return group(and.children(), FilterNode.And.class, FilterNode.And::children, FilterNode.And::new);
+        }
+        if (node instanceof FilterNode.Or or) {
+            return group(or.children(), FilterNode.Or.class, FilterNode.Or::children, FilterNode.Or::new);
+        }
+        final FilterNode.Comparison comparison = (FilterNode.Comparison) node;
+        if (!comparison.operator().isMultiValued()) {
+            return comparison;
+        }
+        final List<String> arguments = new ArrayList<>(new TreeSet<>(comparison.arguments()));
+        if (arguments.size() == 1 && arguments.get(0).indexOf('*') < 0) {
+            return new FilterNode.Comparison(comparison.selector(),
+                    comparison.operator() == ComparisonOperator.IN ? ComparisonOperator.EQUAL : ComparisonOperator.NOT_EQUAL,
+                    arguments);
+        }
+        return new FilterNode.Comparison(comparison.selector(), comparison.operator(), arguments);
+    }
+
+    private static <G extends FilterNode> FilterNode group(final List<FilterNode> children, final Class<G> type,
+                                                          final Function<G, List<FilterNode>> childrenOf,
+                                                          final Function<List<FilterNode>, G> create) {
+        // Keyed by rendered text, which orders operands and drops duplicates
+        final Map<String, FilterNode> operands = new TreeMap<>();
+        for (final FilterNode child : children) {
+            final FilterNode normalized = normalize(child);
+            if (type.isInstance(normalized)) {
+                childrenOf.apply(type.cast(normalized)).forEach(operand -> operands.put(operand.toString(), operand));
+            } else {
+                operands.put(normalized.toString(), normalized);
+            }
+        }
+        if (operands.size() == 1) {
+            return operands.values().iterator().next();
+        }
+        return create.apply(new ArrayList<>(operands.values()));
+    }
+}
@@ -0,0 +1,170 @@
+package com.iot.system.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recursive descent parser of RSQL filter expressions: comparisons such as
+ * {@code deviceStatus==ON} or {@code industryType=in=(Energy,Oil)} joined with {@code ;} (and)
+ * and {@code ,} (or), where and binds tighter and parentheses group. Arguments containing reserved
+ * characters or spaces are quoted with {@code "} or {@code '}.
+ */
+public final class FilterParser {
+
+    private final String input;
+    private int position;
+
+    private FilterParser(final String input) {
+        this.input = input;
+    }
+
+    public static FilterNode parse(final String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("Filter expression must not be empty");
+        }
+        final FilterParser parser = new FilterParser(expression);
+        final FilterNode node = parser.or();
+        parser.skipWhitespace();
+        if (parser.position < expression.length()) {
+            throw parser.error("Unexpected '" + expression.charAt(parser.position) + "'");
+        }
+        return node;
+    }
+
+    static boolean isReserved(final int c) {
+        return Character.isWhitespace(c) || "\"'(),;=!<>".indexOf(c) >= 0;
+    }
+
+    private FilterNode or() {
+        final List<FilterNode> children = new ArrayList<>();
+        children.add(and());
+        while (consume(',')) {
+            children.add(and());
+        }
+        return children.size() == 1 ? children.get(0) : new FilterNode.Or(children);
+    }
+
+    private FilterNode and() {
+        final List<FilterNode> children = new ArrayList<>();
+        children.add(constraint());
+        while (consume(';')) {
+            children.add(constraint());
+        }
+        return children.size() == 1 ? children.get(0) : new FilterNode.And(children);
+    }
+
+    private FilterNode constraint() {
+        if (consume('(')) {
+            final FilterNode group = or();
+            expect(')');
+            return group;
+        }
+        final String selector = selector();
+        final ComparisonOperator operator = operator();
+        final List<String> arguments = new ArrayList<>();
+        if (consume('(')) {
+            if (!operator.isMultiValued()) {
+                throw error("Operator " + operator.symbol() + " takes a single argument");
+            }
+            do {
+                arguments.add(argument());
+            } while (consume(','));
+            expect(')');
+        } else {
+            arguments.add(argument());
+        }
+        return new FilterNode.Comparison(selector, operator, arguments);
+    }
+
+    private String selector() {
+        skipWhitespace();
+        final int start = position;
+        while (position < input.length()
+                && (Character.isLetterOrDigit(input.charAt(position)) || input.charAt(position) == '_'
+                || (position > start && input.charAt(position) == '.'))) {
+            position++;
+        }
+        if (start == position || Character.isDigit(input.charAt(start))) {
+            throw error("Expected a field name");
+        }
+        return input.substring(start, position);
+    }
+
+    private ComparisonOperator operator() {
+        skipWhitespace();
+        final int start = position;
+        if (position < input.length() && input.charAt(position) == '=') {
+            // ==, or =name= where the name is letters
+            position++;
+            while (position < input.length() && Character.isLetter(input.charAt(position))) {
+                position++;
+            }
+            if (position < input.length() && input.charAt(position) == '=') {
+                position++;
+            }
+        } else if (position < input.length() && "!<>".indexOf(input.charAt(position)) >= 0) {
+            position++;
+            if (position < input.length() && input.charAt(position) == '=') {
+                position++;
+            }
+        }
+        final String symbol = input.substring(start, position);
+        return ComparisonOperator.bySymbol(symbol).orElseThrow(() -> {
+            position = start;
+            return error(symbol.isEmpty() ? "Expected an operator" : "Unknown operator " + symbol);
+        });
+    }
+
+    private String argument() {
+        skipWhitespace();
+        if (position < input.length() && (input.charAt(position) == '"' || input.charAt(position) == '\'')) {
+            final char quote = input.charAt(position++);
+            final StringBuilder value = new StringBuilder();
+            while (position < input.length() && input.charAt(position) != quote) {
+                char c = input.charAt(position++);
+                if (c == '\\' && position < input.length()) {
+                    c = input.charAt(position++);
+                }
+                value.append(c);
+            }
+            if (position == input.length()) {
+                throw error("Unterminated quoted argument");
+            }
+            position++;
+            return value.toString();
+        }
+        final int start = position;
+        while (position < input.length() && !isReserved(input.charAt(position))) {
+            position++;
+        }
+        if (start == position) {
+            throw error("Expected an argument");
+        }
+        return input.substring(start, position);
+    }
+
+    private boolean consume(final char expected) {
+        skipWhitespace();
+        if (position < input.length() && input.charAt(position) == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(final char expected) {
+        if (!consume(expected)) {
+            throw error("Expected '" + expected + "'");
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < input.length() && Character.isWhitespace(input.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(final String message) {
+        return new IllegalArgumentException(message + " at position " + position + " of filter: " + input);
+    }
+}
@@ -0,0 +1,70 @@
+package com.iot.system.filter;
+
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Root;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The fields a filter may reference for one entity, by name and alias.
+ */
+public final class FilterSchema<T> {
+
+    private final Map<String, FilterField<T>> fields;
+
+    private FilterSchema(final Map<String, FilterField<T>> fields) {
+        this.fields = fields;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    FilterField<T> field(final String name) {
+        final FilterField<T> field = fields.get(name);
+        if (field == null) {
+            throw new IllegalArgumentException("Unknown filter field " + name + ", expected one of " + fields.keySet());
+        }
+        return field;
+    }
+
+    public static final class Builder<T> {
+        private final Map<String, FilterField<T>> fields = new LinkedHashMap<>();
+
+        public Builder<T> text(final String name, final Function<Root<T>, Expression<?>> path) {
+            return add(new FilterField<>(name, FilterField.Type.TEXT, null, path, false));
+        }
+
+        /**
+         * A text field reached through a collection join, such as the names of a device's users.
+         */
+        public Builder<T> joinedText(final String name, final Function<Root<T>, Expression<?>> path) {
+            return add(new FilterField<>(name, FilterField.Type.TEXT, null, path, true));
+        }
+
+        public Builder<T> enumeration(final String name, final Class<? extends Enum<?>> type,
+                                      final Function<Root<T>, Expression<?>> path) {
+            return add(new FilterField<>(name, FilterField.Type.ENUM, type, path, false));
+        }
+
+        public Builder<T> dateTime(final String name, final Function<Root<T>, Expression<?>> path) {
+            return add(new FilterField<>(name, FilterField.Type.DATE_TIME, null, path, false));
+        }
+
+        public Builder<T> alias(final String alias, final String name) {
+            fields.put(alias, fields.get(name));
+            return this;
+        }
+
+        public FilterSchema<T> build() {
+            return new FilterSchema<>(Map.copyOf(fields));
+        }
+
+        private Builder<T> add(final FilterField<T> field) {
+            fields.put(field.name(), field);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.iot.system.filter;
+
+import com.iot.system.model.Monitoring;
+import com.iot.system.model.MonitoringStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Filter expressions over monitorings, as accepted by the {@code filter} parameter of the monitoring listing.
+ */
+@Component
+public class MonitoringFilters extends FilterCompiler<Monitoring> {
+
+    private static final FilterSchema<Monitoring> SCHEMA = FilterSchema.<Monitoring>builder()
+            .text("monitoringCode", root -> root.get("monitoringCode"))
+            .text("description", root -> root.get("description"))
+            .enumeration("monitoringStatus", MonitoringStatus.class, root -> root.get("monitoringStatus"))
+            .alias("status", "monitoringStatus")
+            .text("deviceCode", root -> root.get("device").get("deviceCode"))
+            .text("deviceName", root -> root.get("device").get("deviceName"))
+            .text("industryType", root -> root.get("device").get("industryType"))
+            .dateTime("createdAt", root -> root.get("createdAt"))
+            .dateTime("updatedAt", root -> root.get("updatedAt"))
+            .joinedText("userName", root -> root.join("users").get("name"))
+            .build();
+
+    public MonitoringFilters(@Value("${filter.plan-cache-size}") final int planCacheSize) {
+        super(SCHEMA, planCacheSize);
+    }
+}
@@ -0,0 +1,206 @@
+package com.iot.system.gateway;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * One TCP connection of a {@link SelectorLoop}. The inbound buffer starts small and only grows for
+ * the frame being assembled, so idle connections cost little memory. {@link #send}, {@link #close}
+ * and {@link #resumeReading} may be called from any thread; everything else runs on the loop.
+ */
+public class Connection {
+
+    private static final int INITIAL_READ_CAPACITY = 512;
+
+    private final SelectorLoop loop;
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final ConnectionHandler handler;
+    private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+
+    private ByteBuffer inbound = ByteBuffer.allocate(INITIAL_READ_CAPACITY);
+    private int requiredCapacity;
+    private boolean paused;
+    private boolean closeAfterFlush;
+    private long lastActivity;
+    private long idleTimeoutMs;
+    private volatile boolean closed;
+    private volatile Object attachment;
+
+    Connection(final SelectorLoop loop, final SocketChannel channel, final SelectionKey key,
+               final ConnectionHandler handler, final long now, final long idleTimeoutMs) {
+        this.loop = loop;
+        this.channel = channel;
+        this.key = key;
+        this.handler = handler;
+        this.lastActivity = now;
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    public Object attachment() {
+        return attachment;
+    }
+
+    public void attach(final Object attachment) {
+        this.attachment = attachment;
+    }
+
+    public SocketAddress remoteAddress() {
+        try {
+            return channel.getRemoteAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public void send(final ByteBuffer frame) {
+        if (closed) {
+            return;
+        }
+        outbound.add(frame);
+        loop.execute(this::flushSafely);
+    }
+
+    /**
+     * Sends a last frame and closes the connection once it is written.
+     */
+    public void sendAndClose(final ByteBuffer frame) {
+        if (closed) {
+            return;
+        }
+        outbound.add(frame);
+        loop.execute(() -> {
+            closeAfterFlush = true;
+            flushSafely();
+        });
+    }
+
+    public void close() {
+        loop.execute(() -> loop.close(this));
+    }
+
+    /**
+     * Stops reading from the socket, leaving unread bytes in the kernel buffer so a slow consumer
+     * pushes back on the sender. Must be called from {@link ConnectionHandler#onData}.
+     */
+    public void pauseReading() {
+        paused = true;
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+    }
+
+    public void resumeReading() {
+        loop.execute(() -> {
+            if (closed || !paused) {
+                return;
+            }
+            paused = false;
+            lastActivity = loop.now();
+            key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+            process();
+        });
+    }
+
+    public boolean isReadingPaused() {
+        return paused;
+    }
+
+    /**
+     * Overrides the loop's idle timeout for this connection, e.g. from a protocol keep-alive.
+     */
+    public void setIdleTimeout(final long idleTimeoutMs) {
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    /**
+     * Asks for an inbound buffer of at least the given size, e.g. to hold a frame whose header has
+     * been seen.
+     */
+    public void requireCapacity(final int capacity) {
+        requiredCapacity = Math.max(requiredCapacity, capacity);
+    }
+
+    void read() throws IOException {
+        final int read = channel.read(inbound);
+        if (read < 0) {
+            loop.close(this);
+            return;
+        }
+        lastActivity = loop.now();
+        process();
+    }
+
+    void flush() throws IOException {
+        ByteBuffer frame;
+        while ((frame = outbound.peek()) != null) {
+            channel.write(frame);
+            if (frame.hasRemaining()) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                return;
+            }
+            outbound.poll();
+        }
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        if (closeAfterFlush) {
+            loop.close(this);
+        }
+    }
+
+    long lastActivity() {
+        return lastActivity;
+    }
+
+    long idleTimeoutMs() {
+        return idleTimeoutMs;
+    }
+
+    SocketChannel channel() {
+        return channel;
+    }
+
+    ConnectionHandler handler() {
+        return handler;
+    }
+
+    void markClosed() {
+        closed = true;
+        outbound.clear();
+    }
+
+    private void process() {
+        inbound.flip();
+        handler.onData(this, inbound);
+        if (closed) {
+            return;
+        }
+        inbound.compact();
+        if (requiredCapacity > inbound.capacity()) {
+            final ByteBuffer grown = ByteBuffer.allocate(requiredCapacity);
+            inbound.flip();
+            grown.put(inbound);
+            inbound = grown;
+        } else if (inbound.position() == 0 && inbound.capacity() > INITIAL_READ_CAPACITY) {
+            inbound = ByteBuffer.allocate(INITIAL_READ_CAPACITY);
+        }
+        requiredCapacity = 0;
+    }
+
+    private void flushSafely() {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+        } catch (IOException e) {
+            loop.close(this);
+        }
+    }
+}
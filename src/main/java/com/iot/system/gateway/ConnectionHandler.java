@@ -0,0 +1,21 @@
+package com.iot.system.gateway;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Protocol callbacks of a TCP listener. They run on the selector thread and must not block.
+ */
+public interface ConnectionHandler {
+
+    default void onOpen(final Connection connection) {
+    }
+
+    /**
+     * Consumes complete frames from the inbound buffer, which is ready for reading. Bytes left in it
+     * are kept and offered again once more data arrives or reading resumes.
+     */
+    void onData(Connection connection, ByteBuffer inbound);
+
+    default void onClose(final Connection connection) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.iot.system.gateway;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Receives datagrams of a UDP listener on the selector thread. The packet buffer is reused once
+ * the call returns.
+ */
+public interface DatagramHandler {
+
+    void onDatagram(DatagramChannel channel, SocketAddress sender, ByteBuffer packet);
+}
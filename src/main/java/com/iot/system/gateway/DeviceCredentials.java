@@ -0,0 +1,77 @@
+package com.iot.system.gateway;
+
+import com.iot.system.exception.ServiceUnavailableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * Gateway credentials are an HMAC of the device code, so they need no storage and rotate together
+ * with the configured secret. The secret is its own and may not be the JWT signing key; the
+ * application does not start with the gateway enabled and no secret configured.
+ */
+@Component
+public class DeviceCredentials {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String CONTEXT = "iot-gateway:";
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+
+    public DeviceCredentials(@Value("${gateway.credential-secret}") final String secret,
+                             @Value("${jwt.secret}") final String jwtSecret,
+                             @Value("${gateway.enabled}") final boolean gatewayEnabled) {
+        if (secret == null || secret.isBlank()) {
+            if (gatewayEnabled) {
+                throw new IllegalArgumentException("gateway.credential-secret (GATEWAY_CREDENTIAL_SECRET) must be set while the gateway is enabled");
+            }
+            this.key = null;
+        } else if (secret.equals(jwtSecret)) {
+            throw new IllegalArgumentException("gateway.credential-secret must differ from jwt.secret");
+        } else {
+            this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        }
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    public String issue(final String deviceCode) {
+        if (key == null) {
+            throw new ServiceUnavailableException("The ingestion gateway is disabled");
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sign(deviceCode));
+    }
+
+    public boolean verify(final String deviceCode, final String credential) {
+        if (key == null) {
+            return false;
+        }
+        final byte[] presented;
+        try {
+            presented = Base64.getUrlDecoder().decode(credential);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return MessageDigest.isEqual(sign(deviceCode), presented);
+    }
+
+    private byte[] sign(final String deviceCode) {
+        return macs.get().doFinal((CONTEXT + deviceCode).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mac newMac() {
+        try {
+            final Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialize " + ALGORITHM, e);
+        }
+    }
+}
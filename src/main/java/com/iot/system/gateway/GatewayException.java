@@ -0,0 +1,24 @@
+package com.iot.system.gateway;
+
+/**
+ * A request the gateway answers with an ERROR frame; fatal errors also close the connection.
+ */
+class GatewayException extends RuntimeException {
+
+    private final byte code;
+    private final boolean fatal;
+
+    GatewayException(final byte code, final String message, final boolean fatal) {
+        super(message);
+        this.code = code;
+        this.fatal = fatal;
+    }
+
+    byte getCode() {
+        return code;
+    }
+
+    boolean isFatal() {
+        return fatal;
+    }
+}
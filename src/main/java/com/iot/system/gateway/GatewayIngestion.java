@@ -0,0 +1,90 @@
+package com.iot.system.gateway;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iot.system.dto.ReadingRequest;
+import com.iot.system.exception.ResourceNotFoundException;
+import com.iot.system.exception.ServiceUnavailableException;
+import com.iot.system.service.TelemetryService;
+import com.iot.system.telemetry.MonitoredSeries;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Authentication and ingestion shared by the gateway listeners. Runs on gateway workers, since
+ * resolving a device and waiting for the write-ahead log may block.
+ */
+class GatewayIngestion {
+
+    private final TelemetryService telemetryService;
+    private final DeviceCredentials deviceCredentials;
+    private final ObjectMapper objectMapper;
+
+    GatewayIngestion(final TelemetryService telemetryService, final DeviceCredentials deviceCredentials,
+                     final ObjectMapper objectMapper) {
+        this.telemetryService = telemetryService;
+        this.deviceCredentials = deviceCredentials;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Reads a device code and credential from the buffer and returns the series of the device's
+     * monitoring.
+     */
+    MonitoredSeries authenticate(final ByteBuffer hello) {
+        final String deviceCode;
+        final String credential;
+        try {
+            deviceCode = GatewayProtocol.readShortString(hello);
+            credential = GatewayProtocol.readShortString(hello);
+        } catch (BufferUnderflowException e) {
+            throw new GatewayException(GatewayProtocol.MALFORMED, "Truncated hello", true);
+        }
+        return authenticate(deviceCode, credential);
+    }
+
+    MonitoredSeries authenticate(final String deviceCode, final String credential) {
+        if (!deviceCredentials.verify(deviceCode, credential)) {
+            throw new GatewayException(GatewayProtocol.AUTH_FAILED, "Invalid device credential", true);
+        }
+        try {
+            return telemetryService.resolveDeviceSeries(deviceCode);
+        } catch (ResourceNotFoundException e) {
+            throw new GatewayException(GatewayProtocol.AUTH_FAILED, e.getMessage(), true);
+        }
+    }
+
+    int ingest(final MonitoredSeries series, final ByteBuffer batch) {
+        checkLive(series);
+        try {
+            return telemetryService.ingestBinary(series, batch);
+        } catch (IllegalArgumentException e) {
+            throw new GatewayException(GatewayProtocol.MALFORMED, e.getMessage(), false);
+        } catch (ServiceUnavailableException e) {
+            throw new GatewayException(GatewayProtocol.BUSY, e.getMessage(), false);
+        }
+    }
+
+    /**
+     * Ingests a JSON array of readings, the same body the REST endpoint takes.
+     */
+    int ingestJson(final MonitoredSeries series, final byte[] json) {
+        checkLive(series);
+        try {
+            final ReadingRequest[] readings = objectMapper.readValue(json, ReadingRequest[].class);
+            return telemetryService.ingestReadings(series, Arrays.asList(readings));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new GatewayException(GatewayProtocol.MALFORMED, e.getMessage(), false);
+        } catch (ServiceUnavailableException e) {
+            throw new GatewayException(GatewayProtocol.BUSY, e.getMessage(), false);
+        }
+    }
+
+    private void checkLive(final MonitoredSeries series) {
+        if (!telemetryService.isLive(series)) {
+            throw new GatewayException(GatewayProtocol.AUTH_FAILED, "Monitoring of this device was deleted", true);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.iot.system.gateway;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Wire format of the ingestion gateway. Every TCP frame is
+ * <pre>
+ * length     2 bytes   payload length, big endian
+ * type       1 byte
+ * payload    length bytes
+ * </pre>
+ * A connection opens with {@link #HELLO} ({@code u8 length, device code, u8 length, credential})
+ * and then sends {@link #READINGS} frames whose payload is a batch in the
+ * {@link com.iot.system.telemetry.BinaryReadingDecoder} format. Each frame is answered in order with
+ * {@link #ACK} ({@code u32} readings accepted) or {@link #ERROR} ({@code u8} code, UTF-8 message).
+ * <p>
+ * A UDP datagram is self-contained: {@code u32} sequence, the HELLO payload, then the batch. The
+ * reply carries the same sequence followed by an ACK or ERROR frame.
+ */
+public final class GatewayProtocol {
+
+    public static final int HEADER_BYTES = 3;
+    public static final int MAX_PAYLOAD_BYTES = 0xFFFF;
+
+    public static final byte HELLO = 0x01;
+    public static final byte READINGS = 0x02;
+    public static final byte PING = 0x03;
+    public static final byte ACK = (byte) 0x81;
+    public static final byte ERROR = (byte) 0x82;
+    public static final byte PONG = (byte) 0x83;
+
+    public static final byte AUTH_FAILED = 1;
+    public static final byte NOT_AUTHENTICATED = 2;
+    public static final byte MALFORMED = 3;
+    public static final byte BUSY = 4;
+    public static final byte INTERNAL_ERROR = 5;
+
+    private static final int MAX_ERROR_MESSAGE_BYTES = 255;
+
+    private GatewayProtocol() {
+    }
+
+    public static ByteBuffer hello(final String deviceCode, final String credential) {
+        final byte[] code = deviceCode.getBytes(StandardCharsets.UTF_8);
+        final byte[] secret = credential.getBytes(StandardCharsets.US_ASCII);
+        final ByteBuffer frame = header(HELLO, 2 + code.length + secret.length);
+        frame.put((byte) code.length).put(code).put((byte) secret.length).put(secret);
+        return frame.flip();
+    }
+
+    public static ByteBuffer ack(final int accepted) {
+        return header(ACK, 4).putInt(accepted).flip();
+    }
+
+    public static ByteBuffer error(final byte code, final String message) {
+        final byte[] text = message.getBytes(StandardCharsets.UTF_8);
+        final int length = Math.min(text.length, MAX_ERROR_MESSAGE_BYTES);
+        return header(ERROR, 1 + length).put(code).put(text, 0, length).flip();
+    }
+
+    public static ByteBuffer pong() {
+        return header(PONG, 0).flip();
+    }
+
+    /**
+     * Prefixes a reply frame with the sequence number of the datagram it answers.
+     */
+    public static ByteBuffer datagramReply(final int sequence, final ByteBuffer frame) {
+        return ByteBuffer.allocate(4 + frame.remaining()).putInt(sequence).put(frame).flip();
+    }
+
+    static String readShortString(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.get() & 0xFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer header(final byte type, final int payloadLength) {
+        if (payloadLength > MAX_PAYLOAD_BYTES) {
+            throw new IllegalArgumentException("Frame payload of " + payloadLength + " bytes is too large");
+        }
+        return ByteBuffer.allocate(HEADER_BYTES + payloadLength).putShort((short) payloadLength).put(type);
+    }
+}
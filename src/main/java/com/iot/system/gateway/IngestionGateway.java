@@ -0,0 +1,131 @@
+package com.iot.system.gateway;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iot.system.event.DeviceCommandEvent;
+import com.iot.system.service.TelemetryService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Binary TCP and UDP ingestion endpoint and MQTT broker running next to the REST API. One selector
+ * thread serves all connections; decoding and appending to the ingestion pipeline run on a bounded
+ * worker pool.
+ */
+@Component
+public class IngestionGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionGateway.class);
+
+    private final GatewayIngestion ingestion;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final String host;
+    private final int tcpPort;
+    private final int udpPort;
+    private final int workerThreads;
+    private final int workerQueueCapacity;
+    private final long idleTimeoutMs;
+    private final boolean mqttEnabled;
+    private final int mqttPort;
+    private final int mqttMaxPacketBytes;
+    private final int mqttMaxQueuedMessages;
+    private final int mqttMaxRetainedPerDevice;
+
+    private SelectorLoop loop;
+    private ThreadPoolExecutor workers;
+    private volatile MqttBroker mqttBroker;
+
+    public IngestionGateway(final TelemetryService telemetryService,
+                            final DeviceCredentials deviceCredentials,
+                            final ObjectMapper objectMapper,
+                            @Value("${gateway.enabled}") final boolean enabled,
+                            @Value("${gateway.host}") final String host,
+                            @Value("${gateway.tcp-port}") final int tcpPort,
+                            @Value("${gateway.udp-port}") final int udpPort,
+                            @Value("${gateway.worker-threads}") final int workerThreads,
+                            @Value("${gateway.worker-queue-capacity}") final int workerQueueCapacity,
+                            @Value("${gateway.idle-timeout-ms}") final long idleTimeoutMs,
+                            @Value("${gateway.mqtt.enabled}") final boolean mqttEnabled,
+                            @Value("${gateway.mqtt.port}") final int mqttPort,
+                            @Value("${gateway.mqtt.max-packet-bytes}") final int mqttMaxPacketBytes,
+                            @Value("${gateway.mqtt.max-queued-messages}") final int mqttMaxQueuedMessages,
+                            @Value("${gateway.mqtt.max-retained-per-device}") final int mqttMaxRetainedPerDevice) {
+        this.ingestion = new GatewayIngestion(telemetryService, deviceCredentials, objectMapper);
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.host = host;
+        this.tcpPort = tcpPort;
+        this.udpPort = udpPort;
+        this.workerThreads = workerThreads > 0 ? workerThreads : Runtime.getRuntime().availableProcessors() * 2;
+        this.workerQueueCapacity = workerQueueCapacity;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.mqttEnabled = mqttEnabled;
+        this.mqttPort = mqttPort;
+        this.mqttMaxPacketBytes = mqttMaxPacketBytes;
+        this.mqttMaxQueuedMessages = mqttMaxQueuedMessages;
+        this.mqttMaxRetainedPerDevice = mqttMaxRetainedPerDevice;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            logger.info("Ingestion gateway is disabled");
+            return;
+        }
+        final AtomicInteger threadCount = new AtomicInteger();
+        workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workerQueueCapacity), runnable -> {
+            final Thread thread = new Thread(runnable, "gateway-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        loop = new SelectorLoop("gateway-selector", idleTimeoutMs);
+        final InetSocketAddress tcp = loop.listen(new InetSocketAddress(host, tcpPort),
+                new TcpIngestionHandler(ingestion, workers));
+        final InetSocketAddress udp = loop.bind(new InetSocketAddress(host, udpPort),
+                new UdpIngestionHandler(ingestion, workers));
+        if (mqttEnabled) {
+            final MqttBroker broker = new MqttBroker(loop, ingestion, workers, mqttMaxPacketBytes, mqttMaxQueuedMessages,
+                    mqttMaxRetainedPerDevice);
+            logger.info("MQTT broker listening on {}", loop.listen(new InetSocketAddress(host, mqttPort), broker));
+            mqttBroker = broker;
+        }
+        loop.start();
+        logger.info("Ingestion gateway listening on TCP {} and UDP {}", tcp, udp);
+    }
+
+    /**
+     * Delivers device commands on the device's MQTT command topic once the command is committed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceCommand(final DeviceCommandEvent event) throws JsonProcessingException {
+        final MqttBroker broker = mqttBroker;
+        if (broker != null) {
+            broker.publish(new MqttMessage(MqttBroker.commandTopic(event.deviceCode()),
+                    objectMapper.writeValueAsBytes(event), 1, false));
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (loop == null) {
+            return;
+        }
+        loop.stop();
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,409 @@
+package com.iot.system.gateway;
+
+import com.iot.system.telemetry.MonitoredSeries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Embedded MQTT 3.1.1 broker on the gateway selector loop, supporting QoS 0 and 1, retained
+ * messages and wildcard subscriptions. Devices connect with their device code as user name and
+ * their gateway credential as password, own the topics below {@code devices/{deviceCode}/} and
+ * have one session each. Readings published to {@code devices/{deviceCode}/readings} are ingested
+ * into the device's monitoring. Broker state is confined to the selector thread.
+ */
+class MqttBroker implements ConnectionHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(MqttBroker.class);
+
+    private static final String DEVICES = "devices/";
+    private static final String READINGS = "readings";
+    private static final String COMMANDS = "commands";
+    private static final int MAX_INFLIGHT = 32;
+
+    private final SelectorLoop loop;
+    private final GatewayIngestion ingestion;
+    private final Executor workers;
+    private final int maxPacketBytes;
+    private final int maxQueuedMessages;
+    private final int maxRetainedPerDevice;
+
+    private final Map<String, MqttSession> sessions = new HashMap<>();
+    private final MqttTopicTree<MqttSession> subscriptions = new MqttTopicTree<>();
+    // Retained messages by device code, oldest topic first
+    private final Map<String, LinkedHashMap<String, MqttMessage>> retained = new HashMap<>();
+
+    MqttBroker(final SelectorLoop loop, final GatewayIngestion ingestion, final Executor workers,
+               final int maxPacketBytes, final int maxQueuedMessages, final int maxRetainedPerDevice) {
+        this.loop = loop;
+        this.ingestion = ingestion;
+        this.workers = workers;
+        this.maxPacketBytes = maxPacketBytes;
+        this.maxQueuedMessages = maxQueuedMessages;
+        this.maxRetainedPerDevice = maxRetainedPerDevice;
+    }
+
+    static String deviceTopicPrefix(final String deviceCode) {
+        return DEVICES + deviceCode + "/";
+    }
+
+    static String commandTopic(final String deviceCode) {
+        return deviceTopicPrefix(deviceCode) + COMMANDS;
+    }
+
+    /**
+     * Publishes a message on behalf of the server, e.g. a device command. May be called from any thread.
+     */
+    void publish(final MqttMessage message) {
+        loop.execute(() -> route(message));
+    }
+
+    @Override
+    public void onData(final Connection connection, final ByteBuffer inbound) {
+        while (!connection.isReadingPaused() && !connection.isClosed() && inbound.remaining() >= 2) {
+            final int start = inbound.position();
+            final int length;
+            try {
+                length = MqttCodec.packetLength(inbound);
+            } catch (IllegalArgumentException e) {
+                connection.close();
+                return;
+            }
+            if (length < 0) {
+                return;
+            }
+            if (length > maxPacketBytes) {
+                logger.warn("Closing MQTT connection {} after a packet of {} bytes", connection.remoteAddress(), length);
+                connection.close();
+                return;
+            }
+            if (inbound.remaining() < length) {
+                connection.requireCapacity(length);
+                return;
+            }
+            final int header = inbound.get() & 0xFF;
+            while ((inbound.get() & 0x80) != 0) {
+                // Skips the remaining length already decoded by packetLength
+            }
+            final ByteBuffer body = inbound.slice(inbound.position(), start + length - inbound.position());
+            inbound.position(start + length);
+            try {
+                handle(connection, header >>> 4, header & 0x0F, body);
+            } catch (RuntimeException e) {
+                logger.debug("Closing MQTT connection {} after a malformed packet: {}", connection.remoteAddress(), e.getMessage());
+                connection.close();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void onClose(final Connection connection) {
+        final MqttSession session = (MqttSession) connection.attachment();
+        if (session == null || session.connection() != connection) {
+            return;
+        }
+        final MqttMessage will = session.will();
+        session.unbind();
+        if (will != null) {
+            route(will);
+        }
+        if (session.isCleanSession()) {
+            discard(session);
+        }
+    }
+
+    private void handle(final Connection connection, final int type, final int flags, final ByteBuffer body) {
+        final MqttSession session = (MqttSession) connection.attachment();
+        if (session == null) {
+            if (type != MqttCodec.CONNECT) {
+                throw new IllegalArgumentException("Expected CONNECT, got packet type " + type);
+            }
+            connect(connection, body);
+            return;
+        }
+        switch (type) {
+            case MqttCodec.PUBLISH -> onPublish(connection, session, MqttCodec.decodePublish(flags, body));
+            case MqttCodec.PUBACK -> {
+                session.inflight().remove(MqttCodec.decodePacketId(body));
+                drain(session);
+            }
+            case MqttCodec.SUBSCRIBE -> onSubscribe(connection, session, MqttCodec.decodeSubscribe(body));
+            case MqttCodec.UNSUBSCRIBE -> onUnsubscribe(connection, session, MqttCodec.decodeUnsubscribe(body));
+            case MqttCodec.PINGREQ -> connection.send(MqttCodec.pingresp());
+            case MqttCodec.DISCONNECT -> {
+                session.clearWill();
+                connection.close();
+            }
+            default -> throw new IllegalArgumentException("Unsupported packet type " + type);
+        }
+    }
+
+    private void connect(final Connection connection, final ByteBuffer body) {
+        final MqttCodec.Connect connect;
+        try {
+            connect = MqttCodec.decodeConnect(body);
+        } catch (MqttCodec.UnsupportedProtocolException e) {
+            connection.sendAndClose(MqttCodec.connack(false, MqttCodec.UNACCEPTABLE_PROTOCOL_VERSION));
+            return;
+        }
+        if (connect.username() == null || connect.password() == null) {
+            connection.sendAndClose(MqttCodec.connack(false, MqttCodec.BAD_USERNAME_OR_PASSWORD));
+            return;
+        }
+        final MqttMessage will = connect.will();
+        if (will != null && (will.qos() > 1 || !MqttTopicTree.isValidTopic(will.topic())
+                || !will.topic().startsWith(deviceTopicPrefix(connect.username())))) {
+            connection.sendAndClose(MqttCodec.connack(false, MqttCodec.NOT_AUTHORIZED));
+            return;
+        }
+        // Resolving the device may hit the database, so it runs on a worker
+        connection.pauseReading();
+        try {
+            workers.execute(() -> {
+                MonitoredSeries series = null;
+                try {
+                    series = ingestion.authenticate(connect.username(), connect.password());
+                } catch (GatewayException e) {
+                    logger.debug("MQTT authentication of device {} failed: {}", connect.username(), e.getMessage());
+                } catch (RuntimeException e) {
+                    logger.error("MQTT authentication of device {} failed", connect.username(), e);
+                }
+                final MonitoredSeries authenticated = series;
+                loop.execute(() -> completeConnect(connection, connect, authenticated));
+                connection.resumeReading();
+            });
+        } catch (RejectedExecutionException e) {
+            connection.sendAndClose(MqttCodec.connack(false, MqttCodec.SERVER_UNAVAILABLE));
+        }
+    }
+
+    private void completeConnect(final Connection connection, final MqttCodec.Connect connect,
+                                 final MonitoredSeries series) {
+        if (connection.isClosed()) {
+            return;
+        }
+        if (series == null) {
+            connection.sendAndClose(MqttCodec.connack(false, MqttCodec.BAD_USERNAME_OR_PASSWORD));
+            return;
+        }
+        final String deviceCode = connect.username();
+        MqttSession session = sessions.get(deviceCode);
+        boolean sessionPresent = false;
+        if (session != null) {
+            final Connection previous = session.connection();
+            if (previous != null) {
+                session.unbind();
+                previous.close();
+            }
+            if (connect.cleanSession() || session.isCleanSession()) {
+                discard(session);
+                session = null;
+            } else {
+                sessionPresent = true;
+            }
+        }
+        if (session == null) {
+            session = new MqttSession(deviceCode, connect.cleanSession());
+            sessions.put(deviceCode, session);
+        }
+        session.bind(connection, series, connect.will());
+        connection.attach(session);
+        if (connect.keepAliveSeconds() > 0) {
+            connection.setIdleTimeout(connect.keepAliveSeconds() * 1500L);
+        }
+        connection.send(MqttCodec.connack(sessionPresent, MqttCodec.ACCEPTED));
+        for (final Map.Entry<Integer, MqttMessage> entry : session.inflight().entrySet()) {
+            connection.send(MqttCodec.publish(entry.getValue(), entry.getKey(), true));
+        }
+        drain(session);
+    }
+
+    private void onPublish(final Connection connection, final MqttSession session, final MqttCodec.Publish publish) {
+        final MqttMessage message = publish.message();
+        if (message.qos() > 1) {
+            throw new IllegalArgumentException("QoS 2 is not supported");
+        }
+        if (!MqttTopicTree.isValidTopic(message.topic())) {
+            throw new IllegalArgumentException("Invalid topic " + message.topic());
+        }
+        if (!session.isAllowed(message.topic())) {
+            logger.warn("Device {} is not allowed to publish to {}", session.deviceCode(), message.topic());
+            connection.close();
+            return;
+        }
+        route(message);
+        if (message.topic().equals(deviceTopicPrefix(session.deviceCode()) + READINGS)) {
+            ingest(connection, session.series(), publish);
+        } else if (message.qos() == 1) {
+            connection.send(MqttCodec.puback(publish.packetId()));
+        }
+    }
+
+    private void ingest(final Connection connection, final MonitoredSeries series, final MqttCodec.Publish publish) {
+        connection.pauseReading();
+        try {
+            workers.execute(() -> {
+                try {
+                    final byte[] payload = publish.message().payload();
+                    if (isJson(payload)) {
+                        ingestion.ingestJson(series, payload);
+                    } else {
+                        ingestion.ingest(series, ByteBuffer.wrap(payload));
+                    }
+                    acknowledge(connection, publish);
+                } catch (GatewayException e) {
+                    if (e.isFatal() || e.getCode() == GatewayProtocol.BUSY) {
+                        // Unacknowledged QoS 1 readings are sent again once the device reconnects
+                        logger.debug("Closing MQTT connection of monitoring {}: {}", series.getMonitoringCode(), e.getMessage());
+                        connection.close();
+                    } else {
+                        logger.debug("Rejected MQTT readings of monitoring {}: {}", series.getMonitoringCode(), e.getMessage());
+                        acknowledge(connection, publish);
+                    }
+                } catch (RuntimeException e) {
+                    logger.error("MQTT readings of monitoring {} failed", series.getMonitoringCode(), e);
+                    connection.close();
+                } finally {
+                    connection.resumeReading();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            if (publish.message().qos() > 0) {
+                connection.close();
+            } else {
+                connection.resumeReading();
+            }
+        }
+    }
+
+    private void acknowledge(final Connection connection, final MqttCodec.Publish publish) {
+        if (publish.message().qos() == 1) {
+            connection.send(MqttCodec.puback(publish.packetId()));
+        }
+    }
+
+    private void onSubscribe(final Connection connection, final MqttSession session, final MqttCodec.Subscribe subscribe) {
+        final byte[] returnCodes = new byte[subscribe.filters().size()];
+        final List<String> granted = new ArrayList<>();
+        for (int i = 0; i < returnCodes.length; i++) {
+            final String filter = subscribe.filters().get(i);
+            if (!MqttTopicTree.isValidFilter(filter) || !session.isAllowed(filter)) {
+                returnCodes[i] = (byte) MqttCodec.SUBSCRIPTION_FAILURE;
+                continue;
+            }
+            final int qos = Math.min(subscribe.qos().get(i), 1);
+            subscriptions.subscribe(filter, session, qos);
+            session.subscriptions().put(filter, qos);
+            granted.add(filter);
+            returnCodes[i] = (byte) qos;
+        }
+        connection.send(MqttCodec.suback(subscribe.packetId(), returnCodes));
+        // Sessions only subscribe below their own device topic, so only its retained messages can match
+        for (final MqttMessage message : retained.getOrDefault(session.deviceCode(), new LinkedHashMap<>()).values()) {
+            for (final String filter : granted) {
+                if (MqttTopicTree.matches(filter, message.topic())) {
+                    deliver(session, message.withDelivery(Math.min(message.qos(), session.subscriptions().get(filter)), true));
+                    break;
+                }
+            }
+        }
+    }
+
+    private void onUnsubscribe(final Connection connection, final MqttSession session,
+                               final MqttCodec.Unsubscribe unsubscribe) {
+        for (final String filter : unsubscribe.filters()) {
+            subscriptions.unsubscribe(filter, session);
+            session.subscriptions().remove(filter);
+        }
+        connection.send(MqttCodec.unsuback(unsubscribe.packetId()));
+    }
+
+    private void route(final MqttMessage message) {
+        if (message.retain()) {
+            retain(message);
+        }
+        subscriptions.match(message.topic()).forEach((session, qos) ->
+                deliver(session, message.withDelivery(Math.min(message.qos(), qos), false)));
+    }
+
+    /**
+     * Keeps the last retained message of up to {@code maxRetainedPerDevice} topics per device,
+     * replacing the oldest topic when a device retains a new one. Readings are never retained.
+     */
+    private void retain(final MqttMessage message) {
+        final String topic = message.topic();
+        final int deviceEnd = topic.indexOf('/', DEVICES.length());
+        if (!topic.startsWith(DEVICES) || deviceEnd < 0 || topic.endsWith("/" + READINGS)) {
+            return;
+        }
+        final String deviceCode = topic.substring(DEVICES.length(), deviceEnd);
+        final LinkedHashMap<String, MqttMessage> topics = retained.computeIfAbsent(deviceCode, code -> new LinkedHashMap<>());
+        topics.remove(topic);
+        if (message.payload().length > 0) {
+            topics.put(topic, message);
+            if (topics.size() > maxRetainedPerDevice) {
+                final Iterator<String> oldest = topics.keySet().iterator();
+                logger.debug("Dropped the retained MQTT message of {}", oldest.next());
+                oldest.remove();
+            }
+        }
+        if (topics.isEmpty()) {
+            retained.remove(deviceCode);
+        }
+    }
+
+    private void deliver(final MqttSession session, final MqttMessage message) {
+        final Connection connection = session.connection();
+        if (message.qos() == 0) {
+            if (connection != null) {
+                connection.send(MqttCodec.publish(message, 0, false));
+            }
+            return;
+        }
+        if (session.queued().size() >= maxQueuedMessages) {
+            session.queued().poll();
+            logger.debug("Dropped the oldest queued MQTT message of device {}", session.deviceCode());
+        }
+        session.queued().add(message);
+        drain(session);
+    }
+
+    private void drain(final MqttSession session) {
+        final Connection connection = session.connection();
+        if (connection == null) {
+            return;
+        }
+        while (session.inflight().size() < MAX_INFLIGHT && !session.queued().isEmpty()) {
+            final MqttMessage message = session.queued().poll();
+            final int packetId = session.nextPacketId();
+            session.inflight().put(packetId, message);
+            connection.send(MqttCodec.publish(message, packetId, false));
+        }
+    }
+
+    private void discard(final MqttSession session) {
+        for (final String filter : session.subscriptions().keySet()) {
+            subscriptions.unsubscribe(filter, session);
+        }
+        sessions.remove(session.deviceCode(), session);
+    }
+
+    private static boolean isJson(final byte[] payload) {
+        for (final byte b : payload) {
+            if (!Character.isWhitespace(b)) {
+                return b == '[';
+            }
+        }
+        return false;
+    }
+}
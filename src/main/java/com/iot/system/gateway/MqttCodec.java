@@ -0,0 +1,224 @@
+package com.iot.system.gateway;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encoding and decoding of the MQTT 3.1.1 control packets the broker supports. Decoders take the
+ * packet body, i.e. the bytes after the fixed header, and throw {@link IllegalArgumentException}
+ * on malformed input.
+ */
+final class MqttCodec {
+
+    static final int CONNECT = 1;
+    static final int CONNACK = 2;
+    static final int PUBLISH = 3;
+    static final int PUBACK = 4;
+    static final int SUBSCRIBE = 8;
+    static final int SUBACK = 9;
+    static final int UNSUBSCRIBE = 10;
+    static final int UNSUBACK = 11;
+    static final int PINGREQ = 12;
+    static final int PINGRESP = 13;
+    static final int DISCONNECT = 14;
+
+    static final int ACCEPTED = 0;
+    static final int UNACCEPTABLE_PROTOCOL_VERSION = 1;
+    static final int IDENTIFIER_REJECTED = 2;
+    static final int SERVER_UNAVAILABLE = 3;
+    static final int BAD_USERNAME_OR_PASSWORD = 4;
+    static final int NOT_AUTHORIZED = 5;
+
+    static final int SUBSCRIPTION_FAILURE = 0x80;
+
+    private static final String PROTOCOL_NAME = "MQTT";
+    private static final int PROTOCOL_LEVEL = 4;
+
+    record Connect(String clientId, String username, String password, boolean cleanSession,
+                   int keepAliveSeconds, MqttMessage will) {
+    }
+
+    record Publish(MqttMessage message, int packetId, boolean dup) {
+    }
+
+    record Subscribe(int packetId, List<String> filters, List<Integer> qos) {
+    }
+
+    record Unsubscribe(int packetId, List<String> filters) {
+    }
+
+    static class UnsupportedProtocolException extends IllegalArgumentException {
+        UnsupportedProtocolException(final String message) {
+            super(message);
+        }
+    }
+
+    private MqttCodec() {
+    }
+
+    /**
+     * Returns the full size of the packet starting at the buffer's position, or -1 while its fixed
+     * header is incomplete.
+     */
+    static int packetLength(final ByteBuffer buffer) {
+        int remaining = 0;
+        for (int i = 0; i < 4; i++) {
+            final int index = buffer.position() + 1 + i;
+            if (index >= buffer.limit()) {
+                return -1;
+            }
+            final int b = buffer.get(index) & 0xFF;
+            remaining |= (b & 0x7F) << (7 * i);
+            if ((b & 0x80) == 0) {
+                return 2 + i + remaining;
+            }
+        }
+        throw new IllegalArgumentException("Malformed remaining length");
+    }
+
+    static Connect decodeConnect(final ByteBuffer body) {
+        final String protocol = readString(body);
+        final int level = body.get() & 0xFF;
+        if (!PROTOCOL_NAME.equals(protocol) || level != PROTOCOL_LEVEL) {
+            throw new UnsupportedProtocolException("Unsupported protocol " + protocol + " level " + level);
+        }
+        final int flags = body.get() & 0xFF;
+        if ((flags & 0x01) != 0) {
+            throw new IllegalArgumentException("Reserved connect flag set");
+        }
+        final int keepAlive = body.getShort() & 0xFFFF;
+        final String clientId = readString(body);
+        MqttMessage will = null;
+        if ((flags & 0x04) != 0) {
+            final String topic = readString(body);
+            will = new MqttMessage(topic, readBytes(body), (flags >> 3) & 0x03, (flags & 0x20) != 0);
+        }
+        final String username = (flags & 0x80) != 0 ? readString(body) : null;
+        final String password = (flags & 0x40) != 0 ? new String(readBytes(body), StandardCharsets.UTF_8) : null;
+        return new Connect(clientId, username, password, (flags & 0x02) != 0, keepAlive, will);
+    }
+
+    static Publish decodePublish(final int flags, final ByteBuffer body) {
+        final int qos = (flags >> 1) & 0x03;
+        if (qos == 3) {
+            throw new IllegalArgumentException("Invalid QoS 3");
+        }
+        final String topic = readString(body);
+        final int packetId = qos > 0 ? body.getShort() & 0xFFFF : 0;
+        final byte[] payload = new byte[body.remaining()];
+        body.get(payload);
+        return new Publish(new MqttMessage(topic, payload, qos, (flags & 0x01) != 0), packetId, (flags & 0x08) != 0);
+    }
+
+    static int decodePacketId(final ByteBuffer body) {
+        return body.getShort() & 0xFFFF;
+    }
+
+    static Subscribe decodeSubscribe(final ByteBuffer body) {
+        final int packetId = body.getShort() & 0xFFFF;
+        final List<String> filters = new ArrayList<>();
+        final List<Integer> qos = new ArrayList<>();
+        while (body.hasRemaining()) {
+            filters.add(readString(body));
+            qos.add(body.get() & 0x03);
+        }
+        if (filters.isEmpty()) {
+            throw new IllegalArgumentException("Subscribe without topic filters");
+        }
+        return new Subscribe(packetId, filters, qos);
+    }
+
+    static Unsubscribe decodeUnsubscribe(final ByteBuffer body) {
+        final int packetId = body.getShort() & 0xFFFF;
+        final List<String> filters = new ArrayList<>();
+        while (body.hasRemaining()) {
+            filters.add(readString(body));
+        }
+        if (filters.isEmpty()) {
+            throw new IllegalArgumentException("Unsubscribe without topic filters");
+        }
+        return new Unsubscribe(packetId, filters);
+    }
+
+    static ByteBuffer connack(final boolean sessionPresent, final int returnCode) {
+        return packet(CONNACK << 4, 2).put((byte) (sessionPresent ? 1 : 0)).put((byte) returnCode).flip();
+    }
+
+    static ByteBuffer publish(final MqttMessage message, final int packetId, final boolean dup) {
+        final byte[] topic = message.topic().getBytes(StandardCharsets.UTF_8);
+        final int flags = (dup ? 0x08 : 0) | (message.qos() << 1) | (message.retain() ? 1 : 0);
+        final ByteBuffer packet = packet(PUBLISH << 4 | flags,
+                2 + topic.length + (message.qos() > 0 ? 2 : 0) + message.payload().length);
+        packet.putShort((short) topic.length).put(topic);
+        if (message.qos() > 0) {
+            packet.putShort((short) packetId);
+        }
+        return packet.put(message.payload()).flip();
+    }
+
+    static ByteBuffer puback(final int packetId) {
+        return packet(PUBACK << 4, 2).putShort((short) packetId).flip();
+    }
+
+    static ByteBuffer suback(final int packetId, final byte[] returnCodes) {
+        return packet(SUBACK << 4, 2 + returnCodes.length).putShort((short) packetId).put(returnCodes).flip();
+    }
+
+    static ByteBuffer unsuback(final int packetId) {
+        return packet(UNSUBACK << 4, 2).putShort((short) packetId).flip();
+    }
+
+    static ByteBuffer pingresp() {
+        return packet(PINGRESP << 4, 0).flip();
+    }
+
+    static ByteBuffer connect(final String clientId, final String username, final String password,
+                              final boolean cleanSession, final int keepAliveSeconds) {
+        final byte[] protocol = PROTOCOL_NAME.getBytes(StandardCharsets.UTF_8);
+        final byte[] id = clientId.getBytes(StandardCharsets.UTF_8);
+        final byte[] user = username.getBytes(StandardCharsets.UTF_8);
+        final byte[] secret = password.getBytes(StandardCharsets.UTF_8);
+        final int flags = 0x80 | 0x40 | (cleanSession ? 0x02 : 0);
+        return packet(CONNECT << 4, 10 + 2 + id.length + 2 + user.length + 2 + secret.length)
+                .putShort((short) protocol.length).put(protocol).put((byte) PROTOCOL_LEVEL).put((byte) flags)
+                .putShort((short) keepAliveSeconds)
+                .putShort((short) id.length).put(id)
+                .putShort((short) user.length).put(user)
+                .putShort((short) secret.length).put(secret)
+                .flip();
+    }
+
+    static ByteBuffer subscribe(final int packetId, final String filter, final int qos) {
+        final byte[] topic = filter.getBytes(StandardCharsets.UTF_8);
+        return packet(SUBSCRIBE << 4 | 0x02, 2 + 2 + topic.length + 1)
+                .putShort((short) packetId).putShort((short) topic.length).put(topic).put((byte) qos)
+                .flip();
+    }
+
+    private static ByteBuffer packet(final int header, final int remainingLength) {
+        final ByteBuffer packet = ByteBuffer.allocate(1 + 4 + remainingLength);
+        packet.put((byte) header);
+        int value = remainingLength;
+        do {
+            int digit = value & 0x7F;
+            value >>>= 7;
+            if (value > 0) {
+                digit |= 0x80;
+            }
+            packet.put((byte) digit);
+        } while (value > 0);
+        return packet.limit(packet.position() + remainingLength);
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        return new String(readBytes(buffer), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
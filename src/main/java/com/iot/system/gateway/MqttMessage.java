@@ -0,0 +1,11 @@
+package com.iot.system.gateway;
+
+/**
+ * An application message routed by the MQTT broker.
+ */
+record MqttMessage(String topic, byte[] payload, int qos, boolean retain) {
+
+    MqttMessage withDelivery(final int deliveryQos, final boolean retainFlag) {
+        return deliveryQos == qos && retainFlag == retain ? this : new MqttMessage(topic, payload, deliveryQos, retainFlag);
+    }
+}
@@ -0,0 +1,95 @@
+package com.iot.system.gateway;
+
+import com.iot.system.telemetry.MonitoredSeries;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * MQTT session of one device. A persistent session outlives its connection, keeping subscriptions
+ * and queuing QoS 1 messages until the device reconnects. Confined to the selector thread.
+ */
+final class MqttSession {
+
+    private final String deviceCode;
+    private final String topicPrefix;
+    private final boolean cleanSession;
+    private final Map<String, Integer> subscriptions = new HashMap<>();
+    private final Map<Integer, MqttMessage> inflight = new LinkedHashMap<>();
+    private final Deque<MqttMessage> queued = new ArrayDeque<>();
+
+    private MonitoredSeries series;
+    private Connection connection;
+    private MqttMessage will;
+    private int lastPacketId;
+
+    MqttSession(final String deviceCode, final boolean cleanSession) {
+        this.deviceCode = deviceCode;
+        this.topicPrefix = MqttBroker.deviceTopicPrefix(deviceCode);
+        this.cleanSession = cleanSession;
+    }
+
+    String deviceCode() {
+        return deviceCode;
+    }
+
+    boolean isCleanSession() {
+        return cleanSession;
+    }
+
+    /**
+     * Devices may only publish and subscribe below their own {@code devices/{deviceCode}/} topic.
+     */
+    boolean isAllowed(final String topicOrFilter) {
+        return topicOrFilter.startsWith(topicPrefix);
+    }
+
+    Map<String, Integer> subscriptions() {
+        return subscriptions;
+    }
+
+    Map<Integer, MqttMessage> inflight() {
+        return inflight;
+    }
+
+    Deque<MqttMessage> queued() {
+        return queued;
+    }
+
+    MonitoredSeries series() {
+        return series;
+    }
+
+    Connection connection() {
+        return connection;
+    }
+
+    MqttMessage will() {
+        return will;
+    }
+
+    void bind(final Connection connection, final MonitoredSeries series, final MqttMessage will) {
+        this.connection = connection;
+        this.series = series;
+        this.will = will;
+    }
+
+    void unbind() {
+        connection = null;
+        will = null;
+    }
+
+    void clearWill() {
+        will = null;
+    }
+
+    int nextPacketId() {
+        do {
+            lastPacketId = lastPacketId == 0xFFFF ? 1 : lastPacketId + 1;
+        } while (inflight.containsKey(lastPacketId));
+        return lastPacketId;
+    }
+}
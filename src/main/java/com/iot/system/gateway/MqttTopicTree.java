@@ -0,0 +1,123 @@
+package com.iot.system.gateway;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Subscriptions indexed by topic level, so matching a published topic walks only the branches that
+ * can match instead of testing every filter. Supports the {@code +} and {@code #} wildcards. Not
+ * thread-safe.
+ */
+final class MqttTopicTree<T> {
+
+    private static final String SINGLE_LEVEL = "+";
+    private static final String MULTI_LEVEL = "#";
+
+    private final Node<T> root = new Node<>();
+
+    void subscribe(final String filter, final T subscriber, final int qos) {
+        Node<T> node = root;
+        for (final String level : filter.split("/", -1)) {
+            node = node.children.computeIfAbsent(level, key -> new Node<>());
+        }
+        node.subscribers.put(subscriber, qos);
+    }
+
+    void unsubscribe(final String filter, final T subscriber) {
+        remove(root, filter.split("/", -1), 0, subscriber);
+    }
+
+    /**
+     * Returns every subscriber whose filters match the topic, with the highest QoS granted to it.
+     */
+    Map<T, Integer> match(final String topic) {
+        final Map<T, Integer> matches = new HashMap<>();
+        match(root, topic.split("/", -1), 0, topic.startsWith("$"), matches);
+        return matches;
+    }
+
+    static boolean isValidTopic(final String topic) {
+        return !topic.isEmpty() && topic.indexOf('+') < 0 && topic.indexOf('#') < 0 && topic.indexOf('\0') < 0;
+    }
+
+    static boolean isValidFilter(final String filter) {
+        if (filter.isEmpty() || filter.indexOf('\0') >= 0) {
+            return false;
+        }
+        final String[] levels = filter.split("/", -1);
+        for (int i = 0; i < levels.length; i++) {
+            final String level = levels[i];
+            if (level.contains(MULTI_LEVEL) && (!level.equals(MULTI_LEVEL) || i != levels.length - 1)) {
+                return false;
+            }
+            if (level.contains(SINGLE_LEVEL) && !level.equals(SINGLE_LEVEL)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean matches(final String filter, final String topic) {
+        final String[] filterLevels = filter.split("/", -1);
+        final String[] topicLevels = topic.split("/", -1);
+        if (topic.startsWith("$") && (filterLevels[0].equals(SINGLE_LEVEL) || filterLevels[0].equals(MULTI_LEVEL))) {
+            return false;
+        }
+        for (int i = 0; i < filterLevels.length; i++) {
+            if (filterLevels[i].equals(MULTI_LEVEL)) {
+                return true;
+            }
+            if (i >= topicLevels.length || !(filterLevels[i].equals(SINGLE_LEVEL) || filterLevels[i].equals(topicLevels[i]))) {
+                return false;
+            }
+        }
+        return filterLevels.length == topicLevels.length;
+    }
+
+    private void match(final Node<T> node, final String[] levels, final int index, final boolean system,
+                       final Map<T, Integer> matches) {
+        // Topics starting with $ are not matched by a leading wildcard
+        final boolean wildcards = !(system && index == 0);
+        if (wildcards) {
+            final Node<T> multi = node.children.get(MULTI_LEVEL);
+            if (multi != null) {
+                collect(multi, matches);
+            }
+        }
+        if (index == levels.length) {
+            collect(node, matches);
+            return;
+        }
+        if (wildcards) {
+            final Node<T> single = node.children.get(SINGLE_LEVEL);
+            if (single != null) {
+                match(single, levels, index + 1, system, matches);
+            }
+        }
+        final Node<T> exact = node.children.get(levels[index]);
+        if (exact != null) {
+            match(exact, levels, index + 1, system, matches);
+        }
+    }
+
+    private void collect(final Node<T> node, final Map<T, Integer> matches) {
+        node.subscribers.forEach((subscriber, qos) -> matches.merge(subscriber, qos, Math::max));
+    }
+
+    private boolean remove(final Node<T> node, final String[] levels, final int index, final T subscriber) {
+        if (index == levels.length) {
+            node.subscribers.remove(subscriber);
+        } else {
+            final Node<T> child = node.children.get(levels[index]);
+            if (child != null && remove(child, levels, index + 1, subscriber)) {
+                node.children.remove(levels[index]);
+            }
+        }
+        return node.subscribers.isEmpty() && node.children.isEmpty();
+    }
+
+    private static final class Node<T> {
+        private final Map<String, Node<T>> children = new HashMap<>();
+        private final Map<T, Integer> subscribers = new HashMap<>();
+    }
+}
@@ -0,0 +1,261 @@
+package com.iot.system.gateway;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Single-threaded NIO event loop serving any number of TCP and UDP listeners. Protocol handlers
+ * run on the loop thread, so anything that may block has to be handed to another executor.
+ */
+public class SelectorLoop implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SelectorLoop.class);
+
+    private static final int ACCEPT_BACKLOG = 4096;
+    private static final int MAX_DATAGRAMS_PER_WAKEUP = 256;
+    private static final long SWEEP_INTERVAL_MS = 1000;
+
+    private final String name;
+    private final long idleTimeoutMs;
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final List<Closeable> listeners = new ArrayList<>();
+    private final Set<Connection> connections = new HashSet<>();
+    private final ByteBuffer datagram = ByteBuffer.allocateDirect(GatewayProtocol.MAX_PAYLOAD_BYTES);
+
+    private volatile boolean running;
+    private Thread thread;
+    private long now;
+    private long lastSweep;
+
+    public SelectorLoop(final String name, final long idleTimeoutMs) throws IOException {
+        this.name = name;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.selector = Selector.open();
+    }
+
+    /**
+     * Opens a TCP listener and returns its bound address. Listeners are added before {@link #start()}.
+     */
+    public InetSocketAddress listen(final InetSocketAddress address, final ConnectionHandler handler) throws IOException {
+        final ServerSocketChannel server = ServerSocketChannel.open();
+        server.configureBlocking(false);
+        server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        server.bind(address, ACCEPT_BACKLOG);
+        register(server, SelectionKey.OP_ACCEPT, handler);
+        return (InetSocketAddress) server.getLocalAddress();
+    }
+
+    /**
+     * Opens a UDP listener and returns its bound address. Listeners are added before {@link #start()}.
+     */
+    public InetSocketAddress bind(final InetSocketAddress address, final DatagramHandler handler) throws IOException {
+        final DatagramChannel channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        channel.bind(address);
+        register(channel, SelectionKey.OP_READ, handler);
+        return (InetSocketAddress) channel.getLocalAddress();
+    }
+
+    public void start() {
+        running = true;
+        thread = new Thread(this, name);
+        thread.start();
+    }
+
+    public void stop() throws InterruptedException {
+        running = false;
+        selector.wakeup();
+        if (thread != null) {
+            thread.join(10_000);
+        }
+    }
+
+    /**
+     * Runs the task on the loop thread.
+     */
+    public void execute(final Runnable task) {
+        tasks.add(task);
+        if (Thread.currentThread() != thread) {
+            selector.wakeup();
+        }
+    }
+
+    @Override
+    public void run() {
+        lastSweep = System.currentTimeMillis();
+        while (running) {
+            try {
+                selector.select(SWEEP_INTERVAL_MS);
+            } catch (IOException e) {
+                logger.error("Selector of {} failed", name, e);
+                break;
+            }
+            now = System.currentTimeMillis();
+            runTasks();
+            final Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+            while (selected.hasNext()) {
+                final SelectionKey key = selected.next();
+                selected.remove();
+                dispatch(key);
+            }
+            runTasks();
+            if (now - lastSweep >= SWEEP_INTERVAL_MS) {
+                closeIdleConnections();
+                lastSweep = now;
+            }
+        }
+        shutdown();
+    }
+
+    long now() {
+        return now;
+    }
+
+    void close(final Connection connection) {
+        if (connection.isClosed()) {
+            return;
+        }
+        connection.markClosed();
+        connections.remove(connection);
+        try {
+            connection.channel().close();
+        } catch (IOException e) {
+            logger.debug("Failed to close gateway connection", e);
+        }
+        try {
+            connection.handler().onClose(connection);
+        } catch (RuntimeException e) {
+            logger.error("Gateway connection close handler failed", e);
+        }
+    }
+
+    private void register(final SelectableChannel channel, final int ops, final Object attachment) throws IOException {
+        if (running) {
+            throw new IllegalStateException("Listeners must be added before the selector loop starts");
+        }
+        channel.register(selector, ops, attachment);
+        listeners.add(channel);
+    }
+
+    private void dispatch(final SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+        final Object attachment = key.attachment();
+        if (attachment instanceof Connection connection) {
+            try {
+                if (key.isReadable()) {
+                    connection.read();
+                }
+                if (key.isValid() && key.isWritable()) {
+                    connection.flush();
+                }
+            } catch (IOException e) {
+                close(connection);
+            } catch (RuntimeException e) {
+                logger.error("Gateway connection handler failed, closing {}", connection.remoteAddress(), e);
+                close(connection);
+            }
+        } else if (key.isAcceptable()) {
+            accept((ServerSocketChannel) key.channel(), (ConnectionHandler) attachment);
+        } else if (key.isReadable()) {
+            receive((DatagramChannel) key.channel(), (DatagramHandler) attachment);
+        }
+    }
+
+    private void accept(final ServerSocketChannel server, final ConnectionHandler handler) {
+        SocketChannel channel;
+        try {
+            while ((channel = server.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                final SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                final Connection connection = new Connection(this, channel, key, handler, now, idleTimeoutMs);
+                key.attach(connection);
+                connections.add(connection);
+                handler.onOpen(connection);
+            }
+        } catch (IOException e) {
+            // Typically out of file descriptors; the pending connection is retried on the next wakeup
+            logger.warn("Failed to accept gateway connection: {}", e.getMessage());
+        }
+    }
+
+    private void receive(final DatagramChannel channel, final DatagramHandler handler) {
+        try {
+            for (int i = 0; i < MAX_DATAGRAMS_PER_WAKEUP; i++) {
+                datagram.clear();
+                final SocketAddress sender = channel.receive(datagram);
+                if (sender == null) {
+                    return;
+                }
+                datagram.flip();
+                handler.onDatagram(channel, sender, datagram);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to process gateway datagram: {}", e.getMessage());
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("Selector loop task failed", e);
+            }
+        }
+    }
+
+    private void closeIdleConnections() {
+        final List<Connection> idle = new ArrayList<>();
+        for (final Connection connection : connections) {
+            if (!connection.isReadingPaused() && now - connection.lastActivity() > connection.idleTimeoutMs()) {
+                idle.add(connection);
+            }
+        }
+        idle.forEach(this::close);
+        if (!idle.isEmpty()) {
+            logger.debug("Closed {} idle gateway connections", idle.size());
+        }
+    }
+
+    private void shutdown() {
+        new ArrayList<>(connections).forEach(this::close);
+        for (final Closeable listener : listeners) {
+            try {
+                listener.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close gateway listener", e);
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close selector", e);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.iot.system.gateway;
+
+import com.iot.system.telemetry.MonitoredSeries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Frames of one TCP connection are handled one at a time: reading pauses while a worker processes
+ * a frame, which keeps replies in order and lets TCP flow control throttle devices that outpace
+ * ingestion.
+ */
+class TcpIngestionHandler implements ConnectionHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(TcpIngestionHandler.class);
+
+    private final GatewayIngestion ingestion;
+    private final Executor workers;
+
+    TcpIngestionHandler(final GatewayIngestion ingestion, final Executor workers) {
+        this.ingestion = ingestion;
+        this.workers = workers;
+    }
+
+    @Override
+    public void onData(final Connection connection, final ByteBuffer inbound) {
+        while (!connection.isReadingPaused() && !connection.isClosed()
+                && inbound.remaining() >= GatewayProtocol.HEADER_BYTES) {
+            final int length = inbound.getShort(inbound.position()) & 0xFFFF;
+            if (inbound.remaining() < GatewayProtocol.HEADER_BYTES + length) {
+                connection.requireCapacity(GatewayProtocol.HEADER_BYTES + length);
+                return;
+            }
+            inbound.position(inbound.position() + 2);
+            final byte type = inbound.get();
+            // Copied because the inbound buffer is compacted while a worker handles the frame
+            final byte[] payload = new byte[length];
+            inbound.get(payload);
+            handleFrame(connection, type, ByteBuffer.wrap(payload));
+        }
+    }
+
+    private void handleFrame(final Connection connection, final byte type, final ByteBuffer payload) {
+        final MonitoredSeries series = (MonitoredSeries) connection.attachment();
+        switch (type) {
+            case GatewayProtocol.HELLO -> {
+                if (series != null) {
+                    connection.sendAndClose(GatewayProtocol.error(GatewayProtocol.MALFORMED, "Connection already authenticated"));
+                    return;
+                }
+                submit(connection, () -> {
+                    connection.attach(ingestion.authenticate(payload));
+                    connection.send(GatewayProtocol.ack(0));
+                });
+            }
+            case GatewayProtocol.READINGS -> {
+                if (series == null) {
+                    connection.sendAndClose(GatewayProtocol.error(GatewayProtocol.NOT_AUTHENTICATED, "Send hello first"));
+                    return;
+                }
+                submit(connection, () -> connection.send(GatewayProtocol.ack(ingestion.ingest(series, payload))));
+            }
+            case GatewayProtocol.PING -> connection.send(GatewayProtocol.pong());
+            default -> connection.sendAndClose(GatewayProtocol.error(GatewayProtocol.MALFORMED, "Unknown frame type " + type));
+        }
+    }
+
+    private void submit(final Connection connection, final Runnable task) {
+        connection.pauseReading();
+        try {
+            workers.execute(() -> {
+                try {
+                    task.run();
+                } catch (GatewayException e) {
+                    final ByteBuffer error = GatewayProtocol.error(e.getCode(), e.getMessage());
+                    if (e.isFatal()) {
+                        connection.sendAndClose(error);
+                    } else {
+                        connection.send(error);
+                    }
+                } catch (RuntimeException e) {
+                    logger.error("Gateway frame from {} failed", connection.remoteAddress(), e);
+                    connection.sendAndClose(GatewayProtocol.error(GatewayProtocol.INTERNAL_ERROR, "Internal error"));
+                } finally {
+                    connection.resumeReading();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            connection.send(GatewayProtocol.error(GatewayProtocol.BUSY, "Gateway is busy, retry later"));
+            connection.resumeReading();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.iot.system.gateway;
+
+import com.iot.system.telemetry.MonitoredSeries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Datagrams carry their own credential, so they are authenticated one by one; the HMAC check is
+ * cheap and device lookups are cached by the series registry.
+ */
+class UdpIngestionHandler implements DatagramHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(UdpIngestionHandler.class);
+
+    private final GatewayIngestion ingestion;
+    private final Executor workers;
+
+    UdpIngestionHandler(final GatewayIngestion ingestion, final Executor workers) {
+        this.ingestion = ingestion;
+        this.workers = workers;
+    }
+
+    @Override
+    public void onDatagram(final DatagramChannel channel, final SocketAddress sender, final ByteBuffer packet) {
+        final byte[] datagram = new byte[packet.remaining()];
+        packet.get(datagram);
+        try {
+            workers.execute(() -> handle(channel, sender, ByteBuffer.wrap(datagram)));
+        } catch (RejectedExecutionException e) {
+            final int sequence = datagram.length >= 4 ? ByteBuffer.wrap(datagram).getInt() : 0;
+            reply(channel, sender, sequence, GatewayProtocol.error(GatewayProtocol.BUSY, "Gateway is busy, retry later"));
+        }
+    }
+
+    private void handle(final DatagramChannel channel, final SocketAddress sender, final ByteBuffer datagram) {
+        if (datagram.remaining() < 4) {
+            return;
+        }
+        final int sequence = datagram.getInt();
+        ByteBuffer response;
+        try {
+            final MonitoredSeries series = ingestion.authenticate(datagram);
+            response = GatewayProtocol.ack(ingestion.ingest(series, datagram.slice()));
+        } catch (GatewayException e) {
+            response = GatewayProtocol.error(e.getCode(), e.getMessage());
+        } catch (BufferUnderflowException e) {
+            response = GatewayProtocol.error(GatewayProtocol.MALFORMED, "Truncated datagram");
+        } catch (RuntimeException e) {
+            logger.error("Gateway datagram from {} failed", sender, e);
+            response = GatewayProtocol.error(GatewayProtocol.INTERNAL_ERROR, "Internal error");
+        }
+        reply(channel, sender, sequence, response);
+    }
+
+    private void reply(final DatagramChannel channel, final SocketAddress sender, final int sequence, final ByteBuffer frame) {
+        try {
+            channel.send(GatewayProtocol.datagramReply(sequence, frame), sender);
+        } catch (IOException e) {
+            logger.debug("Failed to reply to gateway datagram from {}", sender, e);
+        }
+    }
+}
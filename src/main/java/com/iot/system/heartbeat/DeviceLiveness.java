@@ -0,0 +1,51 @@
+package com.iot.system.heartbeat;
+
+import com.iot.system.model.DeviceStatus;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Liveness of one device. Heartbeats only write {@link #lastSeenAt}; the status and the wheel
+ * links belong to the tracker thread.
+ */
+class DeviceLiveness extends HashedTimingWheel.Entry {
+
+    private final long deviceId;
+    private final String deviceCode;
+    private volatile long lastSeenAt;
+    private volatile DeviceStatus status;
+    // Set while the entry waits in one of the tracker's queues, so it is enqueued at most once
+    final AtomicBoolean awakening = new AtomicBoolean();
+    final AtomicBoolean seen = new AtomicBoolean();
+
+    DeviceLiveness(final long deviceId, final String deviceCode, final DeviceStatus status, final long lastSeenAt) {
+        this.deviceId = deviceId;
+        this.deviceCode = deviceCode;
+        this.status = status;
+        this.lastSeenAt = lastSeenAt;
+    }
+
+    long deviceId() {
+        return deviceId;
+    }
+
+    String deviceCode() {
+        return deviceCode;
+    }
+
+    long lastSeenAt() {
+        return lastSeenAt;
+    }
+
+    void touch(final long now) {
+        lastSeenAt = now;
+    }
+
+    DeviceStatus status() {
+        return status;
+    }
+
+    void setStatus(final DeviceStatus status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,111 @@
+package com.iot.system.heartbeat;
+
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel over intrusive entries: arming and cancelling link or unlink an entry in the
+ * bucket of its deadline tick, and each tick only visits one bucket. Deadlines further out than
+ * one turn of the wheel wait out the remaining rounds in their bucket. Not thread-safe.
+ */
+public class HashedTimingWheel<E extends HashedTimingWheel.Entry> {
+
+    private final long tickMs;
+    private final int mask;
+    private final Entry[] buckets;
+    private long currentTick;
+    private int size;
+
+    public HashedTimingWheel(final long tickMs, final int wheelSize, final long now) {
+        if (tickMs <= 0 || wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Timing wheel needs a positive tick and a power of two wheel size");
+        }
+        this.tickMs = tickMs;
+        this.mask = wheelSize - 1;
+        this.buckets = new Entry[wheelSize];
+        this.currentTick = now / tickMs;
+    }
+
+    /**
+     * Schedules the entry to expire on the first tick at or after the deadline, moving it if it
+     * was already armed.
+     */
+    public void arm(final E entry, final long deadline) {
+        if (entry.armed) {
+            cancel(entry);
+        }
+        // A deadline in the past expires on the next tick
+        final long tick = Math.max(currentTick + 1, Math.floorDiv(deadline + tickMs - 1, tickMs));
+        final int bucket = (int) (tick & mask);
+        entry.rounds = (tick - currentTick - 1) / buckets.length;
+        entry.bucket = bucket;
+        entry.prev = null;
+        entry.next = buckets[bucket];
+        if (entry.next != null) {
+            entry.next.prev = entry;
+        }
+        buckets[bucket] = entry;
+        entry.armed = true;
+        size++;
+    }
+
+    public void cancel(final E entry) {
+        if (!entry.armed) {
+            return;
+        }
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            buckets[entry.bucket] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+        entry.armed = false;
+        size--;
+    }
+
+    /**
+     * Runs every tick up to {@code now}, handing each expired entry to the consumer. The consumer
+     * may arm the entry again.
+     */
+    @SuppressWarnings("unchecked")
+    public void advance(final long now, final Consumer<E> expired) {
+        final long targetTick = now / tickMs;
+        while (currentTick < targetTick) {
+            currentTick++;
+            final int bucket = (int) (currentTick & mask);
+            Entry entry = buckets[bucket];
+            while (entry != null) {
+                final Entry next = entry.next;
+                if (entry.rounds > 0) {
+                    entry.rounds--;
+                } else {
+                    cancel((E) entry);
+                    expired.accept((E) entry);
+                }
+                entry = next;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Links of an entry into its bucket; extend it to make a type schedulable.
+     */
+    public static class Entry {
+        Entry prev;
+        Entry next;
+        long rounds;
+        int bucket;
+        boolean armed;
+
+        public boolean isArmed() {
+            return armed;
+        }
+    }
+}
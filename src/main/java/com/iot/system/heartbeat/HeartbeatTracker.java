@@ -0,0 +1,310 @@
+package com.iot.system.heartbeat;
+
+import com.iot.system.event.DeviceChangedEvent;
+import com.iot.system.event.DeviceStatusChangedEvent;
+import com.iot.system.model.Device;
+import com.iot.system.model.DeviceStatus;
+import com.iot.system.repository.DevicesRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves devices that stop sending heartbeats to STANDBY and then OFF, and back to ON when they
+ * resume. Every tracked device sits in a hashed timing wheel at the deadline of its next
+ * transition. A heartbeat only stamps the device; when its deadline comes up, a device that was
+ * seen in the meantime is re-armed from its last heartbeat instead of being demoted. Status
+ * changes and last-seen times are written in bulk once per flush interval.
+ * <p>
+ * The status tracks liveness, so a heartbeat brings any device back to ON, including one an
+ * operator turned OFF with "Deactivate": a device that obeys the command stops sending heartbeats.
+ */
+@Component
+public class HeartbeatTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(HeartbeatTracker.class);
+    private static final int UPDATE_BATCH_SIZE = 1000;
+
+    private final DevicesRepository devicesRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long standbyAfterMs;
+    private final long offAfterMs;
+    private final long tickMs;
+    private final int wheelSize;
+    private final long flushIntervalMs;
+
+    private final Map<String, DeviceLiveness> devices = new ConcurrentHashMap<>();
+    private final Queue<DeviceLiveness> awakenings = new ConcurrentLinkedQueue<>();
+    private final Queue<DeviceLiveness> seen = new ConcurrentLinkedQueue<>();
+    private final Queue<DeviceLiveness> forgotten = new ConcurrentLinkedQueue<>();
+
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "device-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Tracker thread state
+    private HashedTimingWheel<DeviceLiveness> wheel;
+    private final Map<Long, DeviceStatus> pendingStatus = new HashMap<>();
+    private final Set<Long> pendingSeen = new LinkedHashSet<>();
+    private long now;
+    private long lastFlush;
+
+    public HeartbeatTracker(final DevicesRepository devicesRepository, final ApplicationEventPublisher eventPublisher,
+                            @Value("${heartbeat.standby-after-ms}") final long standbyAfterMs,
+                            @Value("${heartbeat.off-after-ms}") final long offAfterMs,
+                            @Value("${heartbeat.tick-ms}") final long tickMs,
+                            @Value("${heartbeat.wheel-size}") final int wheelSize,
+                            @Value("${heartbeat.flush-interval-ms}") final long flushIntervalMs) {
+        if (standbyAfterMs <= 0 || offAfterMs <= standbyAfterMs) {
+            throw new IllegalArgumentException("heartbeat.off-after-ms must be greater than heartbeat.standby-after-ms");
+        }
+        this.devicesRepository = devicesRepository;
+        this.eventPublisher = eventPublisher;
+        this.standbyAfterMs = standbyAfterMs;
+        this.offAfterMs = offAfterMs;
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        now = System.currentTimeMillis();
+        lastFlush = now;
+        wheel = new HashedTimingWheel<>(tickMs, wheelSize, now);
+        final List<Object[]> rows = devicesRepository.findHeartbeatStates();
+        for (final Object[] row : rows) {
+            final long lastSeenAt = ((LocalDateTime) row[3]).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            final DeviceLiveness liveness = new DeviceLiveness((Long) row[0], (String) row[1], (DeviceStatus) row[2], lastSeenAt);
+            devices.put(liveness.deviceCode(), liveness);
+            wheel.arm(liveness, lastSeenAt + (liveness.status() == DeviceStatus.ON ? standbyAfterMs : offAfterMs));
+        }
+        logger.info("Tracking heartbeats of {} devices", rows.size());
+        ticker.scheduleWithFixedDelay(this::tickSafely, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        ticker.shutdown();
+        ticker.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+
+    /**
+     * Records a heartbeat of a device the caller has already resolved and authorized.
+     */
+    public void heartbeat(final Device device) {
+        final long timestamp = System.currentTimeMillis();
+        DeviceLiveness liveness = devices.get(device.getDeviceCode());
+        if (liveness == null) {
+            final DeviceLiveness created = new DeviceLiveness(device.getId(), device.getDeviceCode(),
+                    device.getDeviceStatus(), timestamp);
+            liveness = devices.putIfAbsent(device.getDeviceCode(), created);
+            if (liveness == null) {
+                liveness = created;
+                wake(liveness);
+            }
+        }
+        liveness.touch(timestamp);
+        if (liveness.seen.compareAndSet(false, true)) {
+            seen.add(liveness);
+        }
+        // Read after the stamp: either this sees a concurrent demotion, or the tracker sees the stamp
+        if (liveness.status() != DeviceStatus.ON) {
+            wake(liveness);
+        }
+    }
+
+    /**
+     * Keeps the tracked status in line with a committed change made through the API. The change
+     * replaces a heartbeat transition that is not flushed yet, and is written again on the next
+     * flush in case a flush wrote a stale transition after the commit. The tracker's own changes
+     * arrive here too and already match the pending status.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onDeviceStatusChanged(final DeviceStatusChangedEvent event) {
+        final DeviceLiveness liveness = devices.get(event.deviceCode());
+        if (liveness == null || event.status() == null || pendingStatus.get(liveness.deviceId()) == event.status()) {
+            return;
+        }
+        liveness.setStatus(event.status());
+        pendingStatus.put(liveness.deviceId(), event.status());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceChanged(final DeviceChangedEvent event) {
+        if (event.after() == null) {
+            forget(event.deviceCode());
+        }
+    }
+
+    public void forget(final String deviceCode) {
+        final DeviceLiveness liveness = devices.remove(deviceCode);
+        if (liveness != null) {
+            forgotten.add(liveness);
+        }
+    }
+
+    /**
+     * Status changes applied in memory but not yet written to the database, by device id.
+     */
+    public synchronized Map<Long, DeviceStatus> unflushedStatuses() {
+        return new HashMap<>(pendingStatus);
+    }
+
+    public int trackedDevices() {
+        return devices.size();
+    }
+
+    private void wake(final DeviceLiveness liveness) {
+        if (liveness.awakening.compareAndSet(false, true)) {
+            awakenings.add(liveness);
+        }
+    }
+
+    private void tickSafely() {
+        try {
+            tick();
+        } catch (Exception e) {
+            logger.error("Heartbeat tick failed", e);
+        }
+    }
+
+    private synchronized void tick() {
+        now = System.currentTimeMillis();
+        DeviceLiveness liveness;
+        while ((liveness = forgotten.poll()) != null) {
+            wheel.cancel(liveness);
+            pendingStatus.remove(liveness.deviceId());
+            pendingSeen.remove(liveness.deviceId());
+        }
+        while ((liveness = awakenings.poll()) != null) {
+            liveness.awakening.set(false);
+            if (devices.get(liveness.deviceCode()) != liveness) {
+                continue;
+            }
+            final DeviceStatus previous = liveness.status();
+            if (previous != DeviceStatus.ON) {
+                liveness.setStatus(DeviceStatus.ON);
+                pendingStatus.put(liveness.deviceId(), DeviceStatus.ON);
+                publishStatusChange(liveness, previous, liveness.lastSeenAt());
+            }
+            wheel.arm(liveness, liveness.lastSeenAt() + standbyAfterMs);
+        }
+        wheel.advance(now, this::expire);
+        if (now - lastFlush >= flushIntervalMs) {
+            flush();
+            lastFlush = now;
+        }
+    }
+
+    private void expire(final DeviceLiveness liveness) {
+        final long lastSeenAt = liveness.lastSeenAt();
+        final long idle = now - lastSeenAt;
+        if (idle < standbyAfterMs) {
+            wheel.arm(liveness, lastSeenAt + standbyAfterMs);
+            return;
+        }
+        final DeviceStatus previous = liveness.status();
+        final DeviceStatus next;
+        if (previous == DeviceStatus.ON) {
+            next = DeviceStatus.STANDBY;
+        } else if (previous == DeviceStatus.STANDBY && idle >= offAfterMs) {
+            next = DeviceStatus.OFF;
+        } else {
+            if (previous == DeviceStatus.STANDBY) {
+                wheel.arm(liveness, lastSeenAt + offAfterMs);
+            }
+            return;
+        }
+        liveness.setStatus(next);
+        if (now - liveness.lastSeenAt() < standbyAfterMs) {
+            // A heartbeat raced with the demotion and may not have seen it; a device that was not
+            // ON was woken by that heartbeat and is promoted from the awakenings queue
+            liveness.setStatus(previous);
+            wheel.arm(liveness, liveness.lastSeenAt() + standbyAfterMs);
+            return;
+        }
+        pendingStatus.put(liveness.deviceId(), next);
+        publishStatusChange(liveness, previous, lastSeenAt + (next == DeviceStatus.STANDBY ? standbyAfterMs : offAfterMs));
+        if (next == DeviceStatus.STANDBY) {
+            wheel.arm(liveness, lastSeenAt + offAfterMs);
+        }
+        logger.debug("Device {} moved to {} after {} ms without heartbeat", liveness.deviceCode(), next, idle);
+    }
+
+    private void publishStatusChange(final DeviceLiveness liveness, final DeviceStatus previous, final long changedAt) {
+        eventPublisher.publishEvent(new DeviceStatusChangedEvent(liveness.deviceId(), liveness.deviceCode(),
+                previous, liveness.status(), changedAt));
+    }
+
+    private synchronized void flush() {
+        DeviceLiveness liveness;
+        while ((liveness = seen.poll()) != null) {
+            liveness.seen.set(false);
+            pendingSeen.add(liveness.deviceId());
+        }
+        try {
+            if (!pendingSeen.isEmpty()) {
+                // Last-seen times are as precise as the flush interval
+                final LocalDateTime seenAt = LocalDateTime.now();
+                for (final List<Long> ids : batches(pendingSeen)) {
+                    devicesRepository.updateLastSeenAt(ids, seenAt);
+                }
+                pendingSeen.clear();
+            }
+            if (!pendingStatus.isEmpty()) {
+                final Map<DeviceStatus, List<Long>> byStatus = new EnumMap<>(DeviceStatus.class);
+                pendingStatus.forEach((deviceId, status) -> byStatus.computeIfAbsent(status, s -> new ArrayList<>()).add(deviceId));
+                for (final Map.Entry<DeviceStatus, List<Long>> entry : byStatus.entrySet()) {
+                    for (final List<Long> ids : batches(entry.getValue())) {
+                        devicesRepository.updateDeviceStatus(ids, entry.getKey());
+                    }
+                }
+                pendingStatus.clear();
+            }
+        } catch (Exception e) {
+            logger.error("Failed to persist {} device status changes and {} heartbeats, retrying on next flush",
+                    pendingStatus.size(), pendingSeen.size(), e);
+        }
+    }
+
+    private static List<List<Long>> batches(final Iterable<Long> ids) {
+        final List<List<Long>> batches = new ArrayList<>();
+        List<Long> batch = new ArrayList<>(UPDATE_BATCH_SIZE);
+        for (final Long id : ids) {
+            if (batch.size() == UPDATE_BATCH_SIZE) {
+                batches.add(batch);
+                batch = new ArrayList<>(UPDATE_BATCH_SIZE);
+            }
+            batch.add(id);
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+}
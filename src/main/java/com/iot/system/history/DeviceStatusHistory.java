@@ -0,0 +1,321 @@
+package com.iot.system.history;
+
+import com.iot.system.event.DeviceChangedEvent;
+import com.iot.system.event.DeviceStatusChangedEvent;
+import com.iot.system.model.DeviceStatus;
+import com.iot.system.model.DeviceStatusDay;
+import com.iot.system.repository.DeviceStatusDayRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only status timeline of every device, kept as one {@link DeviceStatusDay} per device and
+ * UTC day. Status changes are queued and folded in batches: the time since a device's previous
+ * transition is added to the counters of each day it spans, then the transition is appended to the
+ * day it happened. Availability queries sum the closed counters and add the still-open time after
+ * each device's last transition with one grouped query, so fleet reports never read the log itself.
+ */
+@Component
+public class DeviceStatusHistory {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceStatusHistory.class);
+    private static final long DAY_MS = 86_400_000L;
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final int MAX_DAYS = 366;
+
+    private final DeviceStatusDayRepository deviceStatusDayRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long flushIntervalMs;
+
+    private final Queue<DeviceStatusChangedEvent> events = new ConcurrentLinkedQueue<>();
+    private final Queue<Long> deletedDevices = new ConcurrentLinkedQueue<>();
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "device-status-history");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Flusher thread state
+    private final List<DeviceStatusChangedEvent> pending = new ArrayList<>();
+
+    public DeviceStatusHistory(final DeviceStatusDayRepository deviceStatusDayRepository,
+                               final TransactionTemplate transactionTemplate,
+                               @Value("${status-history.flush-interval-ms}") final long flushIntervalMs) {
+        this.deviceStatusDayRepository = deviceStatusDayRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(final DeviceStatusChangedEvent event) {
+        events.add(event);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceChanged(final DeviceChangedEvent event) {
+        if (event.after() == null) {
+            deletedDevices.add(event.deviceId());
+        }
+    }
+
+    /**
+     * Deletes the recorded history of a device in the caller's transaction. Its queued changes are
+     * dropped once the deletion is committed.
+     */
+    public void deleteDevice(final long deviceId) {
+        deviceStatusDayRepository.deleteByDeviceId(deviceId);
+    }
+
+    /**
+     * Transitions of a device inside {@code [from, to)} and the status it had at {@code from},
+     * which is null if the device had no recorded status yet.
+     */
+    public StatusTimeline timeline(final long deviceId, final long from, final long to) {
+        if (from >= to) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        final LocalDate firstDay = dayOf(from);
+        final LocalDate lastDay = dayOf(to - 1);
+        checkRange(firstDay, lastDay);
+        DeviceStatus initial = deviceStatusDayRepository.findTopByDeviceIdAndDayLessThanOrderByDayDesc(deviceId, firstDay)
+                .map(DeviceStatusDay::getLastStatus)
+                .orElse(null);
+        final List<StatusTransition> transitions = new ArrayList<>();
+        for (final DeviceStatusDay day : deviceStatusDayRepository.findByDeviceIdAndDayBetweenOrderByDay(deviceId, firstDay, lastDay)) {
+            for (final StatusTransition transition : StatusTransitionCodec.decode(day.getTransitions(), startOf(day.getDay()))) {
+                if (transition.timestamp() < from) {
+                    initial = transition.status();
+                } else if (transition.timestamp() < to) {
+                    transitions.add(transition);
+                }
+            }
+        }
+        return new StatusTimeline(initial, transitions);
+    }
+
+    /**
+     * Time spent in each status per day of {@code [from, to]}, summed over the devices in scope.
+     * Null filters select every device.
+     */
+    public List<DayStatusTime> statusTime(final LocalDate from, final LocalDate to, final Long deviceId,
+                                          final String industryType, final Long userId) {
+        checkRange(from, to);
+        final Map<LocalDate, DayStatusTime> days = new LinkedHashMap<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            days.put(day, new DayStatusTime(day));
+        }
+        for (final Object[] row : deviceStatusDayRepository.sumByDay(from, to, deviceId, industryType, userId)) {
+            final DayStatusTime day = days.get((LocalDate) row[0]);
+            day.add(DeviceStatus.ON, ((Number) row[1]).longValue());
+            day.add(DeviceStatus.STANDBY, ((Number) row[2]).longValue());
+            day.add(DeviceStatus.OFF, ((Number) row[3]).longValue());
+        }
+
+        // A device stays in the status of its last transition until now
+        final long now = System.currentTimeMillis();
+        for (final Object[] row : deviceStatusDayRepository.openIntervals(to, deviceId, industryType, userId)) {
+            final LocalDate lastDay = (LocalDate) row[0];
+            final DeviceStatus status = (DeviceStatus) row[1];
+            final long devices = ((Number) row[2]).longValue();
+            final long lastAtSum = ((Number) row[3]).longValue();
+            for (final DayStatusTime day : days.values()) {
+                if (day.getDay().isBefore(lastDay)) {
+                    continue;
+                }
+                final long start = startOf(day.getDay());
+                final long end = Math.min(start + DAY_MS, now);
+                if (end <= start) {
+                    break;
+                }
+                day.add(status, day.getDay().equals(lastDay) ? Math.max(0, devices * end - lastAtSum) : devices * (end - start));
+            }
+        }
+        return new ArrayList<>(days.values());
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.error("Device status history flush failed", e);
+        }
+    }
+
+    private synchronized void flush() {
+        DeviceStatusChangedEvent event;
+        while ((event = events.poll()) != null) {
+            pending.add(event);
+        }
+        final Set<Long> deleted = new HashSet<>();
+        Long deviceId;
+        while ((deviceId = deletedDevices.poll()) != null) {
+            deleted.add(deviceId);
+        }
+        pending.removeIf(change -> deleted.contains(change.deviceId()));
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        final Map<Long, List<DeviceStatusChangedEvent>> byDevice = new LinkedHashMap<>();
+        pending.stream()
+                .sorted(Comparator.comparingLong(DeviceStatusChangedEvent::changedAt))
+                .forEach(change -> byDevice.computeIfAbsent(change.deviceId(), id -> new ArrayList<>()).add(change));
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                final Map<Long, DeviceStatusDay> latest = new HashMap<>();
+                final List<Long> ids = new ArrayList<>(byDevice.keySet());
+                for (int i = 0; i < ids.size(); i += LOAD_BATCH_SIZE) {
+                    deviceStatusDayRepository.findByLatestTrueAndDeviceIdIn(ids.subList(i, Math.min(ids.size(), i + LOAD_BATCH_SIZE)))
+                            .forEach(day -> latest.put(day.getDeviceId(), day));
+                }
+                final Set<DeviceStatusDay> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+                byDevice.forEach((id, changes) -> {
+                    DeviceStatusDay day = latest.get(id);
+                    for (final DeviceStatusChangedEvent change : changes) {
+                        day = apply(id, day, change.status(), change.changedAt(), changed);
+                    }
+                });
+                deviceStatusDayRepository.saveAll(changed);
+            });
+            pending.clear();
+        } catch (Exception e) {
+            logger.error("Failed to record {} device status changes, retrying on next flush", pending.size(), e);
+        }
+    }
+
+    private DeviceStatusDay apply(final long deviceId, final DeviceStatusDay latest, final DeviceStatus status,
+                                  final long changedAt, final Set<DeviceStatusDay> changed) {
+        if (latest == null) {
+            // Nothing is known about the device before its first recorded status
+            final DeviceStatusDay first = newDay(deviceId, dayOf(changedAt), status);
+            first.setTransitions(StatusTransitionCodec.append(null, changedAt - first.getLastAt(), status));
+            first.setTransitionCount(1);
+            first.setLastAt(changedAt);
+            changed.add(first);
+            return first;
+        }
+        if (latest.getLastStatus() == status) {
+            return latest;
+        }
+        DeviceStatusDay day = latest;
+        // Clocks of different writers may disagree slightly; the timeline never runs backwards
+        final long at = Math.max(changedAt, day.getLastAt());
+        while (at >= startOf(day.getDay()) + DAY_MS) {
+            final long dayEnd = startOf(day.getDay()) + DAY_MS;
+            addTime(day, day.getLastStatus(), dayEnd - day.getLastAt());
+            day.setLatest(false);
+            changed.add(day);
+            day = newDay(deviceId, day.getDay().plusDays(1), day.getLastStatus());
+        }
+        addTime(day, day.getLastStatus(), at - day.getLastAt());
+        day.setTransitions(StatusTransitionCodec.append(day.getTransitions(), at - day.getLastAt(), status));
+        day.setTransitionCount(day.getTransitionCount() + 1);
+        day.setLastStatus(status);
+        day.setLastAt(at);
+        changed.add(day);
+        return day;
+    }
+
+    private static DeviceStatusDay newDay(final long deviceId, final LocalDate date, final DeviceStatus status) {
+        final DeviceStatusDay day = new DeviceStatusDay();
+        day.setDeviceId(deviceId);
+        day.setDay(date);
+        day.setLastStatus(status);
+        day.setLastAt(startOf(date));
+        day.setLatest(true);
+        return day;
+    }
+
+    private static void addTime(final DeviceStatusDay day, final DeviceStatus status, final long ms) {
+        switch (status) {
+            case ON -> day.setOnMs(day.getOnMs() + ms);
+            case STANDBY -> day.setStandbyMs(day.getStandbyMs() + ms);
+            case OFF -> day.setOffMs(day.getOffMs() + ms);
+        }
+    }
+
+    private static void checkRange(final LocalDate from, final LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (from.plusDays(MAX_DAYS).isBefore(to)) {
+            throw new IllegalArgumentException("Range must not exceed " + MAX_DAYS + " days");
+        }
+    }
+
+    static LocalDate dayOf(final long timestamp) {
+        return LocalDate.ofEpochDay(Math.floorDiv(timestamp, DAY_MS));
+    }
+
+    static long startOf(final LocalDate day) {
+        return day.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Status of a device at the start of a range and its transitions inside it.
+     */
+    public record StatusTimeline(DeviceStatus initialStatus, List<StatusTransition> transitions) {
+    }
+
+    /**
+     * Milliseconds spent in each status during one day.
+     */
+    public static final class DayStatusTime {
+        private final LocalDate day;
+        private final Map<DeviceStatus, Long> time = new EnumMap<>(DeviceStatus.class);
+
+        DayStatusTime(final LocalDate day) {
+            this.day = day;
+        }
+
+        void add(final DeviceStatus status, final long ms) {
+            time.merge(status, ms, Long::sum);
+        }
+
+        public LocalDate getDay() {
+            return day;
+        }
+
+        public long get(final DeviceStatus status) {
+            return time.getOrDefault(status, 0L);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.iot.system.history;
+
+import com.iot.system.model.DeviceStatus;
+
+/**
+ * A device entering {@code status} at {@code timestamp}, in epoch milliseconds.
+ */
+public record StatusTransition(long timestamp, DeviceStatus status) {
+}
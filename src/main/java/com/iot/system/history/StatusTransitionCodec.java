@@ -0,0 +1,60 @@
+package com.iot.system.history;
+
+import com.iot.system.model.DeviceStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encodes the transitions of one day as varints of {@code delta << 2 | status}, where delta is the
+ * time since the previous transition of the day, or since the start of the day for the first one.
+ * A transition usually takes two or three bytes.
+ */
+final class StatusTransitionCodec {
+
+    private static final DeviceStatus[] STATUSES = DeviceStatus.values();
+
+    private StatusTransitionCodec() {
+    }
+
+    static byte[] append(final byte[] encoded, final long delta, final DeviceStatus status) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(12);
+        long value = delta << 2 | status.ordinal();
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+        final byte[] tail = out.toByteArray();
+        if (encoded == null) {
+            return tail;
+        }
+        final byte[] appended = Arrays.copyOf(encoded, encoded.length + tail.length);
+        System.arraycopy(tail, 0, appended, encoded.length, tail.length);
+        return appended;
+    }
+
+    static List<StatusTransition> decode(final byte[] encoded, final long dayStart) {
+        final List<StatusTransition> transitions = new ArrayList<>();
+        if (encoded == null) {
+            return transitions;
+        }
+        long timestamp = dayStart;
+        int position = 0;
+        while (position < encoded.length) {
+            long value = 0;
+            int shift = 0;
+            byte current;
+            do {
+                current = encoded[position++];
+                value |= (long) (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+            timestamp += value >>> 2;
+            transitions.add(new StatusTransition(timestamp, STATUSES[(int) (value & 3)]));
+        }
+        return transitions;
+    }
+}
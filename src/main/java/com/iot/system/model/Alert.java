@@ -0,0 +1,46 @@
+package com.iot.system.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * One firing of an alert rule on a monitoring. Timestamps are the epoch milliseconds of the
+ * readings that triggered and resolved it.
+ */
+@Data
+@Entity
+@Table(name = "alerts", indexes = {
+        @Index(name = "idx_alerts_monitoring", columnList = "monitoring_id, triggeredAt"),
+        @Index(name = "idx_alerts_status", columnList = "status")
+})
+public class Alert {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "rule_id", nullable = false)
+    private Long ruleId;
+
+    @Column(name = "monitoring_id", nullable = false)
+    private Long monitoringId;
+
+    @Column(nullable = false)
+    private String ruleName;
+
+    @Column(nullable = false)
+    private String metric;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AlertStatus status;
+
+    @Column(nullable = false)
+    private Long triggeredAt;
+
+    private Double triggerValue;
+
+    private Long resolvedAt;
+
+    private Double resolveValue;
+}
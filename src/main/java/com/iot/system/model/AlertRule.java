@@ -0,0 +1,56 @@
+package com.iot.system.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Alert condition on one metric, scoped to one monitoring or to every monitoring of an industry
+ * type. An alert triggers when the threshold is crossed and resolves only once the clear threshold
+ * is crossed back, so values hovering around the threshold do not flap. For {@code RATE_OF_CHANGE}
+ * both thresholds are in units per second; for {@code FLATLINE} the threshold is the tolerance the
+ * value must stay within for {@code durationMs}.
+ */
+@Data
+@Entity
+@Table(name = "alert_rules", indexes = {
+        @Index(name = "idx_alert_rules_monitoring", columnList = "monitoring_id"),
+        @Index(name = "idx_alert_rules_industry_type", columnList = "industryType")
+})
+public class AlertRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "monitoring_id")
+    private Long monitoringId;
+
+    private String industryType;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(nullable = false)
+    private String metric;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AlertRuleType type;
+
+    @Column(nullable = false)
+    private Double threshold;
+
+    @Column(nullable = false)
+    private Double clearThreshold;
+
+    private Long durationMs;
+
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,8 @@
+package com.iot.system.model;
+
+public enum AlertRuleType {
+    ABOVE,
+    BELOW,
+    RATE_OF_CHANGE,
+    FLATLINE
+}
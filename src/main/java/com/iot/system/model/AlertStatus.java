@@ -0,0 +1,6 @@
+package com.iot.system.model;
+
+public enum AlertStatus {
+    ACTIVE,
+    RESOLVED
+}
@@ -0,0 +1,40 @@
+package com.iot.system.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * A run of consecutive readings of one metric that deviated from the series' learned baseline.
+ * Timestamps are epoch milliseconds; {@code endedAt} stays null while the run is in progress.
+ */
+@Data
+@Entity
+@Table(name = "anomalies", indexes = {
+        @Index(name = "idx_anomalies_monitoring", columnList = "monitoring_id, startedAt")
+})
+public class Anomaly {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "monitoring_id", nullable = false)
+    private Long monitoringId;
+
+    @Column(nullable = false)
+    private String metric;
+
+    @Column(nullable = false)
+    private Long startedAt;
+
+    private Long endedAt;
+
+    @Column(nullable = false)
+    private Integer sampleCount;
+
+    private Double peakValue;
+
+    private Double expectedValue;
+
+    private Double peakScore;
+}
@@ -41,6 +41,8 @@ public class Device {
     @Column(nullable = false)
     private DeviceStatus deviceStatus;
 
+    private LocalDateTime lastSeenAt;
+
     @OneToMany(mappedBy = "device", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference
     @ToString.Exclude
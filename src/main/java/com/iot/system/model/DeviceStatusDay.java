@@ -0,0 +1,57 @@
+package com.iot.system.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Status timeline of one device over one UTC day: the time spent in each status and the
+ * transitions that happened that day, encoded by {@code StatusTransitionCodec}. Time after the
+ * last transition is added once the next transition arrives. Until then the latest row of a
+ * device stands for every day up to now. Timestamps are epoch milliseconds.
+ */
+@Data
+@Entity
+@Table(name = "device_status_days", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_device_status_days", columnNames = {"device_id", "day"})
+}, indexes = {
+        @Index(name = "idx_device_status_days_latest", columnList = "latest, day")
+})
+public class DeviceStatusDay {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "device_id", nullable = false)
+    private Long deviceId;
+
+    @Column(nullable = false)
+    private LocalDate day;
+
+    @Column(nullable = false)
+    private long onMs;
+
+    @Column(nullable = false)
+    private long standbyMs;
+
+    @Column(nullable = false)
+    private long offMs;
+
+    @Column(nullable = false)
+    private int transitionCount;
+
+    @Lob
+    private byte[] transitions;
+
+    @Enumerated(EnumType.ORDINAL)
+    @Column(nullable = false)
+    private DeviceStatus lastStatus;
+
+    @Column(nullable = false)
+    private long lastAt;
+
+    @Column(nullable = false)
+    private boolean latest;
+}
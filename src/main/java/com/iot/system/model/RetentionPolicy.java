@@ -0,0 +1,39 @@
+package com.iot.system.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Retention of telemetry in days, scoped to one monitoring or to every monitoring of an industry
+ * type. A null field inherits from the next scope; zero keeps data forever.
+ */
+@Data
+@Entity
+@Table(name = "retention_policies")
+public class RetentionPolicy {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "monitoring_id", unique = true)
+    private Long monitoringId;
+
+    @Column(unique = true)
+    private String industryType;
+
+    private Integer rawDays;
+    private Integer minuteDays;
+    private Integer hourDays;
+    private Integer dayDays;
+
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,60 @@
+package com.iot.system.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A command sent to a device once at {@code nextRunAt} or, when it has a cron expression, every
+ * time the expression matches in its time zone. A one-time command is deactivated once it has
+ * run. Timestamps are epoch milliseconds.
+ */
+@Data
+@Entity
+@Table(name = "scheduled_commands", indexes = {
+        @Index(name = "idx_scheduled_commands_due", columnList = "active, next_run_at, id"),
+        @Index(name = "idx_scheduled_commands_device", columnList = "device_id")
+})
+public class ScheduledCommand {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "device_id", nullable = false)
+    private Long deviceId;
+
+    @Column(nullable = false)
+    private String deviceCode;
+
+    @Column(nullable = false)
+    private String operation;
+
+    private String cron;
+
+    @Column(nullable = false)
+    private String zone;
+
+    @Column(name = "next_run_at", nullable = false)
+    private long nextRunAt;
+
+    @Column(nullable = false)
+    private boolean active;
+
+    private Long lastRunAt;
+
+    private String lastJobId;
+
+    /**
+     * The user whose devices the command may reach, or null when it was scheduled by an admin.
+     */
+    private Long ownerId;
+
+    @Column(nullable = false)
+    private Long createdBy;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,49 @@
+package com.iot.system.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+@Data
+@Entity
+@Table(name = "telemetry_chunks", indexes = {
+        @Index(name = "idx_telemetry_chunks_series", columnList = "monitoring_id, metric_id, start_timestamp")
+})
+public class TelemetryChunk {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "monitoring_id", nullable = false)
+    private Long monitoringId;
+
+    @Column(name = "metric_id", nullable = false)
+    private Integer metricId;
+
+    @Column(name = "start_timestamp", nullable = false)
+    private Long startTimestamp;
+
+    @Column(name = "end_timestamp", nullable = false)
+    private Long endTimestamp;
+
+    @Column(nullable = false)
+    private Integer sampleCount;
+
+    private Double minValue;
+    private Double maxValue;
+    private Double sumValue;
+    private Double lastValue;
+
+    @Column(nullable = false)
+    private boolean rolledUp;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] data;
+
+    @Lob
+    private byte[] sketch;
+
+    @Column(name = "wal_lsn")
+    private Long walLsn;
+}
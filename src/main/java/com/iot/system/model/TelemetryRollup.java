@@ -0,0 +1,34 @@
+package com.iot.system.model;
+
+import com.iot.system.telemetry.RollupTier;
+import jakarta.persistence.*;
+import lombok.Data;
+
+@Data
+@Entity
+@Table(name = "telemetry_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_telemetry_rollups_segment", columnNames = {"monitoring_id", "metric_id", "tier", "segment_start"})
+})
+public class TelemetryRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "monitoring_id", nullable = false)
+    private Long monitoringId;
+
+    @Column(name = "metric_id", nullable = false)
+    private Integer metricId;
+
+    @Enumerated(EnumType.ORDINAL)
+    @Column(nullable = false)
+    private RollupTier tier;
+
+    @Column(name = "segment_start", nullable = false)
+    private Long segmentStart;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] data;
+}
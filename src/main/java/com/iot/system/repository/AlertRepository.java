@@ -0,0 +1,28 @@
+package com.iot.system.repository;
+
+import com.iot.system.model.Alert;
+import com.iot.system.model.AlertStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface AlertRepository extends JpaRepository<Alert, Long> {
+
+    List<Alert> findByStatus(AlertStatus status);
+
+    Page<Alert> findByMonitoringId(Long monitoringId, Pageable pageable);
+
+    Page<Alert> findByMonitoringIdAndStatus(Long monitoringId, AlertStatus status, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Alert a WHERE a.monitoringId = :monitoringId")
+    void deleteByMonitoringId(Long monitoringId);
+}
@@ -0,0 +1,23 @@
+package com.iot.system.repository;
+
+import com.iot.system.model.AlertRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface AlertRuleRepository extends JpaRepository<AlertRule, Long> {
+
+    @Query("SELECT r FROM AlertRule r WHERE r.monitoringId = :monitoringId "
+            + "OR (r.monitoringId IS NULL AND r.industryType = :industryType)")
+    List<AlertRule> findApplicable(Long monitoringId, String industryType);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM AlertRule r WHERE r.monitoringId = :monitoringId")
+    void deleteByMonitoringId(Long monitoringId);
+}
@@ -0,0 +1,24 @@
+package com.iot.system.repository;
+
+import com.iot.system.model.Anomaly;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface AnomalyRepository extends JpaRepository<Anomaly, Long> {
+
+    @Query("SELECT a FROM Anomaly a WHERE a.monitoringId = :monitoringId AND a.startedAt < :to "
+            + "AND (a.endedAt IS NULL OR a.endedAt >= :from) AND (:metric IS NULL OR a.metric = :metric) "
+            + "ORDER BY a.startedAt DESC")
+    List<Anomaly> findOverlapping(Long monitoringId, String metric, long from, long to);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Anomaly a WHERE a.monitoringId = :monitoringId")
+    void deleteByMonitoringId(Long monitoringId);
+}
@@ -0,0 +1,51 @@
+package com.iot.system.repository;
+
+import com.iot.system.model.DeviceStatusDay;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DeviceStatusDayRepository extends JpaRepository<DeviceStatusDay, Long> {
+
+    List<DeviceStatusDay> findByLatestTrueAndDeviceIdIn(Collection<Long> deviceIds);
+
+    List<DeviceStatusDay> findByDeviceIdAndDayBetweenOrderByDay(Long deviceId, LocalDate from, LocalDate to);
+
+    Optional<DeviceStatusDay> findTopByDeviceIdAndDayLessThanOrderByDayDesc(Long deviceId, LocalDate day);
+
+    /**
+     * Closed time per day and status of the devices in scope; a null filter selects every device.
+     */
+    @Query("SELECT d.day, SUM(d.onMs), SUM(d.standbyMs), SUM(d.offMs) FROM DeviceStatusDay d "
+            + "WHERE d.day BETWEEN :from AND :to "
+            + "AND (:deviceId IS NULL OR d.deviceId = :deviceId) "
+            + "AND (:industryType IS NULL OR d.deviceId IN (SELECT dv.id FROM Device dv WHERE dv.industryType = :industryType)) "
+            + "AND (:userId IS NULL OR d.deviceId IN (SELECT dv.id FROM Device dv JOIN dv.users u WHERE u.id = :userId)) "
+            + "GROUP BY d.day")
+    List<Object[]> sumByDay(LocalDate from, LocalDate to, Long deviceId, String industryType, Long userId);
+
+    /**
+     * Open time after the last transition of every device in scope, grouped by the day and status
+     * of that transition: the number of devices and the sum of their last transition times.
+     */
+    @Query("SELECT d.day, d.lastStatus, COUNT(d), SUM(d.lastAt) FROM DeviceStatusDay d "
+            + "WHERE d.latest = true AND d.day <= :to "
+            + "AND (:deviceId IS NULL OR d.deviceId = :deviceId) "
+            + "AND (:industryType IS NULL OR d.deviceId IN (SELECT dv.id FROM Device dv WHERE dv.industryType = :industryType)) "
+            + "AND (:userId IS NULL OR d.deviceId IN (SELECT dv.id FROM Device dv JOIN dv.users u WHERE u.id = :userId)) "
+            + "GROUP BY d.day, d.lastStatus")
+    List<Object[]> openIntervals(LocalDate to, Long deviceId, String industryType, Long userId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DeviceStatusDay d WHERE d.deviceId = :deviceId")
+    void deleteByDeviceId(Long deviceId);
+}
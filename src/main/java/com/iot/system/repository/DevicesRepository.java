@@ -1,12 +1,19 @@
 package com.iot.system.repository;
 
 import com.iot.system.model.Device;
+import com.iot.system.model.DeviceStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,9 +26,56 @@ public interface DevicesRepository extends JpaRepository<Device, Long>, JpaSpeci
 
     Optional<Device> findByDeviceCode(String deviceCode);
 
+    @EntityGraph(attributePaths = {"users"})
+    List<Device> findWithUsersByDeviceCodeIn(Collection<String> deviceCodes);
+
     Optional<Device> findTopByOrderByCreatedAtDesc();
 
     boolean existsByDeviceCode(String deviceCode);
 
     Page<Device> findAll(Pageable pageable);
+
+    @Query("SELECT d.id, d.deviceCode, d.deviceStatus, d.lastSeenAt FROM Device d " +
+            "WHERE d.lastSeenAt IS NOT NULL AND d.deviceStatus <> com.iot.system.model.DeviceStatus.OFF")
+    List<Object[]> findHeartbeatStates();
+
+    @Query("SELECT d.id, d.deviceCode, d.deviceName, d.description, d.deviceStatus, d.industryType, d.manufacturer, "
+            + "d.createdAt FROM Device d WHERE (:deviceId IS NULL OR d.id = :deviceId)")
+    List<Object[]> findSearchRows(Long deviceId);
+
+    @Query("SELECT d.id, u.id, u.name FROM Device d JOIN d.users u WHERE (:deviceId IS NULL OR d.id = :deviceId)")
+    List<Object[]> findSearchUsers(Long deviceId);
+
+    @Query("SELECT d.deviceStatus, COUNT(d) FROM Device d "
+            + "WHERE (:userId IS NULL OR d.id IN (SELECT dv.id FROM Device dv JOIN dv.users u WHERE u.id = :userId)) "
+            + "GROUP BY d.deviceStatus")
+    List<Object[]> countByDeviceStatus(Long userId);
+
+    @Query("SELECT d.industryType, COUNT(d) FROM Device d "
+            + "WHERE (:userId IS NULL OR d.id IN (SELECT dv.id FROM Device dv JOIN dv.users u WHERE u.id = :userId)) "
+            + "GROUP BY d.industryType")
+    List<Object[]> countByIndustryType(Long userId);
+
+    @Query("SELECT d.manufacturer, COUNT(d) FROM Device d "
+            + "WHERE (:userId IS NULL OR d.id IN (SELECT dv.id FROM Device dv JOIN dv.users u WHERE u.id = :userId)) "
+            + "GROUP BY d.manufacturer")
+    List<Object[]> countByManufacturer(Long userId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Device d SET d.deviceStatus = :status WHERE d.id IN :ids")
+    int updateDeviceStatus(Collection<Long> ids, DeviceStatus status);
+
+    @Query("SELECT d.id, d.deviceStatus FROM Device d WHERE d.id IN :ids")
+    List<Object[]> findCommandStates(Collection<Long> ids);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Device d SET d.deviceStatus = :status, d.updatedAt = :updatedAt WHERE d.id IN :ids")
+    int updateDeviceStatus(Collection<Long> ids, DeviceStatus status, LocalDateTime updatedAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Device d SET d.lastSeenAt = :seenAt WHERE d.id IN :ids")
+    int updateLastSeenAt(Collection<Long> ids, LocalDateTime seenAt);
 }
@@ -2,6 +2,7 @@ package com.iot.system.repository;
 
 import com.iot.system.model.Device;
 import com.iot.system.model.Monitoring;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
@@ -17,6 +18,15 @@ public interface MonitoringRepository extends JpaRepository<Monitoring, Long>, J
 
     Optional<Monitoring> findByMonitoringCode(String monitoringCode);
 
+    @EntityGraph(attributePaths = {"users"})
+    Optional<Monitoring> findWithUsersByMonitoringCode(String monitoringCode);
+
+    @EntityGraph(attributePaths = {"users"})
+    Optional<Monitoring> findWithUsersById(Long id);
+
+    @EntityGraph(attributePaths = {"users"})
+    Optional<Monitoring> findWithUsersByDevice_DeviceCode(String deviceCode);
+
     @Modifying
     @Transactional
     @Query("DELETE FROM Monitoring m WHERE m.monitoringCode = :monitoringCode")
@@ -31,4 +41,23 @@ public interface MonitoringRepository extends JpaRepository<Monitoring, Long>, J
     Optional<Monitoring> findByDevice(Device device);
 
     List<Monitoring> findByUsers_Id(Long userId);
+
+    @Query("SELECT m.id, m.device.industryType FROM Monitoring m")
+    List<Object[]> findIdsWithIndustryType();
+
+    @Query("SELECT m.device.industryType FROM Monitoring m WHERE m.id = :monitoringId")
+    Optional<String> findIndustryTypeById(Long monitoringId);
+
+    @Query("SELECT m.id FROM Monitoring m WHERE m.device.industryType = :industryType")
+    List<Long> findIdsByIndustryType(String industryType);
+
+    @Query("SELECT DISTINCT m.id FROM Monitoring m LEFT JOIN m.users u "
+            + "WHERE m.device.industryType = :industryType AND (m.createdBy.id = :userId OR u.id = :userId)")
+    List<Long> findAccessibleIdsByIndustryType(String industryType, Long userId);
+
+    @Query("SELECT m.monitoringStatus, COUNT(m) FROM Monitoring m "
+            + "WHERE (:userId IS NULL OR m.createdBy.id = :userId "
+            + "OR m.id IN (SELECT mm.id FROM Monitoring mm JOIN mm.users u WHERE u.id = :userId)) "
+            + "GROUP BY m.monitoringStatus")
+    List<Object[]> countByMonitoringStatus(Long userId);
 }
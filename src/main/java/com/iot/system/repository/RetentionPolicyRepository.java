@@ -0,0 +1,23 @@
+package com.iot.system.repository;
+
+import com.iot.system.model.RetentionPolicy;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface RetentionPolicyRepository extends JpaRepository<RetentionPolicy, Long> {
+
+    Optional<RetentionPolicy> findByMonitoringId(Long monitoringId);
+
+    Optional<RetentionPolicy> findByIndustryType(String industryType);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RetentionPolicy p WHERE p.monitoringId = :monitoringId")
+    void deleteByMonitoringId(Long monitoringId);
+}
@@ -0,0 +1,62 @@
+package com.iot.system.repository;
+
+import com.iot.system.model.ScheduledCommand;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ScheduledCommandRepository extends JpaRepository<ScheduledCommand, Long> {
+
+    List<ScheduledCommand> findByDeviceIdOrderById(Long deviceId);
+
+    Optional<ScheduledCommand> findByIdAndDeviceId(Long id, Long deviceId);
+
+    long countByDeviceIdAndActiveTrue(Long deviceId);
+
+    /**
+     * Active schedules due in {@code [from, until)} after the given position, in run time and id
+     * order, so a window is read page by page without rescanning it.
+     */
+    @Query("SELECT s.id, s.nextRunAt FROM ScheduledCommand s "
+            + "WHERE s.active = true AND s.nextRunAt >= :from AND s.nextRunAt < :until "
+            + "AND (s.nextRunAt > :afterRunAt OR (s.nextRunAt = :afterRunAt AND s.id > :afterId)) "
+            + "ORDER BY s.nextRunAt, s.id")
+    List<Object[]> findDueWindow(long from, long until, long afterRunAt, long afterId, Pageable pageable);
+
+    /**
+     * Active schedules with whether their owner may still reach the device; admins always may.
+     */
+    @Query("SELECT s.id, s.deviceId, s.deviceCode, s.operation, s.cron, s.zone, s.nextRunAt, s.ownerId, "
+            + "CASE WHEN s.ownerId IS NULL OR EXISTS (SELECT d.id FROM Device d JOIN d.users u "
+            + "WHERE d.id = s.deviceId AND u.id = s.ownerId) THEN true ELSE false END "
+            + "FROM ScheduledCommand s WHERE s.active = true AND s.id IN :ids")
+    List<Object[]> findDispatchRows(Collection<Long> ids);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ScheduledCommand s SET s.lastRunAt = :ranAt, s.lastJobId = :jobId WHERE s.id IN :ids")
+    int markRun(Collection<Long> ids, long ranAt, String jobId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ScheduledCommand s SET s.nextRunAt = :nextRunAt WHERE s.id IN :ids")
+    int reschedule(Collection<Long> ids, long nextRunAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ScheduledCommand s SET s.active = false WHERE s.id IN :ids")
+    int deactivate(Collection<Long> ids);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ScheduledCommand s WHERE s.deviceId = :deviceId")
+    void deleteByDeviceId(Long deviceId);
+}
@@ -0,0 +1,23 @@
+package com.iot.system.repository;
+
+import com.iot.system.model.TelemetryChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+@Repository
+public interface TelemetryChunkRepository extends JpaRepository<TelemetryChunk, Long> {
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TelemetryChunk c WHERE c.monitoringId = :monitoringId")
+    void deleteByMonitoringId(Long monitoringId);
+
+    @Modifying
+    @Query("UPDATE TelemetryChunk c SET c.rolledUp = true WHERE c.id IN :ids")
+    void markRolledUp(Collection<Long> ids);
+}
@@ -0,0 +1,13 @@
+package com.iot.system.repository;
+
+import com.iot.system.model.TelemetryMetric;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface TelemetryMetricRepository extends JpaRepository<TelemetryMetric, Integer> {
+
+    Optional<TelemetryMetric> findByName(String name);
+}
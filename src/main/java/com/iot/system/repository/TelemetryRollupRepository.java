@@ -0,0 +1,17 @@
+package com.iot.system.repository;
+
+import com.iot.system.model.TelemetryRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface TelemetryRollupRepository extends JpaRepository<TelemetryRollup, Long> {
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TelemetryRollup r WHERE r.monitoringId = :monitoringId")
+    void deleteByMonitoringId(Long monitoringId);
+}
@@ -0,0 +1,292 @@
+package com.iot.system.scheduling;
+
+import com.iot.system.command.CommandFanOut;
+import com.iot.system.repository.ScheduledCommandRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends scheduled commands when they come due. Only the schedules due within the horizon are held
+ * in memory, in a hierarchical timing wheel; the next window is read from the database before
+ * the current one runs out, so idle schedules further out cost nothing but their row. The first
+ * window after a start also reads every schedule that came due while the application was down,
+ * and those run on the first tick. Due schedules are re-read in batches, skipped if they changed
+ * since they were armed, and handed to {@link CommandFanOut} with one job per operation and owner.
+ * A recurring schedule that missed several runs runs once and continues from the next match.
+ */
+@Component
+public class CommandScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommandScheduler.class);
+    private static final long RETRY_DELAY_MS = 10_000;
+
+    private final ScheduledCommandRepository scheduledCommandRepository;
+    private final CommandFanOut commandFanOut;
+    private final TransactionTemplate transactionTemplate;
+    private final long tickMs;
+    private final int wheelSize;
+    private final int levels;
+    private final long horizonMs;
+    private final int batchSize;
+
+    private final Queue<Arrival> arrivals = new ConcurrentLinkedQueue<>();
+    private final Queue<Long> cancellations = new ConcurrentLinkedQueue<>();
+
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "command-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Scheduler thread state
+    private HierarchicalTimingWheel<Timer> wheel;
+    private final Map<Long, Timer> timers = new HashMap<>();
+    private long loadedUntil = Long.MIN_VALUE;
+    private long now;
+
+    private record Arrival(long scheduleId, long runAt) {
+    }
+
+    private record Dispatch(String operation, Long ownerId) {
+    }
+
+    private record Start(String jobId, Dispatch dispatch, List<CommandFanOut.Target> targets) {
+    }
+
+    private record Plan(List<Arrival> next, List<Start> starts) {
+    }
+
+    private static final class Timer extends HierarchicalTimingWheel.Entry {
+        private final long scheduleId;
+        // The run time of the row when the timer was armed; a retry fires later for the same run
+        private long runAt;
+
+        private Timer(final long scheduleId) {
+            this.scheduleId = scheduleId;
+        }
+    }
+
+    public CommandScheduler(final ScheduledCommandRepository scheduledCommandRepository,
+                            final CommandFanOut commandFanOut, final PlatformTransactionManager transactionManager,
+                            @Value("${scheduler.tick-ms}") final long tickMs,
+                            @Value("${scheduler.wheel-size}") final int wheelSize,
+                            @Value("${scheduler.levels}") final int levels,
+                            @Value("${scheduler.horizon-ms}") final long horizonMs,
+                            @Value("${scheduler.batch-size}") final int batchSize) {
+        if (horizonMs < 2 * tickMs || batchSize <= 0) {
+            throw new IllegalArgumentException(
+                    "scheduler.horizon-ms must cover at least two ticks and scheduler.batch-size must be positive");
+        }
+        this.scheduledCommandRepository = scheduledCommandRepository;
+        this.commandFanOut = commandFanOut;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.levels = levels;
+        this.horizonMs = horizonMs;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        now = System.currentTimeMillis();
+        wheel = new HierarchicalTimingWheel<>(tickMs, wheelSize, levels, now);
+        load(now + horizonMs);
+        logger.info("Armed {} scheduled commands due in the next {} ms", timers.size(), horizonMs);
+        ticker.scheduleWithFixedDelay(this::tickSafely, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        ticker.shutdown();
+        ticker.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Arms a schedule created through the API; call it once the row is committed.
+     */
+    public void scheduled(final long scheduleId, final long runAt) {
+        arrivals.add(new Arrival(scheduleId, runAt));
+    }
+
+    public void cancelled(final long scheduleId) {
+        cancellations.add(scheduleId);
+    }
+
+    /**
+     * The first match of the cron expression after the given time, or null if it never matches again.
+     */
+    public static Long nextRun(final CronExpression cron, final ZoneId zone, final long after) {
+        final ZonedDateTime next = cron.next(Instant.ofEpochMilli(after).atZone(zone));
+        return next == null ? null : next.toInstant().toEpochMilli();
+    }
+
+    private void tickSafely() {
+        try {
+            tick();
+        } catch (Exception e) {
+            logger.error("Command scheduler tick failed", e);
+        }
+    }
+
+    private synchronized void tick() {
+        now = System.currentTimeMillis();
+        Long cancelled;
+        while ((cancelled = cancellations.poll()) != null) {
+            final Timer timer = timers.remove(cancelled);
+            if (timer != null) {
+                wheel.cancel(timer);
+            }
+        }
+        Arrival arrival;
+        while ((arrival = arrivals.poll()) != null) {
+            // Later arrivals are read with their window
+            if (arrival.runAt() < loadedUntil) {
+                arm(arrival.scheduleId(), arrival.runAt(), arrival.runAt());
+            }
+        }
+        if (now + horizonMs / 2 >= loadedUntil) {
+            load(now + horizonMs);
+        }
+
+        final List<Timer> due = new ArrayList<>();
+        wheel.advance(now, due::add);
+        for (int from = 0; from < due.size(); from += batchSize) {
+            dispatch(due.subList(from, Math.min(from + batchSize, due.size())));
+        }
+    }
+
+    private void load(final long until) {
+        long afterRunAt = Long.MIN_VALUE;
+        long afterId = Long.MIN_VALUE;
+        List<Object[]> rows;
+        do {
+            rows = scheduledCommandRepository.findDueWindow(loadedUntil, until, afterRunAt, afterId,
+                    PageRequest.of(0, batchSize));
+            for (final Object[] row : rows) {
+                afterId = (Long) row[0];
+                afterRunAt = (Long) row[1];
+                arm(afterId, afterRunAt, afterRunAt);
+            }
+        } while (rows.size() == batchSize);
+        loadedUntil = until;
+    }
+
+    private void arm(final long scheduleId, final long runAt, final long deadline) {
+        final Timer timer = timers.computeIfAbsent(scheduleId, Timer::new);
+        if (timer.isArmed() && timer.runAt == runAt) {
+            return;
+        }
+        timer.runAt = runAt;
+        wheel.arm(timer, deadline);
+    }
+
+    private void dispatch(final List<Timer> due) {
+        for (final Timer timer : due) {
+            timers.remove(timer.scheduleId);
+        }
+        final Plan plan;
+        try {
+            plan = transactionTemplate.execute(status -> run(due));
+        } catch (RuntimeException e) {
+            logger.error("Failed to dispatch {} scheduled commands, retrying in {} ms", due.size(), RETRY_DELAY_MS, e);
+            for (final Timer timer : due) {
+                arm(timer.scheduleId, timer.runAt, now + RETRY_DELAY_MS);
+            }
+            return;
+        }
+        for (final Arrival arrival : plan.next()) {
+            if (arrival.runAt() < loadedUntil) {
+                arm(arrival.scheduleId(), arrival.runAt(), arrival.runAt());
+            }
+        }
+        // Commands only go out once the schedules are advanced, so a failed batch is never sent twice
+        for (final Start start : plan.starts()) {
+            commandFanOut.start(start.jobId(), start.dispatch().operation(), start.targets(), start.dispatch().ownerId());
+        }
+    }
+
+    /**
+     * Advances the due schedules and records the jobs their commands will run as; returns those
+     * jobs and the next run of each recurring schedule.
+     */
+    private Plan run(final List<Timer> due) {
+        final Map<Long, Long> armedRunAt = new HashMap<>();
+        for (final Timer timer : due) {
+            armedRunAt.put(timer.scheduleId, timer.runAt);
+        }
+        final Map<Dispatch, List<CommandFanOut.Target>> targets = new LinkedHashMap<>();
+        final Map<Dispatch, List<Long>> scheduleIds = new HashMap<>();
+        final Map<Long, List<Long>> byNextRunAt = new HashMap<>();
+        final List<Long> finished = new ArrayList<>();
+        final List<Long> revoked = new ArrayList<>();
+        final Map<String, CronExpression> crons = new HashMap<>();
+
+        for (final Object[] row : scheduledCommandRepository.findDispatchRows(armedRunAt.keySet())) {
+            final Long scheduleId = (Long) row[0];
+            if (!armedRunAt.get(scheduleId).equals(row[6])) {
+                continue;
+            }
+            if (!(Boolean) row[8]) {
+                revoked.add(scheduleId);
+                continue;
+            }
+            final Dispatch dispatch = new Dispatch((String) row[3], (Long) row[7]);
+            targets.computeIfAbsent(dispatch, key -> new ArrayList<>())
+                    .add(new CommandFanOut.Target((Long) row[1], (String) row[2]));
+            scheduleIds.computeIfAbsent(dispatch, key -> new ArrayList<>()).add(scheduleId);
+
+            final String cron = (String) row[4];
+            final Long nextRunAt = cron == null ? null
+                    : nextRun(crons.computeIfAbsent(cron, CronExpression::parse), ZoneId.of((String) row[5]), now);
+            if (nextRunAt == null) {
+                finished.add(scheduleId);
+            } else {
+                byNextRunAt.computeIfAbsent(nextRunAt, key -> new ArrayList<>()).add(scheduleId);
+            }
+        }
+
+        finished.addAll(revoked);
+        if (!finished.isEmpty()) {
+            scheduledCommandRepository.deactivate(finished);
+        }
+        if (!revoked.isEmpty()) {
+            logger.warn("Deactivated {} scheduled commands whose owners lost access to their devices", revoked.size());
+        }
+        final List<Arrival> next = new ArrayList<>();
+        byNextRunAt.forEach((nextRunAt, ids) -> {
+            scheduledCommandRepository.reschedule(ids, nextRunAt);
+            ids.forEach(id -> next.add(new Arrival(id, nextRunAt)));
+        });
+        final List<Start> starts = new ArrayList<>();
+        targets.forEach((dispatch, devices) -> {
+            final String jobId = UUID.randomUUID().toString();
+            scheduledCommandRepository.markRun(scheduleIds.get(dispatch), now, jobId);
+            starts.add(new Start(jobId, dispatch, devices));
+        });
+        return new Plan(next, starts);
+    }
+}
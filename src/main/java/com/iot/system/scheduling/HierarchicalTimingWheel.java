@@ -0,0 +1,182 @@
+package com.iot.system.scheduling;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel over intrusive entries. Level {@code i} has one bucket per digit of the
+ * deadline tick in base {@code wheelSize} and each bucket spans {@code wheelSize^i} ticks. An entry
+ * sits in the level of the highest digit where its deadline differs from the current tick, and
+ * moves one or more levels down when the current tick reaches its bucket, so arming, cancelling
+ * and each tick are constant time however far out the deadlines are. Deadlines beyond the top
+ * level wait in an overflow list that is revisited once per turn of the top level. Not thread-safe.
+ */
+public class HierarchicalTimingWheel<E extends HierarchicalTimingWheel.Entry> {
+
+    private final long tickMs;
+    private final int bits;
+    private final int mask;
+    private final Entry[][] levels;
+    private Entry overflow;
+    private long currentTick;
+    private int size;
+
+    public HierarchicalTimingWheel(final long tickMs, final int wheelSize, final int levelCount, final long now) {
+        if (tickMs <= 0 || wheelSize <= 1 || Integer.bitCount(wheelSize) != 1 || levelCount <= 0
+                || Integer.numberOfTrailingZeros(wheelSize) * levelCount > 62) {
+            throw new IllegalArgumentException(
+                    "Timing wheel needs a positive tick, a power of two wheel size and at most 62 bits of levels");
+        }
+        this.tickMs = tickMs;
+        this.bits = Integer.numberOfTrailingZeros(wheelSize);
+        this.mask = wheelSize - 1;
+        this.levels = new Entry[levelCount][wheelSize];
+        this.currentTick = now / tickMs;
+    }
+
+    /**
+     * Schedules the entry to expire on the first tick at or after the deadline, moving it if it
+     * was already armed.
+     */
+    public void arm(final E entry, final long deadline) {
+        if (entry.armed) {
+            cancel(entry);
+        }
+        // A deadline in the past expires on the next tick
+        place(entry, Math.max(currentTick + 1, Math.floorDiv(deadline + tickMs - 1, tickMs)));
+        size++;
+    }
+
+    public void cancel(final E entry) {
+        if (!entry.armed) {
+            return;
+        }
+        unlink(entry);
+        size--;
+    }
+
+    /**
+     * Runs every tick up to {@code now}, handing each expired entry to the consumer. The consumer
+     * may arm the entry again.
+     */
+    @SuppressWarnings("unchecked")
+    public void advance(final long now, final Consumer<E> expired) {
+        final long targetTick = now / tickMs;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            Entry entry = detach(0, (int) (currentTick & mask));
+            while (entry != null) {
+                final Entry next = entry.next;
+                entry.prev = null;
+                entry.next = null;
+                entry.armed = false;
+                size--;
+                expired.accept((E) entry);
+                entry = next;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Moves the entries of the buckets the current tick has reached down to the levels below,
+     * starting from the highest level whose lower digits have all rolled over.
+     */
+    private void cascade() {
+        int top = 0;
+        while (top < levels.length && ((currentTick >>> (bits * top)) & mask) == 0) {
+            top++;
+        }
+        if (top == levels.length) {
+            replace(detachOverflow());
+            top--;
+        }
+        for (int level = top; level >= 1; level--) {
+            replace(detach(level, (int) ((currentTick >>> (bits * level)) & mask)));
+        }
+    }
+
+    private void replace(Entry entry) {
+        while (entry != null) {
+            final Entry next = entry.next;
+            place(entry, entry.tick);
+            entry = next;
+        }
+    }
+
+    /**
+     * Links the entry at a tick no earlier than the current one; the current tick's level 0
+     * bucket is only reached by cascading entries, right before that bucket expires.
+     */
+    private void place(final Entry entry, final long tick) {
+        final long differing = tick ^ currentTick;
+        final int level = differing == 0 ? 0 : (63 - Long.numberOfLeadingZeros(differing)) / bits;
+        entry.tick = tick;
+        entry.prev = null;
+        entry.armed = true;
+        if (level >= levels.length) {
+            entry.level = levels.length;
+            entry.next = overflow;
+            if (overflow != null) {
+                overflow.prev = entry;
+            }
+            overflow = entry;
+            return;
+        }
+        final int bucket = (int) ((tick >>> (bits * level)) & mask);
+        entry.level = level;
+        entry.bucket = bucket;
+        entry.next = levels[level][bucket];
+        if (entry.next != null) {
+            entry.next.prev = entry;
+        }
+        levels[level][bucket] = entry;
+    }
+
+    private void unlink(final Entry entry) {
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else if (entry.level == levels.length) {
+            overflow = entry.next;
+        } else {
+            levels[entry.level][entry.bucket] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+        entry.armed = false;
+    }
+
+    private Entry detach(final int level, final int bucket) {
+        final Entry head = levels[level][bucket];
+        levels[level][bucket] = null;
+        return head;
+    }
+
+    private Entry detachOverflow() {
+        final Entry head = overflow;
+        overflow = null;
+        return head;
+    }
+
+    /**
+     * Links of an entry into its bucket; extend it to make a type schedulable.
+     */
+    public static class Entry {
+        Entry prev;
+        Entry next;
+        long tick;
+        int level;
+        int bucket;
+        boolean armed;
+
+        public boolean isArmed() {
+            return armed;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.iot.system.search;
+
+import com.iot.system.model.DeviceStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Device attributes laid out as one array per attribute, indexed by slot. Industry types and
+ * manufacturers are dictionary-encoded, so a search filters, counts facets and collects the
+ * matching slots in one pass over primitive arrays and only sorts the matches. Text is stored
+ * lower-cased for case-insensitive matching and sorting. Removing a device moves the last slot
+ * into its place. Not thread-safe.
+ */
+final class DeviceColumns {
+
+    static final String STATUS_FACET = "deviceStatus";
+    static final String INDUSTRY_TYPE_FACET = "industryType";
+    static final String MANUFACTURER_FACET = "manufacturer";
+
+    private static final DeviceStatus[] STATUSES = DeviceStatus.values();
+    private static final long[] NO_USER_IDS = new long[0];
+    private static final String[] NO_USER_NAMES = new String[0];
+
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private final Dictionary industryTypes = new Dictionary();
+    private final Dictionary manufacturers = new Dictionary();
+
+    private int size;
+    private long[] ids;
+    private String[] deviceCodes;
+    private String[] deviceNames;
+    private String[] descriptions;
+    private byte[] statuses;
+    private int[] industryTypeCodes;
+    private int[] manufacturerCodes;
+    private long[] createdAt;
+    private long[][] userIds;
+    private String[][] userNames;
+
+    DeviceColumns(final int capacity) {
+        final int initial = Math.max(16, capacity);
+        ids = new long[initial];
+        deviceCodes = new String[initial];
+        deviceNames = new String[initial];
+        descriptions = new String[initial];
+        statuses = new byte[initial];
+        industryTypeCodes = new int[initial];
+        manufacturerCodes = new int[initial];
+        createdAt = new long[initial];
+        userIds = new long[initial][];
+        userNames = new String[initial][];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void upsert(final DeviceRow row) {
+        Integer slot = slots.get(row.id());
+        if (slot == null) {
+            if (size == ids.length) {
+                grow();
+            }
+            slot = size++;
+            slots.put(row.id(), slot);
+        }
+        ids[slot] = row.id();
+        deviceCodes[slot] = lower(row.deviceCode());
+        deviceNames[slot] = lower(row.deviceName());
+        descriptions[slot] = lower(row.description());
+        statuses[slot] = (byte) (row.status() == null ? -1 : row.status().ordinal());
+        industryTypeCodes[slot] = industryTypes.code(row.industryType());
+        manufacturerCodes[slot] = manufacturers.code(row.manufacturer());
+        createdAt[slot] = row.createdAt();
+        final long[] sortedUserIds = row.userIds() == null ? NO_USER_IDS : row.userIds().clone();
+        Arrays.sort(sortedUserIds);
+        userIds[slot] = sortedUserIds;
+        final String[] names = row.userNames() == null ? NO_USER_NAMES : new String[row.userNames().length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = lower(row.userNames()[i]);
+        }
+        userNames[slot] = names;
+    }
+
+    void setStatus(final long id, final DeviceStatus status) {
+        final Integer slot = slots.get(id);
+        if (slot != null) {
+            statuses[slot] = (byte) status.ordinal();
+        }
+    }
+
+    void remove(final long id) {
+        final Integer slot = slots.remove(id);
+        if (slot == null) {
+            return;
+        }
+        final int last = --size;
+        if (slot != last) {
+            ids[slot] = ids[last];
+            deviceCodes[slot] = deviceCodes[last];
+            deviceNames[slot] = deviceNames[last];
+            descriptions[slot] = descriptions[last];
+            statuses[slot] = statuses[last];
+            industryTypeCodes[slot] = industryTypeCodes[last];
+            manufacturerCodes[slot] = manufacturerCodes[last];
+            createdAt[slot] = createdAt[last];
+            userIds[slot] = userIds[last];
+            userNames[slot] = userNames[last];
+            slots.put(ids[slot], slot);
+        }
+        deviceCodes[last] = null;
+        deviceNames[last] = null;
+        descriptions[last] = null;
+        userIds[last] = null;
+        userNames[last] = null;
+    }
+
+    DeviceSearchResult search(final DeviceQuery query) {
+        final Comparator<Integer> order = order(query.sortBy(), query.ascending());
+        if (query.pageNo() < 0 || query.pageSize() <= 0) {
+            throw new IllegalArgumentException("Page number must not be negative and page size must be positive");
+        }
+        final int status = query.deviceStatus() == null ? -1 : query.deviceStatus().ordinal();
+        final int industryType = query.industryType() == null ? -1 : industryTypes.find(query.industryType());
+        final String deviceName = lower(query.deviceName());
+        final String description = lower(query.description());
+        final String deviceCode = lower(query.deviceCode());
+        final String userName = lower(query.userName());
+        final Long userId = query.userId();
+
+        final long[] statusCounts = new long[STATUSES.length];
+        final long[] industryTypeCounts = new long[industryTypes.size()];
+        final long[] manufacturerCounts = new long[manufacturers.size()];
+        final int[] matches = new int[size];
+        int count = 0;
+        if (query.industryType() == null || industryType >= 0) {
+            for (int slot = 0; slot < size; slot++) {
+                if ((status >= 0 && statuses[slot] != status)
+                        || (industryType >= 0 && industryTypeCodes[slot] != industryType)
+                        || (userId != null && Arrays.binarySearch(userIds[slot], userId) < 0)
+                        || !contains(deviceNames[slot], deviceName)
+                        || !contains(descriptions[slot], description)
+                        || !contains(deviceCodes[slot], deviceCode)
+                        || (userName != null && !anyContains(userNames[slot], userName))) {
+                    continue;
+                }
+                matches[count++] = slot;
+                if (statuses[slot] >= 0) {
+                    statusCounts[statuses[slot]]++;
+                }
+                if (industryTypeCodes[slot] >= 0) {
+                    industryTypeCounts[industryTypeCodes[slot]]++;
+                }
+                if (manufacturerCodes[slot] >= 0) {
+                    manufacturerCounts[manufacturerCodes[slot]]++;
+                }
+            }
+        }
+
+        final Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+        final Map<String, Long> statusFacet = new TreeMap<>();
+        for (int i = 0; i < statusCounts.length; i++) {
+            if (statusCounts[i] > 0) {
+                statusFacet.put(STATUSES[i].name(), statusCounts[i]);
+            }
+        }
+        facets.put(STATUS_FACET, statusFacet);
+        facets.put(INDUSTRY_TYPE_FACET, industryTypes.facet(industryTypeCounts));
+        facets.put(MANUFACTURER_FACET, manufacturers.facet(manufacturerCounts));
+
+        return new DeviceSearchResult(page(matches, count, order, query.pageNo(), query.pageSize()), count, facets);
+    }
+
+    /**
+     * Ids of the matches on the requested page. Only the matches up to the end of that page are
+     * kept in order, in a bounded heap, unless the page lies in the back half of the matches.
+     */
+    private List<Long> page(final int[] matches, final int count, final Comparator<Integer> order,
+                            final int pageNo, final int pageSize) {
+        final long from = (long) pageNo * pageSize;
+        if (from >= count) {
+            return List.of();
+        }
+        final int to = (int) Math.min(count, from + pageSize);
+        final Integer[] ordered;
+        if (to <= count / 2) {
+            final PriorityQueue<Integer> heap = new PriorityQueue<>(to + 1, order.reversed());
+            for (int i = 0; i < count; i++) {
+                heap.add(matches[i]);
+                if (heap.size() > to) {
+                    heap.poll();
+                }
+            }
+            ordered = heap.toArray(new Integer[0]);
+        } else {
+            ordered = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                ordered[i] = matches[i];
+            }
+        }
+        Arrays.sort(ordered, order);
+        final List<Long> pageIds = new ArrayList<>(to - (int) from);
+        for (int i = (int) from; i < to; i++) {
+            pageIds.add(ids[ordered[i]]);
+        }
+        return pageIds;
+    }
+
+    private Comparator<Integer> order(final String sortBy, final boolean ascending) {
+        final Comparator<Integer> order = switch (sortBy == null ? "id" : sortBy) {
+            case "id" -> Comparator.comparingLong(slot -> ids[slot]);
+            case "deviceCode" -> Comparator.comparing(slot -> deviceCodes[slot], Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "deviceName" -> Comparator.comparing(slot -> deviceNames[slot], Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "description" -> Comparator.comparing(slot -> descriptions[slot], Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "deviceStatus" -> Comparator.comparingInt(slot -> statuses[slot]);
+            case "industryType" -> Comparator.comparing(slot -> industryTypes.value(industryTypeCodes[slot]), Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER));
+            case "manufacturer" -> Comparator.comparing(slot -> manufacturers.value(manufacturerCodes[slot]), Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER));
+            case "createdAt" -> Comparator.comparingLong(slot -> createdAt[slot]);
+            default -> throw new IllegalArgumentException("Sorting by " + sortBy + " is not supported by the device search");
+        };
+        // Ties are broken by id so that pages do not overlap
+        return (ascending ? order : order.reversed()).thenComparingLong(slot -> ids[slot]);
+    }
+
+    private void grow() {
+        final int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        deviceCodes = Arrays.copyOf(deviceCodes, capacity);
+        deviceNames = Arrays.copyOf(deviceNames, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        industryTypeCodes = Arrays.copyOf(industryTypeCodes, capacity);
+        manufacturerCodes = Arrays.copyOf(manufacturerCodes, capacity);
+        createdAt = Arrays.copyOf(createdAt, capacity);
+        userIds = Arrays.copyOf(userIds, capacity);
+        userNames = Arrays.copyOf(userNames, capacity);
+    }
+
+    private static boolean contains(final String value, final String filter) {
+        return filter == null || (value != null && value.contains(filter));
+    }
+
+    private static boolean anyContains(final String[] values, final String filter) {
+        for (final String value : values) {
+            if (value != null && value.contains(filter)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String lower(final String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int code(final String value) {
+            if (value == null) {
+                return -1;
+            }
+            return codes.computeIfAbsent(value, key -> {
+                values.add(key);
+                return values.size() - 1;
+            });
+        }
+
+        int find(final String value) {
+            return codes.getOrDefault(value, -1);
+        }
+
+        String value(final int code) {
+            return code < 0 ? null : values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+
+        Map<String, Long> facet(final long[] counts) {
+            final Map<String, Long> facet = new TreeMap<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    facet.put(values.get(i), counts[i]);
+                }
+            }
+            return facet;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.iot.system.search;
+
+import com.iot.system.model.DeviceStatus;
+
+/**
+ * Filters, sort and page of a device search. Text filters match case-insensitively anywhere in the
+ * value, like the {@code /devices/pageable} filters; null filters match every device.
+ */
+public record DeviceQuery(DeviceStatus deviceStatus, String industryType, String deviceName, String userName,
+                          String description, String deviceCode, Long userId,
+                          String sortBy, boolean ascending, int pageNo, int pageSize) {
+}
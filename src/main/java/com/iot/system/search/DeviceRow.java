@@ -0,0 +1,10 @@
+package com.iot.system.search;
+
+import com.iot.system.model.DeviceStatus;
+
+/**
+ * Searchable attributes of one device, as loaded into {@link DeviceColumns}.
+ */
+record DeviceRow(long id, String deviceCode, String deviceName, String description, DeviceStatus status,
+                 String industryType, String manufacturer, long createdAt, long[] userIds, String[] userNames) {
+}
@@ -0,0 +1,196 @@
+package com.iot.system.search;
+
+import com.iot.system.event.DeviceChangedEvent;
+import com.iot.system.event.DeviceStatusChangedEvent;
+import com.iot.system.heartbeat.HeartbeatTracker;
+import com.iot.system.model.DeviceStatus;
+import com.iot.system.repository.DevicesRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory {@link DeviceColumns} of every device, kept current by the device write paths and
+ * heartbeat transitions and rebuilt from the database every rebuild interval to pick up changes
+ * made elsewhere, such as renamed users. Heartbeat transitions reach the database up to a flush
+ * interval after they reach the index, so a rebuild applies the tracker's unflushed statuses and
+ * then every change that arrives while it loads on top of the rebuilt columns.
+ */
+@Component
+public class DeviceSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceSearchIndex.class);
+
+    private final DevicesRepository devicesRepository;
+    private final HeartbeatTracker heartbeatTracker;
+    private final long rebuildIntervalMs;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private DeviceColumns columns = new DeviceColumns(0);
+    // Changes seen while a rebuild is loading, guarded by the write lock
+    private boolean rebuilding;
+    private final Set<Long> changedDuringRebuild = new LinkedHashSet<>();
+    private final Map<Long, DeviceStatus> statusesDuringRebuild = new HashMap<>();
+
+    private final ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "device-search-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DeviceSearchIndex(final DevicesRepository devicesRepository, final HeartbeatTracker heartbeatTracker,
+                             @Value("${search.rebuild-interval-ms}") final long rebuildIntervalMs) {
+        this.devicesRepository = devicesRepository;
+        this.heartbeatTracker = heartbeatTracker;
+        this.rebuildIntervalMs = rebuildIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        rebuild();
+        logger.info("Indexed {} devices for search", columns.size());
+        rebuilder.scheduleWithFixedDelay(this::rebuildSafely, rebuildIntervalMs, rebuildIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        rebuilder.shutdown();
+        rebuilder.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    public DeviceSearchResult search(final DeviceQuery query) {
+        lock.readLock().lock();
+        try {
+            return columns.search(query);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceChanged(final DeviceChangedEvent event) {
+        final List<DeviceRow> rows = event.after() == null ? List.of() : load(event.deviceId());
+        lock.writeLock().lock();
+        try {
+            if (rows.isEmpty()) {
+                columns.remove(event.deviceId());
+            } else {
+                columns.upsert(rows.get(0));
+            }
+            if (rebuilding) {
+                changedDuringRebuild.add(event.deviceId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceStatusChanged(final DeviceStatusChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            columns.setStatus(event.deviceId(), event.status());
+            if (rebuilding) {
+                statusesDuringRebuild.put(event.deviceId(), event.status());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void rebuildSafely() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Device search index rebuild failed", e);
+            lock.writeLock().lock();
+            try {
+                rebuilding = false;
+                changedDuringRebuild.clear();
+                statusesDuringRebuild.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void rebuild() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // Taken after rebuilding is set, so later transitions are collected, and outside the lock,
+        // since the tracker holds its own lock while it notifies the index
+        final Map<Long, DeviceStatus> unflushed = heartbeatTracker.unflushedStatuses();
+        final List<DeviceRow> rows = load(null);
+        final DeviceColumns rebuilt = new DeviceColumns(rows.size());
+        rows.forEach(rebuilt::upsert);
+
+        lock.writeLock().lock();
+        try {
+            for (final Long deviceId : changedDuringRebuild) {
+                final List<DeviceRow> changed = load(deviceId);
+                if (changed.isEmpty()) {
+                    rebuilt.remove(deviceId);
+                } else {
+                    rebuilt.upsert(changed.get(0));
+                }
+            }
+            unflushed.forEach(rebuilt::setStatus);
+            statusesDuringRebuild.forEach(rebuilt::setStatus);
+            columns = rebuilt;
+            rebuilding = false;
+            changedDuringRebuild.clear();
+            statusesDuringRebuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Searchable rows of one device, or of every device when the id is null.
+     */
+    private List<DeviceRow> load(final Long deviceId) {
+        final Map<Long, List<Object[]>> usersByDevice = new HashMap<>();
+        for (final Object[] user : devicesRepository.findSearchUsers(deviceId)) {
+            usersByDevice.computeIfAbsent((Long) user[0], id -> new ArrayList<>()).add(user);
+        }
+        final List<Object[]> devices = devicesRepository.findSearchRows(deviceId);
+        final List<DeviceRow> rows = new ArrayList<>(devices.size());
+        for (final Object[] device : devices) {
+            final List<Object[]> users = usersByDevice.getOrDefault((Long) device[0], List.of());
+            final long[] userIds = new long[users.size()];
+            final String[] userNames = new String[users.size()];
+            for (int i = 0; i < users.size(); i++) {
+                userIds[i] = (Long) users.get(i)[1];
+                userNames[i] = (String) users.get(i)[2];
+            }
+            final LocalDateTime createdAt = (LocalDateTime) device[7];
+            rows.add(new DeviceRow((Long) device[0], (String) device[1], (String) device[2], (String) device[3],
+                    (DeviceStatus) device[4], (String) device[5], (String) device[6],
+                    createdAt == null ? 0 : createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+                    userIds, userNames));
+        }
+        return rows;
+    }
+}
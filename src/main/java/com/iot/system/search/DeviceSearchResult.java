@@ -0,0 +1,11 @@
+package com.iot.system.search;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ids of the requested page in order, the number of matching devices and, per facet, the number
+ * of matching devices with each value.
+ */
+public record DeviceSearchResult(List<Long> pageIds, long totalElements, Map<String, Map<String, Long>> facets) {
+}
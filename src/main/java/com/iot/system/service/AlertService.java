@@ -0,0 +1,155 @@
+package com.iot.system.service;
+
+import com.iot.system.dto.AlertRuleRequest;
+import com.iot.system.exception.ResourceNotFoundException;
+import com.iot.system.exception.SuccessResponse;
+import com.iot.system.exception.UnauthorizedException;
+import com.iot.system.model.Alert;
+import com.iot.system.model.AlertRule;
+import com.iot.system.model.AlertRuleType;
+import com.iot.system.model.AlertStatus;
+import com.iot.system.model.Monitoring;
+import com.iot.system.repository.AlertRepository;
+import com.iot.system.repository.AlertRuleRepository;
+import com.iot.system.repository.MonitoringRepository;
+import com.iot.system.telemetry.AlertEngine;
+import com.iot.system.telemetry.MetricDictionary;
+import com.iot.system.user.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class AlertService {
+
+    private final AlertRuleRepository alertRuleRepository;
+    private final AlertRepository alertRepository;
+    private final MonitoringRepository monitoringRepository;
+    private final MetricDictionary metricDictionary;
+    private final AlertEngine alertEngine;
+    private final UserService userService;
+
+    public List<AlertRule> getRules(final String monitoringCode) {
+        final Monitoring monitoring = findAuthorizedMonitoring(monitoringCode, "view");
+        return alertRuleRepository.findApplicable(monitoring.getId(), monitoring.getDevice().getIndustryType());
+    }
+
+    public AlertRule createMonitoringRule(final String monitoringCode, final AlertRuleRequest request) {
+        final Monitoring monitoring = findAuthorizedMonitoring(monitoringCode, "update");
+        final AlertRule rule = toRule(request);
+        rule.setMonitoringId(monitoring.getId());
+        return save(rule);
+    }
+
+    public AlertRule createIndustryRule(final String industryType, final AlertRuleRequest request) {
+        requireAdmin("User not authorized to update alert rules of industry type " + industryType);
+        final AlertRule rule = toRule(request);
+        rule.setIndustryType(industryType);
+        return save(rule);
+    }
+
+    public SuccessResponse deleteRule(final Long ruleId) {
+        final AlertRule rule = alertRuleRepository.findById(ruleId)
+                .orElseThrow(() -> new ResourceNotFoundException("Alert rule not found"));
+        if (rule.getMonitoringId() != null) {
+            final Monitoring monitoring = monitoringRepository.findById(rule.getMonitoringId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Monitoring not found"));
+            authorize(monitoring, "update");
+        } else {
+            requireAdmin("User not authorized to delete alert rules of industry type " + rule.getIndustryType());
+        }
+        alertRuleRepository.delete(rule);
+        alertEngine.reload();
+        return new SuccessResponse(200, "Alert rule was successfully deleted.");
+    }
+
+    public List<Alert> getAlerts(final String monitoringCode, final AlertStatus status, final int pageNo, final int pageSize) {
+        final Monitoring monitoring = findAuthorizedMonitoring(monitoringCode, "view");
+        final Pageable pageable = PageRequest.of(pageNo, pageSize, Sort.by("triggeredAt").descending());
+        return (status != null
+                ? alertRepository.findByMonitoringIdAndStatus(monitoring.getId(), status, pageable)
+                : alertRepository.findByMonitoringId(monitoring.getId(), pageable)).getContent();
+    }
+
+    private AlertRule save(final AlertRule rule) {
+        final AlertRule saved = alertRuleRepository.save(rule);
+        alertEngine.reload();
+        return saved;
+    }
+
+    private AlertRule toRule(final AlertRuleRequest request) {
+        if (request.getName() == null || request.getName().isBlank()) {
+            throw new IllegalArgumentException("Alert rule name is required");
+        }
+        if (request.getMetric() == null || request.getMetric().isBlank()) {
+            throw new IllegalArgumentException("Alert rule metric is required");
+        }
+        if (request.getType() == null) {
+            throw new IllegalArgumentException("Alert rule type is required");
+        }
+        if (request.getThreshold() == null || !Double.isFinite(request.getThreshold())) {
+            throw new IllegalArgumentException("Alert rule threshold is required");
+        }
+        final double threshold = request.getThreshold();
+        final double clearThreshold = request.getClearThreshold() != null ? request.getClearThreshold() : threshold;
+        switch (request.getType()) {
+            case ABOVE -> {
+                if (clearThreshold > threshold) {
+                    throw new IllegalArgumentException("Clear threshold of an ABOVE rule must not be above its threshold");
+                }
+            }
+            case BELOW -> {
+                if (clearThreshold < threshold) {
+                    throw new IllegalArgumentException("Clear threshold of a BELOW rule must not be below its threshold");
+                }
+            }
+            case RATE_OF_CHANGE -> {
+                if (threshold < 0 || clearThreshold < 0 || clearThreshold > threshold) {
+                    throw new IllegalArgumentException("Rate thresholds must be positive, with the clear threshold not above the threshold");
+                }
+            }
+            case FLATLINE -> {
+                if (threshold < 0 || request.getDurationMs() == null || request.getDurationMs() <= 0) {
+                    throw new IllegalArgumentException("A FLATLINE rule needs a positive tolerance and durationMs");
+                }
+            }
+        }
+        // Creates the metric if no reading of it arrived yet, so the rule compiles right away
+        metricDictionary.resolve(request.getMetric());
+
+        final AlertRule rule = new AlertRule();
+        rule.setName(request.getName());
+        rule.setMetric(request.getMetric());
+        rule.setType(request.getType());
+        rule.setThreshold(threshold);
+        rule.setClearThreshold(request.getType() == AlertRuleType.FLATLINE ? threshold : clearThreshold);
+        rule.setDurationMs(request.getType() == AlertRuleType.FLATLINE ? request.getDurationMs() : null);
+        return rule;
+    }
+
+    private Monitoring findAuthorizedMonitoring(final String monitoringCode, final String action) {
+        final Monitoring monitoring = monitoringRepository.findByMonitoringCode(monitoringCode)
+                .orElseThrow(() -> new ResourceNotFoundException("Monitoring not found"));
+        authorize(monitoring, action);
+        return monitoring;
+    }
+
+    private void authorize(final Monitoring monitoring, final String action) {
+        final User currentUser = userService.getCurrentUser();
+        if (!monitoring.getCreatedBy().getId().equals(currentUser.getId()) && !currentUser.getRole().name().equals("ADMIN")) {
+            throw new UnauthorizedException("User not authorized to " + action + " alerts of this monitoring");
+        }
+    }
+
+    private void requireAdmin(final String message) {
+        final User currentUser = userService.getCurrentUser();
+        if (!currentUser.getRole().name().equals("ADMIN")) {
+            throw new UnauthorizedException(message);
+        }
+    }
+}
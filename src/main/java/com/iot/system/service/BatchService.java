@@ -0,0 +1,148 @@
+package com.iot.system.service;
+
+import com.iot.system.dto.BatchOperationRequest;
+import com.iot.system.dto.BatchResponse;
+import com.iot.system.exception.ResourceNotFoundException;
+import com.iot.system.exception.ServiceUnavailableException;
+import com.iot.system.exception.UnauthorizedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs an ordered list of device and monitoring operations through the existing services in one
+ * transaction, so they share one persistence context and their updates and deletes are flushed in
+ * JDBC batches. Inserts are not batched: every entity uses identity keys, so Hibernate sends each
+ * insert on its own to read back the generated id. The first failing operation rolls back the
+ * whole batch and the operations after it are skipped; change events, and the in-memory cleanup of
+ * deleted devices and monitorings that listens to them, only run when the batch commits.
+ */
+@Service
+public class BatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchService.class);
+    private static final int MAX_OPERATIONS = 1000;
+
+    private final DeviceService deviceService;
+    private final MonitoringService monitoringService;
+    private final TransactionTemplate transactionTemplate;
+
+    public BatchService(final DeviceService deviceService, final MonitoringService monitoringService,
+                        final PlatformTransactionManager transactionManager) {
+        this.deviceService = deviceService;
+        this.monitoringService = monitoringService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public BatchResponse execute(final List<BatchOperationRequest> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("At least one operation is required");
+        }
+        if (operations.size() > MAX_OPERATIONS) {
+            throw new IllegalArgumentException("At most " + MAX_OPERATIONS + " operations can be run in one batch");
+        }
+
+        final List<BatchResponse.Result> results = new ArrayList<>(operations.size());
+        boolean committed;
+        try {
+            committed = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                for (int index = 0; index < operations.size(); index++) {
+                    final BatchOperationRequest operation = operations.get(index);
+                    try {
+                        final Object body = run(operation);
+                        results.add(result(index, operation, HttpStatus.OK, null, body));
+                    } catch (RuntimeException e) {
+                        status.setRollbackOnly();
+                        results.add(failure(index, operation, e));
+                        return false;
+                    }
+                }
+                return true;
+            }));
+        } catch (RuntimeException e) {
+            // Writes are flushed on commit, so a constraint violation only surfaces here
+            logger.error("Batch of {} operations could not be committed", operations.size(), e);
+            committed = false;
+            for (int index = 0; index < results.size(); index++) {
+                if (results.get(index).getStatus() == HttpStatus.OK.value()) {
+                    results.set(index, result(index, operations.get(index), HttpStatus.INTERNAL_SERVER_ERROR,
+                            "Rolled back because the batch could not be committed", null));
+                }
+            }
+        }
+
+        if (!committed) {
+            for (int index = results.size(); index < operations.size(); index++) {
+                results.add(result(index, operations.get(index), HttpStatus.FAILED_DEPENDENCY,
+                        "Skipped because an earlier operation failed", null));
+            }
+        }
+        return BatchResponse.builder()
+                .committed(committed)
+                .results(results)
+                .build();
+    }
+
+    private Object run(final BatchOperationRequest operation) {
+        if (operation == null || operation.getType() == null) {
+            throw new IllegalArgumentException("Operation type is required");
+        }
+        return switch (operation.getType()) {
+            case CREATE_DEVICE -> deviceService.saveDevice(required(operation.getDevice(), "device"));
+            case UPDATE_DEVICE -> deviceService.updateDevice(required(operation.getDeviceCode(), "deviceCode"),
+                    required(operation.getDevice(), "device"));
+            case DELETE_DEVICE -> deviceService.deleteDevice(required(operation.getDeviceCode(), "deviceCode"));
+            case SEND_COMMAND -> deviceService.sendCommand(required(operation.getDeviceCode(), "deviceCode"),
+                    required(operation.getCommand(), "command"));
+            case CREATE_MONITORING -> monitoringService.createMonitoring(
+                    List.of(required(operation.getMonitoring(), "monitoring"))).get(0);
+            case UPDATE_MONITORING -> monitoringService.updateMonitoring(
+                    required(operation.getMonitoringCode(), "monitoringCode"), required(operation.getMonitoring(), "monitoring"));
+            case DELETE_MONITORING -> monitoringService.deleteMonitoring(
+                    required(operation.getMonitoringCode(), "monitoringCode"));
+        };
+    }
+
+    private static <T> T required(final T value, final String field) {
+        if (value == null) {
+            throw new IllegalArgumentException("Field " + field + " is required for this operation");
+        }
+        return value;
+    }
+
+    private static BatchResponse.Result failure(final int index, final BatchOperationRequest operation,
+                                                final RuntimeException e) {
+        // Same statuses as GlobalExceptionHandler gives the single-operation endpoints
+        if (e instanceof ResourceNotFoundException) {
+            return result(index, operation, HttpStatus.NOT_FOUND, e.getMessage(), null);
+        }
+        if (e instanceof UnauthorizedException) {
+            return result(index, operation, HttpStatus.UNAUTHORIZED, e.getMessage(), null);
+        }
+        if (e instanceof IllegalArgumentException) {
+            return result(index, operation, HttpStatus.BAD_REQUEST, e.getMessage(), null);
+        }
+        if (e instanceof ServiceUnavailableException) {
+            return result(index, operation, HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), null);
+        }
+        logger.error("Batch operation {} failed", index, e);
+        return result(index, operation, HttpStatus.INTERNAL_SERVER_ERROR, "Internal server error", null);
+    }
+
+    private static BatchResponse.Result result(final int index, final BatchOperationRequest operation,
+                                               final HttpStatus status, final String message, final Object body) {
+        return BatchResponse.Result.builder()
+                .index(index)
+                .type(operation == null ? null : operation.getType())
+                .status(status.value())
+                .message(message)
+                .body(body)
+                .build();
+    }
+}
@@ -0,0 +1,119 @@
+package com.iot.system.service;
+
+import com.iot.system.dto.ScheduleCommandRequest;
+import com.iot.system.exception.ResourceNotFoundException;
+import com.iot.system.exception.SuccessResponse;
+import com.iot.system.model.Device;
+import com.iot.system.model.ScheduledCommand;
+import com.iot.system.repository.ScheduledCommandRepository;
+import com.iot.system.scheduling.CommandScheduler;
+import com.iot.system.user.User;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+@Service
+public class CommandScheduleService {
+
+    private static final int MAX_ACTIVE_SCHEDULES_PER_DEVICE = 100;
+
+    private final DeviceService deviceService;
+    private final UserService userService;
+    private final ScheduledCommandRepository scheduledCommandRepository;
+    private final CommandScheduler commandScheduler;
+
+    public CommandScheduleService(final DeviceService deviceService, final UserService userService,
+                                  final ScheduledCommandRepository scheduledCommandRepository,
+                                  final CommandScheduler commandScheduler) {
+        this.deviceService = deviceService;
+        this.userService = userService;
+        this.scheduledCommandRepository = scheduledCommandRepository;
+        this.commandScheduler = commandScheduler;
+    }
+
+    public ScheduledCommand scheduleCommand(@NonNull final String deviceCode,
+                                            @NonNull final ScheduleCommandRequest scheduleRequest) {
+        final Device device = deviceService.getDeviceByDeviceCode(deviceCode);
+        if (scheduleRequest.getOperation() == null || scheduleRequest.getOperation().isBlank()) {
+            throw new IllegalArgumentException("Operation is required");
+        }
+        final String cron = scheduleRequest.getCron() == null || scheduleRequest.getCron().isBlank()
+                ? null : scheduleRequest.getCron().trim();
+        if (Stream.of(scheduleRequest.getRunAt(), scheduleRequest.getDelaySeconds(), cron)
+                .filter(Objects::nonNull).count() != 1) {
+            throw new IllegalArgumentException("Exactly one of runAt, delaySeconds or cron is required");
+        }
+        final ZoneId zone = parseZone(scheduleRequest.getZone());
+        if (scheduledCommandRepository.countByDeviceIdAndActiveTrue(device.getId()) >= MAX_ACTIVE_SCHEDULES_PER_DEVICE) {
+            throw new IllegalArgumentException("A device can have at most " + MAX_ACTIVE_SCHEDULES_PER_DEVICE
+                    + " active scheduled commands");
+        }
+
+        final long now = System.currentTimeMillis();
+        final long nextRunAt;
+        if (cron != null) {
+            final Long next = CommandScheduler.nextRun(CronExpression.parse(cron), zone, now);
+            if (next == null) {
+                throw new IllegalArgumentException("Cron expression " + cron + " never matches");
+            }
+            nextRunAt = next;
+        } else if (scheduleRequest.getDelaySeconds() != null) {
+            if (scheduleRequest.getDelaySeconds() < 0) {
+                throw new IllegalArgumentException("delaySeconds must not be negative");
+            }
+            nextRunAt = now + scheduleRequest.getDelaySeconds() * 1000;
+        } else {
+            nextRunAt = scheduleRequest.getRunAt().atZone(zone).toInstant().toEpochMilli();
+            if (nextRunAt < now) {
+                throw new IllegalArgumentException("runAt must not be in the past");
+            }
+        }
+
+        final User currentUser = userService.getCurrentUser();
+        final ScheduledCommand scheduledCommand = new ScheduledCommand();
+        scheduledCommand.setDeviceId(device.getId());
+        scheduledCommand.setDeviceCode(device.getDeviceCode());
+        scheduledCommand.setOperation(scheduleRequest.getOperation());
+        scheduledCommand.setCron(cron);
+        scheduledCommand.setZone(zone.getId());
+        scheduledCommand.setNextRunAt(nextRunAt);
+        scheduledCommand.setActive(true);
+        scheduledCommand.setOwnerId(currentUser.getRole().name().equals("ADMIN") ? null : currentUser.getId());
+        scheduledCommand.setCreatedBy(currentUser.getId());
+
+        final ScheduledCommand saved = scheduledCommandRepository.save(scheduledCommand);
+        commandScheduler.scheduled(saved.getId(), saved.getNextRunAt());
+        return saved;
+    }
+
+    public List<ScheduledCommand> getScheduledCommands(@NonNull final String deviceCode) {
+        final Device device = deviceService.getDeviceByDeviceCode(deviceCode);
+        return scheduledCommandRepository.findByDeviceIdOrderById(device.getId());
+    }
+
+    public SuccessResponse deleteScheduledCommand(@NonNull final String deviceCode, @NonNull final Long scheduleId) {
+        final Device device = deviceService.getDeviceByDeviceCode(deviceCode);
+        final ScheduledCommand scheduledCommand = scheduledCommandRepository.findByIdAndDeviceId(scheduleId, device.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("Scheduled command not found"));
+        scheduledCommandRepository.delete(scheduledCommand);
+        commandScheduler.cancelled(scheduleId);
+        return new SuccessResponse(200, "Scheduled command was successfully deleted.");
+    }
+
+    private static ZoneId parseZone(final String zone) {
+        if (zone == null || zone.isBlank()) {
+            return ZoneId.systemDefault();
+        }
+        try {
+            return ZoneId.of(zone);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Invalid time zone: " + zone);
+        }
+    }
+}
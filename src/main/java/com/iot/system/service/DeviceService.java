@@ -1,24 +1,52 @@
 package com.iot.system.service;
 
+import com.iot.system.cache.PageQueryCache;
+import com.iot.system.cache.SharedEntities;
+import com.iot.system.cache.SingleFlight;
+import com.iot.system.command.CommandFanOut;
+import com.iot.system.command.CommandFanOutJob;
+import com.iot.system.dto.AvailabilityResponse;
+import com.iot.system.dto.CommandFanOutRequest;
+import com.iot.system.dto.CommandFanOutResponse;
 import com.iot.system.dto.CommandRequest;
+import com.iot.system.dto.DeviceBatchGetResponse;
 import com.iot.system.dto.DeviceRequest;
 import com.iot.system.dto.DeviceResponse;
+import com.iot.system.dto.DeviceSearchResponse;
+import com.iot.system.dto.FleetStatsResponse;
+import com.iot.system.dto.GatewayCredentialResponse;
 import com.iot.system.dto.MonitoringResponse;
+import com.iot.system.dto.StatusHistoryResponse;
 import com.iot.system.exception.ResourceNotFoundException;
 import com.iot.system.exception.SuccessResponse;
+import com.iot.system.event.DeviceChangedEvent;
+import com.iot.system.event.DeviceCommandEvent;
+import com.iot.system.event.DeviceStatusChangedEvent;
+import com.iot.system.event.MonitoringChangedEvent;
 import com.iot.system.exception.UnauthorizedException;
+import com.iot.system.filter.DeviceFilters;
+import com.iot.system.gateway.DeviceCredentials;
+import com.iot.system.heartbeat.HeartbeatTracker;
+import com.iot.system.history.DeviceStatusHistory;
 import com.iot.system.model.*;
 import com.iot.system.repository.DeviceSpecification;
 import com.iot.system.repository.DevicesRepository;
 import com.iot.system.repository.MonitoringRepository;
 import com.iot.system.repository.MonitoringSpecification;
+import com.iot.system.repository.ScheduledCommandRepository;
+import com.iot.system.search.DeviceQuery;
+import com.iot.system.search.DeviceSearchIndex;
+import com.iot.system.search.DeviceSearchResult;
+import com.iot.system.stats.FleetStatistics;
 import com.iot.system.user.User;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -31,15 +59,23 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 public class DeviceService {
 
     private static final Logger logger = LoggerFactory.getLogger(DeviceService.class);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+    private static final int BATCH_GET_MAX_CODES = 5000;
+    // Keeps each IN list well below the bind parameter limits of the database
+    private static final int BATCH_GET_CHUNK_SIZE = 500;
 
     @Autowired
     private final DevicesRepository devicesRepository;
@@ -52,11 +88,61 @@ public class DeviceService {
 
     private final UserService userService;
 
+    private final TelemetryService telemetryService;
+
+    private final DeviceCredentials deviceCredentials;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final HeartbeatTracker heartbeatTracker;
+
+    private final DeviceStatusHistory deviceStatusHistory;
+
+    private final FleetStatistics fleetStatistics;
+
+    private final DeviceSearchIndex deviceSearchIndex;
+
+    private final DeviceFilters deviceFilters;
+
+    private final PageQueryCache pageQueryCache;
+
+    private final CommandFanOut commandFanOut;
+
+    private final ScheduledCommandRepository scheduledCommandRepository;
+
+    // Concurrent lookups of the same device share one load; authorization is checked per caller
+    private final SingleFlight<String, Device> deviceLoads = new SingleFlight<>();
+
+    private final SingleFlight<String, Monitoring> monitoringLoads = new SingleFlight<>();
+
+    @Value("${gateway.tcp-port}")
+    private int gatewayTcpPort;
+
+    @Value("${gateway.udp-port}")
+    private int gatewayUdpPort;
+
     public DeviceService(final DevicesRepository devicesRepository, final MonitoringRepository monitoringRepository,
-                         final UserService userService) {
+                         final UserService userService, final TelemetryService telemetryService,
+                         final DeviceCredentials deviceCredentials, final ApplicationEventPublisher eventPublisher,
+                         final HeartbeatTracker heartbeatTracker, final DeviceStatusHistory deviceStatusHistory,
+                         final FleetStatistics fleetStatistics, final DeviceSearchIndex deviceSearchIndex,
+                         final DeviceFilters deviceFilters, final PageQueryCache pageQueryCache,
+                         final CommandFanOut commandFanOut,
+                         final ScheduledCommandRepository scheduledCommandRepository) {
         this.devicesRepository = devicesRepository;
         this.monitoringRepository = monitoringRepository;
         this.userService = userService;
+        this.telemetryService = telemetryService;
+        this.deviceCredentials = deviceCredentials;
+        this.eventPublisher = eventPublisher;
+        this.heartbeatTracker = heartbeatTracker;
+        this.deviceStatusHistory = deviceStatusHistory;
+        this.fleetStatistics = fleetStatistics;
+        this.deviceSearchIndex = deviceSearchIndex;
+        this.deviceFilters = deviceFilters;
+        this.pageQueryCache = pageQueryCache;
+        this.commandFanOut = commandFanOut;
+        this.scheduledCommandRepository = scheduledCommandRepository;
     }
 
     @Transactional
@@ -76,17 +162,69 @@ public class DeviceService {
         device.setCreatedBy(currentUser);
         device.setUsers(associateUsers(deviceRequest.getUsernames(), currentUser));
 
-        return devicesRepository.save(device);
+        final Device saved = devicesRepository.save(device);
+        eventPublisher.publishEvent(new DeviceChangedEvent(saved.getId(), saved.getDeviceCode(), null, DeviceChangedEvent.Snapshot.of(saved)));
+        publishStatusChange(saved, null);
+        return saved;
     }
 
     @Transactional
     public Device getDeviceByDeviceCode(@NonNull final String deviceCode) {
-        final Device device = devicesRepository.findByDeviceCode(deviceCode)
+        final Device device = loadSharedDevice(deviceCode)
                 .orElseThrow(() -> new ResourceNotFoundException("Device not found"));
         validateUserAuthorization(device);
         return device;
     }
 
+    @Transactional
+    public DeviceBatchGetResponse getDevicesByDeviceCodes(final List<String> deviceCodes) {
+        if (deviceCodes == null || deviceCodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one device code is required");
+        }
+        final List<String> codes = new ArrayList<>(new LinkedHashSet<>(deviceCodes));
+        if (codes.contains(null)) {
+            throw new IllegalArgumentException("Device codes must not be null");
+        }
+        if (codes.size() > BATCH_GET_MAX_CODES) {
+            throw new IllegalArgumentException("At most " + BATCH_GET_MAX_CODES + " device codes can be fetched at once");
+        }
+
+        final Map<String, Device> devices = new HashMap<>();
+        for (int from = 0; from < codes.size(); from += BATCH_GET_CHUNK_SIZE) {
+            final List<String> chunk = codes.subList(from, Math.min(codes.size(), from + BATCH_GET_CHUNK_SIZE));
+            devicesRepository.findWithUsersByDeviceCodeIn(chunk)
+                    .forEach(device -> devices.put(device.getDeviceCode(), device));
+        }
+
+        final User currentUser = userService.getCurrentUser();
+        final Map<String, DeviceBatchGetResponse.Item> items = new LinkedHashMap<>();
+        int found = 0;
+        int forbidden = 0;
+        for (final String code : codes) {
+            final Device device = devices.get(code);
+            final DeviceBatchGetResponse.Status status;
+            if (device == null) {
+                status = DeviceBatchGetResponse.Status.NOT_FOUND;
+            } else if (!isAuthorized(currentUser, device)) {
+                status = DeviceBatchGetResponse.Status.FORBIDDEN;
+                forbidden++;
+            } else {
+                status = DeviceBatchGetResponse.Status.FOUND;
+                found++;
+            }
+            items.put(code, DeviceBatchGetResponse.Item.builder()
+                    .status(status)
+                    .device(status == DeviceBatchGetResponse.Status.FOUND ? device : null)
+                    .build());
+        }
+        return DeviceBatchGetResponse.builder()
+                .devices(items)
+                .found(found)
+                .notFound(codes.size() - found - forbidden)
+                .forbidden(forbidden)
+                .build();
+    }
+
     @Transactional
     public Device updateDevice(@NonNull final String deviceCode, @NonNull final DeviceRequest deviceRequest) {
         final Device device = devicesRepository.findByDeviceCode(deviceCode)
@@ -94,11 +232,15 @@ public class DeviceService {
 
         validateUserAuthorization(device);
 
+        final DeviceChangedEvent.Snapshot before = DeviceChangedEvent.Snapshot.of(device);
         setBasicDeviceFields(device, deviceRequest);
         device.setUsers(associateUsers(deviceRequest.getUsernames(), userService.getCurrentUser()));
         updateDeviceCommands(device, deviceRequest.getCommands());
 
-        return devicesRepository.save(device);
+        final Device saved = devicesRepository.save(device);
+        eventPublisher.publishEvent(new DeviceChangedEvent(saved.getId(), saved.getDeviceCode(), before, DeviceChangedEvent.Snapshot.of(saved)));
+        publishStatusChange(saved, before.status());
+        return saved;
     }
 
     @Transactional
@@ -107,7 +249,16 @@ public class DeviceService {
                 .orElseThrow(() -> new ResourceNotFoundException("Device not found"));
         validateUserAuthorization(device);
 
+        if (device.getMonitoring() != null) {
+            telemetryService.deleteSeries(device.getMonitoring());
+            eventPublisher.publishEvent(new MonitoringChangedEvent(device.getMonitoring().getId(), MonitoringChangedEvent.Snapshot.of(device.getMonitoring()), null));
+        }
+        final DeviceChangedEvent.Snapshot before = DeviceChangedEvent.Snapshot.of(device);
         devicesRepository.deleteByDeviceCode(deviceCode);
+        deviceStatusHistory.deleteDevice(device.getId());
+        // Armed timers of the removed schedules find nothing to run when they come up
+        scheduledCommandRepository.deleteByDeviceId(device.getId());
+        eventPublisher.publishEvent(new DeviceChangedEvent(device.getId(), deviceCode, before, null));
         return new SuccessResponse(200, "Device was successfully deleted.");
     }
 
@@ -121,24 +272,80 @@ public class DeviceService {
         return devicesRepository.findByUsers_Id(currentUser.getId());
     }
 
+    @Transactional
+    public FleetStatsResponse getFleetStats() {
+        final User currentUser = userService.getCurrentUser();
+        if (currentUser.getRole().name().equals("ADMIN")) {
+            return fleetStatistics.fleet();
+        }
+        return fleetStatistics.forUser(currentUser.getId());
+    }
+
     @Transactional
     public DeviceResponse getAllDevices(@NonNull final int pageNo, @NonNull final int pageSize,
                                         @NonNull final String sortBy, @NonNull final String sortDir,
                                         @NonNull final String deviceStatus, @NonNull final String industryType, @NonNull final String deviceName,
-                                        @NonNull final String userName, @NonNull final String description, @NonNull final String deviceCode) {
-        final Pageable pageable = PageRequest.of(pageNo, pageSize, Sort.by(Sort.Direction.fromString(sortDir), sortBy));
+                                        @NonNull final String userName, @NonNull final String description, @NonNull final String deviceCode,
+                                        final String filter) {
+        final Sort.Direction direction = Sort.Direction.fromString(sortDir);
+        final Pageable pageable = PageRequest.of(pageNo, pageSize, Sort.by(direction, sortBy));
         final User currentUser = userService.getCurrentUser();
+        final Long userId = currentUser.getRole().name().equals("ADMIN") ? null : currentUser.getId();
+        final boolean filtered = filter != null && !filter.isBlank();
+
+        final PageQueryCache.Key key = pageQueryCache.key(PageQueryCache.Listing.DEVICES, userId, pageNo, pageSize,
+                sortBy, direction, parseDeviceStatus(deviceStatus), industryType, deviceName, userName, description,
+                deviceCode, filtered ? deviceFilters.normalize(filter) : null);
+        final PageQueryCache.CachedPage cached = pageQueryCache.get(key);
+        if (cached != null) {
+            final List<Device> content = PageQueryCache.inIdOrder(cached.ids(),
+                    devicesRepository.findAllById(cached.ids()), Device::getId);
+            return buildDeviceResponse(new PageImpl<>(content, pageable, cached.totalElements()));
+        }
 
         Specification<Device> spec = createDeviceSpecification(deviceStatus, industryType, deviceName, userName,
                 description, deviceCode);
-        if (!currentUser.getRole().name().equals("ADMIN")) {
-            spec = spec.and(DeviceSpecification.hasUserId(currentUser.getId()));
+        if (filtered) {
+            spec = spec.and(deviceFilters.compile(filter));
+        }
+        if (userId != null) {
+            spec = spec.and(DeviceSpecification.hasUserId(userId));
         }
 
         final Page<Device> devices = devicesRepository.findAll(spec, pageable);
+        pageQueryCache.put(key, devices.getContent().stream().map(Device::getId).toList(), devices.getTotalElements());
         return buildDeviceResponse(devices);
     }
 
+    @Transactional
+    public DeviceSearchResponse searchDevices(final int pageNo, final int pageSize, final String sortBy, final String sortDir,
+                                              final String deviceStatus, final String industryType, final String deviceName,
+                                              final String userName, final String description, final String deviceCode) {
+        final User currentUser = userService.getCurrentUser();
+        final Long userId = currentUser.getRole().name().equals("ADMIN") ? null : currentUser.getId();
+        final DeviceQuery query = new DeviceQuery(parseDeviceStatus(deviceStatus), blankToNull(industryType),
+                blankToNull(deviceName), blankToNull(userName), blankToNull(description), blankToNull(deviceCode), userId,
+                sortBy, Sort.Direction.fromString(sortDir).isAscending(), pageNo, pageSize);
+        final DeviceSearchResult result = deviceSearchIndex.search(query);
+
+        final Map<Long, Device> devices = devicesRepository.findAllById(result.pageIds()).stream()
+                .collect(Collectors.toMap(Device::getId, device -> device));
+        final List<Device> content = result.pageIds().stream()
+                .map(devices::get)
+                .filter(Objects::nonNull)
+                .toList();
+        final int totalPages = (int) ((result.totalElements() + pageSize - 1) / pageSize);
+        return DeviceSearchResponse.builder()
+                .content(content)
+                .pageNo(pageNo)
+                .pageSize(pageSize)
+                .totalElements(result.totalElements())
+                .totalPages(totalPages)
+                .last(pageNo >= totalPages - 1)
+                .facets(result.facets())
+                .build();
+    }
+
     @Transactional
     public MonitoringResponse getMonitoringsByDeviceCode(@NonNull final String deviceCode, @NonNull final int pageNo,
                                                          @NonNull final int pageSize,
@@ -161,26 +368,124 @@ public class DeviceService {
                 .orElseThrow(() -> new ResourceNotFoundException("Device not found"));
         validateUserAuthorization(device);
 
+        final DeviceStatus previousStatus = device.getDeviceStatus();
         if (Objects.equals(commandRequest.getOperation(), "Deactivate")) {
             device.setDeviceStatus(DeviceStatus.OFF);
         } else if (Objects.equals(commandRequest.getOperation(), "Activate")) {
             device.setDeviceStatus(DeviceStatus.ON);
         }
 
-        return devicesRepository.save(device);
+        final Device saved = devicesRepository.save(device);
+        publishStatusChange(saved, previousStatus);
+        eventPublisher.publishEvent(new DeviceCommandEvent(deviceCode, commandRequest.getOperation(), LocalDateTime.now()));
+        return saved;
+    }
+
+    public CommandFanOutResponse startCommandFanOut(@NonNull final CommandFanOutRequest fanOutRequest) {
+        if (fanOutRequest.getOperation() == null || fanOutRequest.getOperation().isBlank()) {
+            throw new IllegalArgumentException("Operation is required");
+        }
+        final String filter = blankToNull(fanOutRequest.getFilter());
+        final String industryType = blankToNull(fanOutRequest.getIndustryType());
+        final DeviceStatus deviceStatus = parseDeviceStatus(fanOutRequest.getDeviceStatus());
+        if (filter == null && industryType == null && deviceStatus == null) {
+            throw new IllegalArgumentException("At least one of deviceStatus, industryType or filter is required");
+        }
+
+        Specification<Device> spec = Specification.where(DeviceSpecification.hasDeviceStatus(deviceStatus))
+                .and(DeviceSpecification.hasIndustryType(industryType));
+        if (filter != null) {
+            spec = spec.and(deviceFilters.compile(filter));
+        }
+        final User currentUser = userService.getCurrentUser();
+        final Long userId = currentUser.getRole().name().equals("ADMIN") ? null : currentUser.getId();
+        if (userId != null) {
+            spec = spec.and(DeviceSpecification.hasUserId(userId));
+        }
+
+        final List<CommandFanOut.Target> targets = commandFanOut.snapshot(spec);
+        return buildFanOutResponse(commandFanOut.start(fanOutRequest.getOperation(), targets, userId), false);
+    }
+
+    public CommandFanOutResponse getCommandFanOut(@NonNull final String jobId) {
+        final CommandFanOutJob job = commandFanOut.find(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Command fan-out not found"));
+        final User currentUser = userService.getCurrentUser();
+        if (job.getOwnerId() != null && !job.getOwnerId().equals(currentUser.getId())
+                && !currentUser.getRole().name().equals("ADMIN")) {
+            throw new UnauthorizedException("User not authorized to access this command fan-out.");
+        }
+        return buildFanOutResponse(job, true);
+    }
+
+    @Transactional
+    public SuccessResponse recordHeartbeat(@NonNull final String deviceCode) {
+        final Device device = devicesRepository.findByDeviceCode(deviceCode)
+                .orElseThrow(() -> new ResourceNotFoundException("Device not found"));
+        validateUserAuthorization(device);
+        heartbeatTracker.heartbeat(device);
+        return new SuccessResponse(200, "Heartbeat recorded.");
     }
 
     @Transactional
-    public Monitoring getMonitoringByDeviceCode(@NonNull final String deviceCode) {
+    public StatusHistoryResponse getStatusHistory(@NonNull final String deviceCode, final long from, final long to) {
+        final Device device = devicesRepository.findByDeviceCode(deviceCode)
+                .orElseThrow(() -> new ResourceNotFoundException("Device not found"));
+        validateUserAuthorization(device);
 
-        Device device = devicesRepository.findByDeviceCode(deviceCode)
-                .orElseThrow(() -> new ResourceNotFoundException("Device not found with code: " + deviceCode));
+        final DeviceStatusHistory.StatusTimeline timeline = deviceStatusHistory.timeline(device.getId(), from, to);
+        return StatusHistoryResponse.builder()
+                .deviceCode(deviceCode)
+                .from(from)
+                .to(to)
+                .initialStatus(timeline.initialStatus())
+                .transitions(timeline.transitions())
+                .build();
+    }
+
+    @Transactional
+    public AvailabilityResponse getAvailability(@NonNull final String deviceCode, @NonNull final LocalDate from,
+                                                @NonNull final LocalDate to) {
+        final Device device = devicesRepository.findByDeviceCode(deviceCode)
+                .orElseThrow(() -> new ResourceNotFoundException("Device not found"));
         validateUserAuthorization(device);
 
-        return monitoringRepository.findByDevice(device)
-                .orElseThrow(() -> new ResourceNotFoundException("Monitoring not found for deviceCode: " + deviceCode));
+        final List<DeviceStatusHistory.DayStatusTime> days = deviceStatusHistory.statusTime(from, to, device.getId(), null, null);
+        return buildAvailabilityResponse(days, from, to).deviceCode(deviceCode).build();
+    }
+
+    @Transactional
+    public AvailabilityResponse getFleetAvailability(@NonNull final LocalDate from, @NonNull final LocalDate to,
+                                                     final String industryType) {
+        final User currentUser = userService.getCurrentUser();
+        final Long userId = currentUser.getRole().name().equals("ADMIN") ? null : currentUser.getId();
+        final String industry = industryType == null || industryType.isEmpty() ? null : industryType;
+
+        final List<DeviceStatusHistory.DayStatusTime> days = deviceStatusHistory.statusTime(from, to, null, industry, userId);
+        return buildAvailabilityResponse(days, from, to).industryType(industry).build();
+    }
+
+    @Transactional
+    public Monitoring getMonitoringByDeviceCode(@NonNull final String deviceCode) {
+        final Device device = loadSharedDevice(deviceCode)
+                .orElseThrow(() -> new ResourceNotFoundException("Device not found with code: " + deviceCode));
+        validateUserAuthorization(device);
 
+        return monitoringLoads.load(deviceCode, () -> SharedEntities.initialize(monitoringRepository.findByDevice(device)
+                .orElseThrow(() -> new ResourceNotFoundException("Monitoring not found for deviceCode: " + deviceCode))));
+    }
 
+    @Transactional
+    public GatewayCredentialResponse getGatewayCredential(@NonNull final String deviceCode) {
+        final Device device = devicesRepository.findByDeviceCode(deviceCode)
+                .orElseThrow(() -> new ResourceNotFoundException("Device not found"));
+        validateUserAuthorization(device);
+        return GatewayCredentialResponse.builder()
+                .deviceCode(deviceCode)
+                .credential(deviceCredentials.issue(deviceCode))
+                .tcpPort(gatewayTcpPort)
+                .udpPort(gatewayUdpPort)
+                .build();
     }
 
     private void setBasicDeviceFields(final Device device, final DeviceRequest deviceRequest) {
@@ -192,6 +497,66 @@ public class DeviceService {
         device.setDeviceStatus(deviceRequest.getDeviceStatus());
     }
 
+    private void publishStatusChange(final Device device, final DeviceStatus previousStatus) {
+        if (device.getDeviceStatus() != null && device.getDeviceStatus() != previousStatus) {
+            eventPublisher.publishEvent(new DeviceStatusChangedEvent(device.getId(), device.getDeviceCode(),
+                    previousStatus, device.getDeviceStatus(), System.currentTimeMillis()));
+        }
+    }
+
+    private static CommandFanOutResponse buildFanOutResponse(final CommandFanOutJob job, final boolean withResults) {
+        return CommandFanOutResponse.builder()
+                .jobId(job.getId())
+                .operation(job.getOperation())
+                .completed(job.isCompleted())
+                .total(job.getTotal())
+                .processed(job.getProcessed())
+                .changed(job.getChanged())
+                .unchanged(job.getUnchanged())
+                .notFound(job.getNotFound())
+                .failed(job.getFailed())
+                .createdAt(job.getCreatedAt())
+                .completedAt(job.getCompletedAt())
+                .results(withResults ? job.getOutcomes() : null)
+                .build();
+    }
+
+    private AvailabilityResponse.AvailabilityResponseBuilder buildAvailabilityResponse(
+            final List<DeviceStatusHistory.DayStatusTime> days, final LocalDate from, final LocalDate to) {
+        long onMs = 0;
+        long standbyMs = 0;
+        long offMs = 0;
+        final List<AvailabilityResponse.Day> content = new ArrayList<>(days.size());
+        for (final DeviceStatusHistory.DayStatusTime day : days) {
+            final long dayOn = day.get(DeviceStatus.ON);
+            final long dayStandby = day.get(DeviceStatus.STANDBY);
+            final long dayOff = day.get(DeviceStatus.OFF);
+            content.add(AvailabilityResponse.Day.builder()
+                    .day(day.getDay())
+                    .onMs(dayOn)
+                    .standbyMs(dayStandby)
+                    .offMs(dayOff)
+                    .availability(availability(dayOn, dayStandby, dayOff))
+                    .build());
+            onMs += dayOn;
+            standbyMs += dayStandby;
+            offMs += dayOff;
+        }
+        return AvailabilityResponse.builder()
+                .from(from)
+                .to(to)
+                .onMs(onMs)
+                .standbyMs(standbyMs)
+                .offMs(offMs)
+                .availability(availability(onMs, standbyMs, offMs))
+                .days(content);
+    }
+
+    private static Double availability(final long onMs, final long standbyMs, final long offMs) {
+        final long observed = onMs + standbyMs + offMs;
+        return observed == 0 ? null : (double) onMs / observed;
+    }
+
     private List<User> associateUsers(final List<String> usernames, final User currentUser) {
         final List<User> users = new ArrayList<>();
         users.add(currentUser);
@@ -205,17 +570,23 @@ public class DeviceService {
         return userService.findUsersByUsernameList(usernames);
     }
 
-    private void validateUserAuthorization(final Device device) {
-        final User currentUser = userService.getCurrentUser();
-        final boolean isAdmin = currentUser.getRole().name().equals("ADMIN");
-        final boolean isUserAuthorized = device.getUsers().stream()
-                .anyMatch(user -> user.getId().equals(currentUser.getId()));
+    private Optional<Device> loadSharedDevice(final String deviceCode) {
+        return Optional.ofNullable(deviceLoads.load(deviceCode, () -> devicesRepository.findByDeviceCode(deviceCode)
+                .map(SharedEntities::initialize)
+                .orElse(null)));
+    }
 
-        if (!isAdmin && !isUserAuthorized) {
+    private void validateUserAuthorization(final Device device) {
+        if (!isAuthorized(userService.getCurrentUser(), device)) {
             throw new UnauthorizedException("User not authorized to access this device.");
         }
     }
 
+    private static boolean isAuthorized(final User currentUser, final Device device) {
+        return currentUser.getRole().name().equals("ADMIN")
+                || device.getUsers().stream().anyMatch(user -> user.getId().equals(currentUser.getId()));
+    }
+
     private void updateDeviceCommands(final Device device, final List<CommandDescription> commandDescriptions) {
         final Map<Long, CommandDescription> existingCommands = device.getCommands().stream()
                 .collect(Collectors.toMap(CommandDescription::getId, command -> command));
@@ -329,6 +700,10 @@ public class DeviceService {
         return null;
     }
 
+    private static String blankToNull(final String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
     private DeviceResponse buildDeviceResponse(final Page<Device> devices) {
         final List<Device> content = devices.getContent();
         return DeviceResponse.builder()
@@ -384,7 +759,6 @@ public class DeviceService {
     }
 
     private LocalDateTime[] parseDateRange(@NonNull final String dateRange) {
-        final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
         LocalDateTime start = null;
         LocalDateTime end = null;
 
@@ -392,10 +766,10 @@ public class DeviceService {
             try {
                 if (dateRange.contains("-")) {
                     final String[] dates = dateRange.split("-");
-                    start = LocalDate.parse(dates[0].trim(), formatter).atStartOfDay();
-                    end = LocalDate.parse(dates[1].trim(), formatter).atTime(23, 59, 59);
+                    start = LocalDate.parse(dates[0].trim(), DATE_FORMATTER).atStartOfDay();
+                    end = LocalDate.parse(dates[1].trim(), DATE_FORMATTER).atTime(23, 59, 59);
                 } else {
-                    start = LocalDate.parse(dateRange.trim(), formatter).atStartOfDay();
+                    start = LocalDate.parse(dateRange.trim(), DATE_FORMATTER).atStartOfDay();
                     end = start.withHour(23).withMinute(59).withSecond(59);
                 }
             } catch (DateTimeParseException e) {
@@ -1,10 +1,15 @@
 package com.iot.system.service;
 
+import com.iot.system.cache.PageQueryCache;
+import com.iot.system.cache.SharedEntities;
+import com.iot.system.cache.SingleFlight;
 import com.iot.system.dto.MonitoringRequest;
 import com.iot.system.dto.MonitoringResponse;
+import com.iot.system.event.MonitoringChangedEvent;
 import com.iot.system.exception.ResourceNotFoundException;
 import com.iot.system.exception.SuccessResponse;
 import com.iot.system.exception.UnauthorizedException;
+import com.iot.system.filter.MonitoringFilters;
 import com.iot.system.model.Device;
 import com.iot.system.model.Monitoring;
 import com.iot.system.model.MonitoringStatus;
@@ -16,7 +21,9 @@ import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -35,11 +42,18 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class MonitoringService {
     private static final Logger logger = LoggerFactory.getLogger(MonitoringService.class);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MM/dd/yyyy");
 
 
     private final MonitoringRepository monitoringRepository;
     private final DevicesRepository devicesRepository;
     private final UserService userService;
+    private final TelemetryService telemetryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MonitoringFilters monitoringFilters;
+    private final PageQueryCache pageQueryCache;
+    // Concurrent lookups of the same monitoring share one load; authorization is checked per caller
+    private final SingleFlight<String, Monitoring> monitoringLoads = new SingleFlight<>();
 
     public List<Monitoring> getAllMonitorings() {
         final User currentUser = userService.getCurrentUser();
@@ -99,7 +113,10 @@ public class MonitoringService {
             }
         }
 
-        return monitoringRepository.saveAll(monitoringToAdd);
+        final List<Monitoring> saved = monitoringRepository.saveAll(monitoringToAdd);
+        saved.forEach(monitoring -> eventPublisher.publishEvent(
+                new MonitoringChangedEvent(monitoring.getId(), null, MonitoringChangedEvent.Snapshot.of(monitoring))));
+        return saved;
     }
 
 
@@ -117,8 +134,9 @@ public class MonitoringService {
 
 
     public Monitoring getMonitoringByCode(final String monitoringCode) {
-        final Monitoring monitoring = monitoringRepository.findByMonitoringCode(monitoringCode)
-                .orElseThrow(() -> new ResourceNotFoundException("Monitoring not found"));
+        final Monitoring monitoring = monitoringLoads.load(monitoringCode, () -> SharedEntities.initialize(
+                monitoringRepository.findByMonitoringCode(monitoringCode)
+                        .orElseThrow(() -> new ResourceNotFoundException("Monitoring not found"))));
         final User currentUser = userService.getCurrentUser();
         if (!monitoring.getCreatedBy().getId().equals(currentUser.getId()) && !currentUser.getRole().name().equals("ADMIN")) {
             throw new UnauthorizedException("User not authorized to view this monitoring");
@@ -128,15 +146,50 @@ public class MonitoringService {
 
     public MonitoringResponse getAllMonitoring(final int pageNo, final int pageSize, final String sortBy, final String sortDir,
                                                final MonitoringStatus monitoringStatus, final String deviceCode, final String monitoringCode,
-                                               final String userName, final String deviceName, final String createdAt, final String updatedAt) {
+                                               final String userName, final String deviceName, final String createdAt, final String updatedAt,
+                                               final String filter) {
         final Pageable pageable = PageRequest.of(pageNo, pageSize,
                 sortDir.equalsIgnoreCase(Sort.Direction.ASC.name()) ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending());
 
         final User currentUser = userService.getCurrentUser();
+        final Long userId = currentUser.getRole().name().equals("ADMIN") ? null : currentUser.getId();
+        final boolean filtered = filter != null && !filter.isBlank();
 
         final LocalDateTime[] createdAtRange = parseDateRange(createdAt);
         final LocalDateTime[] updatedAtRange = parseDateRange(updatedAt);
 
+        final PageQueryCache.Key key = pageQueryCache.key(PageQueryCache.Listing.MONITORINGS, userId, pageNo, pageSize,
+                pageable.getSort(), monitoringStatus, deviceCode, monitoringCode, userName, deviceName,
+                createdAtRange[0], createdAtRange[1], updatedAtRange[0], updatedAtRange[1],
+                filtered ? monitoringFilters.normalize(filter) : null);
+        final PageQueryCache.CachedPage cached = pageQueryCache.get(key);
+        final Page<Monitoring> monitorings;
+        if (cached != null) {
+            final List<Monitoring> content = PageQueryCache.inIdOrder(cached.ids(),
+                    monitoringRepository.findAllById(cached.ids()), Monitoring::getId);
+            monitorings = new PageImpl<>(content, pageable, cached.totalElements());
+        } else {
+            monitorings = findMonitorings(pageable, userId, monitoringStatus, deviceCode, monitoringCode, userName,
+                    deviceName, createdAtRange, updatedAtRange, filtered ? filter : null);
+            pageQueryCache.put(key, monitorings.getContent().stream().map(Monitoring::getId).toList(),
+                    monitorings.getTotalElements());
+        }
+        final List<Monitoring> content = monitorings.getContent();
+
+        return MonitoringResponse.builder()
+                .content(content)
+                .pageNo(monitorings.getNumber())
+                .pageSize(monitorings.getSize())
+                .totalElements(monitorings.getTotalElements())
+                .totalPages(monitorings.getTotalPages())
+                .last(monitorings.isLast())
+                .build();
+    }
+
+    private Page<Monitoring> findMonitorings(final Pageable pageable, final Long userId, final MonitoringStatus monitoringStatus,
+                                             final String deviceCode, final String monitoringCode, final String userName,
+                                             final String deviceName, final LocalDateTime[] createdAtRange,
+                                             final LocalDateTime[] updatedAtRange, final String filter) {
         Specification<Monitoring> spec = Specification.where(MonitoringSpecification.hasMonitoringStatus(monitoringStatus))
                 .and(MonitoringSpecification.hasDeviceCode(deviceCode))
                 .and(MonitoringSpecification.hasMonitoringCode(monitoringCode))
@@ -146,27 +199,19 @@ public class MonitoringService {
                 .and(MonitoringSpecification.createdAtBefore(createdAtRange[1]))
                 .and(MonitoringSpecification.updatedAtAfter(updatedAtRange[0]))
                 .and(MonitoringSpecification.updatedAtBefore(updatedAtRange[1]));
-
-        if (!currentUser.getRole().name().equals("ADMIN")) {
-            spec = spec.and(MonitoringSpecification.hasUserId(currentUser.getId()));
+        if (filter != null) {
+            spec = spec.and(monitoringFilters.compile(filter));
         }
 
-        final Page<Monitoring> monitorings = monitoringRepository.findAll(spec, pageable);
-        final List<Monitoring> content = monitorings.getContent();
+        if (userId != null) {
+            spec = spec.and(MonitoringSpecification.hasUserId(userId));
+        }
 
-        return MonitoringResponse.builder()
-                .content(content)
-                .pageNo(monitorings.getNumber())
-                .pageSize(monitorings.getSize())
-                .totalElements(monitorings.getTotalElements())
-                .totalPages(monitorings.getTotalPages())
-                .last(monitorings.isLast())
-                .build();
+        return monitoringRepository.findAll(spec, pageable);
     }
 
 
     private LocalDateTime[] parseDateRange(final String dateRange) {
-        final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
         LocalDateTime start = null;
         LocalDateTime end = null;
 
@@ -174,10 +219,10 @@ public class MonitoringService {
             try {
                 if (dateRange.contains("-")) {
                     final String[] dates = dateRange.split("-");
-                    start = LocalDate.parse(dates[0].trim(), formatter).atStartOfDay();
-                    end = LocalDate.parse(dates[1].trim(), formatter).atTime(23, 59, 59);
+                    start = LocalDate.parse(dates[0].trim(), DATE_FORMATTER).atStartOfDay();
+                    end = LocalDate.parse(dates[1].trim(), DATE_FORMATTER).atTime(23, 59, 59);
                 } else {
-                    start = LocalDate.parse(dateRange.trim(), formatter).atStartOfDay();
+                    start = LocalDate.parse(dateRange.trim(), DATE_FORMATTER).atStartOfDay();
                     end = start.withHour(23).withMinute(59).withSecond(59);
                 }
             } catch (final DateTimeParseException e) {
@@ -202,11 +247,14 @@ public class MonitoringService {
             monitoring.setDevice(device);
         }
 
+        final MonitoringChangedEvent.Snapshot before = MonitoringChangedEvent.Snapshot.of(monitoring);
         monitoring.setMonitoringStatus(monitoringRequest.getMonitoringStatus());
         monitoring.setDescription(monitoringRequest.getDescription());
         monitoring.setUpdatedAt(LocalDateTime.now());
 
-        return monitoringRepository.save(monitoring);
+        final Monitoring saved = monitoringRepository.save(monitoring);
+        eventPublisher.publishEvent(new MonitoringChangedEvent(saved.getId(), before, MonitoringChangedEvent.Snapshot.of(saved)));
+        return saved;
     }
 
     @Transactional
@@ -224,11 +272,13 @@ public class MonitoringService {
         try {
             monitoringRepository.deleteByMonitoringCode(monitoringCode);
             monitoringRepository.flush();
+            telemetryService.deleteSeries(monitoring);
 
             boolean exists = monitoringRepository.existsByMonitoringCode(monitoringCode);
             if (exists) {
                 throw new RuntimeException("Failed to delete Monitoring with code: " + monitoringCode);
             }
+            eventPublisher.publishEvent(new MonitoringChangedEvent(monitoring.getId(), MonitoringChangedEvent.Snapshot.of(monitoring), null));
             return new SuccessResponse(200, "Monitoring was successfully deleted.");
         } catch (Exception e) {
             throw new RuntimeException("Failed to delete Monitoring with code: " + monitoringCode, e);
@@ -0,0 +1,82 @@
+package com.iot.system.service;
+
+import com.iot.system.dto.RetentionPolicyRequest;
+import com.iot.system.exception.ResourceNotFoundException;
+import com.iot.system.exception.UnauthorizedException;
+import com.iot.system.model.Monitoring;
+import com.iot.system.model.RetentionPolicy;
+import com.iot.system.repository.MonitoringRepository;
+import com.iot.system.repository.RetentionPolicyRepository;
+import com.iot.system.telemetry.RetentionPolicyResolver;
+import com.iot.system.user.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+public class RetentionPolicyService {
+
+    private final RetentionPolicyRepository retentionPolicyRepository;
+    private final RetentionPolicyResolver retentionPolicyResolver;
+    private final MonitoringRepository monitoringRepository;
+    private final UserService userService;
+
+    public RetentionPolicy getEffectivePolicy(final String monitoringCode) {
+        final Monitoring monitoring = findAuthorizedMonitoring(monitoringCode, "view");
+        return retentionPolicyResolver.resolve(monitoring.getId(), monitoring.getDevice().getIndustryType());
+    }
+
+    public RetentionPolicy updateMonitoringPolicy(final String monitoringCode, final RetentionPolicyRequest request) {
+        final Monitoring monitoring = findAuthorizedMonitoring(monitoringCode, "update");
+        final RetentionPolicy policy = retentionPolicyRepository.findByMonitoringId(monitoring.getId())
+                .orElseGet(() -> {
+                    final RetentionPolicy newPolicy = new RetentionPolicy();
+                    newPolicy.setMonitoringId(monitoring.getId());
+                    return newPolicy;
+                });
+        apply(policy, request);
+        return retentionPolicyRepository.save(policy);
+    }
+
+    public RetentionPolicy updateIndustryPolicy(final String industryType, final RetentionPolicyRequest request) {
+        final User currentUser = userService.getCurrentUser();
+        if (!currentUser.getRole().name().equals("ADMIN")) {
+            throw new UnauthorizedException("User not authorized to update retention of industry type " + industryType);
+        }
+        final RetentionPolicy policy = retentionPolicyRepository.findByIndustryType(industryType)
+                .orElseGet(() -> {
+                    final RetentionPolicy newPolicy = new RetentionPolicy();
+                    newPolicy.setIndustryType(industryType);
+                    return newPolicy;
+                });
+        apply(policy, request);
+        return retentionPolicyRepository.save(policy);
+    }
+
+    private Monitoring findAuthorizedMonitoring(final String monitoringCode, final String action) {
+        final Monitoring monitoring = monitoringRepository.findByMonitoringCode(monitoringCode)
+                .orElseThrow(() -> new ResourceNotFoundException("Monitoring not found"));
+        final User currentUser = userService.getCurrentUser();
+        if (!monitoring.getCreatedBy().getId().equals(currentUser.getId()) && !currentUser.getRole().name().equals("ADMIN")) {
+            throw new UnauthorizedException("User not authorized to " + action + " retention of this monitoring");
+        }
+        return monitoring;
+    }
+
+    private void apply(final RetentionPolicy policy, final RetentionPolicyRequest request) {
+        validate(request.getRawDays());
+        validate(request.getMinuteDays());
+        validate(request.getHourDays());
+        validate(request.getDayDays());
+        policy.setRawDays(request.getRawDays());
+        policy.setMinuteDays(request.getMinuteDays());
+        policy.setHourDays(request.getHourDays());
+        policy.setDayDays(request.getDayDays());
+    }
+
+    private void validate(final Integer days) {
+        if (days != null && days < 0) {
+            throw new IllegalArgumentException("Retention days must be zero (keep forever) or positive");
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package com.iot.system.service;
+
+import com.iot.system.dto.AggregationResponse;
+import com.iot.system.dto.PercentileResponse;
+import com.iot.system.dto.ReadingRequest;
+import com.iot.system.event.MonitoringChangedEvent;
+import com.iot.system.event.TelemetrySeriesDeletedEvent;
+import com.iot.system.exception.ResourceNotFoundException;
+import com.iot.system.exception.ServiceUnavailableException;
+import com.iot.system.exception.SuccessResponse;
+import com.iot.system.exception.UnauthorizedException;
+import com.iot.system.model.Anomaly;
+import com.iot.system.model.Monitoring;
+import com.iot.system.repository.AlertRepository;
+import com.iot.system.repository.AlertRuleRepository;
+import com.iot.system.repository.AnomalyRepository;
+import com.iot.system.repository.MonitoringRepository;
+import com.iot.system.repository.RetentionPolicyRepository;
+import com.iot.system.telemetry.AlertEngine;
+import com.iot.system.telemetry.AnomalyEngine;
+import com.iot.system.telemetry.BinaryReadingDecoder;
+import com.iot.system.telemetry.BucketAggregates;
+import com.iot.system.telemetry.BucketSketches;
+import com.iot.system.telemetry.ChunkStore;
+import com.iot.system.telemetry.MetricDictionary;
+import com.iot.system.telemetry.MonitoredSeries;
+import com.iot.system.telemetry.ReadingColumns;
+import com.iot.system.telemetry.RollupStore;
+import com.iot.system.telemetry.TelemetryIngestionPipeline;
+import com.iot.system.telemetry.TelemetryQueryEngine;
+import com.iot.system.telemetry.TelemetrySeriesRegistry;
+import com.iot.system.user.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class TelemetryService {
+
+    private final TelemetrySeriesRegistry seriesRegistry;
+    private final TelemetryIngestionPipeline ingestionPipeline;
+    private final ChunkStore chunkStore;
+    private final RollupStore rollupStore;
+    private final MetricDictionary metricDictionary;
+    private final TelemetryQueryEngine queryEngine;
+    private final MonitoringRepository monitoringRepository;
+    private final RetentionPolicyRepository retentionPolicyRepository;
+    private final AlertRuleRepository alertRuleRepository;
+    private final AlertRepository alertRepository;
+    private final AlertEngine alertEngine;
+    private final AnomalyRepository anomalyRepository;
+    private final AnomalyEngine anomalyEngine;
+    private final UserService userService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public SuccessResponse ingestReadings(final String monitoringCode, final List<ReadingRequest> readings) {
+        final MonitoredSeries series = resolveAuthorizedSeries(monitoringCode);
+        return new SuccessResponse(202, ingestReadings(series, readings) + " readings accepted.");
+    }
+
+    /**
+     * Appends readings to the series' ingestion pipeline and returns the number accepted. Callers
+     * are responsible for authorizing the sender.
+     */
+    public int ingestReadings(final MonitoredSeries series, final List<ReadingRequest> readings) {
+        int total = 0;
+        for (final ReadingRequest reading : readings) {
+            validateReading(reading);
+            total += reading.getTimestamps().length;
+        }
+        if (total > series.getBuffer().capacity()) {
+            throw new IllegalArgumentException("Batch of " + total + " readings exceeds the maximum of "
+                    + series.getBuffer().capacity() + " readings per request");
+        }
+
+        final int[] metricIds = new int[total];
+        final long[] timestamps = new long[total];
+        final double[] values = new double[total];
+        int offset = 0;
+        for (final ReadingRequest reading : readings) {
+            final int length = reading.getTimestamps().length;
+            Arrays.fill(metricIds, offset, offset + length, admitMetric(series, reading.getMetric()));
+            System.arraycopy(reading.getTimestamps(), 0, timestamps, offset, length);
+            System.arraycopy(reading.getValues(), 0, values, offset, length);
+            offset += length;
+        }
+
+        if (!ingestionPipeline.append(series, metricIds, timestamps, values, 0, total)) {
+            throw new ServiceUnavailableException("Ingestion buffer for monitoring " + series.getMonitoringCode() + " is full");
+        }
+        return total;
+    }
+
+    public SuccessResponse ingestBinaryReadings(final String monitoringCode, final ByteBuffer batch) {
+        final MonitoredSeries series = resolveAuthorizedSeries(monitoringCode);
+        return new SuccessResponse(202, ingestBinary(series, batch) + " readings accepted.");
+    }
+
+    public MonitoredSeries resolveDeviceSeries(final String deviceCode) {
+        return seriesRegistry.resolveByDeviceCode(deviceCode);
+    }
+
+    public boolean isLive(final MonitoredSeries series) {
+        return seriesRegistry.cached(series.getMonitoringId()) == series;
+    }
+
+    /**
+     * Decodes a binary batch into the series' ingestion pipeline and returns the number of readings
+     * accepted. Callers are responsible for authorizing the sender.
+     */
+    public int ingestBinary(final MonitoredSeries series, final ByteBuffer batch) {
+        final ReadingColumns columns = ReadingColumns.forCurrentThread(series.getBuffer().capacity());
+        final int total = BinaryReadingDecoder.decode(batch, columns.metricIds(), columns.timestamps(), columns.values());
+        for (int i = 0; i < total; i++) {
+            if (!metricDictionary.contains(columns.metricIds()[i])) {
+                throw new IllegalArgumentException("Unknown metric id " + columns.metricIds()[i]);
+            }
+            series.admit(columns.metricIds()[i]);
+        }
+        if (!ingestionPipeline.append(series, columns.metricIds(), columns.timestamps(), columns.values(), 0, total)) {
+            throw new ServiceUnavailableException("Ingestion buffer for monitoring " + series.getMonitoringCode() + " is full");
+        }
+        return total;
+    }
+
+    private int admitMetric(final MonitoredSeries series, final String name) {
+        Integer metricId = metricDictionary.idOf(name);
+        if (metricId == null) {
+            // A full series must not create a metric it would reject anyway
+            series.checkRoomForMetric();
+            metricId = metricDictionary.resolve(name);
+        }
+        series.admit(metricId);
+        return metricId;
+    }
+
+    public Map<String, Integer> registerMetrics(final List<String> names) {
+        final Map<String, Integer> ids = new LinkedHashMap<>();
+        for (final String name : names) {
+            ids.put(name, metricDictionary.resolve(name));
+        }
+        return ids;
+    }
+
+    public Map<String, Integer> getMetrics() {
+        return metricDictionary.snapshot();
+    }
+
+    public AggregationResponse aggregate(final String monitoringCode, final String metric, final long from,
+                                         final long to, final String step) {
+        final MonitoredSeries series = seriesRegistry.resolve(monitoringCode);
+        if (!series.isAccessibleBy(userService.getAuthenticatedUser())) {
+            throw new UnauthorizedException("User not authorized to view readings of this monitoring");
+        }
+        return aggregate(new long[]{series.getMonitoringId()}, metric, from, to, step);
+    }
+
+    public AggregationResponse aggregateFleet(final String industryType, final String metric, final long from,
+                                              final long to, final String step) {
+        return aggregate(accessibleMonitoringIds(industryType), metric, from, to, step);
+    }
+
+    public PercentileResponse percentiles(final String monitoringCode, final String metric, final long from,
+                                          final long to, final String step, final String quantiles) {
+        final MonitoredSeries series = seriesRegistry.resolve(monitoringCode);
+        if (!series.isAccessibleBy(userService.getAuthenticatedUser())) {
+            throw new UnauthorizedException("User not authorized to view readings of this monitoring");
+        }
+        return percentiles(new long[]{series.getMonitoringId()}, metric, from, to, step, quantiles);
+    }
+
+    public PercentileResponse percentilesFleet(final String industryType, final String metric, final long from,
+                                               final long to, final String step, final String quantiles) {
+        return percentiles(accessibleMonitoringIds(industryType), metric, from, to, step, quantiles);
+    }
+
+    public List<Anomaly> getAnomalies(final String monitoringCode, final String metric, final long from, final long to) {
+        final MonitoredSeries series = seriesRegistry.resolve(monitoringCode);
+        if (!series.isAccessibleBy(userService.getAuthenticatedUser())) {
+            throw new UnauthorizedException("User not authorized to view readings of this monitoring");
+        }
+        if (from >= to) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        return anomalyRepository.findOverlapping(series.getMonitoringId(), metric, from, to);
+    }
+
+    /**
+     * Deletes the stored telemetry of a monitoring in the caller's transaction. The in-memory
+     * series is dropped once the deletion commits, so a rolled back delete keeps ingesting.
+     */
+    public void deleteSeries(final Monitoring monitoring) {
+        chunkStore.deleteSeries(monitoring.getId());
+        rollupStore.deleteSeries(monitoring.getId());
+        retentionPolicyRepository.deleteByMonitoringId(monitoring.getId());
+        alertRuleRepository.deleteByMonitoringId(monitoring.getId());
+        alertRepository.deleteByMonitoringId(monitoring.getId());
+        anomalyRepository.deleteByMonitoringId(monitoring.getId());
+        eventPublisher.publishEvent(new TelemetrySeriesDeletedEvent(monitoring.getId(), monitoring.getMonitoringCode()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMonitoringChanged(final MonitoringChangedEvent event) {
+        if (event.after() != null) {
+            seriesRegistry.refresh(event.monitoringId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSeriesDeleted(final TelemetrySeriesDeletedEvent event) {
+        seriesRegistry.evict(event.monitoringCode());
+        chunkStore.evictSeries(event.monitoringId());
+        rollupStore.evictSeries(event.monitoringId());
+        alertEngine.deleteSeries(event.monitoringId());
+        anomalyEngine.deleteSeries(event.monitoringId());
+    }
+
+    private MonitoredSeries resolveAuthorizedSeries(final String monitoringCode) {
+        final MonitoredSeries series = seriesRegistry.resolve(monitoringCode);
+        final User currentUser = userService.getAuthenticatedUser();
+        if (!series.isAccessibleBy(currentUser)) {
+            throw new UnauthorizedException("User not authorized to send readings to this monitoring");
+        }
+        return series;
+    }
+
+    private long[] accessibleMonitoringIds(final String industryType) {
+        final User currentUser = userService.getAuthenticatedUser();
+        final List<Long> monitoringIds = currentUser.getRole().name().equals("ADMIN")
+                ? monitoringRepository.findIdsByIndustryType(industryType)
+                : monitoringRepository.findAccessibleIdsByIndustryType(industryType, currentUser.getId());
+        return monitoringIds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private AggregationResponse aggregate(final long[] monitoringIds, final String metric, final long from,
+                                          final long to, final String step) {
+        final Integer metricId = metricDictionary.idOf(metric);
+        if (metricId == null) {
+            throw new ResourceNotFoundException("Metric " + metric + " not found");
+        }
+        final long stepMs = parseStep(step);
+        final BucketAggregates aggregates = queryEngine.aggregate(monitoringIds, metricId, from, to, stepMs);
+
+        int filled = 0;
+        for (int bucket = 0; bucket < aggregates.bucketCount(); bucket++) {
+            if (aggregates.count(bucket) > 0) {
+                filled++;
+            }
+        }
+        final long[] timestamps = new long[filled];
+        final double[] min = new double[filled];
+        final double[] max = new double[filled];
+        final double[] avg = new double[filled];
+        final double[] sum = new double[filled];
+        final long[] count = new long[filled];
+        final double[] last = new double[filled];
+        int index = 0;
+        for (int bucket = 0; bucket < aggregates.bucketCount(); bucket++) {
+            if (aggregates.count(bucket) == 0) {
+                continue;
+            }
+            timestamps[index] = aggregates.bucketStart(bucket);
+            min[index] = aggregates.min(bucket);
+            max[index] = aggregates.max(bucket);
+            sum[index] = aggregates.sum(bucket);
+            count[index] = aggregates.count(bucket);
+            avg[index] = sum[index] / count[index];
+            last[index] = aggregates.last(bucket);
+            index++;
+        }
+
+        return AggregationResponse.builder()
+                .metric(metric)
+                .from(from)
+                .to(to)
+                .step(stepMs)
+                .series(monitoringIds.length)
+                .timestamps(timestamps)
+                .min(min)
+                .max(max)
+                .avg(avg)
+                .sum(sum)
+                .count(count)
+                .last(last)
+                .build();
+    }
+
+    private PercentileResponse percentiles(final long[] monitoringIds, final String metric, final long from,
+                                           final long to, final String step, final String quantiles) {
+        final double[] qs = parseQuantiles(quantiles);
+        final Integer metricId = metricDictionary.idOf(metric);
+        if (metricId == null) {
+            throw new ResourceNotFoundException("Metric " + metric + " not found");
+        }
+        final long stepMs = parseStep(step);
+        final BucketSketches sketches = queryEngine.percentiles(monitoringIds, metricId, from, to, stepMs);
+
+        int filled = 0;
+        for (int bucket = 0; bucket < sketches.bucketCount(); bucket++) {
+            if (sketches.count(bucket) > 0) {
+                filled++;
+            }
+        }
+        final long[] timestamps = new long[filled];
+        final long[] count = new long[filled];
+        final double[][] values = new double[qs.length][filled];
+        int index = 0;
+        for (int bucket = 0; bucket < sketches.bucketCount(); bucket++) {
+            if (sketches.count(bucket) == 0) {
+                continue;
+            }
+            timestamps[index] = sketches.bucketStart(bucket);
+            count[index] = sketches.count(bucket);
+            for (int q = 0; q < qs.length; q++) {
+                values[q][index] = sketches.quantile(bucket, qs[q]);
+            }
+            index++;
+        }
+        final Map<String, double[]> percentiles = new LinkedHashMap<>();
+        for (int q = 0; q < qs.length; q++) {
+            percentiles.put("p" + BigDecimal.valueOf(qs[q] * 100).stripTrailingZeros().toPlainString(), values[q]);
+        }
+
+        return PercentileResponse.builder()
+                .metric(metric)
+                .from(from)
+                .to(to)
+                .step(stepMs)
+                .series(monitoringIds.length)
+                .timestamps(timestamps)
+                .count(count)
+                .percentiles(percentiles)
+                .build();
+    }
+
+    private double[] parseQuantiles(final String quantiles) {
+        if (quantiles == null || quantiles.isBlank()) {
+            throw new IllegalArgumentException("At least one quantile is required");
+        }
+        try {
+            final double[] parsed = Arrays.stream(quantiles.split(",")).map(String::trim).mapToDouble(Double::parseDouble).toArray();
+            for (final double q : parsed) {
+                if (!(q >= 0 && q <= 1)) {
+                    throw new NumberFormatException(quantiles);
+                }
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid quantiles " + quantiles + ", use values between 0 and 1 such as 0.5,0.95,0.99");
+        }
+    }
+
+    private long parseStep(final String step) {
+        if (step == null || step.isBlank()) {
+            throw new IllegalArgumentException("Step is required");
+        }
+        final String value = step.trim().toLowerCase(Locale.ROOT);
+        try {
+            if (value.startsWith("p")) {
+                return Duration.parse(step.trim()).toMillis();
+            }
+            if (value.endsWith("ms")) {
+                return Long.parseLong(value.substring(0, value.length() - 2));
+            }
+            final char unit = value.charAt(value.length() - 1);
+            if (Character.isDigit(unit)) {
+                return Long.parseLong(value);
+            }
+            final long amount = Long.parseLong(value.substring(0, value.length() - 1));
+            return switch (unit) {
+                case 's' -> Duration.ofSeconds(amount).toMillis();
+                case 'm' -> Duration.ofMinutes(amount).toMillis();
+                case 'h' -> Duration.ofHours(amount).toMillis();
+                case 'd' -> Duration.ofDays(amount).toMillis();
+                default -> throw new NumberFormatException(step);
+            };
+        } catch (NumberFormatException | DateTimeParseException | ArithmeticException e) {
+            throw new IllegalArgumentException("Invalid step " + step + ", use e.g. 500ms, 30s, 5m, 1h, 1d or PT15M");
+        }
+    }
+
+    private void validateReading(final ReadingRequest reading) {
+        if (reading.getMetric() == null || reading.getMetric().isBlank()) {
+            throw new IllegalArgumentException("Readings must name a metric");
+        }
+        if (reading.getTimestamps() == null || reading.getValues() == null) {
+            throw new IllegalArgumentException("Readings must contain timestamps and values");
+        }
+        if (reading.getTimestamps().length != reading.getValues().length) {
+            throw new IllegalArgumentException("Timestamps and values of metric " + reading.getMetric() + " must have the same length");
+        }
+    }
+}
@@ -10,6 +10,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -20,6 +22,8 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class UserService {
 
+    private static final String CURRENT_USER_ATTRIBUTE = UserService.class.getName() + ".currentUser.";
+
     private final UserRepository userRepository;
 
     public List<UserDTO> searchUsers(String searchTerm) {
@@ -40,10 +44,29 @@ public class UserService {
             usernameOrEmail = userDetails.getUsername();
         }
 
+        // Looked up once per request, however many service calls the request makes
+        final RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        final String attribute = CURRENT_USER_ATTRIBUTE + usernameOrEmail;
+        if (request != null && request.getAttribute(attribute, RequestAttributes.SCOPE_REQUEST) instanceof User cached) {
+            return cached;
+        }
+
         final String finalUsernameOrEmail = usernameOrEmail;
-        return userRepository.findByUsername(finalUsernameOrEmail)
+        final User user = userRepository.findByUsername(finalUsernameOrEmail)
                 .or(() -> userRepository.findByEmail(finalUsernameOrEmail))
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        if (request != null) {
+            request.setAttribute(attribute, user, RequestAttributes.SCOPE_REQUEST);
+        }
+        return user;
+    }
+
+    public User getAuthenticatedUser() {
+        final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User user) {
+            return user;
+        }
+        return getCurrentUser();
     }
 
     public Optional<User> findByEmail(@NonNull String email) {
@@ -0,0 +1,204 @@
+package com.iot.system.stats;
+
+import com.iot.system.dto.FleetStatsResponse;
+import com.iot.system.event.DeviceChangedEvent;
+import com.iot.system.event.DeviceStatusChangedEvent;
+import com.iot.system.event.MonitoringChangedEvent;
+import com.iot.system.repository.DevicesRepository;
+import com.iot.system.repository.MonitoringRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fleet-wide device and monitoring counts per status, industry type and manufacturer. The write
+ * paths publish what they changed and the counters are adjusted after commit, so reading them
+ * costs no query. Device statuses are counted from {@link DeviceStatusChangedEvent}, which also
+ * covers heartbeat transitions; {@link DeviceChangedEvent} adjusts the other dimensions and drops
+ * the status of a deleted device. The counters are rebuilt from the database every reconcile
+ * interval, which bounds any drift from changes made outside the services.
+ */
+@Component
+public class FleetStatistics {
+
+    private static final Logger logger = LoggerFactory.getLogger(FleetStatistics.class);
+
+    private final DevicesRepository devicesRepository;
+    private final MonitoringRepository monitoringRepository;
+    private final long reconcileIntervalMs;
+
+    private volatile Counters counters = new Counters(null);
+
+    private final ScheduledExecutorService reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "fleet-statistics");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public FleetStatistics(final DevicesRepository devicesRepository, final MonitoringRepository monitoringRepository,
+                           @Value("${stats.reconcile-interval-ms}") final long reconcileIntervalMs) {
+        this.devicesRepository = devicesRepository;
+        this.monitoringRepository = monitoringRepository;
+        this.reconcileIntervalMs = reconcileIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        reconciler.scheduleWithFixedDelay(this::reconcileSafely, 0, reconcileIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        reconciler.shutdown();
+        reconciler.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceChanged(final DeviceChangedEvent event) {
+        final Counters current = counters;
+        if (event.before() != null) {
+            current.devices.decrement();
+            add(current.devicesByIndustryType, event.before().industryType(), -1);
+            add(current.devicesByManufacturer, event.before().manufacturer(), -1);
+            if (event.after() == null) {
+                add(current.devicesByStatus, event.before().status(), -1);
+            }
+        }
+        if (event.after() != null) {
+            current.devices.increment();
+            add(current.devicesByIndustryType, event.after().industryType(), 1);
+            add(current.devicesByManufacturer, event.after().manufacturer(), 1);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceStatusChanged(final DeviceStatusChangedEvent event) {
+        final Counters current = counters;
+        add(current.devicesByStatus, event.previousStatus(), -1);
+        add(current.devicesByStatus, event.status(), 1);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMonitoringChanged(final MonitoringChangedEvent event) {
+        final Counters current = counters;
+        if (event.before() != null) {
+            current.monitorings.decrement();
+            add(current.monitoringsByStatus, event.before().status(), -1);
+        }
+        if (event.after() != null) {
+            current.monitorings.increment();
+            add(current.monitoringsByStatus, event.after().status(), 1);
+        }
+    }
+
+    /**
+     * Fleet-wide counts as maintained by the write paths.
+     */
+    public FleetStatsResponse fleet() {
+        return toResponse(counters);
+    }
+
+    /**
+     * Counts of the devices and monitorings a user can access, read from the database.
+     */
+    public FleetStatsResponse forUser(final Long userId) {
+        return toResponse(count(userId));
+    }
+
+    private void reconcileSafely() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            logger.error("Fleet statistics reconciliation failed", e);
+        }
+    }
+
+    void reconcile() {
+        final Counters fresh = count(null);
+        final Counters previous = counters;
+        counters = fresh;
+        if (previous.countedAt != null && previous.devices.sum() != fresh.devices.sum()) {
+            logger.info("Fleet statistics drifted by {} devices since {}", previous.devices.sum() - fresh.devices.sum(),
+                    previous.countedAt);
+        }
+    }
+
+    private Counters count(final Long userId) {
+        final Counters counted = new Counters(LocalDateTime.now());
+        for (final Object[] row : devicesRepository.countByDeviceStatus(userId)) {
+            counted.devices.add((Long) row[1]);
+            add(counted.devicesByStatus, row[0], (Long) row[1]);
+        }
+        load(counted.devicesByIndustryType, devicesRepository.countByIndustryType(userId));
+        load(counted.devicesByManufacturer, devicesRepository.countByManufacturer(userId));
+        for (final Object[] row : monitoringRepository.countByMonitoringStatus(userId)) {
+            counted.monitorings.add((Long) row[1]);
+            add(counted.monitoringsByStatus, row[0], (Long) row[1]);
+        }
+        return counted;
+    }
+
+    private static void load(final Map<String, LongAdder> counter, final List<Object[]> rows) {
+        for (final Object[] row : rows) {
+            add(counter, row[0], (Long) row[1]);
+        }
+    }
+
+    private static void add(final Map<String, LongAdder> counter, final Object key, final long delta) {
+        if (key != null) {
+            counter.computeIfAbsent(key.toString(), k -> new LongAdder()).add(delta);
+        }
+    }
+
+    private static FleetStatsResponse toResponse(final Counters counters) {
+        return FleetStatsResponse.builder()
+                .devices(counters.devices.sum())
+                .devicesByStatus(snapshot(counters.devicesByStatus))
+                .devicesByIndustryType(snapshot(counters.devicesByIndustryType))
+                .devicesByManufacturer(snapshot(counters.devicesByManufacturer))
+                .monitorings(counters.monitorings.sum())
+                .monitoringsByStatus(snapshot(counters.monitoringsByStatus))
+                .countedAt(counters.countedAt)
+                .build();
+    }
+
+    private static Map<String, Long> snapshot(final Map<String, LongAdder> counter) {
+        final Map<String, Long> snapshot = new TreeMap<>();
+        counter.forEach((key, adder) -> {
+            final long count = adder.sum();
+            if (count > 0) {
+                snapshot.put(key, count);
+            }
+        });
+        return snapshot;
+    }
+
+    private static final class Counters {
+        private final LongAdder devices = new LongAdder();
+        private final Map<String, LongAdder> devicesByStatus = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> devicesByIndustryType = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> devicesByManufacturer = new ConcurrentHashMap<>();
+        private final LongAdder monitorings = new LongAdder();
+        private final Map<String, LongAdder> monitoringsByStatus = new ConcurrentHashMap<>();
+        // When the database was last counted; the counters have been adjusted by events since
+        private final LocalDateTime countedAt;
+
+        private Counters(final LocalDateTime countedAt) {
+            this.countedAt = countedAt;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.iot.system.telemetry;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Aggregates chunk slices into time buckets, splitting in halves until a run of slices is small
+ * enough to scan on one worker. Chunks that fall inside a single bucket contribute their stored
+ * summary without being decoded.
+ */
+public class AggregationTask extends RecursiveTask<BucketAggregates> {
+
+    private static final int LEAF_SAMPLES = 16_384;
+
+    private final ChunkSlice[] slices;
+    private final int low;
+    private final int high;
+    private final long origin;
+    private final long step;
+    private final int bucketCount;
+
+    public AggregationTask(final ChunkSlice[] slices, final long origin, final long step, final int bucketCount) {
+        this(slices, 0, slices.length, origin, step, bucketCount);
+    }
+
+    private AggregationTask(final ChunkSlice[] slices, final int low, final int high, final long origin,
+                            final long step, final int bucketCount) {
+        this.slices = slices;
+        this.low = low;
+        this.high = high;
+        this.origin = origin;
+        this.step = step;
+        this.bucketCount = bucketCount;
+    }
+
+    @Override
+    protected BucketAggregates compute() {
+        if (high - low > 1 && samples() > LEAF_SAMPLES) {
+            final int middle = (low + high) >>> 1;
+            final AggregationTask left = new AggregationTask(slices, low, middle, origin, step, bucketCount);
+            final AggregationTask right = new AggregationTask(slices, middle, high, origin, step, bucketCount);
+            left.fork();
+            final BucketAggregates rightResult = right.compute();
+            return left.join().merge(rightResult);
+        }
+        final BucketAggregates result = new BucketAggregates(origin, step, bucketCount);
+        for (int i = low; i < high; i++) {
+            aggregate(slices[i], result);
+        }
+        return result;
+    }
+
+    private long samples() {
+        long samples = 0;
+        for (int i = low; i < high; i++) {
+            samples += slices[i].chunk().getCount();
+        }
+        return samples;
+    }
+
+    private void aggregate(final ChunkSlice slice, final BucketAggregates result) {
+        final Chunk chunk = slice.chunk();
+        final long from = slice.from();
+        final long to = slice.to();
+        final int firstBucket = result.bucketOf(chunk.getStartTimestamp());
+        if (chunk.getStartTimestamp() >= from && chunk.getEndTimestamp() < to
+                && firstBucket == result.bucketOf(chunk.getEndTimestamp())) {
+            result.add(firstBucket, chunk.getCount(), chunk.getMin(), chunk.getMax(), chunk.getSum(),
+                    chunk.getEndTimestamp(), chunk.getLastValue());
+            return;
+        }
+        final GorillaDecoder decoder = chunk.decoder();
+        while (decoder.next()) {
+            final long timestamp = decoder.timestamp();
+            if (timestamp >= to) {
+                break;
+            }
+            if (timestamp >= from) {
+                result.add(result.bucketOf(timestamp), timestamp, decoder.value());
+            }
+        }
+    }
+}
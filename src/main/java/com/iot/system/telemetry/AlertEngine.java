@@ -0,0 +1,207 @@
+package com.iot.system.telemetry;
+
+import com.iot.system.model.Alert;
+import com.iot.system.model.AlertRule;
+import com.iot.system.model.AlertStatus;
+import com.iot.system.repository.AlertRepository;
+import com.iot.system.repository.AlertRuleRepository;
+import com.iot.system.repository.MonitoringRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Evaluates alert rules on the flusher thread as readings are drained from the ingestion buffers.
+ * Rules are compiled per series and metric into {@link AlertRuleSet}s the first time a series is
+ * seen after the rules change; alert transitions are persisted in one batch per flush.
+ */
+@Component
+public class AlertEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertEngine.class);
+
+    private final AlertRuleRepository alertRuleRepository;
+    private final AlertRepository alertRepository;
+    private final MonitoringRepository monitoringRepository;
+    private final MetricDictionary metricDictionary;
+
+    private volatile RuleSnapshot rules = new RuleSnapshot(0, Map.of(), Map.of(), Map.of(), Map.of());
+    private final Queue<Long> deletedMonitorings = new ConcurrentLinkedQueue<>();
+
+    // Flusher thread state
+    private final Map<Long, Map<Long, Alert>> activeAlerts = new HashMap<>();
+    private final Set<Alert> pendingAlerts = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final AlertRuleSet.TransitionListener transitions = this::onTransition;
+    private RuleSnapshot evaluating;
+
+    public AlertEngine(final AlertRuleRepository alertRuleRepository, final AlertRepository alertRepository,
+                       final MonitoringRepository monitoringRepository, final MetricDictionary metricDictionary) {
+        this.alertRuleRepository = alertRuleRepository;
+        this.alertRepository = alertRepository;
+        this.monitoringRepository = monitoringRepository;
+        this.metricDictionary = metricDictionary;
+    }
+
+    @PostConstruct
+    public void load() {
+        final List<Alert> alerts = alertRepository.findByStatus(AlertStatus.ACTIVE);
+        for (final Alert alert : alerts) {
+            activeAlerts.computeIfAbsent(alert.getMonitoringId(), id -> new HashMap<>()).put(alert.getRuleId(), alert);
+        }
+        reload();
+        logger.info("Loaded {} alert rules and {} active alerts", rules.byId().size(), alerts.size());
+    }
+
+    /**
+     * Publishes the current rules. Series pick them up on their next reading, keeping the state of
+     * alerts that are already active.
+     */
+    public synchronized void reload() {
+        final Map<Long, AlertRule> byId = new HashMap<>();
+        final Map<Long, List<AlertRule>> byMonitoring = new HashMap<>();
+        final Map<String, List<AlertRule>> byIndustry = new HashMap<>();
+        for (final AlertRule rule : alertRuleRepository.findAll()) {
+            byId.put(rule.getId(), rule);
+            if (rule.getMonitoringId() != null) {
+                byMonitoring.computeIfAbsent(rule.getMonitoringId(), id -> new ArrayList<>()).add(rule);
+            } else if (rule.getIndustryType() != null) {
+                byIndustry.computeIfAbsent(rule.getIndustryType(), type -> new ArrayList<>()).add(rule);
+            }
+        }
+        final Map<Long, String> industryTypes = new HashMap<>();
+        if (!byIndustry.isEmpty()) {
+            for (final Object[] row : monitoringRepository.findIdsWithIndustryType()) {
+                industryTypes.put((Long) row[0], (String) row[1]);
+            }
+        }
+        rules = new RuleSnapshot(rules.generation() + 1, byId, byMonitoring, byIndustry, industryTypes);
+    }
+
+    public void evaluate(final MonitoredSeries series, final int metricId, final long timestamp, final double value) {
+        final RuleSnapshot snapshot = rules;
+        if (!series.hasAlertRules(snapshot.generation())) {
+            compile(series, snapshot);
+        }
+        final AlertRuleSet ruleSet = series.alertRules(metricId);
+        if (ruleSet != null) {
+            evaluating = snapshot;
+            ruleSet.evaluate(timestamp, value, transitions);
+        }
+    }
+
+    /**
+     * Drops the alert state of a deleted monitoring; its rules and alerts are deleted by the caller.
+     */
+    public void deleteSeries(final long monitoringId) {
+        deletedMonitorings.add(monitoringId);
+        reload();
+    }
+
+    public boolean persistPending() {
+        Long deleted;
+        while ((deleted = deletedMonitorings.poll()) != null) {
+            final long monitoringId = deleted;
+            activeAlerts.remove(monitoringId);
+            pendingAlerts.removeIf(alert -> alert.getMonitoringId() == monitoringId);
+        }
+        if (pendingAlerts.isEmpty()) {
+            return true;
+        }
+        final List<Alert> alerts = new ArrayList<>(pendingAlerts);
+        try {
+            alertRepository.saveAll(alerts);
+            pendingAlerts.clear();
+            return true;
+        } catch (Exception e) {
+            logger.error("Failed to persist {} alert transitions, retrying on next flush", alerts.size(), e);
+            return false;
+        }
+    }
+
+    private void compile(final MonitoredSeries series, final RuleSnapshot snapshot) {
+        final long monitoringId = series.getMonitoringId();
+        final List<AlertRule> applicable = new ArrayList<>(snapshot.byMonitoring().getOrDefault(monitoringId, List.of()));
+        if (!snapshot.byIndustry().isEmpty()) {
+            // Monitorings created after the last reload are not in the snapshot yet
+            final String industryType = snapshot.industryTypes().containsKey(monitoringId)
+                    ? snapshot.industryTypes().get(monitoringId)
+                    : monitoringRepository.findIndustryTypeById(monitoringId).orElse(null);
+            if (industryType != null) {
+                applicable.addAll(snapshot.byIndustry().getOrDefault(industryType, List.of()));
+            }
+        }
+
+        // Rules of metrics the series has not seen yet are compiled once it admits them
+        final int slots = series.metricCount();
+        final Map<Integer, List<AlertRule>> bySlot = new HashMap<>();
+        for (final AlertRule rule : applicable) {
+            final Integer metricId = metricDictionary.idOf(rule.getMetric());
+            final int slot = metricId != null ? series.slotOf(metricId) : -1;
+            if (slot >= 0 && slot < slots) {
+                bySlot.computeIfAbsent(slot, s -> new ArrayList<>()).add(rule);
+            }
+        }
+        final Map<Long, Alert> active = activeAlerts.getOrDefault(monitoringId, Map.of());
+        final AlertRuleSet[] ruleSets = new AlertRuleSet[slots];
+        bySlot.forEach((slot, metricRules) ->
+                ruleSets[slot] = new AlertRuleSet(monitoringId, metricRules, active.keySet()));
+        series.setAlertRules(ruleSets, snapshot.generation());
+
+        // Alerts of deleted rules can no longer resolve by themselves
+        final List<Long> orphaned = active.keySet().stream()
+                .filter(ruleId -> applicable.stream().noneMatch(rule -> rule.getId().equals(ruleId)))
+                .toList();
+        for (final Long ruleId : orphaned) {
+            resolve(active.remove(ruleId), System.currentTimeMillis(), null);
+        }
+    }
+
+    private void onTransition(final AlertRuleSet ruleSet, final int rule, final boolean active,
+                              final long timestamp, final double value) {
+        final long monitoringId = ruleSet.monitoringId();
+        final long ruleId = ruleSet.ruleId(rule);
+        if (!active) {
+            final Map<Long, Alert> active = activeAlerts.get(monitoringId);
+            final Alert alert = active != null ? active.remove(ruleId) : null;
+            if (alert != null) {
+                resolve(alert, timestamp, value);
+            }
+            return;
+        }
+        final AlertRule alertRule = evaluating.byId().get(ruleId);
+        final Alert alert = new Alert();
+        alert.setRuleId(ruleId);
+        alert.setMonitoringId(monitoringId);
+        alert.setRuleName(alertRule.getName());
+        alert.setMetric(alertRule.getMetric());
+        alert.setStatus(AlertStatus.ACTIVE);
+        alert.setTriggeredAt(timestamp);
+        alert.setTriggerValue(value);
+        activeAlerts.computeIfAbsent(monitoringId, id -> new HashMap<>()).put(ruleId, alert);
+        pendingAlerts.add(alert);
+        logger.info("Alert {} triggered on monitoring {} with {} = {}", alertRule.getName(), monitoringId,
+                alertRule.getMetric(), value);
+    }
+
+    private void resolve(final Alert alert, final long timestamp, final Double value) {
+        alert.setStatus(AlertStatus.RESOLVED);
+        alert.setResolvedAt(timestamp);
+        alert.setResolveValue(value);
+        pendingAlerts.add(alert);
+    }
+
+    private record RuleSnapshot(long generation, Map<Long, AlertRule> byId, Map<Long, List<AlertRule>> byMonitoring,
+                                Map<String, List<AlertRule>> byIndustry, Map<Long, String> industryTypes) {
+    }
+}
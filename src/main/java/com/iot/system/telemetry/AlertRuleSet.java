@@ -0,0 +1,185 @@
+package com.iot.system.telemetry;
+
+import com.iot.system.model.AlertRule;
+import com.iot.system.model.AlertRuleType;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Alert rules of one metric of one monitoring, compiled into parallel arrays and evaluated as each
+ * reading arrives. After every state change the set recomputes the band of values, rates and times
+ * in which no rule can change state; a reading inside that band is accepted in constant time
+ * however many rules apply, and only a reading leaving it walks the rules. Confined to the flusher
+ * thread.
+ */
+public final class AlertRuleSet {
+
+    @FunctionalInterface
+    public interface TransitionListener {
+
+        void onTransition(AlertRuleSet ruleSet, int rule, boolean active, long timestamp, double value);
+    }
+
+    private static final byte ABOVE = 0;
+    private static final byte BELOW = 1;
+    private static final byte RATE_OF_CHANGE = 2;
+    private static final byte FLATLINE = 3;
+
+    private final long monitoringId;
+    private final long[] ruleIds;
+    private final byte[] types;
+    private final double[] thresholds;
+    private final double[] clearThresholds;
+    private final long[] durations;
+    private final boolean[] active;
+    // Flatline rules: the value the series settled on and when
+    private final double[] anchorValues;
+    private final long[] anchorTimestamps;
+
+    private boolean hasPrevious;
+    private long previousTimestamp;
+    private double previousValue;
+
+    private double quietLow;
+    private double quietHigh;
+    private double quietRateLow;
+    private double quietRateHigh;
+    private long quietUntil;
+
+    public AlertRuleSet(final long monitoringId, final List<AlertRule> rules, final Set<Long> activeRuleIds) {
+        final int size = rules.size();
+        this.monitoringId = monitoringId;
+        this.ruleIds = new long[size];
+        this.types = new byte[size];
+        this.thresholds = new double[size];
+        this.clearThresholds = new double[size];
+        this.durations = new long[size];
+        this.active = new boolean[size];
+        this.anchorValues = new double[size];
+        this.anchorTimestamps = new long[size];
+        for (int i = 0; i < size; i++) {
+            final AlertRule rule = rules.get(i);
+            ruleIds[i] = rule.getId();
+            types[i] = typeOf(rule.getType());
+            thresholds[i] = rule.getThreshold();
+            clearThresholds[i] = rule.getClearThreshold();
+            durations[i] = rule.getDurationMs() != null ? rule.getDurationMs() : 0;
+            active[i] = activeRuleIds.contains(rule.getId());
+            anchorTimestamps[i] = Long.MIN_VALUE;
+        }
+        recomputeQuietBand();
+    }
+
+    public long monitoringId() {
+        return monitoringId;
+    }
+
+    public long ruleId(final int rule) {
+        return ruleIds[rule];
+    }
+
+    public int size() {
+        return ruleIds.length;
+    }
+
+    public void evaluate(final long timestamp, final double value, final TransitionListener listener) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        final boolean rateKnown = hasPrevious && timestamp > previousTimestamp;
+        final double rate = rateKnown ? Math.abs(value - previousValue) * 1000.0 / (timestamp - previousTimestamp) : 0;
+        hasPrevious = true;
+        previousTimestamp = timestamp;
+        previousValue = value;
+
+        if (value >= quietLow && value <= quietHigh && timestamp < quietUntil
+                && (!rateKnown || (rate >= quietRateLow && rate <= quietRateHigh))) {
+            return;
+        }
+
+        for (int i = 0; i < ruleIds.length; i++) {
+            final boolean wasActive = active[i];
+            switch (types[i]) {
+                case ABOVE -> active[i] = wasActive ? value >= clearThresholds[i] : value > thresholds[i];
+                case BELOW -> active[i] = wasActive ? value <= clearThresholds[i] : value < thresholds[i];
+                case RATE_OF_CHANGE -> {
+                    if (rateKnown) {
+                        active[i] = wasActive ? rate >= clearThresholds[i] : rate > thresholds[i];
+                    }
+                }
+                default -> {
+                    if (anchorTimestamps[i] == Long.MIN_VALUE || Math.abs(value - anchorValues[i]) > thresholds[i]) {
+                        anchorValues[i] = value;
+                        anchorTimestamps[i] = timestamp;
+                        active[i] = false;
+                    } else if (!wasActive) {
+                        active[i] = timestamp - anchorTimestamps[i] >= durations[i];
+                    }
+                }
+            }
+            if (active[i] != wasActive) {
+                listener.onTransition(this, i, active[i], timestamp, value);
+            }
+        }
+        recomputeQuietBand();
+    }
+
+    private void recomputeQuietBand() {
+        double low = Double.NEGATIVE_INFINITY;
+        double high = Double.POSITIVE_INFINITY;
+        double rateLow = 0;
+        double rateHigh = Double.POSITIVE_INFINITY;
+        long until = Long.MAX_VALUE;
+        for (int i = 0; i < ruleIds.length; i++) {
+            switch (types[i]) {
+                case ABOVE -> {
+                    if (active[i]) {
+                        low = Math.max(low, clearThresholds[i]);
+                    } else {
+                        high = Math.min(high, thresholds[i]);
+                    }
+                }
+                case BELOW -> {
+                    if (active[i]) {
+                        high = Math.min(high, clearThresholds[i]);
+                    } else {
+                        low = Math.max(low, thresholds[i]);
+                    }
+                }
+                case RATE_OF_CHANGE -> {
+                    if (active[i]) {
+                        rateLow = Math.max(rateLow, clearThresholds[i]);
+                    } else {
+                        rateHigh = Math.min(rateHigh, thresholds[i]);
+                    }
+                }
+                default -> {
+                    if (anchorTimestamps[i] == Long.MIN_VALUE) {
+                        until = Long.MIN_VALUE;
+                    } else {
+                        low = Math.max(low, anchorValues[i] - thresholds[i]);
+                        high = Math.min(high, anchorValues[i] + thresholds[i]);
+                        if (!active[i]) {
+                            until = Math.min(until, anchorTimestamps[i] + durations[i]);
+                        }
+                    }
+                }
+            }
+        }
+        quietLow = low;
+        quietHigh = high;
+        quietRateLow = rateLow;
+        quietRateHigh = rateHigh;
+        quietUntil = until;
+    }
+
+    private static byte typeOf(final AlertRuleType type) {
+        return switch (type) {
+            case ABOVE -> ABOVE;
+            case BELOW -> BELOW;
+            case RATE_OF_CHANGE -> RATE_OF_CHANGE;
+            case FLATLINE -> FLATLINE;
+        };
+    }
+}
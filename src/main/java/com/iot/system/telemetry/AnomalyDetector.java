@@ -0,0 +1,85 @@
+package com.iot.system.telemetry;
+
+import com.iot.system.model.Anomaly;
+
+/**
+ * Online baseline of one metric of one series: an EWMA level, an additive offset per hour of day
+ * and an EWMA of the squared residual. Each reading is scored against the baseline before being
+ * folded into it. Allocation free, confined to the flusher thread.
+ */
+public final class AnomalyDetector {
+
+    private static final int SEASONS = 24;
+    private static final long SEASON_MS = 3_600_000L;
+    // Keeps perfectly flat signals from scoring every tiny change as an anomaly
+    private static final double MIN_RELATIVE_STD_DEV = 1e-3;
+
+    private final double alpha;
+    private final double seasonalGamma;
+    private final double threshold;
+    private final int warmupSamples;
+
+    private final double[] seasonalOffsets = new double[SEASONS];
+    private double level;
+    private double variance;
+    private long samples;
+    private double expected;
+
+    // Anomaly episode in progress, if any
+    private Anomaly openAnomaly;
+
+    public AnomalyDetector(final double alpha, final double seasonalGamma, final double threshold, final int warmupSamples) {
+        this.alpha = alpha;
+        this.seasonalGamma = seasonalGamma;
+        this.threshold = threshold;
+        this.warmupSamples = warmupSamples;
+    }
+
+    /**
+     * Returns the z-score of the reading against the baseline, or NaN while the baseline warms up.
+     */
+    public double update(final long timestamp, final double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return Double.NaN;
+        }
+        final int season = (int) Math.floorMod(Math.floorDiv(timestamp, SEASON_MS), (long) SEASONS);
+        if (samples == 0) {
+            level = value;
+        }
+        expected = level + seasonalOffsets[season];
+        final double stdDev = Math.max(Math.sqrt(variance), MIN_RELATIVE_STD_DEV * Math.abs(expected) + Double.MIN_NORMAL);
+        final double score = samples >= warmupSamples ? (value - expected) / stdDev : Double.NaN;
+
+        // An anomalous reading moves the level by at most threshold deviations and leaves the
+        // variance alone, so a lasting shift is absorbed gradually instead of within a few readings
+        final boolean clamped = Math.abs(score) > threshold;
+        final double observed = clamped ? expected + Math.copySign(threshold * stdDev, score) : value;
+        final double residual = observed - expected;
+        level += alpha * residual;
+        seasonalOffsets[season] += seasonalGamma * (observed - level - seasonalOffsets[season]);
+        if (!clamped) {
+            variance = (1 - alpha) * variance + alpha * residual * residual;
+        }
+        samples++;
+        return score;
+    }
+
+    public boolean isAnomalous(final double score) {
+        return Math.abs(score) >= threshold;
+    }
+
+    /**
+     * The value the baseline expected for the last reading.
+     */
+    public double expected() {
+        return expected;
+    }
+
+    public Anomaly openAnomaly() {
+        return openAnomaly;
+    }
+
+    public void setOpenAnomaly(final Anomaly openAnomaly) {
+        this.openAnomaly = openAnomaly;
+    }
+}
@@ -0,0 +1,121 @@
+package com.iot.system.telemetry;
+
+import com.iot.system.model.Anomaly;
+import com.iot.system.repository.AnomalyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Scores every reading drained by the flusher against the baseline of its series and metric, and
+ * records runs of anomalous readings. Baselines live in memory and are learned again from the live
+ * stream after a restart.
+ */
+@Component
+public class AnomalyEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnomalyEngine.class);
+
+    private final AnomalyRepository anomalyRepository;
+    private final MetricDictionary metricDictionary;
+    private final boolean enabled;
+    private final double alpha;
+    private final double seasonalGamma;
+    private final double threshold;
+    private final int warmupSamples;
+
+    private final Queue<Long> deletedMonitorings = new ConcurrentLinkedQueue<>();
+
+    // Flusher thread state
+    private final Set<Anomaly> pendingAnomalies = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    public AnomalyEngine(final AnomalyRepository anomalyRepository, final MetricDictionary metricDictionary,
+                         @Value("${telemetry.anomaly.enabled}") final boolean enabled,
+                         @Value("${telemetry.anomaly.alpha}") final double alpha,
+                         @Value("${telemetry.anomaly.seasonal-gamma}") final double seasonalGamma,
+                         @Value("${telemetry.anomaly.threshold}") final double threshold,
+                         @Value("${telemetry.anomaly.warmup-samples}") final int warmupSamples) {
+        this.anomalyRepository = anomalyRepository;
+        this.metricDictionary = metricDictionary;
+        this.enabled = enabled;
+        this.alpha = alpha;
+        this.seasonalGamma = seasonalGamma;
+        this.threshold = threshold;
+        this.warmupSamples = warmupSamples;
+    }
+
+    public void evaluate(final MonitoredSeries series, final int metricId, final long timestamp, final double value) {
+        if (!enabled) {
+            return;
+        }
+        AnomalyDetector detector = series.anomalyDetector(metricId);
+        if (detector == null) {
+            detector = new AnomalyDetector(alpha, seasonalGamma, threshold, warmupSamples);
+            series.setAnomalyDetector(metricId, detector);
+        }
+        final double score = detector.update(timestamp, value);
+        if (Double.isNaN(score)) {
+            return;
+        }
+
+        Anomaly anomaly = detector.openAnomaly();
+        if (!detector.isAnomalous(score)) {
+            if (anomaly != null) {
+                anomaly.setEndedAt(timestamp);
+                pendingAnomalies.add(anomaly);
+                detector.setOpenAnomaly(null);
+            }
+            return;
+        }
+        if (anomaly == null) {
+            anomaly = new Anomaly();
+            anomaly.setMonitoringId(series.getMonitoringId());
+            anomaly.setMetric(metricDictionary.nameOf(metricId));
+            anomaly.setStartedAt(timestamp);
+            anomaly.setSampleCount(0);
+            detector.setOpenAnomaly(anomaly);
+            logger.debug("Anomaly on monitoring {} metric {}: {} against expected {}", series.getMonitoringCode(),
+                    anomaly.getMetric(), value, detector.expected());
+        }
+        anomaly.setSampleCount(anomaly.getSampleCount() + 1);
+        if (anomaly.getPeakScore() == null || Math.abs(score) > Math.abs(anomaly.getPeakScore())) {
+            anomaly.setPeakScore(score);
+            anomaly.setPeakValue(value);
+            anomaly.setExpectedValue(detector.expected());
+        }
+        pendingAnomalies.add(anomaly);
+    }
+
+    public void deleteSeries(final long monitoringId) {
+        deletedMonitorings.add(monitoringId);
+    }
+
+    public boolean persistPending() {
+        Long deleted;
+        while ((deleted = deletedMonitorings.poll()) != null) {
+            final long monitoringId = deleted;
+            pendingAnomalies.removeIf(anomaly -> anomaly.getMonitoringId() == monitoringId);
+        }
+        if (pendingAnomalies.isEmpty()) {
+            return true;
+        }
+        final List<Anomaly> anomalies = new ArrayList<>(pendingAnomalies);
+        try {
+            anomalyRepository.saveAll(anomalies);
+            pendingAnomalies.clear();
+            return true;
+        } catch (Exception e) {
+            logger.error("Failed to persist {} anomalies, retrying on next flush", anomalies.size(), e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.iot.system.telemetry;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Parser of the compact binary batch format, media type {@value #MEDIA_TYPE}:
+ * <pre>
+ * magic      2 bytes   'I' 'T'
+ * version    1 byte    1
+ * count      varint    number of readings
+ * base       zigzag varint, epoch milliseconds
+ * reading    repeated count times:
+ *   metric   varint    id from the metric dictionary
+ *   delta    zigzag varint, milliseconds from the previous reading (the first from base)
+ *   value    8 bytes   IEEE 754 double, little endian
+ * </pre>
+ * Readings are decoded straight into caller-provided primitive columns.
+ */
+public final class BinaryReadingDecoder {
+
+    public static final String MEDIA_TYPE = "application/x-iot-readings";
+
+    private static final byte MAGIC_0 = 'I';
+    private static final byte MAGIC_1 = 'T';
+    private static final byte VERSION = 1;
+
+    private BinaryReadingDecoder() {
+    }
+
+    /**
+     * Decodes a batch and returns the number of readings written to the columns.
+     *
+     * @throws IllegalArgumentException when the batch is malformed or larger than the columns
+     */
+    public static int decode(final ByteBuffer source, final int[] metricIds, final long[] timestamps, final double[] values) {
+        final ByteBuffer buffer = source.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (buffer.get() != MAGIC_0 || buffer.get() != MAGIC_1) {
+                throw new IllegalArgumentException("Not a binary reading batch");
+            }
+            final byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported binary reading batch version " + version);
+            }
+            final long count = readVarLong(buffer);
+            if (count < 0) {
+                throw new IllegalArgumentException("Invalid reading count " + count);
+            }
+            if (count > metricIds.length) {
+                throw new IllegalArgumentException("Batch of " + count + " readings exceeds the maximum of "
+                        + metricIds.length + " readings per request");
+            }
+            long timestamp = readZigZag(buffer);
+            for (int i = 0; i < count; i++) {
+                final long metricId = readVarLong(buffer);
+                if (metricId < 0 || metricId > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Invalid metric id " + metricId);
+                }
+                timestamp += readZigZag(buffer);
+                metricIds[i] = (int) metricId;
+                timestamps[i] = timestamp;
+                values[i] = buffer.getDouble();
+            }
+            if (buffer.hasRemaining()) {
+                throw new IllegalArgumentException("Unexpected " + buffer.remaining() + " trailing bytes in binary reading batch");
+            }
+            return (int) count;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated binary reading batch");
+        }
+    }
+
+    private static long readZigZag(final ByteBuffer buffer) {
+        final long zigZag = readVarLong(buffer);
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+
+    private static long readVarLong(final ByteBuffer buffer) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in binary reading batch");
+    }
+}
@@ -0,0 +1,107 @@
+package com.iot.system.telemetry;
+
+import java.util.Arrays;
+
+/**
+ * Columnar min/max/sum/count/last accumulator over fixed-width time buckets. Bucket {@code i}
+ * covers {@code [origin + i * step, origin + (i + 1) * step)}.
+ */
+public class BucketAggregates {
+
+    private final long origin;
+    private final long step;
+    private final double[] min;
+    private final double[] max;
+    private final double[] sum;
+    private final long[] count;
+    private final double[] last;
+    private final long[] lastTimestamp;
+
+    public BucketAggregates(final long origin, final long step, final int bucketCount) {
+        this.origin = origin;
+        this.step = step;
+        this.min = new double[bucketCount];
+        this.max = new double[bucketCount];
+        this.sum = new double[bucketCount];
+        this.count = new long[bucketCount];
+        this.last = new double[bucketCount];
+        this.lastTimestamp = new long[bucketCount];
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        Arrays.fill(lastTimestamp, Long.MIN_VALUE);
+    }
+
+    public int bucketOf(final long timestamp) {
+        return (int) Math.floorDiv(timestamp - origin, step);
+    }
+
+    public int bucketCount() {
+        return count.length;
+    }
+
+    public void add(final int bucket, final long timestamp, final double value) {
+        if (value < min[bucket]) {
+            min[bucket] = value;
+        }
+        if (value > max[bucket]) {
+            max[bucket] = value;
+        }
+        sum[bucket] += value;
+        count[bucket]++;
+        if (timestamp >= lastTimestamp[bucket]) {
+            lastTimestamp[bucket] = timestamp;
+            last[bucket] = value;
+        }
+    }
+
+    public void add(final int bucket, final long count, final double min, final double max, final double sum,
+                    final long lastTimestamp, final double lastValue) {
+        if (count == 0) {
+            return;
+        }
+        this.min[bucket] = Math.min(this.min[bucket], min);
+        this.max[bucket] = Math.max(this.max[bucket], max);
+        this.sum[bucket] += sum;
+        this.count[bucket] += count;
+        if (lastTimestamp >= this.lastTimestamp[bucket]) {
+            this.lastTimestamp[bucket] = lastTimestamp;
+            this.last[bucket] = lastValue;
+        }
+    }
+
+    public BucketAggregates merge(final BucketAggregates other) {
+        for (int bucket = 0; bucket < count.length; bucket++) {
+            add(bucket, other.count[bucket], other.min[bucket], other.max[bucket], other.sum[bucket],
+                    other.lastTimestamp[bucket], other.last[bucket]);
+        }
+        return this;
+    }
+
+    public long bucketStart(final int bucket) {
+        return origin + bucket * step;
+    }
+
+    public long count(final int bucket) {
+        return count[bucket];
+    }
+
+    public double min(final int bucket) {
+        return min[bucket];
+    }
+
+    public double max(final int bucket) {
+        return max[bucket];
+    }
+
+    public double sum(final int bucket) {
+        return sum[bucket];
+    }
+
+    public double last(final int bucket) {
+        return last[bucket];
+    }
+
+    public long lastTimestamp(final int bucket) {
+        return lastTimestamp[bucket];
+    }
+}
@@ -0,0 +1,62 @@
+package com.iot.system.telemetry;
+
+/**
+ * Quantile sketch per fixed-width time bucket, laid out like {@link BucketAggregates}. Sketches
+ * are created on first use so empty buckets cost nothing.
+ */
+public class BucketSketches {
+
+    private final long origin;
+    private final long step;
+    private final QuantileSketch[] sketches;
+
+    public BucketSketches(final long origin, final long step, final int bucketCount) {
+        this.origin = origin;
+        this.step = step;
+        this.sketches = new QuantileSketch[bucketCount];
+    }
+
+    public int bucketOf(final long timestamp) {
+        return (int) Math.floorDiv(timestamp - origin, step);
+    }
+
+    public int bucketCount() {
+        return sketches.length;
+    }
+
+    public long bucketStart(final int bucket) {
+        return origin + bucket * step;
+    }
+
+    public void add(final int bucket, final double value) {
+        sketch(bucket).add(value);
+    }
+
+    public void merge(final int bucket, final QuantileSketch sketch) {
+        sketch(bucket).merge(sketch);
+    }
+
+    public BucketSketches merge(final BucketSketches other) {
+        for (int bucket = 0; bucket < sketches.length; bucket++) {
+            if (other.sketches[bucket] != null) {
+                merge(bucket, other.sketches[bucket]);
+            }
+        }
+        return this;
+    }
+
+    public long count(final int bucket) {
+        return sketches[bucket] != null ? sketches[bucket].count() : 0;
+    }
+
+    public double quantile(final int bucket, final double q) {
+        return sketches[bucket] != null ? sketches[bucket].quantile(q) : Double.NaN;
+    }
+
+    private QuantileSketch sketch(final int bucket) {
+        if (sketches[bucket] == null) {
+            sketches[bucket] = new QuantileSketch();
+        }
+        return sketches[bucket];
+    }
+}
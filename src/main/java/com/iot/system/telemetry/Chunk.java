@@ -0,0 +1,62 @@
+package com.iot.system.telemetry;
+
+import lombok.Getter;
+
+@Getter
+public class Chunk {
+
+    private final long monitoringId;
+    private final int metricId;
+    private final long startTimestamp;
+    private final long endTimestamp;
+    private final int count;
+    private final double min;
+    private final double max;
+    private final double sum;
+    private final double lastValue;
+    private final byte[] data;
+    // Encoded QuantileSketch of the values, null for metrics that are not sketched
+    private final byte[] sketch;
+    // Highest WAL position of the readings in the chunk; recovery skips readings up to it
+    private final long lsn;
+    private volatile Long persistentId;
+    private volatile boolean rolledUp;
+
+    public Chunk(final long monitoringId, final int metricId, final long startTimestamp, final long endTimestamp,
+                 final int count, final double min, final double max, final double sum, final double lastValue,
+                 final byte[] data, final byte[] sketch, final long lsn, final Long persistentId) {
+        this.monitoringId = monitoringId;
+        this.metricId = metricId;
+        this.startTimestamp = startTimestamp;
+        this.endTimestamp = endTimestamp;
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.sum = sum;
+        this.lastValue = lastValue;
+        this.data = data;
+        this.sketch = sketch;
+        this.lsn = lsn;
+        this.persistentId = persistentId;
+    }
+
+    public GorillaDecoder decoder() {
+        return new GorillaDecoder(data, count);
+    }
+
+    public QuantileSketch sketch() {
+        return sketch != null ? QuantileSketch.decode(sketch) : null;
+    }
+
+    public boolean overlaps(final long from, final long to) {
+        return startTimestamp < to && endTimestamp >= from;
+    }
+
+    void setPersistentId(final Long persistentId) {
+        this.persistentId = persistentId;
+    }
+
+    void markRolledUp() {
+        this.rolledUp = true;
+    }
+}
@@ -0,0 +1,7 @@
+package com.iot.system.telemetry;
+
+/**
+ * The part of a chunk that falls inside {@code [from, to)}.
+ */
+public record ChunkSlice(Chunk chunk, long from, long to) {
+}
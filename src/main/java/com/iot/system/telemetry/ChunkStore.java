@@ -0,0 +1,277 @@
+package com.iot.system.telemetry;
+
+import com.iot.system.model.TelemetryChunk;
+import com.iot.system.repository.TelemetryChunkRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+@Component
+public class ChunkStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkStore.class);
+
+    private final TelemetryChunkRepository telemetryChunkRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final SketchedMetrics sketchedMetrics;
+    private final int blockMaxSamples;
+    private final long blockMaxSpanMs;
+
+    private final Map<Long, Map<Integer, SeriesChunks>> index = new ConcurrentHashMap<>();
+    private final List<Chunk> pendingChunks = new ArrayList<>();
+    private final Queue<Chunk> rollupQueue = new ConcurrentLinkedQueue<>();
+
+    public ChunkStore(final TelemetryChunkRepository telemetryChunkRepository,
+                      final TransactionTemplate transactionTemplate, final SketchedMetrics sketchedMetrics,
+                      @Value("${telemetry.storage.block-max-samples}") final int blockMaxSamples,
+                      @Value("${telemetry.storage.block-max-span-ms}") final long blockMaxSpanMs) {
+        this.telemetryChunkRepository = telemetryChunkRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.sketchedMetrics = sketchedMetrics;
+        this.blockMaxSamples = blockMaxSamples;
+        this.blockMaxSpanMs = blockMaxSpanMs;
+    }
+
+    @PostConstruct
+    public void load() {
+        final List<TelemetryChunk> chunks = telemetryChunkRepository.findAll();
+        for (final TelemetryChunk entity : chunks) {
+            final Chunk chunk = toChunk(entity);
+            seriesChunks(entity.getMonitoringId(), entity.getMetricId()).add(chunk);
+            if (entity.isRolledUp()) {
+                chunk.markRolledUp();
+            } else {
+                rollupQueue.add(chunk);
+            }
+        }
+        logger.info("Loaded {} telemetry chunks", chunks.size());
+    }
+
+    public void append(final MonitoredSeries series, final int metricId, final long timestamp, final double value,
+                       final long lsn) {
+        SeriesBlock block = series.openBlock(metricId);
+        if (block != null && !block.accepts(timestamp, blockMaxSamples, blockMaxSpanMs)) {
+            seal(series, metricId, block);
+            block = null;
+        }
+        if (block == null) {
+            block = new SeriesBlock(series.getMonitoringId(), metricId, sketchedMetrics.isSketched(metricId));
+            series.setOpenBlock(metricId, block);
+        }
+        block.append(timestamp, value, lsn);
+    }
+
+    public void sealAll(final MonitoredSeries series) {
+        for (final SeriesBlock block : series.getOpenBlocks()) {
+            if (block != null) {
+                seal(series, block.metricId(), block);
+            }
+        }
+    }
+
+    public boolean persistPending() {
+        if (pendingChunks.isEmpty()) {
+            return true;
+        }
+        final List<Chunk> chunks = pendingChunks.stream()
+                .filter(chunk -> index.containsKey(chunk.getMonitoringId()))
+                .toList();
+        try {
+            final List<TelemetryChunk> saved = telemetryChunkRepository.saveAll(chunks.stream().map(this::toEntity).toList());
+            for (int i = 0; i < chunks.size(); i++) {
+                chunks.get(i).setPersistentId(saved.get(i).getId());
+            }
+            rollupQueue.addAll(chunks);
+            pendingChunks.clear();
+            return true;
+        } catch (Exception e) {
+            logger.error("Failed to persist {} telemetry chunks, retrying on next flush", chunks.size(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Persists a snapshot of every open block that received samples since the last checkpoint.
+     * The snapshot row is overwritten on the next checkpoint and finally by the sealed chunk.
+     */
+    public boolean checkpoint(final Collection<MonitoredSeries> allSeries) {
+        final List<SeriesBlock> blocks = new ArrayList<>();
+        final List<Chunk> snapshots = new ArrayList<>();
+        for (final MonitoredSeries series : allSeries) {
+            for (final SeriesBlock block : series.getOpenBlocks()) {
+                if (block != null && block.hasUncheckpointedSamples()) {
+                    blocks.add(block);
+                    snapshots.add(block.snapshot());
+                }
+            }
+        }
+        if (snapshots.isEmpty()) {
+            return true;
+        }
+        try {
+            final List<TelemetryChunk> saved = telemetryChunkRepository.saveAll(snapshots.stream().map(this::toEntity).toList());
+            for (int i = 0; i < snapshots.size(); i++) {
+                snapshots.get(i).setPersistentId(saved.get(i).getId());
+                blocks.get(i).markCheckpointed(snapshots.get(i));
+            }
+            return true;
+        } catch (Exception e) {
+            logger.error("Failed to checkpoint {} open telemetry blocks", snapshots.size(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Highest WAL position of a reading of the metric that is in a chunk. Readings of one series
+     * reach the chunks in WAL order, so every earlier reading of the metric is in a chunk too.
+     */
+    public long lsn(final long monitoringId, final int metricId) {
+        final Map<Integer, SeriesChunks> byMetric = index.get(monitoringId);
+        final SeriesChunks series = byMetric != null ? byMetric.get(metricId) : null;
+        return series != null ? series.lsn() : 0;
+    }
+
+    /**
+     * Next persisted chunk that is not folded into the rollups yet, or null.
+     */
+    public Chunk pollRollupCandidate() {
+        return rollupQueue.poll();
+    }
+
+    public boolean containsSeries(final long monitoringId) {
+        return index.containsKey(monitoringId);
+    }
+
+    public Set<Long> monitoringIds() {
+        return index.keySet();
+    }
+
+    public Map<Integer, SeriesChunks> series(final long monitoringId) {
+        return index.getOrDefault(monitoringId, Map.of());
+    }
+
+    /**
+     * Returns the rolled-up chunks of a series that end before the cutoff. Chunks still waiting for
+     * the rollup job are kept until they are folded.
+     */
+    public List<Chunk> expired(final SeriesChunks series, final long cutoff) {
+        final List<Chunk> expired = new ArrayList<>();
+        for (final Chunk chunk : series.toArray()) {
+            if (chunk.getEndTimestamp() < cutoff && chunk.isRolledUp()) {
+                expired.add(chunk);
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Deletes chunks of a series and returns the bytes freed, or 0 when another job changed them first.
+     */
+    public long delete(final SeriesChunks series, final List<Chunk> chunks) {
+        if (chunks.isEmpty() || !series.replace(chunks, null)) {
+            return 0;
+        }
+        telemetryChunkRepository.deleteAllByIdInBatch(chunks.stream().map(Chunk::getPersistentId).toList());
+        return bytes(chunks);
+    }
+
+    static long bytes(final List<Chunk> chunks) {
+        return chunks.stream().mapToLong(chunk -> chunk.getData().length).sum();
+    }
+
+    /**
+     * Re-encodes adjacent rolled-up chunks into one and swaps them in a single transaction.
+     */
+    public Chunk merge(final SeriesChunks series, final List<Chunk> run) {
+        final Chunk first = run.get(0);
+        final SeriesBlock block = new SeriesBlock(first.getMonitoringId(), first.getMetricId(), first.getSketch() != null);
+        for (final Chunk chunk : run) {
+            final GorillaDecoder decoder = chunk.decoder();
+            while (decoder.next()) {
+                block.append(decoder.timestamp(), decoder.value(), chunk.getLsn());
+            }
+        }
+        final Chunk merged = block.snapshot();
+        merged.markRolledUp();
+        final TelemetryChunk saved = transactionTemplate.execute(status -> {
+            final TelemetryChunk entity = telemetryChunkRepository.save(toEntity(merged));
+            telemetryChunkRepository.deleteAllByIdInBatch(run.stream().map(Chunk::getPersistentId).toList());
+            return entity;
+        });
+        merged.setPersistentId(saved.getId());
+        if (!series.replace(run, merged)) {
+            logger.warn("Chunks of monitoring {} changed while merging", first.getMonitoringId());
+        }
+        return merged;
+    }
+
+    public List<Chunk> chunks(final long monitoringId, final int metricId, final long from, final long to) {
+        final Map<Integer, SeriesChunks> byMetric = index.get(monitoringId);
+        if (byMetric == null) {
+            return List.of();
+        }
+        final SeriesChunks series = byMetric.get(metricId);
+        return series == null ? List.of() : series.overlapping(from, to);
+    }
+
+    public void deleteSeries(final long monitoringId) {
+        telemetryChunkRepository.deleteByMonitoringId(monitoringId);
+    }
+
+    public void evictSeries(final long monitoringId) {
+        index.remove(monitoringId);
+    }
+
+    private void seal(final MonitoredSeries series, final int metricId, final SeriesBlock block) {
+        series.setOpenBlock(metricId, null);
+        if (block.count() == 0) {
+            return;
+        }
+        final Chunk chunk = block.snapshot();
+        seriesChunks(series.getMonitoringId(), metricId).add(chunk);
+        pendingChunks.add(chunk);
+    }
+
+    private SeriesChunks seriesChunks(final long monitoringId, final int metricId) {
+        return index.computeIfAbsent(monitoringId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(metricId, id -> new SeriesChunks());
+    }
+
+    private Chunk toChunk(final TelemetryChunk entity) {
+        return new Chunk(entity.getMonitoringId(), entity.getMetricId(), entity.getStartTimestamp(),
+                entity.getEndTimestamp(), entity.getSampleCount(), entity.getMinValue(), entity.getMaxValue(),
+                entity.getSumValue(), entity.getLastValue(), entity.getData(), entity.getSketch(),
+                entity.getWalLsn() != null ? entity.getWalLsn() : 0, entity.getId());
+    }
+
+    private TelemetryChunk toEntity(final Chunk chunk) {
+        final TelemetryChunk entity = new TelemetryChunk();
+        entity.setId(chunk.getPersistentId());
+        entity.setMonitoringId(chunk.getMonitoringId());
+        entity.setMetricId(chunk.getMetricId());
+        entity.setStartTimestamp(chunk.getStartTimestamp());
+        entity.setEndTimestamp(chunk.getEndTimestamp());
+        entity.setSampleCount(chunk.getCount());
+        entity.setMinValue(chunk.getMin());
+        entity.setMaxValue(chunk.getMax());
+        entity.setSumValue(chunk.getSum());
+        entity.setLastValue(chunk.getLastValue());
+        entity.setData(chunk.getData());
+        entity.setSketch(chunk.getSketch());
+        entity.setWalLsn(chunk.getLsn());
+        entity.setRolledUp(chunk.isRolledUp());
+        return entity;
+    }
+}
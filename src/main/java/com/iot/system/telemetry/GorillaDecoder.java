@@ -0,0 +1,98 @@
+package com.iot.system.telemetry;
+
+/**
+ * Cursor over a block written by {@link GorillaEncoder}. Points are exposed through primitive
+ * accessors so scans never box values.
+ */
+public class GorillaDecoder {
+
+    private final long[] words;
+    private int bitPosition;
+    private int remaining;
+    private boolean first = true;
+
+    private long timestamp;
+    private long delta;
+    private long valueBits;
+    private int leading;
+    private int trailing;
+
+    public GorillaDecoder(final byte[] data, final int count) {
+        this.words = new long[(data.length + 7) >>> 3];
+        for (int i = 0; i < data.length; i++) {
+            words[i >>> 3] |= (data[i] & 0xFFL) << (56 - ((i & 7) << 3));
+        }
+        this.remaining = count;
+    }
+
+    public boolean next() {
+        if (remaining == 0) {
+            return false;
+        }
+        if (first) {
+            timestamp = readBits(64);
+            valueBits = readBits(64);
+            first = false;
+        } else {
+            decodeTimestamp();
+            decodeValue();
+        }
+        remaining--;
+        return true;
+    }
+
+    public long timestamp() {
+        return timestamp;
+    }
+
+    public double value() {
+        return Double.longBitsToDouble(valueBits);
+    }
+
+    private void decodeTimestamp() {
+        final long zigZag;
+        if (readBits(1) == 0) {
+            zigZag = 0;
+        } else if (readBits(1) == 0) {
+            zigZag = readBits(7);
+        } else if (readBits(1) == 0) {
+            zigZag = readBits(12);
+        } else if (readBits(1) == 0) {
+            zigZag = readBits(20);
+        } else {
+            zigZag = readBits(64);
+        }
+        delta += (zigZag >>> 1) ^ -(zigZag & 1);
+        timestamp += delta;
+    }
+
+    private void decodeValue() {
+        if (readBits(1) == 0) {
+            return;
+        }
+        if (readBits(1) == 1) {
+            leading = (int) readBits(5);
+            final int significant = (int) readBits(6) + 1;
+            trailing = 64 - leading - significant;
+        }
+        valueBits ^= readBits(64 - leading - trailing) << trailing;
+    }
+
+    private long readBits(final int length) {
+        final int wordIndex = bitPosition >>> 6;
+        final int free = 64 - (bitPosition & 63);
+        final long result;
+        if (length <= free) {
+            result = (words[wordIndex] >>> (free - length)) & mask(length);
+        } else {
+            final int overflow = length - free;
+            result = ((words[wordIndex] & mask(free)) << overflow) | (words[wordIndex + 1] >>> (64 - overflow));
+        }
+        bitPosition += length;
+        return result;
+    }
+
+    private static long mask(final int length) {
+        return length == 64 ? -1L : (1L << length) - 1;
+    }
+}
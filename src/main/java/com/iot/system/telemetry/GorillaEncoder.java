@@ -0,0 +1,116 @@
+package com.iot.system.telemetry;
+
+import java.util.Arrays;
+
+/**
+ * Streaming encoder for one series block: delta-of-delta timestamps and XOR-compressed doubles
+ * as described in the Gorilla paper, with timestamp buckets widened for millisecond precision.
+ */
+public class GorillaEncoder {
+
+    private long[] words = new long[16];
+    private int bitCount;
+    private int count;
+
+    private long previousTimestamp;
+    private long previousDelta;
+    private long previousValueBits;
+    private int previousLeading = -1;
+    private int previousTrailing;
+
+    public void append(final long timestamp, final double value) {
+        final long valueBits = Double.doubleToRawLongBits(value);
+        if (count == 0) {
+            writeBits(timestamp, 64);
+            writeBits(valueBits, 64);
+        } else {
+            encodeTimestamp(timestamp);
+            encodeValue(valueBits);
+        }
+        previousTimestamp = timestamp;
+        previousValueBits = valueBits;
+        count++;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int sizeInBytes() {
+        return (bitCount + 7) >>> 3;
+    }
+
+    public byte[] toByteArray() {
+        final byte[] bytes = new byte[sizeInBytes()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (words[i >>> 3] >>> (56 - ((i & 7) << 3)));
+        }
+        return bytes;
+    }
+
+    private void encodeTimestamp(final long timestamp) {
+        final long delta = timestamp - previousTimestamp;
+        final long deltaOfDelta = delta - previousDelta;
+        previousDelta = delta;
+
+        // Deltas wrap around for timestamps more than 2^63 ms apart, which the decoder undoes. The
+        // zigzag form of a delta-of-delta beyond +-2^62 has its top bit set, so buckets compare unsigned.
+        final long zigZag = (deltaOfDelta << 1) ^ (deltaOfDelta >> 63);
+        if (zigZag == 0) {
+            writeBits(0, 1);
+        } else if (zigZag >>> 7 == 0) {
+            writeBits(0b10, 2);
+            writeBits(zigZag, 7);
+        } else if (zigZag >>> 12 == 0) {
+            writeBits(0b110, 3);
+            writeBits(zigZag, 12);
+        } else if (zigZag >>> 20 == 0) {
+            writeBits(0b1110, 4);
+            writeBits(zigZag, 20);
+        } else {
+            writeBits(0b1111, 4);
+            writeBits(zigZag, 64);
+        }
+    }
+
+    private void encodeValue(final long valueBits) {
+        final long xor = valueBits ^ previousValueBits;
+        if (xor == 0) {
+            writeBits(0, 1);
+            return;
+        }
+        final int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        final int trailing = Long.numberOfTrailingZeros(xor);
+        if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+            writeBits(0b10, 2);
+            writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+        } else {
+            final int significant = 64 - leading - trailing;
+            writeBits(0b11, 2);
+            writeBits(leading, 5);
+            writeBits(significant - 1, 6);
+            writeBits(xor >>> trailing, significant);
+            previousLeading = leading;
+            previousTrailing = trailing;
+        }
+    }
+
+    private void writeBits(long value, final int length) {
+        if (bitCount + length > words.length << 6) {
+            words = Arrays.copyOf(words, words.length << 1);
+        }
+        if (length < 64) {
+            value &= (1L << length) - 1;
+        }
+        final int wordIndex = bitCount >>> 6;
+        final int free = 64 - (bitCount & 63);
+        if (length <= free) {
+            words[wordIndex] |= value << (free - length);
+        } else {
+            final int overflow = length - free;
+            words[wordIndex] |= value >>> overflow;
+            words[wordIndex + 1] |= value << (64 - overflow);
+        }
+        bitCount += length;
+    }
+}
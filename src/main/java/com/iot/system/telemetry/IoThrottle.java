@@ -0,0 +1,31 @@
+package com.iot.system.telemetry;
+
+/**
+ * Token bucket that paces background I/O to a byte rate, allowing bursts of up to one second.
+ */
+public class IoThrottle {
+
+    private final long bytesPerSecond;
+    private double available;
+    private long lastRefill = System.nanoTime();
+
+    public IoThrottle(final long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.available = bytesPerSecond;
+    }
+
+    public void acquire(final long bytes) throws InterruptedException {
+        refill();
+        available -= bytes;
+        if (available < 0) {
+            final long waitNanos = (long) (-available * 1_000_000_000L / bytesPerSecond);
+            Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+        }
+    }
+
+    private void refill() {
+        final long now = System.nanoTime();
+        available = Math.min(bytesPerSecond, available + (now - lastRefill) * bytesPerSecond / 1_000_000_000.0);
+        lastRefill = now;
+    }
+}
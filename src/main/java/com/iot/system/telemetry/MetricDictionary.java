@@ -0,0 +1,82 @@
+package com.iot.system.telemetry;
+
+import com.iot.system.model.TelemetryMetric;
+import com.iot.system.repository.TelemetryMetricRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class MetricDictionary {
+
+    private static final int MAX_METRIC_NAME_LENGTH = 64;
+
+    private final TelemetryMetricRepository telemetryMetricRepository;
+    private final int maxMetrics;
+
+    private final Map<String, Integer> idsByName = new ConcurrentHashMap<>();
+    private final Map<Integer, String> namesById = new ConcurrentHashMap<>();
+
+    public MetricDictionary(final TelemetryMetricRepository telemetryMetricRepository,
+                            @Value("${telemetry.metrics.max-metrics}") final int maxMetrics) {
+        this.telemetryMetricRepository = telemetryMetricRepository;
+        this.maxMetrics = maxMetrics;
+    }
+
+    @PostConstruct
+    public void load() {
+        telemetryMetricRepository.findAll().forEach(this::register);
+    }
+
+    public int resolve(final String name) {
+        final Integer id = name != null ? idsByName.get(name) : null;
+        if (id != null) {
+            return id;
+        }
+        return create(name);
+    }
+
+    public Integer idOf(final String name) {
+        return name != null ? idsByName.get(name) : null;
+    }
+
+    public String nameOf(final int metricId) {
+        return namesById.get(metricId);
+    }
+
+    public boolean contains(final int metricId) {
+        return namesById.containsKey(metricId);
+    }
+
+    public Map<String, Integer> snapshot() {
+        return Map.copyOf(idsByName);
+    }
+
+    private synchronized int create(final String name) {
+        if (name == null || name.isBlank() || name.length() > MAX_METRIC_NAME_LENGTH) {
+            throw new IllegalArgumentException("Metric name must have between 1 and " + MAX_METRIC_NAME_LENGTH + " characters");
+        }
+        final Integer existing = idsByName.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        final TelemetryMetric metric = telemetryMetricRepository.findByName(name).orElseGet(() -> {
+            if (idsByName.size() >= maxMetrics) {
+                throw new IllegalArgumentException("The maximum of " + maxMetrics + " metrics is reached");
+            }
+            final TelemetryMetric newMetric = new TelemetryMetric();
+            newMetric.setName(name);
+            return telemetryMetricRepository.save(newMetric);
+        });
+        register(metric);
+        return metric.getId();
+    }
+
+    private void register(final TelemetryMetric metric) {
+        idsByName.put(metric.getName(), metric.getId());
+        namesById.put(metric.getId(), metric.getName());
+    }
+}
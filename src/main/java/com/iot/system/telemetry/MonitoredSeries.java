@@ -0,0 +1,158 @@
+package com.iot.system.telemetry;
+
+import com.iot.system.user.User;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Getter
+public class MonitoredSeries {
+
+    private final long monitoringId;
+    private final String monitoringCode;
+    private final ReadingRingBuffer buffer;
+    private final int maxMetrics;
+
+    // Replaced when the monitoring changes, read by request threads checking access
+    @Getter(AccessLevel.NONE)
+    private volatile Access access;
+
+    // Dense slot of each metric id the series has seen; the per-series arrays are indexed by slot
+    @Getter(AccessLevel.NONE)
+    private final Map<Integer, Integer> slots = new ConcurrentHashMap<>();
+
+    // Open blocks indexed by slot, replaced only by the flusher thread
+    private volatile SeriesBlock[] openBlocks = new SeriesBlock[8];
+
+    // Compiled alert rules and anomaly baselines indexed by slot, owned by the flusher thread
+    private AlertRuleSet[] alertRules = new AlertRuleSet[0];
+    private long alertRulesGeneration = -1;
+    private AnomalyDetector[] anomalyDetectors = new AnomalyDetector[0];
+
+    public MonitoredSeries(final long monitoringId, final String monitoringCode, final long ownerId,
+                           final long[] userIds, final int bufferCapacity, final int maxMetrics) {
+        this.monitoringId = monitoringId;
+        this.monitoringCode = monitoringCode;
+        this.access = new Access(ownerId, userIds);
+        this.buffer = new ReadingRingBuffer(bufferCapacity);
+        this.maxMetrics = maxMetrics;
+    }
+
+    /**
+     * Accepts readings of a metric, rejecting a metric the series has not seen once it has
+     * {@code maxMetrics} of them.
+     */
+    public void admit(final int metricId) {
+        if (!slots.containsKey(metricId)) {
+            assignSlot(metricId, true);
+        }
+    }
+
+    public void checkRoomForMetric() {
+        if (slots.size() >= maxMetrics) {
+            throw new IllegalArgumentException("Monitoring " + monitoringCode + " already has the maximum of "
+                    + maxMetrics + " metrics");
+        }
+    }
+
+    public int metricCount() {
+        return slots.size();
+    }
+
+    /**
+     * Slot of a metric, or -1 if the series has not seen it.
+     */
+    public int slotOf(final int metricId) {
+        final Integer slot = slots.get(metricId);
+        return slot != null ? slot : -1;
+    }
+
+    // Readings recovered from the WAL were admitted before, so they are never rejected
+    private int slot(final int metricId) {
+        final Integer slot = slots.get(metricId);
+        return slot != null ? slot : assignSlot(metricId, false);
+    }
+
+    private synchronized int assignSlot(final int metricId, final boolean limited) {
+        final Integer existing = slots.get(metricId);
+        if (existing != null) {
+            return existing;
+        }
+        if (limited) {
+            checkRoomForMetric();
+        }
+        final int slot = slots.size();
+        slots.put(metricId, slot);
+        return slot;
+    }
+
+    public void setAccess(final long ownerId, final long[] userIds) {
+        this.access = new Access(ownerId, userIds);
+    }
+
+    public SeriesBlock openBlock(final int metricId) {
+        final SeriesBlock[] blocks = openBlocks;
+        final int slot = slotOf(metricId);
+        return slot >= 0 && slot < blocks.length ? blocks[slot] : null;
+    }
+
+    public void setOpenBlock(final int metricId, final SeriesBlock block) {
+        final int slot = slot(metricId);
+        SeriesBlock[] blocks = openBlocks;
+        if (slot >= blocks.length) {
+            blocks = Arrays.copyOf(blocks, Math.max(slot + 1, blocks.length << 1));
+        }
+        blocks[slot] = block;
+        openBlocks = blocks;
+    }
+
+    public AlertRuleSet alertRules(final int metricId) {
+        final int slot = slotOf(metricId);
+        return slot >= 0 && slot < alertRules.length ? alertRules[slot] : null;
+    }
+
+    /**
+     * Whether the alert rules were compiled for the given rule generation and every metric the
+     * series has seen. Slots only grow, so a new metric leaves the compiled array too short.
+     */
+    public boolean hasAlertRules(final long generation) {
+        return alertRulesGeneration == generation && alertRules.length == slots.size();
+    }
+
+    public void setAlertRules(final AlertRuleSet[] alertRules, final long generation) {
+        this.alertRules = alertRules;
+        this.alertRulesGeneration = generation;
+    }
+
+    public AnomalyDetector anomalyDetector(final int metricId) {
+        final int slot = slotOf(metricId);
+        return slot >= 0 && slot < anomalyDetectors.length ? anomalyDetectors[slot] : null;
+    }
+
+    public void setAnomalyDetector(final int metricId, final AnomalyDetector detector) {
+        final int slot = slot(metricId);
+        if (slot >= anomalyDetectors.length) {
+            anomalyDetectors = Arrays.copyOf(anomalyDetectors, Math.max(slot + 1, anomalyDetectors.length << 1));
+        }
+        anomalyDetectors[slot] = detector;
+    }
+
+    public boolean isAccessibleBy(final User user) {
+        final Access current = access;
+        if (user.getRole().name().equals("ADMIN") || user.getId() == current.ownerId()) {
+            return true;
+        }
+        for (final long userId : current.userIds()) {
+            if (userId == user.getId()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Access(long ownerId, long[] userIds) {
+    }
+}
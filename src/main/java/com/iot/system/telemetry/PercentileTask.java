@@ -0,0 +1,81 @@
+package com.iot.system.telemetry;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Builds per-bucket quantile sketches from chunk slices, splitting like {@link AggregationTask}.
+ * Sketched chunks that fall inside a single bucket are merged from their stored sketch without
+ * being decoded.
+ */
+public class PercentileTask extends RecursiveTask<BucketSketches> {
+
+    private static final int LEAF_SAMPLES = 16_384;
+
+    private final ChunkSlice[] slices;
+    private final int low;
+    private final int high;
+    private final long origin;
+    private final long step;
+    private final int bucketCount;
+
+    public PercentileTask(final ChunkSlice[] slices, final long origin, final long step, final int bucketCount) {
+        this(slices, 0, slices.length, origin, step, bucketCount);
+    }
+
+    private PercentileTask(final ChunkSlice[] slices, final int low, final int high, final long origin,
+                           final long step, final int bucketCount) {
+        this.slices = slices;
+        this.low = low;
+        this.high = high;
+        this.origin = origin;
+        this.step = step;
+        this.bucketCount = bucketCount;
+    }
+
+    @Override
+    protected BucketSketches compute() {
+        if (high - low > 1 && samples() > LEAF_SAMPLES) {
+            final int middle = (low + high) >>> 1;
+            final PercentileTask left = new PercentileTask(slices, low, middle, origin, step, bucketCount);
+            final PercentileTask right = new PercentileTask(slices, middle, high, origin, step, bucketCount);
+            left.fork();
+            final BucketSketches rightResult = right.compute();
+            return left.join().merge(rightResult);
+        }
+        final BucketSketches result = new BucketSketches(origin, step, bucketCount);
+        for (int i = low; i < high; i++) {
+            sketch(slices[i], result);
+        }
+        return result;
+    }
+
+    private long samples() {
+        long samples = 0;
+        for (int i = low; i < high; i++) {
+            samples += slices[i].chunk().getCount();
+        }
+        return samples;
+    }
+
+    private void sketch(final ChunkSlice slice, final BucketSketches result) {
+        final Chunk chunk = slice.chunk();
+        final long from = slice.from();
+        final long to = slice.to();
+        final int firstBucket = result.bucketOf(chunk.getStartTimestamp());
+        if (chunk.getSketch() != null && chunk.getStartTimestamp() >= from && chunk.getEndTimestamp() < to
+                && firstBucket == result.bucketOf(chunk.getEndTimestamp())) {
+            result.merge(firstBucket, chunk.sketch());
+            return;
+        }
+        final GorillaDecoder decoder = chunk.decoder();
+        while (decoder.next()) {
+            final long timestamp = decoder.timestamp();
+            if (timestamp >= to) {
+                break;
+            }
+            if (timestamp >= from) {
+                result.add(result.bucketOf(timestamp), decoder.value());
+            }
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.iot.system.telemetry;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * DDSketch: values are counted in logarithmic bins so that every quantile is answered within 1%
+ * relative error. Sketches built anywhere use the same bins, so merging two sketches is adding
+ * their bin counts and gives exactly the sketch of the combined samples. Not thread-safe.
+ * <p>
+ * Encoding: a format byte, the zero count as a varint, min and max, then the positive and negative
+ * bins, each as an {@code int} offset, the number of bins and the bin counts as varints. Sketches
+ * written before the counts were varints start with the zero count as a {@code long}, which is
+ * never negative, and are still decoded.
+ */
+public final class QuantileSketch {
+
+    static final double RELATIVE_ACCURACY = 0.01;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    // Magnitudes below this are counted as zero
+    private static final double MIN_INDEXABLE = 1e-9;
+    // Bounds memory; with 1% accuracy 2048 bins span 35 orders of magnitude before collapsing
+    private static final int MAX_BINS = 2048;
+    // Negative, so it never matches the first byte of a legacy encoding
+    private static final byte VARINT_FORMAT = -1;
+
+    private final Bins positive = new Bins();
+    private final Bins negative = new Bins();
+    private long zeroCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public void add(final double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return;
+        }
+        if (value > MIN_INDEXABLE) {
+            positive.add(index(value), 1);
+        } else if (value < -MIN_INDEXABLE) {
+            negative.add(index(-value), 1);
+        } else {
+            zeroCount++;
+        }
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public QuantileSketch merge(final QuantileSketch other) {
+        if (other.count == 0) {
+            return this;
+        }
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeroCount += other.zeroCount;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        return this;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the value at quantile {@code q} in {@code [0, 1]}, or NaN for an empty sketch.
+     */
+    public double quantile(final double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        final long rank = (long) (q * (count - 1));
+        final double value;
+        if (rank < negative.total) {
+            // Negative values run from the largest magnitude down
+            value = -negative.valueAtReverseRank(rank);
+        } else if (rank < negative.total + zeroCount) {
+            value = 0;
+        } else {
+            value = positive.valueAtRank(rank - negative.total - zeroCount);
+        }
+        return Math.max(min, Math.min(max, value));
+    }
+
+    public byte[] encode() {
+        final ByteBuffer buffer = ByteBuffer.allocate(encodedSize());
+        encode(buffer);
+        return buffer.array();
+    }
+
+    public int encodedSize() {
+        return 1 + varLongSize(zeroCount) + 2 * Double.BYTES + positive.encodedSize() + negative.encodedSize();
+    }
+
+    public void encode(final ByteBuffer buffer) {
+        buffer.put(VARINT_FORMAT);
+        putVarLong(buffer, zeroCount);
+        buffer.putDouble(min).putDouble(max);
+        positive.encode(buffer);
+        negative.encode(buffer);
+    }
+
+    public static QuantileSketch decode(final byte[] data) {
+        return decode(ByteBuffer.wrap(data));
+    }
+
+    public static QuantileSketch decode(final ByteBuffer buffer) {
+        final QuantileSketch sketch = new QuantileSketch();
+        final boolean varints = buffer.get(buffer.position()) == VARINT_FORMAT;
+        if (varints) {
+            buffer.get();
+            sketch.zeroCount = getVarLong(buffer);
+        } else {
+            sketch.zeroCount = buffer.getLong();
+        }
+        sketch.min = buffer.getDouble();
+        sketch.max = buffer.getDouble();
+        sketch.positive.decode(buffer, varints);
+        sketch.negative.decode(buffer, varints);
+        sketch.count = sketch.zeroCount + sketch.positive.total + sketch.negative.total;
+        return sketch;
+    }
+
+    private static int index(final double magnitude) {
+        return (int) Math.ceil(Math.log(magnitude) / LOG_GAMMA);
+    }
+
+    private static double value(final int index) {
+        // Midpoint of (gamma^(i-1), gamma^i] in relative terms
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+
+    private static int varLongSize(final long value) {
+        return Math.max(1, (64 - Long.numberOfLeadingZeros(value) + 6) / 7);
+    }
+
+    private static void putVarLong(final ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long getVarLong(final ByteBuffer buffer) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in quantile sketch");
+    }
+
+    /**
+     * Dense counts of the bins from the lowest to the highest index seen.
+     */
+    private static final class Bins {
+        private int offset;
+        private long[] counts = new long[0];
+        private long total;
+
+        void add(final int index, final long n) {
+            if (counts.length == 0) {
+                offset = index;
+                counts = new long[1];
+            } else if (index < offset) {
+                final int shift = offset - index;
+                if (counts.length + shift > MAX_BINS) {
+                    // Out of room below: fold the value into the lowest bin kept
+                    counts[0] += n;
+                    total += n;
+                    return;
+                }
+                final long[] grown = new long[counts.length + shift];
+                System.arraycopy(counts, 0, grown, shift, counts.length);
+                counts = grown;
+                offset = index;
+            } else if (index - offset >= counts.length) {
+                if (index - offset + 1 > MAX_BINS) {
+                    collapseLowest(index - offset + 1 - MAX_BINS);
+                }
+                counts = Arrays.copyOf(counts, index - offset + 1);
+            }
+            counts[index - offset] += n;
+            total += n;
+        }
+
+        void merge(final Bins other) {
+            if (other.counts.length == 0) {
+                return;
+            }
+            // Extend to both ends first so the loop does not reallocate
+            add(other.offset, 0);
+            add(other.offset + other.counts.length - 1, 0);
+            for (int i = 0; i < other.counts.length; i++) {
+                if (other.counts[i] != 0) {
+                    add(other.offset + i, other.counts[i]);
+                }
+            }
+        }
+
+        double valueAtRank(final long rank) {
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen > rank) {
+                    return value(offset + i);
+                }
+            }
+            return value(offset + counts.length - 1);
+        }
+
+        double valueAtReverseRank(final long rank) {
+            long seen = 0;
+            for (int i = counts.length - 1; i >= 0; i--) {
+                seen += counts[i];
+                if (seen > rank) {
+                    return value(offset + i);
+                }
+            }
+            return value(offset);
+        }
+
+        private void collapseLowest(final int bins) {
+            long collapsed = 0;
+            final long[] shifted = new long[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                if (i <= bins) {
+                    collapsed += counts[i];
+                } else {
+                    shifted[i - bins] = counts[i];
+                }
+            }
+            shifted[0] = collapsed;
+            counts = shifted;
+            offset += bins;
+        }
+
+        int encodedSize() {
+            int size = Integer.BYTES + varLongSize(counts.length);
+            for (final long binCount : counts) {
+                size += varLongSize(binCount);
+            }
+            return size;
+        }
+
+        void encode(final ByteBuffer buffer) {
+            buffer.putInt(offset);
+            putVarLong(buffer, counts.length);
+            for (final long binCount : counts) {
+                putVarLong(buffer, binCount);
+            }
+        }
+
+        void decode(final ByteBuffer buffer, final boolean varints) {
+            offset = buffer.getInt();
+            counts = new long[varints ? (int) getVarLong(buffer) : buffer.getInt()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = varints ? getVarLong(buffer) : buffer.getInt();
+                total += counts[i];
+            }
+        }
+
+    }
+}
@@ -0,0 +1,40 @@
+package com.iot.system.telemetry;
+
+/**
+ * Per-thread scratch columns that request parsing decodes into, so ingestion allocates nothing per reading.
+ */
+public final class ReadingColumns {
+
+    private static final ThreadLocal<ReadingColumns> CURRENT = new ThreadLocal<>();
+
+    private final int[] metricIds;
+    private final long[] timestamps;
+    private final double[] values;
+
+    private ReadingColumns(final int capacity) {
+        this.metricIds = new int[capacity];
+        this.timestamps = new long[capacity];
+        this.values = new double[capacity];
+    }
+
+    public static ReadingColumns forCurrentThread(final int capacity) {
+        ReadingColumns columns = CURRENT.get();
+        if (columns == null || columns.metricIds.length != capacity) {
+            columns = new ReadingColumns(capacity);
+            CURRENT.set(columns);
+        }
+        return columns;
+    }
+
+    public int[] metricIds() {
+        return metricIds;
+    }
+
+    public long[] timestamps() {
+        return timestamps;
+    }
+
+    public double[] values() {
+        return values;
+    }
+}
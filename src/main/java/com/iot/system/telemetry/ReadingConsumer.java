@@ -0,0 +1,7 @@
+package com.iot.system.telemetry;
+
+@FunctionalInterface
+public interface ReadingConsumer {
+
+    void accept(int metricId, long timestamp, double value, long lsn);
+}
@@ -0,0 +1,102 @@
+package com.iot.system.telemetry;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded multi-producer / single-consumer ring of readings stored in primitive columns.
+ * Producers claim a contiguous range of slots under the buffer's monitor, which the ingestion
+ * pipeline also holds while it appends the readings to the WAL so that they reach the ring in WAL
+ * order. Slots are filled and published individually outside the monitor, so producers copy
+ * concurrently; the flusher thread is the only consumer and advances the head. Each slot also
+ * carries the WAL position of its reading.
+ */
+public class ReadingRingBuffer {
+
+    private static final int DISCARDED = -1;
+
+    private final int capacity;
+    private final int mask;
+    private final int[] metricIds;
+    private final long[] timestamps;
+    private final double[] values;
+    private final long[] lsns;
+    private final AtomicLongArray published;
+    // Written under the monitor, read without it by size()
+    private volatile long tail;
+    private volatile long head;
+
+    public ReadingRingBuffer(final int requestedCapacity) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("Ring buffer capacity must be at least 2");
+        }
+        this.capacity = 1 << (32 - Integer.numberOfLeadingZeros(requestedCapacity - 1));
+        this.mask = capacity - 1;
+        this.metricIds = new int[capacity];
+        this.timestamps = new long[capacity];
+        this.values = new double[capacity];
+        this.lsns = new long[capacity];
+        this.published = new AtomicLongArray(capacity);
+    }
+
+    // Reserves slots and returns the sequence of the first, or -1 when the buffer cannot take them
+    public synchronized long claim(final int length) {
+        if (length <= 0) {
+            throw new IllegalArgumentException("Claim length must be positive, was " + length);
+        }
+        final long start = tail;
+        if (length > capacity || start + length - head > capacity) {
+            return -1;
+        }
+        tail = start + length;
+        return start;
+    }
+
+    public void publish(final long start, final int[] metricIdBatch, final long[] timestampBatch,
+                        final double[] valueBatch, final int offset, final int length, final long lsn) {
+        for (int i = 0; i < length; i++) {
+            final long sequence = start + i;
+            final int index = (int) sequence & mask;
+            metricIds[index] = metricIdBatch[offset + i];
+            timestamps[index] = timestampBatch[offset + i];
+            values[index] = valueBatch[offset + i];
+            lsns[index] = WriteAheadLog.readingLsn(lsn, length, i);
+            published.lazySet(index, sequence + 1);
+        }
+    }
+
+    // Releases claimed slots that will never carry readings; the consumer skips them
+    public void discard(final long start, final int length) {
+        for (int i = 0; i < length; i++) {
+            final long sequence = start + i;
+            final int index = (int) sequence & mask;
+            metricIds[index] = DISCARDED;
+            published.lazySet(index, sequence + 1);
+        }
+    }
+
+    public int drain(final ReadingConsumer consumer, final int limit) {
+        long sequence = head;
+        int drained = 0;
+        while (drained < limit) {
+            final int index = (int) sequence & mask;
+            if (published.get(index) != sequence + 1) {
+                break;
+            }
+            if (metricIds[index] != DISCARDED) {
+                consumer.accept(metricIds[index], timestamps[index], values[index], lsns[index]);
+            }
+            sequence++;
+            drained++;
+        }
+        head = sequence;
+        return drained;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail - head);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,82 @@
+package com.iot.system.telemetry;
+
+import com.iot.system.model.RetentionPolicy;
+import com.iot.system.repository.MonitoringRepository;
+import com.iot.system.repository.RetentionPolicyRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Resolves the effective retention of a monitoring: its own policy, then the policy of its
+ * industry type, then the configured defaults.
+ */
+@Component
+public class RetentionPolicyResolver {
+
+    private final RetentionPolicyRepository retentionPolicyRepository;
+    private final MonitoringRepository monitoringRepository;
+    private final RetentionPolicy defaults = new RetentionPolicy();
+
+    public RetentionPolicyResolver(final RetentionPolicyRepository retentionPolicyRepository,
+                                   final MonitoringRepository monitoringRepository,
+                                   @Value("${telemetry.retention.raw-days}") final int rawDays,
+                                   @Value("${telemetry.retention.minute-days}") final int minuteDays,
+                                   @Value("${telemetry.retention.hour-days}") final int hourDays,
+                                   @Value("${telemetry.retention.day-days}") final int dayDays) {
+        this.retentionPolicyRepository = retentionPolicyRepository;
+        this.monitoringRepository = monitoringRepository;
+        defaults.setRawDays(rawDays);
+        defaults.setMinuteDays(minuteDays);
+        defaults.setHourDays(hourDays);
+        defaults.setDayDays(dayDays);
+    }
+
+    public RetentionPolicy resolve(final long monitoringId, final String industryType) {
+        return merge(retentionPolicyRepository.findByMonitoringId(monitoringId).orElse(null),
+                industryType != null ? retentionPolicyRepository.findByIndustryType(industryType).orElse(null) : null);
+    }
+
+    public Map<Long, RetentionPolicy> resolveAll() {
+        final Map<Long, RetentionPolicy> byMonitoring = new HashMap<>();
+        final Map<String, RetentionPolicy> byIndustry = new HashMap<>();
+        for (final RetentionPolicy policy : retentionPolicyRepository.findAll()) {
+            if (policy.getMonitoringId() != null) {
+                byMonitoring.put(policy.getMonitoringId(), policy);
+            } else if (policy.getIndustryType() != null) {
+                byIndustry.put(policy.getIndustryType(), policy);
+            }
+        }
+        final List<Object[]> monitorings = monitoringRepository.findIdsWithIndustryType();
+        final Map<Long, RetentionPolicy> effective = new HashMap<>(monitorings.size() * 2);
+        for (final Object[] row : monitorings) {
+            final Long monitoringId = (Long) row[0];
+            effective.put(monitoringId, merge(byMonitoring.get(monitoringId), byIndustry.get((String) row[1])));
+        }
+        return effective;
+    }
+
+    private RetentionPolicy merge(final RetentionPolicy monitoringPolicy, final RetentionPolicy industryPolicy) {
+        final RetentionPolicy effective = new RetentionPolicy();
+        effective.setRawDays(pick(RetentionPolicy::getRawDays, monitoringPolicy, industryPolicy));
+        effective.setMinuteDays(pick(RetentionPolicy::getMinuteDays, monitoringPolicy, industryPolicy));
+        effective.setHourDays(pick(RetentionPolicy::getHourDays, monitoringPolicy, industryPolicy));
+        effective.setDayDays(pick(RetentionPolicy::getDayDays, monitoringPolicy, industryPolicy));
+        return effective;
+    }
+
+    private Integer pick(final Function<RetentionPolicy, Integer> field, final RetentionPolicy monitoringPolicy,
+                         final RetentionPolicy industryPolicy) {
+        if (monitoringPolicy != null && field.apply(monitoringPolicy) != null) {
+            return field.apply(monitoringPolicy);
+        }
+        if (industryPolicy != null && field.apply(industryPolicy) != null) {
+            return field.apply(industryPolicy);
+        }
+        return field.apply(defaults);
+    }
+}
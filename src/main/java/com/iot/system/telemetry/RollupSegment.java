@@ -0,0 +1,178 @@
+package com.iot.system.telemetry;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Fixed run of rollup slots of one tier. Guarded by the owning {@link SeriesRollups}.
+ */
+public class RollupSegment {
+
+    private static final int SLOT_BYTES = Short.BYTES + Integer.BYTES + 5 * Long.BYTES;
+
+    private final RollupTier tier;
+    private final long segmentStart;
+    private final int[] count;
+    private final double[] min;
+    private final double[] max;
+    private final double[] sum;
+    private final double[] last;
+    private final long[] lastTimestamp;
+    // Allocated on the first sketched value, only for tiers that keep sketches
+    private QuantileSketch[] sketches;
+    private Long persistentId;
+    private boolean dirty;
+
+    public RollupSegment(final RollupTier tier, final long segmentStart, final Long persistentId) {
+        this.tier = tier;
+        this.segmentStart = segmentStart;
+        this.count = new int[tier.slots()];
+        this.min = new double[tier.slots()];
+        this.max = new double[tier.slots()];
+        this.sum = new double[tier.slots()];
+        this.last = new double[tier.slots()];
+        this.lastTimestamp = new long[tier.slots()];
+        this.persistentId = persistentId;
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        Arrays.fill(lastTimestamp, Long.MIN_VALUE);
+    }
+
+    public RollupTier getTier() {
+        return tier;
+    }
+
+    public long getSegmentStart() {
+        return segmentStart;
+    }
+
+    public Long getPersistentId() {
+        return persistentId;
+    }
+
+    void setPersistentId(final Long persistentId) {
+        this.persistentId = persistentId;
+    }
+
+    boolean isDirty() {
+        return dirty;
+    }
+
+    void markClean() {
+        dirty = false;
+    }
+
+    void add(final long timestamp, final double value, final boolean sketched) {
+        final int slot = tier.slotOf(segmentStart, timestamp);
+        if (sketched && tier.sketched()) {
+            if (sketches == null) {
+                sketches = new QuantileSketch[tier.slots()];
+            }
+            if (sketches[slot] == null) {
+                sketches[slot] = new QuantileSketch();
+            }
+            sketches[slot].add(value);
+        }
+        min[slot] = Math.min(min[slot], value);
+        max[slot] = Math.max(max[slot], value);
+        sum[slot] += value;
+        count[slot]++;
+        if (timestamp >= lastTimestamp[slot]) {
+            lastTimestamp[slot] = timestamp;
+            last[slot] = value;
+        }
+        dirty = true;
+    }
+
+    void aggregate(final long from, final long to, final BucketAggregates result) {
+        final int firstSlot = (int) Math.max(0, Math.min(tier.slots(), Math.floorDiv(from - segmentStart, tier.width())));
+        final int endSlot = (int) Math.max(0, Math.min(tier.slots(), Math.floorDiv(to - segmentStart, tier.width())));
+        for (int slot = firstSlot; slot < endSlot; slot++) {
+            if (count[slot] > 0) {
+                result.add(result.bucketOf(segmentStart + slot * tier.width()), count[slot], min[slot], max[slot],
+                        sum[slot], lastTimestamp[slot], last[slot]);
+            }
+        }
+    }
+
+    void sketches(final long from, final long to, final BucketSketches result) {
+        if (sketches == null) {
+            return;
+        }
+        final int firstSlot = (int) Math.max(0, Math.min(tier.slots(), Math.floorDiv(from - segmentStart, tier.width())));
+        final int endSlot = (int) Math.max(0, Math.min(tier.slots(), Math.floorDiv(to - segmentStart, tier.width())));
+        for (int slot = firstSlot; slot < endSlot; slot++) {
+            if (sketches[slot] != null) {
+                result.merge(result.bucketOf(segmentStart + slot * tier.width()), sketches[slot]);
+            }
+        }
+    }
+
+    byte[] encode() {
+        int filled = 0;
+        for (final int slotCount : count) {
+            if (slotCount > 0) {
+                filled++;
+            }
+        }
+        // Sketches follow the slot table; segments written before they existed simply end there
+        int sketched = 0;
+        int sketchBytes = 0;
+        if (sketches != null) {
+            for (final QuantileSketch sketch : sketches) {
+                if (sketch != null) {
+                    sketched++;
+                    sketchBytes += Short.BYTES + sketch.encodedSize();
+                }
+            }
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + filled * SLOT_BYTES
+                + (sketched > 0 ? Integer.BYTES + sketchBytes : 0));
+        buffer.putInt(filled);
+        for (int slot = 0; slot < count.length; slot++) {
+            if (count[slot] > 0) {
+                buffer.putShort((short) slot)
+                        .putInt(count[slot])
+                        .putDouble(min[slot])
+                        .putDouble(max[slot])
+                        .putDouble(sum[slot])
+                        .putDouble(last[slot])
+                        .putLong(lastTimestamp[slot]);
+            }
+        }
+        if (sketched > 0) {
+            buffer.putInt(sketched);
+            for (int slot = 0; slot < sketches.length; slot++) {
+                if (sketches[slot] != null) {
+                    buffer.putShort((short) slot);
+                    sketches[slot].encode(buffer);
+                }
+            }
+        }
+        return buffer.array();
+    }
+
+    static RollupSegment decode(final RollupTier tier, final long segmentStart, final Long persistentId, final byte[] data) {
+        final RollupSegment segment = new RollupSegment(tier, segmentStart, persistentId);
+        final ByteBuffer buffer = ByteBuffer.wrap(data);
+        final int filled = buffer.getInt();
+        for (int i = 0; i < filled; i++) {
+            final int slot = buffer.getShort();
+            segment.count[slot] = buffer.getInt();
+            segment.min[slot] = buffer.getDouble();
+            segment.max[slot] = buffer.getDouble();
+            segment.sum[slot] = buffer.getDouble();
+            segment.last[slot] = buffer.getDouble();
+            segment.lastTimestamp[slot] = buffer.getLong();
+        }
+        if (buffer.hasRemaining()) {
+            final int sketched = buffer.getInt();
+            segment.sketches = new QuantileSketch[tier.slots()];
+            for (int i = 0; i < sketched; i++) {
+                final int slot = buffer.getShort();
+                segment.sketches[slot] = QuantileSketch.decode(buffer);
+            }
+        }
+        return segment;
+    }
+}
@@ -0,0 +1,180 @@
+package com.iot.system.telemetry;
+
+import com.iot.system.model.TelemetryRollup;
+import com.iot.system.repository.TelemetryChunkRepository;
+import com.iot.system.repository.TelemetryRollupRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps minute, hour and day rollups of every series. A background job folds each persisted chunk
+ * into the rollups and commits the touched segments together with the chunk's rolled-up flag, so a
+ * crash never counts a chunk twice.
+ */
+@Component
+public class RollupStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RollupStore.class);
+
+    private final TelemetryRollupRepository telemetryRollupRepository;
+    private final TelemetryChunkRepository telemetryChunkRepository;
+    private final ChunkStore chunkStore;
+    private final TransactionTemplate transactionTemplate;
+    private final long intervalMs;
+
+    private final Map<Long, Map<Integer, SeriesRollups>> index = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService roller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "telemetry-rollup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Rollup thread state
+    private final Set<SeriesRollups> dirtySeries = new LinkedHashSet<>();
+    private final List<Long> rolledUpChunkIds = new ArrayList<>();
+
+    public RollupStore(final TelemetryRollupRepository telemetryRollupRepository,
+                       final TelemetryChunkRepository telemetryChunkRepository,
+                       final ChunkStore chunkStore,
+                       final TransactionTemplate transactionTemplate,
+                       @Value("${telemetry.rollup.interval-ms}") final long intervalMs) {
+        this.telemetryRollupRepository = telemetryRollupRepository;
+        this.telemetryChunkRepository = telemetryChunkRepository;
+        this.chunkStore = chunkStore;
+        this.transactionTemplate = transactionTemplate;
+        this.intervalMs = intervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        final List<TelemetryRollup> rollups = telemetryRollupRepository.findAll();
+        for (final TelemetryRollup rollup : rollups) {
+            seriesRollups(rollup.getMonitoringId(), rollup.getMetricId()).restore(
+                    RollupSegment.decode(rollup.getTier(), rollup.getSegmentStart(), rollup.getId(), rollup.getData()));
+        }
+        logger.info("Loaded {} telemetry rollup segments", rollups.size());
+        roller.scheduleWithFixedDelay(this::rollUpSafely, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        roller.shutdown();
+        roller.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    public SeriesRollups rollups(final long monitoringId, final int metricId) {
+        final Map<Integer, SeriesRollups> byMetric = index.get(monitoringId);
+        return byMetric != null ? byMetric.get(metricId) : null;
+    }
+
+    /**
+     * Drops rollup segments of the tier that lie entirely before the cutoff and returns the number
+     * of segments removed.
+     */
+    public int expire(final long monitoringId, final RollupTier tier, final long cutoff) {
+        final Map<Integer, SeriesRollups> byMetric = index.get(monitoringId);
+        if (byMetric == null) {
+            return 0;
+        }
+        final List<Long> ids = new ArrayList<>();
+        for (final SeriesRollups rollups : byMetric.values()) {
+            rollups.expire(tier, cutoff).forEach(segment -> ids.add(segment.getPersistentId()));
+        }
+        if (!ids.isEmpty()) {
+            telemetryRollupRepository.deleteAllByIdInBatch(ids);
+        }
+        return ids.size();
+    }
+
+    public void deleteSeries(final long monitoringId) {
+        telemetryRollupRepository.deleteByMonitoringId(monitoringId);
+    }
+
+    public void evictSeries(final long monitoringId) {
+        index.remove(monitoringId);
+    }
+
+    private void rollUpSafely() {
+        try {
+            rollUp();
+        } catch (Exception e) {
+            logger.error("Telemetry rollup failed", e);
+        }
+    }
+
+    void rollUp() {
+        Chunk chunk;
+        while ((chunk = chunkStore.pollRollupCandidate()) != null) {
+            if (!chunkStore.containsSeries(chunk.getMonitoringId())) {
+                continue;
+            }
+            final SeriesRollups rollups = seriesRollups(chunk.getMonitoringId(), chunk.getMetricId());
+            rollups.fold(chunk);
+            dirtySeries.add(rollups);
+            rolledUpChunkIds.add(chunk.getPersistentId());
+        }
+        if (rolledUpChunkIds.isEmpty()) {
+            return;
+        }
+
+        final List<SeriesRollups> owners = new ArrayList<>();
+        final List<RollupSegment> segments = new ArrayList<>();
+        final List<TelemetryRollup> entities = new ArrayList<>();
+        for (final SeriesRollups rollups : dirtySeries) {
+            if (!index.containsKey(rollups.getMonitoringId())) {
+                continue;
+            }
+            for (final RollupSegment segment : rollups.dirtySegments()) {
+                owners.add(rollups);
+                segments.add(segment);
+                entities.add(toEntity(rollups, segment));
+            }
+        }
+        try {
+            final List<TelemetryRollup> saved = transactionTemplate.execute(status -> {
+                telemetryChunkRepository.markRolledUp(rolledUpChunkIds);
+                return telemetryRollupRepository.saveAll(entities);
+            });
+            for (int i = 0; i < segments.size(); i++) {
+                owners.get(i).markPersisted(segments.get(i), saved.get(i).getId());
+            }
+            dirtySeries.clear();
+            rolledUpChunkIds.clear();
+        } catch (Exception e) {
+            // Folded state stays in memory and is retried with the next batch
+            logger.error("Failed to persist {} telemetry rollup segments", entities.size(), e);
+        }
+    }
+
+    private SeriesRollups seriesRollups(final long monitoringId, final int metricId) {
+        return index.computeIfAbsent(monitoringId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(metricId, id -> new SeriesRollups(monitoringId, metricId));
+    }
+
+    private TelemetryRollup toEntity(final SeriesRollups rollups, final RollupSegment segment) {
+        final TelemetryRollup entity = new TelemetryRollup();
+        entity.setId(segment.getPersistentId());
+        entity.setMonitoringId(rollups.getMonitoringId());
+        entity.setMetricId(rollups.getMetricId());
+        entity.setTier(segment.getTier());
+        entity.setSegmentStart(segment.getSegmentStart());
+        entity.setData(rollups.encode(segment));
+        return entity;
+    }
+}
@@ -0,0 +1,68 @@
+package com.iot.system.telemetry;
+
+public enum RollupTier {
+    // Minute slots carry no sketches: 1440 per segment would dominate the rollup memory, and
+    // minute-level percentiles are served from the chunk sketches instead
+    MINUTE(60_000L, 1440, false),
+    HOUR(3_600_000L, 720, true),
+    DAY(86_400_000L, 365, true);
+
+    private final long width;
+    private final int slots;
+    private final boolean sketched;
+
+    RollupTier(final long width, final int slots, final boolean sketched) {
+        this.width = width;
+        this.slots = slots;
+        this.sketched = sketched;
+    }
+
+    public long width() {
+        return width;
+    }
+
+    public int slots() {
+        return slots;
+    }
+
+    public boolean sketched() {
+        return sketched;
+    }
+
+    public long segmentStart(final long timestamp) {
+        final long span = width * slots;
+        return Math.floorDiv(timestamp, span) * span;
+    }
+
+    public int slotOf(final long segmentStart, final long timestamp) {
+        return (int) ((timestamp - segmentStart) / width);
+    }
+
+    /**
+     * Coarsest tier whose slots map onto whole buckets of the given step, or null when the step is
+     * finer than a minute or not a multiple of one.
+     */
+    public static RollupTier coarsestFor(final long step) {
+        final RollupTier[] tiers = values();
+        for (int i = tiers.length - 1; i >= 0; i--) {
+            if (step % tiers[i].width == 0) {
+                return tiers[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Coarsest tier with quantile sketches whose slots map onto whole buckets of the given step,
+     * or null when there is none.
+     */
+    public static RollupTier coarsestSketchedFor(final long step) {
+        final RollupTier[] tiers = values();
+        for (int i = tiers.length - 1; i >= 0; i--) {
+            if (tiers[i].sketched && step % tiers[i].width == 0) {
+                return tiers[i];
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,81 @@
+package com.iot.system.telemetry;
+
+/**
+ * Open, appendable block of one metric of one monitoring. Only the flusher thread appends;
+ * queries take consistent snapshots under the same monitor.
+ */
+public class SeriesBlock {
+
+    private final long monitoringId;
+    private final int metricId;
+    private final GorillaEncoder encoder = new GorillaEncoder();
+    private final QuantileSketch sketch;
+
+    private long startTimestamp;
+    private long endTimestamp;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private double sum;
+    private double lastValue;
+    // Highest WAL position of the readings in the block
+    private long lsn;
+    private Long persistentId;
+    private int checkpointedCount;
+
+    public SeriesBlock(final long monitoringId, final int metricId) {
+        this(monitoringId, metricId, false);
+    }
+
+    public SeriesBlock(final long monitoringId, final int metricId, final boolean sketched) {
+        this.monitoringId = monitoringId;
+        this.metricId = metricId;
+        this.sketch = sketched ? new QuantileSketch() : null;
+    }
+
+    public int metricId() {
+        return metricId;
+    }
+
+    public synchronized boolean accepts(final long timestamp, final int maxSamples, final long maxSpanMs) {
+        final int count = encoder.count();
+        return count == 0 || (count < maxSamples && timestamp >= endTimestamp && timestamp - startTimestamp < maxSpanMs);
+    }
+
+    public void append(final long timestamp, final double value) {
+        append(timestamp, value, 0);
+    }
+
+    public synchronized void append(final long timestamp, final double value, final long lsn) {
+        if (encoder.count() == 0) {
+            startTimestamp = timestamp;
+        }
+        encoder.append(timestamp, value);
+        endTimestamp = timestamp;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        sum += value;
+        lastValue = value;
+        this.lsn = Math.max(this.lsn, lsn);
+        if (sketch != null) {
+            sketch.add(value);
+        }
+    }
+
+    public synchronized int count() {
+        return encoder.count();
+    }
+
+    public synchronized Chunk snapshot() {
+        return new Chunk(monitoringId, metricId, startTimestamp, endTimestamp, encoder.count(), min, max, sum,
+                lastValue, encoder.toByteArray(), sketch != null ? sketch.encode() : null, lsn, persistentId);
+    }
+
+    public synchronized boolean hasUncheckpointedSamples() {
+        return encoder.count() != checkpointedCount;
+    }
+
+    public synchronized void markCheckpointed(final Chunk snapshot) {
+        persistentId = snapshot.getPersistentId();
+        checkpointedCount = snapshot.getCount();
+    }
+}
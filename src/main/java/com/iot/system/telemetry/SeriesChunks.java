@@ -0,0 +1,90 @@
+package com.iot.system.telemetry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sealed chunks of one metric of one monitoring, ordered by start timestamp. Writers copy the
+ * array on change so range scans can read it without locking.
+ */
+public class SeriesChunks {
+
+    private static final Comparator<Chunk> BY_START = Comparator.comparingLong(Chunk::getStartTimestamp);
+
+    private volatile Chunk[] chunks = new Chunk[0];
+    private volatile long maxSpan;
+    // Never lowered when chunks are removed, so expired readings are not recovered again
+    private volatile long lsn;
+
+    public synchronized void add(final Chunk chunk) {
+        final Chunk[] current = chunks;
+        int index = Arrays.binarySearch(current, chunk, BY_START);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        final Chunk[] updated = new Chunk[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, index);
+        updated[index] = chunk;
+        System.arraycopy(current, index, updated, index + 1, current.length - index);
+        maxSpan = Math.max(maxSpan, chunk.getEndTimestamp() - chunk.getStartTimestamp());
+        lsn = Math.max(lsn, chunk.getLsn());
+        chunks = updated;
+    }
+
+    /**
+     * Swaps the given chunks for the replacement, or only removes them when it is null. Returns
+     * false without changes if any of them is no longer present.
+     */
+    public synchronized boolean replace(final List<Chunk> removed, final Chunk replacement) {
+        final List<Chunk> remaining = new ArrayList<>(Arrays.asList(chunks));
+        for (final Chunk chunk : removed) {
+            if (!remaining.remove(chunk)) {
+                return false;
+            }
+        }
+        if (replacement != null) {
+            int index = Collections.binarySearch(remaining, replacement, BY_START);
+            remaining.add(index < 0 ? -index - 1 : index, replacement);
+            maxSpan = Math.max(maxSpan, replacement.getEndTimestamp() - replacement.getStartTimestamp());
+            lsn = Math.max(lsn, replacement.getLsn());
+        }
+        chunks = remaining.toArray(new Chunk[0]);
+        return true;
+    }
+
+    public List<Chunk> overlapping(final long from, final long to) {
+        final Chunk[] current = chunks;
+        final long lowestStart = from - maxSpan;
+        int low = 0;
+        int high = current.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (current[middle].getStartTimestamp() < lowestStart) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        final List<Chunk> result = new ArrayList<>();
+        for (int i = low; i < current.length && current[i].getStartTimestamp() < to; i++) {
+            if (current[i].overlaps(from, to)) {
+                result.add(current[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Highest WAL position of a reading in one of the chunks.
+     */
+    public long lsn() {
+        return lsn;
+    }
+
+    public Chunk[] toArray() {
+        return chunks;
+    }
+}
@@ -0,0 +1,118 @@
+package com.iot.system.telemetry;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Rollup segments of one metric of one monitoring for every tier. Folding a chunk and flagging it
+ * as rolled up happen under this monitor, so a query holding it sees every chunk either in the
+ * slots or as raw data, never both.
+ */
+public class SeriesRollups {
+
+    private final long monitoringId;
+    private final int metricId;
+    private final Map<RollupTier, NavigableMap<Long, RollupSegment>> segments = new EnumMap<>(RollupTier.class);
+
+    public SeriesRollups(final long monitoringId, final int metricId) {
+        this.monitoringId = monitoringId;
+        this.metricId = metricId;
+        for (final RollupTier tier : RollupTier.values()) {
+            segments.put(tier, new TreeMap<>());
+        }
+    }
+
+    public long getMonitoringId() {
+        return monitoringId;
+    }
+
+    public int getMetricId() {
+        return metricId;
+    }
+
+    synchronized void restore(final RollupSegment segment) {
+        segments.get(segment.getTier()).put(segment.getSegmentStart(), segment);
+    }
+
+    synchronized void fold(final Chunk chunk) {
+        final GorillaDecoder decoder = chunk.decoder();
+        final boolean sketched = chunk.getSketch() != null;
+        final RollupSegment[] current = new RollupSegment[RollupTier.values().length];
+        while (decoder.next()) {
+            final long timestamp = decoder.timestamp();
+            final double value = decoder.value();
+            for (final RollupTier tier : RollupTier.values()) {
+                RollupSegment segment = current[tier.ordinal()];
+                if (segment == null || segment.getSegmentStart() != tier.segmentStart(timestamp)) {
+                    segment = segments.get(tier).computeIfAbsent(tier.segmentStart(timestamp),
+                            start -> new RollupSegment(tier, start, null));
+                    current[tier.ordinal()] = segment;
+                }
+                segment.add(timestamp, value, sketched);
+            }
+        }
+        chunk.markRolledUp();
+    }
+
+    /**
+     * Adds every slot of the tier inside {@code [from, to)}; both bounds must be aligned to the tier width.
+     */
+    public synchronized void aggregate(final RollupTier tier, final long from, final long to, final BucketAggregates result) {
+        final NavigableMap<Long, RollupSegment> tierSegments = segments.get(tier);
+        final Long first = tierSegments.floorKey(from);
+        for (final RollupSegment segment : tierSegments.subMap(first != null ? first : from, true, to, false).values()) {
+            segment.aggregate(from, to, result);
+        }
+    }
+
+    /**
+     * Merges the sketch of every slot of the tier inside {@code [from, to)}; both bounds must be
+     * aligned to the tier width.
+     */
+    public synchronized void sketches(final RollupTier tier, final long from, final long to, final BucketSketches result) {
+        final NavigableMap<Long, RollupSegment> tierSegments = segments.get(tier);
+        final Long first = tierSegments.floorKey(from);
+        for (final RollupSegment segment : tierSegments.subMap(first != null ? first : from, true, to, false).values()) {
+            segment.sketches(from, to, result);
+        }
+    }
+
+    /**
+     * Removes persisted segments of the tier that end at or before the cutoff and returns them.
+     */
+    synchronized List<RollupSegment> expire(final RollupTier tier, final long cutoff) {
+        final List<RollupSegment> expired = new ArrayList<>();
+        final long span = tier.width() * tier.slots();
+        final Iterator<RollupSegment> iterator = segments.get(tier).headMap(cutoff - span, true).values().iterator();
+        while (iterator.hasNext()) {
+            final RollupSegment segment = iterator.next();
+            if (!segment.isDirty() && segment.getPersistentId() != null) {
+                expired.add(segment);
+                iterator.remove();
+            }
+        }
+        return expired;
+    }
+
+    synchronized List<RollupSegment> dirtySegments() {
+        final List<RollupSegment> dirty = new ArrayList<>();
+        segments.values().forEach(tierSegments -> tierSegments.values().stream()
+                .filter(RollupSegment::isDirty)
+                .forEach(dirty::add));
+        return dirty;
+    }
+
+    synchronized byte[] encode(final RollupSegment segment) {
+        return segment.encode();
+    }
+
+    synchronized void markPersisted(final RollupSegment segment, final Long persistentId) {
+        segment.setPersistentId(persistentId);
+        segment.markClean();
+    }
+}
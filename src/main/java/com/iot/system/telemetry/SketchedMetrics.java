@@ -0,0 +1,33 @@
+package com.iot.system.telemetry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Decides which metrics keep quantile sketches per chunk and per hour and day rollup slot.
+ * Percentiles of other metrics are still answered, by scanning their raw chunks.
+ */
+@Component
+public class SketchedMetrics {
+
+    private final MetricDictionary metricDictionary;
+    private final Pattern pattern;
+    private final Map<Integer, Boolean> decisions = new ConcurrentHashMap<>();
+
+    public SketchedMetrics(final MetricDictionary metricDictionary,
+                           @Value("${telemetry.sketch.metric-pattern}") final String pattern) {
+        this.metricDictionary = metricDictionary;
+        this.pattern = Pattern.compile(pattern);
+    }
+
+    public boolean isSketched(final int metricId) {
+        return decisions.computeIfAbsent(metricId, id -> {
+            final String name = metricDictionary.nameOf(id);
+            return name != null && pattern.matcher(name).matches();
+        });
+    }
+}
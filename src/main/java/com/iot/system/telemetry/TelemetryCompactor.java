@@ -0,0 +1,172 @@
+package com.iot.system.telemetry;
+
+import com.iot.system.model.RetentionPolicy;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Low-priority background job that applies retention policies to raw chunks and rollups and merges
+ * runs of small adjacent chunks. All of its database work is paced by an {@link IoThrottle}.
+ */
+@Component
+public class TelemetryCompactor {
+
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryCompactor.class);
+    private static final int EXPIRE_BATCH_CHUNKS = 100;
+
+    private final ChunkStore chunkStore;
+    private final RollupStore rollupStore;
+    private final RetentionPolicyResolver retentionPolicyResolver;
+    private final long intervalMs;
+    private final int smallChunkSamples;
+    private final int maxChunkSamples;
+    private final long maxChunkSpanMs;
+    private final IoThrottle throttle;
+
+    private final ScheduledExecutorService compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "telemetry-compactor");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    @Autowired
+    public TelemetryCompactor(final ChunkStore chunkStore, final RollupStore rollupStore,
+                              final RetentionPolicyResolver retentionPolicyResolver,
+                              @Value("${telemetry.compaction.interval-ms}") final long intervalMs,
+                              @Value("${telemetry.compaction.small-chunk-samples}") final int smallChunkSamples,
+                              @Value("${telemetry.storage.block-max-samples}") final int maxChunkSamples,
+                              @Value("${telemetry.compaction.max-chunk-span-ms}") final long maxChunkSpanMs,
+                              @Value("${telemetry.compaction.max-bytes-per-second}") final long maxBytesPerSecond) {
+        this(chunkStore, rollupStore, retentionPolicyResolver, intervalMs, smallChunkSamples, maxChunkSamples,
+                maxChunkSpanMs, new IoThrottle(maxBytesPerSecond));
+    }
+
+    TelemetryCompactor(final ChunkStore chunkStore, final RollupStore rollupStore,
+                       final RetentionPolicyResolver retentionPolicyResolver, final long intervalMs,
+                       final int smallChunkSamples, final int maxChunkSamples, final long maxChunkSpanMs,
+                       final IoThrottle throttle) {
+        this.chunkStore = chunkStore;
+        this.rollupStore = rollupStore;
+        this.retentionPolicyResolver = retentionPolicyResolver;
+        this.intervalMs = intervalMs;
+        this.smallChunkSamples = smallChunkSamples;
+        this.maxChunkSamples = maxChunkSamples;
+        this.maxChunkSpanMs = maxChunkSpanMs;
+        this.throttle = throttle;
+    }
+
+    @PostConstruct
+    public void start() {
+        compactor.scheduleWithFixedDelay(this::compactSafely, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        compactor.shutdownNow();
+    }
+
+    private void compactSafely() {
+        try {
+            compact();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Telemetry compaction failed", e);
+        }
+    }
+
+    void compact() throws InterruptedException {
+        final Map<Long, RetentionPolicy> policies = retentionPolicyResolver.resolveAll();
+        final long now = System.currentTimeMillis();
+        long expiredBytes = 0;
+        int merged = 0;
+        int expiredSegments = 0;
+        for (final Long monitoringId : chunkStore.monitoringIds()) {
+            final RetentionPolicy policy = policies.get(monitoringId);
+            if (policy == null) {
+                continue;
+            }
+            for (final SeriesChunks series : chunkStore.series(monitoringId).values()) {
+                if (policy.getRawDays() > 0) {
+                    expiredBytes += expireChunks(series, now - Duration.ofDays(policy.getRawDays()).toMillis());
+                }
+                merged += mergeSmallChunks(series);
+            }
+            expiredSegments += expireRollups(monitoringId, RollupTier.MINUTE, policy.getMinuteDays(), now);
+            expiredSegments += expireRollups(monitoringId, RollupTier.HOUR, policy.getHourDays(), now);
+            expiredSegments += expireRollups(monitoringId, RollupTier.DAY, policy.getDayDays(), now);
+        }
+        if (expiredBytes > 0 || merged > 0 || expiredSegments > 0) {
+            logger.info("Telemetry compaction freed {} bytes of raw chunks, merged {} chunks and dropped {} rollup segments",
+                    expiredBytes, merged, expiredSegments);
+        }
+    }
+
+    private long expireChunks(final SeriesChunks series, final long cutoff) throws InterruptedException {
+        final List<Chunk> expired = chunkStore.expired(series, cutoff);
+        long freed = 0;
+        for (int from = 0; from < expired.size(); from += EXPIRE_BATCH_CHUNKS) {
+            final List<Chunk> batch = expired.subList(from, Math.min(from + EXPIRE_BATCH_CHUNKS, expired.size()));
+            throttle.acquire(ChunkStore.bytes(batch));
+            freed += chunkStore.delete(series, batch);
+        }
+        return freed;
+    }
+
+    private int mergeSmallChunks(final SeriesChunks series) throws InterruptedException {
+        int merged = 0;
+        final List<Chunk> run = new ArrayList<>();
+        int runSamples = 0;
+        for (final Chunk chunk : series.toArray()) {
+            final boolean extendsRun = !run.isEmpty()
+                    && chunk.getStartTimestamp() > run.get(run.size() - 1).getEndTimestamp()
+                    && runSamples + chunk.getCount() <= maxChunkSamples
+                    && chunk.getEndTimestamp() - run.get(0).getStartTimestamp() <= maxChunkSpanMs;
+            final boolean small = chunk.isRolledUp() && chunk.getCount() < smallChunkSamples;
+            if (small && extendsRun) {
+                run.add(chunk);
+                runSamples += chunk.getCount();
+                continue;
+            }
+            merged += mergeRun(series, run);
+            run.clear();
+            runSamples = 0;
+            if (small) {
+                run.add(chunk);
+                runSamples = chunk.getCount();
+            }
+        }
+        return merged + mergeRun(series, run);
+    }
+
+    private int mergeRun(final SeriesChunks series, final List<Chunk> run) throws InterruptedException {
+        if (run.size() < 2) {
+            return 0;
+        }
+        // The merged chunk is about as large as the run, so writing it and deleting the run costs twice its bytes
+        throttle.acquire(2 * ChunkStore.bytes(run));
+        chunkStore.merge(series, run);
+        return run.size();
+    }
+
+    private int expireRollups(final long monitoringId, final RollupTier tier, final int retentionDays, final long now) {
+        if (retentionDays <= 0) {
+            return 0;
+        }
+        return rollupStore.expire(monitoringId, tier, now - Duration.ofDays(retentionDays).toMillis());
+    }
+}
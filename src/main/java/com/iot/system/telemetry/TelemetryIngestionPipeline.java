@@ -0,0 +1,181 @@
+package com.iot.system.telemetry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+public class TelemetryIngestionPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryIngestionPipeline.class);
+
+    private final TelemetrySeriesRegistry seriesRegistry;
+    private final ChunkStore chunkStore;
+    private final WriteAheadLog writeAheadLog;
+    private final AlertEngine alertEngine;
+    private final AnomalyEngine anomalyEngine;
+    private final long flushIntervalMs;
+    private final int flushBatchSize;
+    private final long checkpointIntervalMs;
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "telemetry-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Appends hold the read side; a checkpoint takes the write side only to roll the WAL, so every
+    // record in a closed segment is guaranteed to be in a ring buffer already
+    private final ReentrantReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+
+    // Flusher thread state
+    private MonitoredSeries currentSeries;
+    private final ReadingConsumer collector = this::collect;
+    private long lastCheckpoint;
+
+    public TelemetryIngestionPipeline(final TelemetrySeriesRegistry seriesRegistry, final ChunkStore chunkStore,
+                                      final WriteAheadLog writeAheadLog, final AlertEngine alertEngine,
+                                      final AnomalyEngine anomalyEngine,
+                                      @Value("${telemetry.ingestion.flush-interval-ms}") final long flushIntervalMs,
+                                      @Value("${telemetry.ingestion.flush-batch-size}") final int flushBatchSize,
+                                      @Value("${telemetry.wal.checkpoint-interval-ms}") final long checkpointIntervalMs) {
+        this.seriesRegistry = seriesRegistry;
+        this.chunkStore = chunkStore;
+        this.writeAheadLog = writeAheadLog;
+        this.alertEngine = alertEngine;
+        this.anomalyEngine = anomalyEngine;
+        this.flushIntervalMs = flushIntervalMs;
+        this.flushBatchSize = flushBatchSize;
+        this.checkpointIntervalMs = checkpointIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        recover();
+        flusher.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+        seriesRegistry.all().forEach(chunkStore::sealAll);
+        chunkStore.persistPending();
+    }
+
+    public boolean append(final MonitoredSeries series, final int[] metricIds, final long[] timestamps,
+                          final double[] values, final int offset, final int length) {
+        if (length == 0) {
+            return true;
+        }
+        final ReadingRingBuffer buffer = series.getBuffer();
+        final long start;
+        final long lsn;
+        checkpointLock.readLock().lock();
+        try {
+            // Recovery relies on the readings of a series reaching the ring in WAL order, so the
+            // claim and the WAL append share the buffer's monitor; only the copy into the slots
+            // runs concurrently with other producers
+            synchronized (buffer) {
+                start = buffer.claim(length);
+                if (start < 0) {
+                    return false;
+                }
+                try {
+                    lsn = writeAheadLog.append(series.getMonitoringId(), metricIds, timestamps, values, offset, length);
+                } catch (RuntimeException e) {
+                    buffer.discard(start, length);
+                    throw e;
+                }
+            }
+            buffer.publish(start, metricIds, timestamps, values, offset, length, lsn);
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        writeAheadLog.awaitDurable(lsn);
+        return true;
+    }
+
+    private void recover() {
+        final Map<Long, Optional<MonitoredSeries>> seriesById = new HashMap<>();
+        final long[] replayed = new long[2];
+        writeAheadLog.replay((lsn, monitoringId, metricIds, timestamps, values, length) -> {
+            final Optional<MonitoredSeries> series = seriesById.computeIfAbsent(monitoringId, seriesRegistry::resolveById);
+            if (series.isEmpty()) {
+                replayed[1] += length;
+                return;
+            }
+            for (int i = 0; i < length; i++) {
+                // Readings up to the WAL position of the metric's chunks already made it into one
+                final long readingLsn = WriteAheadLog.readingLsn(lsn, length, i);
+                if (readingLsn > chunkStore.lsn(monitoringId, metricIds[i])) {
+                    chunkStore.append(series.get(), metricIds[i], timestamps[i], values[i], readingLsn);
+                    replayed[0]++;
+                } else {
+                    replayed[1]++;
+                }
+            }
+        });
+        logger.info("Recovered {} readings from the write-ahead log, skipped {}", replayed[0], replayed[1]);
+        checkpoint();
+    }
+
+    private void flushSafely() {
+        try {
+            if (System.currentTimeMillis() - lastCheckpoint >= checkpointIntervalMs) {
+                checkpoint();
+            } else {
+                flush();
+            }
+        } catch (Exception e) {
+            logger.error("Telemetry flush failed", e);
+        }
+    }
+
+    void flush() {
+        for (final MonitoredSeries series : seriesRegistry.all()) {
+            currentSeries = series;
+            int drained;
+            do {
+                drained = series.getBuffer().drain(collector, flushBatchSize);
+            } while (drained == flushBatchSize);
+        }
+        currentSeries = null;
+        chunkStore.persistPending();
+        alertEngine.persistPending();
+        anomalyEngine.persistPending();
+    }
+
+    private void checkpoint() {
+        final long firstLiveSegment;
+        checkpointLock.writeLock().lock();
+        try {
+            firstLiveSegment = writeAheadLog.roll();
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+        flush();
+        if (chunkStore.persistPending() && chunkStore.checkpoint(seriesRegistry.all())) {
+            writeAheadLog.deleteSegmentsBefore(firstLiveSegment);
+        }
+        lastCheckpoint = System.currentTimeMillis();
+    }
+
+    private void collect(final int metricId, final long timestamp, final double value, final long lsn) {
+        chunkStore.append(currentSeries, metricId, timestamp, value, lsn);
+        alertEngine.evaluate(currentSeries, metricId, timestamp, value);
+        anomalyEngine.evaluate(currentSeries, metricId, timestamp, value);
+    }
+}
@@ -0,0 +1,149 @@
+package com.iot.system.telemetry;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+@Component
+public class TelemetryQueryEngine {
+
+    private final ChunkStore chunkStore;
+    private final TelemetrySeriesRegistry seriesRegistry;
+    private final RollupStore rollupStore;
+    private final SketchedMetrics sketchedMetrics;
+    private final int maxBuckets;
+    private final ForkJoinPool pool;
+
+    public TelemetryQueryEngine(final ChunkStore chunkStore, final TelemetrySeriesRegistry seriesRegistry,
+                                final RollupStore rollupStore, final SketchedMetrics sketchedMetrics,
+                                @Value("${telemetry.query.max-buckets}") final int maxBuckets,
+                                @Value("${telemetry.query.parallelism}") final int parallelism) {
+        this.chunkStore = chunkStore;
+        this.seriesRegistry = seriesRegistry;
+        this.rollupStore = rollupStore;
+        this.sketchedMetrics = sketchedMetrics;
+        this.maxBuckets = maxBuckets;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public BucketAggregates aggregate(final long[] monitoringIds, final int metricId, final long from, final long to,
+                                      final long step) {
+        final int bucketCount = bucketCount(from, to, step);
+        final long origin = Math.floorDiv(from, step) * step;
+
+        // Whole tier slots between the aligned bounds come from the rollups; the edges and any chunk
+        // not rolled up yet are scanned raw
+        final RollupRange range = rollupRange(RollupTier.coarsestFor(step), from, to);
+        final BucketAggregates result = new BucketAggregates(origin, step, bucketCount);
+        final List<ChunkSlice> slices = new ArrayList<>();
+        for (final long monitoringId : monitoringIds) {
+            collectSlices(monitoringId, metricId, from, to, range,
+                    rollups -> rollups.aggregate(range.tier(), range.from(), range.to(), result), slices);
+        }
+        if (slices.isEmpty()) {
+            return result;
+        }
+        return result.merge(pool.invoke(new AggregationTask(slices.toArray(new ChunkSlice[0]), origin, step, bucketCount)));
+    }
+
+    /**
+     * Quantile sketch of a metric per time bucket, merged across the given series. Rollup slot
+     * sketches are only used for metrics that keep them; other metrics are sketched from raw chunks.
+     */
+    public BucketSketches percentiles(final long[] monitoringIds, final int metricId, final long from, final long to,
+                                      final long step) {
+        final int bucketCount = bucketCount(from, to, step);
+        final long origin = Math.floorDiv(from, step) * step;
+
+        final RollupRange range = sketchedMetrics.isSketched(metricId)
+                ? rollupRange(RollupTier.coarsestSketchedFor(step), from, to)
+                : null;
+        final BucketSketches result = new BucketSketches(origin, step, bucketCount);
+        final List<ChunkSlice> slices = new ArrayList<>();
+        for (final long monitoringId : monitoringIds) {
+            collectSlices(monitoringId, metricId, from, to, range,
+                    rollups -> rollups.sketches(range.tier(), range.from(), range.to(), result), slices);
+        }
+        if (slices.isEmpty()) {
+            return result;
+        }
+        return result.merge(pool.invoke(new PercentileTask(slices.toArray(new ChunkSlice[0]), origin, step, bucketCount)));
+    }
+
+    private int bucketCount(final long from, final long to, final long step) {
+        if (step <= 0 || from >= to) {
+            throw new IllegalArgumentException("Query requires a positive step and 'from' before 'to'");
+        }
+        final long origin = Math.floorDiv(from, step) * step;
+        final long buckets = (to - origin + step - 1) / step;
+        if (buckets > maxBuckets) {
+            throw new IllegalArgumentException("Query would produce " + buckets + " buckets, the maximum is " + maxBuckets);
+        }
+        return (int) buckets;
+    }
+
+    private static RollupRange rollupRange(final RollupTier tier, final long from, final long to) {
+        if (tier == null) {
+            return null;
+        }
+        final long alignedFrom = Math.floorDiv(from + tier.width() - 1, tier.width()) * tier.width();
+        final long alignedTo = Math.floorDiv(to, tier.width()) * tier.width();
+        return alignedFrom < alignedTo ? new RollupRange(tier, alignedFrom, alignedTo) : null;
+    }
+
+    private void collectSlices(final long monitoringId, final int metricId, final long from, final long to,
+                               final RollupRange range, final Consumer<SeriesRollups> rollupReader,
+                               final List<ChunkSlice> slices) {
+        // The open block is captured before the sealed chunks; if it gets sealed in between, the
+        // sealed copy is already in the chunk list and the snapshot is dropped
+        final MonitoredSeries series = seriesRegistry.cached(monitoringId);
+        final SeriesBlock block = series != null ? series.openBlock(metricId) : null;
+        Chunk open = block != null && block.count() > 0 ? block.snapshot() : null;
+        final List<Chunk> chunks = chunkStore.chunks(monitoringId, metricId, from, to);
+        for (final Chunk chunk : chunks) {
+            if (open != null && chunk.getStartTimestamp() == open.getStartTimestamp() && chunk.getCount() >= open.getCount()) {
+                open = null;
+            }
+        }
+        if (open != null && open.overlaps(from, to)) {
+            slices.add(new ChunkSlice(open, from, to));
+        }
+
+        final SeriesRollups rollups = range != null ? rollupStore.rollups(monitoringId, metricId) : null;
+        if (rollups == null) {
+            chunks.forEach(chunk -> slices.add(new ChunkSlice(chunk, from, to)));
+            return;
+        }
+        synchronized (rollups) {
+            rollupReader.accept(rollups);
+            for (final Chunk chunk : chunks) {
+                if (!chunk.isRolledUp()) {
+                    slices.add(new ChunkSlice(chunk, from, to));
+                    continue;
+                }
+                if (chunk.overlaps(from, range.from())) {
+                    slices.add(new ChunkSlice(chunk, from, range.from()));
+                }
+                if (chunk.overlaps(range.to(), to)) {
+                    slices.add(new ChunkSlice(chunk, range.to(), to));
+                }
+            }
+        }
+    }
+
+    /**
+     * Tier slots covering {@code [from, to)}, both aligned to the tier width.
+     */
+    private record RollupRange(RollupTier tier, long from, long to) {
+    }
+}
@@ -0,0 +1,115 @@
+package com.iot.system.telemetry;
+
+import com.iot.system.exception.ResourceNotFoundException;
+import com.iot.system.model.Monitoring;
+import com.iot.system.repository.MonitoringRepository;
+import com.iot.system.user.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class TelemetrySeriesRegistry {
+
+    private final MonitoringRepository monitoringRepository;
+    private final int bufferCapacity;
+    private final int maxMetricsPerSeries;
+
+    private final Map<String, MonitoredSeries> seriesByCode = new ConcurrentHashMap<>();
+    private final Map<Long, MonitoredSeries> seriesById = new ConcurrentHashMap<>();
+    private final Map<String, MonitoredSeries> seriesByDeviceCode = new ConcurrentHashMap<>();
+
+    public TelemetrySeriesRegistry(final MonitoringRepository monitoringRepository,
+                                   @Value("${telemetry.ingestion.buffer-capacity}") final int bufferCapacity,
+                                   @Value("${telemetry.metrics.max-per-monitoring}") final int maxMetricsPerSeries) {
+        this.monitoringRepository = monitoringRepository;
+        this.bufferCapacity = bufferCapacity;
+        this.maxMetricsPerSeries = maxMetricsPerSeries;
+    }
+
+    public MonitoredSeries resolve(final String monitoringCode) {
+        final MonitoredSeries cached = seriesByCode.get(monitoringCode);
+        if (cached != null) {
+            return cached;
+        }
+        final Monitoring monitoring = monitoringRepository.findWithUsersByMonitoringCode(monitoringCode)
+                .orElseThrow(() -> new ResourceNotFoundException("Monitoring not found"));
+        return register(monitoring);
+    }
+
+    public MonitoredSeries resolveByDeviceCode(final String deviceCode) {
+        final MonitoredSeries cached = seriesByDeviceCode.get(deviceCode);
+        // Entries of evicted monitorings are not removed eagerly, so check the series is still live
+        if (cached != null && seriesById.get(cached.getMonitoringId()) == cached) {
+            return cached;
+        }
+        final Monitoring monitoring = monitoringRepository.findWithUsersByDevice_DeviceCode(deviceCode)
+                .orElseThrow(() -> new ResourceNotFoundException("Monitoring not found for device " + deviceCode));
+        final MonitoredSeries series = register(monitoring);
+        seriesByDeviceCode.put(deviceCode, series);
+        return series;
+    }
+
+    public Optional<MonitoredSeries> resolveById(final long monitoringId) {
+        final MonitoredSeries cached = seriesById.get(monitoringId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return monitoringRepository.findWithUsersById(monitoringId).map(this::register);
+    }
+
+    public MonitoredSeries cached(final long monitoringId) {
+        return seriesById.get(monitoringId);
+    }
+
+    public MonitoredSeries cached(final String monitoringCode) {
+        return seriesByCode.get(monitoringCode);
+    }
+
+    public Collection<MonitoredSeries> all() {
+        return seriesByCode.values();
+    }
+
+    public void evict(final String monitoringCode) {
+        final MonitoredSeries series = seriesByCode.remove(monitoringCode);
+        if (series != null) {
+            seriesById.remove(series.getMonitoringId());
+        }
+    }
+
+    /**
+     * Reloads the owner and users allowed on a cached series and forgets which device codes led to
+     * it, since the monitoring may have moved to another device. Series of deleted monitorings are evicted.
+     */
+    public void refresh(final long monitoringId) {
+        final MonitoredSeries series = seriesById.get(monitoringId);
+        if (series == null) {
+            return;
+        }
+        seriesByDeviceCode.values().removeIf(cached -> cached == series);
+        monitoringRepository.findWithUsersById(monitoringId).ifPresentOrElse(
+                monitoring -> series.setAccess(monitoring.getCreatedBy().getId(), userIdsOf(monitoring)),
+                () -> evict(series.getMonitoringCode()));
+    }
+
+    private MonitoredSeries register(final Monitoring monitoring) {
+        final MonitoredSeries series = seriesByCode.computeIfAbsent(monitoring.getMonitoringCode(), code -> createSeries(monitoring));
+        seriesById.putIfAbsent(series.getMonitoringId(), series);
+        return series;
+    }
+
+    private MonitoredSeries createSeries(final Monitoring monitoring) {
+        return new MonitoredSeries(monitoring.getId(), monitoring.getMonitoringCode(),
+                monitoring.getCreatedBy().getId(), userIdsOf(monitoring), bufferCapacity, maxMetricsPerSeries);
+    }
+
+    private static long[] userIdsOf(final Monitoring monitoring) {
+        final List<User> users = monitoring.getUsers() != null ? monitoring.getUsers() : List.of();
+        return users.stream().mapToLong(User::getId).toArray();
+    }
+}
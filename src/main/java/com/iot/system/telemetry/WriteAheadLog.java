@@ -0,0 +1,316 @@
+package com.iot.system.telemetry;
+
+import com.iot.system.exception.ServiceUnavailableException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Segmented, memory-mapped write-ahead log for readings accepted by the ingestion pipeline.
+ * <p>
+ * Record layout: {@code int payloadLength, int crc32c, long monitoringId, int count} followed by
+ * {@code count} entries of {@code int metricId, long timestamp, double value}. A zero length marks
+ * the end of a segment. Appends are serialized by a short lock; a committer thread forces the
+ * mapped segment periodically so concurrent writers share one fsync (group commit).
+ * <p>
+ * A record's position (LSN) is its segment id in the high 32 bits and the offset of its end in
+ * the low ones, so positions keep growing across restarts and segment size changes. Each reading
+ * of a record is numbered back from that position, which keeps reading positions unique and
+ * ordered because every entry takes more than one byte.
+ */
+@Component
+public class WriteAheadLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int PAYLOAD_HEADER_BYTES = 12;
+    private static final int ENTRY_BYTES = 20;
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final long DURABILITY_TIMEOUT_MS = 5000;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long syncIntervalNanos;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Object durableMonitor = new Object();
+    private final CRC32C crc = new CRC32C();
+
+    private volatile Segment current;
+    private volatile long writtenLsn;
+    private volatile long durableLsn;
+    private volatile boolean running;
+    private Thread committer;
+
+    public WriteAheadLog(@Value("${telemetry.wal.dir}") final String directory,
+                         @Value("${telemetry.wal.segment-size}") final int segmentSize,
+                         @Value("${telemetry.wal.sync-interval-ms}") final long syncIntervalMs) {
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSize;
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(syncIntervalMs);
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        final List<Long> existing = segmentIds();
+        final long nextId = existing.isEmpty() ? 1 : existing.get(existing.size() - 1) + 1;
+        current = Segment.create(segmentPath(nextId), nextId, segmentSize);
+        writtenLsn = current.lsn();
+        durableLsn = writtenLsn;
+
+        running = true;
+        committer = new Thread(this::commitLoop, "telemetry-wal-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        committer.join(TimeUnit.SECONDS.toMillis(5));
+        current.buffer.force();
+    }
+
+    public long append(final long monitoringId, final int[] metricIds, final long[] timestamps,
+                       final double[] values, final int offset, final int length) {
+        final int payloadLength = PAYLOAD_HEADER_BYTES + length * ENTRY_BYTES;
+        final int recordLength = RECORD_HEADER_BYTES + payloadLength;
+        if (recordLength + Integer.BYTES > segmentSize) {
+            throw new IllegalArgumentException("Batch of " + length + " readings does not fit in a WAL segment");
+        }
+
+        appendLock.lock();
+        try {
+            Segment segment = current;
+            if (segment.position + recordLength + Integer.BYTES > segmentSize) {
+                segment = rollLocked();
+            }
+            final MappedByteBuffer buffer = segment.buffer;
+            final int start = segment.position;
+            final int payloadStart = start + RECORD_HEADER_BYTES;
+
+            buffer.putLong(payloadStart, monitoringId);
+            buffer.putInt(payloadStart + 8, length);
+            int position = payloadStart + PAYLOAD_HEADER_BYTES;
+            for (int i = offset; i < offset + length; i++) {
+                buffer.putInt(position, metricIds[i]);
+                buffer.putLong(position + 4, timestamps[i]);
+                buffer.putDouble(position + 12, values[i]);
+                position += ENTRY_BYTES;
+            }
+            crc.reset();
+            crc.update(buffer.slice(payloadStart, payloadLength));
+            buffer.putInt(start + 4, (int) crc.getValue());
+            buffer.putInt(start, payloadLength);
+
+            segment.position = position;
+            final long lsn = segment.lsn();
+            writtenLsn = lsn;
+            return lsn;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public void awaitDurable(final long lsn) {
+        if (durableLsn >= lsn) {
+            return;
+        }
+        final long deadline = System.currentTimeMillis() + DURABILITY_TIMEOUT_MS;
+        synchronized (durableMonitor) {
+            while (durableLsn < lsn) {
+                final long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new ServiceUnavailableException("Timed out waiting for the telemetry write-ahead log");
+                }
+                try {
+                    durableMonitor.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ServiceUnavailableException("Interrupted while waiting for the telemetry write-ahead log");
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes the active segment and starts a new one. Every segment with an id lower than the
+     * returned one is immutable from now on.
+     */
+    public long roll() {
+        appendLock.lock();
+        try {
+            return rollLocked().id;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public void deleteSegmentsBefore(final long segmentId) {
+        for (final long id : segmentIds()) {
+            if (id >= segmentId) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(segmentPath(id));
+            } catch (IOException e) {
+                logger.error("Failed to delete WAL segment {}", id, e);
+            }
+        }
+    }
+
+    public void replay(final RecordConsumer consumer) {
+        int[] metricIds = new int[0];
+        long[] timestamps = new long[0];
+        double[] values = new double[0];
+        final CRC32C replayCrc = new CRC32C();
+
+        for (final long id : segmentIds()) {
+            if (id >= current.id) {
+                break;
+            }
+            final ByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(segmentPath(id), StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open WAL segment " + id, e);
+            }
+
+            int position = 0;
+            int records = 0;
+            while (position + RECORD_HEADER_BYTES <= buffer.limit()) {
+                final int payloadLength = buffer.getInt(position);
+                if (payloadLength < PAYLOAD_HEADER_BYTES || payloadLength > buffer.limit() - position - RECORD_HEADER_BYTES) {
+                    break;
+                }
+                final int payloadStart = position + RECORD_HEADER_BYTES;
+                replayCrc.reset();
+                replayCrc.update(buffer.slice(payloadStart, payloadLength));
+                if ((int) replayCrc.getValue() != buffer.getInt(position + 4)) {
+                    logger.warn("WAL segment {} has a torn record at offset {}, stopping replay of this segment", id, position);
+                    break;
+                }
+
+                final long monitoringId = buffer.getLong(payloadStart);
+                final int count = buffer.getInt(payloadStart + 8);
+                if (count > metricIds.length) {
+                    metricIds = new int[count];
+                    timestamps = new long[count];
+                    values = new double[count];
+                }
+                int entry = payloadStart + PAYLOAD_HEADER_BYTES;
+                for (int i = 0; i < count; i++) {
+                    metricIds[i] = buffer.getInt(entry);
+                    timestamps[i] = buffer.getLong(entry + 4);
+                    values[i] = buffer.getDouble(entry + 12);
+                    entry += ENTRY_BYTES;
+                }
+                position = payloadStart + payloadLength;
+                consumer.accept(lsn(id, position), monitoringId, metricIds, timestamps, values, count);
+                records++;
+            }
+            logger.info("Replayed {} records from WAL segment {}", records, id);
+        }
+    }
+
+    private Segment rollLocked() {
+        final Segment previous = current;
+        previous.buffer.force();
+        try {
+            current = Segment.create(segmentPath(previous.id + 1), previous.id + 1, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create WAL segment " + (previous.id + 1), e);
+        }
+        return current;
+    }
+
+    private void commitLoop() {
+        while (running) {
+            final long target = writtenLsn;
+            if (target > durableLsn) {
+                try {
+                    current.buffer.force();
+                    synchronized (durableMonitor) {
+                        durableLsn = target;
+                        durableMonitor.notifyAll();
+                    }
+                } catch (Exception e) {
+                    logger.error("Failed to sync the telemetry write-ahead log", e);
+                }
+            }
+            LockSupport.parkNanos(syncIntervalNanos);
+        }
+    }
+
+    private List<Long> segmentIds() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list WAL segments in " + directory, e);
+        }
+    }
+
+    static long lsn(final long segmentId, final int position) {
+        return segmentId << 32 | position;
+    }
+
+    static long readingLsn(final long recordLsn, final int length, final int index) {
+        return recordLsn - (length - 1 - index);
+    }
+
+    private Path segmentPath(final long id) {
+        return directory.resolve(String.format("%020d%s", id, SEGMENT_SUFFIX));
+    }
+
+    @FunctionalInterface
+    public interface RecordConsumer {
+        void accept(long lsn, long monitoringId, int[] metricIds, long[] timestamps, double[] values, int length);
+    }
+
+    private static final class Segment {
+        private final long id;
+        private final MappedByteBuffer buffer;
+        private int position;
+
+        private Segment(final long id, final MappedByteBuffer buffer) {
+            this.id = id;
+            this.buffer = buffer;
+        }
+
+        static Segment create(final Path path, final long id, final int size) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return new Segment(id, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            }
+        }
+
+        long lsn() {
+            return WriteAheadLog.lsn(id, position);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.iot.system.admission;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdmissionLimiterTest {
+
+    @Test
+    void shedsOverCapacityAndRecoversOnRelease() {
+        final AdmissionLimiter limiter = new AdmissionLimiter(2, 1.0);
+        assertEquals(AdmissionLimiter.Decision.ADMITTED, limiter.tryAcquire("DEV00001"));
+        assertEquals(AdmissionLimiter.Decision.ADMITTED, limiter.tryAcquire("DEV00002"));
+        assertEquals(AdmissionLimiter.Decision.OVER_CAPACITY, limiter.tryAcquire("DEV00003"));
+        assertEquals(2, limiter.inFlight());
+
+        limiter.release("DEV00001");
+        assertEquals(AdmissionLimiter.Decision.ADMITTED, limiter.tryAcquire("DEV00003"));
+    }
+
+    @Test
+    void shedsKeysOverTheirFairShareUnderLoad() {
+        final AdmissionLimiter limiter = new AdmissionLimiter(8, 0.5);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(AdmissionLimiter.Decision.ADMITTED, limiter.tryAcquire("DEV00001"), "below the threshold");
+        }
+        assertEquals(AdmissionLimiter.Decision.ADMITTED, limiter.tryAcquire("DEV00002"));
+        // Two active keys share eight permits, DEV00001 already holds four
+        assertEquals(AdmissionLimiter.Decision.OVER_FAIR_SHARE, limiter.tryAcquire("DEV00001"));
+        assertEquals(AdmissionLimiter.Decision.ADMITTED, limiter.tryAcquire("DEV00002"));
+        assertEquals(6, limiter.inFlight());
+        assertEquals(2, limiter.activeKeys());
+
+        for (int i = 0; i < 4; i++) {
+            limiter.release("DEV00001");
+        }
+        assertEquals(1, limiter.activeKeys());
+    }
+}
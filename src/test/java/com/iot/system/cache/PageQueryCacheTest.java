@@ -0,0 +1,56 @@
+package com.iot.system.cache;
+
+import com.iot.system.event.DeviceChangedEvent;
+import com.iot.system.event.MonitoringChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PageQueryCacheTest {
+
+    @Test
+    void servesPagesPerQueryAndScopeUntilTheGenerationChanges() {
+        final PageQueryCache cache = new PageQueryCache(16, 60_000);
+        cache.put(cache.key(PageQueryCache.Listing.DEVICES, null, 0, 10, "deviceCode", null), List.of(3L, 1L), 12);
+        cache.put(cache.key(PageQueryCache.Listing.MONITORINGS, 7L, 0, 10, "id", null), List.of(5L), 1);
+
+        final PageQueryCache.CachedPage page = cache.get(cache.key(PageQueryCache.Listing.DEVICES, null, 0, 10, "deviceCode", null));
+        assertEquals(List.of(3L, 1L), page.ids());
+        assertEquals(12, page.totalElements());
+        assertNull(cache.get(cache.key(PageQueryCache.Listing.DEVICES, 7L, 0, 10, "deviceCode", null)));
+        assertNull(cache.get(cache.key(PageQueryCache.Listing.DEVICES, null, 1, 10, "deviceCode", null)));
+
+        cache.onMonitoringChanged(new MonitoringChangedEvent(1, null, null));
+        assertNotNull(cache.get(cache.key(PageQueryCache.Listing.DEVICES, null, 0, 10, "deviceCode", null)));
+        assertNull(cache.get(cache.key(PageQueryCache.Listing.MONITORINGS, 7L, 0, 10, "id", null)));
+
+        final PageQueryCache.Key beforeWrite = cache.key(PageQueryCache.Listing.DEVICES, null, 0, 10, "deviceCode", null);
+        cache.onDeviceChanged(new DeviceChangedEvent(1L, "DVC00001", null, null));
+        // A page read while the write committed is cached under the retired generation
+        cache.put(beforeWrite, List.of(3L), 11);
+        assertNull(cache.get(cache.key(PageQueryCache.Listing.DEVICES, null, 0, 10, "deviceCode", null)));
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedPage() {
+        final PageQueryCache cache = new PageQueryCache(2, 60_000);
+        cache.put(cache.key(PageQueryCache.Listing.DEVICES, null, 0), List.of(1L), 3);
+        cache.put(cache.key(PageQueryCache.Listing.DEVICES, null, 1), List.of(2L), 3);
+        cache.get(cache.key(PageQueryCache.Listing.DEVICES, null, 0));
+        cache.put(cache.key(PageQueryCache.Listing.DEVICES, null, 2), List.of(3L), 3);
+
+        assertNotNull(cache.get(cache.key(PageQueryCache.Listing.DEVICES, null, 0)));
+        assertNull(cache.get(cache.key(PageQueryCache.Listing.DEVICES, null, 1)));
+        assertNotNull(cache.get(cache.key(PageQueryCache.Listing.DEVICES, null, 2)));
+    }
+
+    @Test
+    void ordersLoadedEntitiesByPageIdsAndSkipsDeletedOnes() {
+        assertEquals(List.of("c", "a"),
+                PageQueryCache.inIdOrder(List.of(3L, 2L, 1L), List.of("a", "c"), value -> value.equals("a") ? 1L : 3L));
+    }
+}
@@ -0,0 +1,95 @@
+package com.iot.system.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class SingleFlightTest {
+
+    private static final int FOLLOWERS = 8;
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        final SingleFlight<String, Object> flight = new SingleFlight<>();
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Object value = new Object();
+        final ExecutorService executor = Executors.newFixedThreadPool(FOLLOWERS + 1);
+        try {
+            final Future<Object> leader = executor.submit(() -> flight.load("DVC00001", () -> {
+                loads.incrementAndGet();
+                started.countDown();
+                await(release);
+                return value;
+            }));
+            started.await();
+            final List<Thread> waiting = new ArrayList<>();
+            final List<Future<Object>> followers = new ArrayList<>();
+            for (int i = 0; i < FOLLOWERS; i++) {
+                followers.add(executor.submit(() -> {
+                    synchronized (waiting) {
+                        waiting.add(Thread.currentThread());
+                    }
+                    return flight.load("DVC00001", () -> {
+                        loads.incrementAndGet();
+                        return new Object();
+                    });
+                }));
+            }
+            awaitParked(waiting);
+            release.countDown();
+
+            assertSame(value, leader.get());
+            for (final Future<Object> follower : followers) {
+                assertSame(value, follower.get());
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void sharesFailuresAndLoadsAgainOnceComplete() {
+        final SingleFlight<String, String> flight = new SingleFlight<>();
+        assertThrows(IllegalStateException.class, () -> flight.load("DVC00001", () -> {
+            throw new IllegalStateException("Device not found");
+        }));
+        assertEquals("loaded", flight.load("DVC00001", () -> "loaded"));
+        assertEquals("other", flight.load("DVC00002", () -> "other"));
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitParked(final List<Thread> threads) throws InterruptedException {
+        for (int attempt = 0; attempt < 500; attempt++) {
+            synchronized (threads) {
+                if (threads.size() == FOLLOWERS
+                        && threads.stream().allMatch(thread -> thread.getState() == Thread.State.WAITING)) {
+                    return;
+                }
+            }
+            Thread.sleep(10);
+        }
+        fail("Followers did not start waiting");
+    }
+}
@@ -0,0 +1,139 @@
+package com.iot.system.command;
+
+import com.iot.system.event.DeviceCommandEvent;
+import com.iot.system.event.DeviceStatusChangedEvent;
+import com.iot.system.model.DeviceStatus;
+import com.iot.system.repository.DevicesRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CommandFanOutTest {
+
+    private final DevicesRepository devicesRepository = mock(DevicesRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private CommandFanOut fanOut;
+
+    private CommandFanOut fanOut(final int lanes, final int chunkSize) {
+        final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        fanOut = new CommandFanOut(devicesRepository, mock(EntityManager.class), transactionManager, eventPublisher,
+                lanes, chunkSize, 1000, 60000);
+        return fanOut;
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (fanOut != null) {
+            fanOut.stop();
+        }
+    }
+
+    private static CommandFanOutJob await(final CommandFanOutJob job) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (!job.isCompleted() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.isCompleted());
+        return job;
+    }
+
+    @Test
+    void changesOnlyDevicesNotYetInTheTargetStatus() throws InterruptedException {
+        final List<Object[]> states = new ArrayList<>();
+        states.add(new Object[]{1L, DeviceStatus.OFF});
+        states.add(new Object[]{2L, DeviceStatus.ON});
+        when(devicesRepository.findCommandStates(anyCollection())).thenReturn(states);
+
+        final CommandFanOutJob job = await(fanOut(1, 10).start("Activate", List.of(
+                new CommandFanOut.Target(1L, "DVC00001"),
+                new CommandFanOut.Target(2L, "DVC00002"),
+                new CommandFanOut.Target(3L, "DVC00003")), null));
+
+        assertEquals(3, job.getProcessed());
+        assertEquals(1, job.getChanged());
+        assertEquals(1, job.getUnchanged());
+        assertEquals(1, job.getNotFound());
+        assertEquals(Map.of("DVC00001", CommandFanOutJob.Outcome.CHANGED,
+                "DVC00002", CommandFanOutJob.Outcome.UNCHANGED,
+                "DVC00003", CommandFanOutJob.Outcome.NOT_FOUND), job.getOutcomes());
+        verify(devicesRepository).updateDeviceStatus(eq(List.of(1L)), eq(DeviceStatus.ON), any());
+        // The heartbeat tracker picks the change up from this event once the chunk commits
+        verify(eventPublisher).publishEvent(any(DeviceStatusChangedEvent.class));
+    }
+
+    @Test
+    void sendsOperationsThatKeepTheStatusWithoutUpdating() throws InterruptedException {
+        when(devicesRepository.findCommandStates(anyCollection())).thenAnswer(invocation -> {
+            final List<Object[]> states = new ArrayList<>();
+            for (final Long id : invocation.<Collection<Long>>getArgument(0)) {
+                states.add(new Object[]{id, DeviceStatus.OFF});
+            }
+            return states;
+        });
+        final List<CommandFanOut.Target> targets = new ArrayList<>();
+        for (long id = 1; id <= 7; id++) {
+            targets.add(new CommandFanOut.Target(id, "DVC0000" + id));
+        }
+
+        final CommandFanOutJob job = await(fanOut(3, 2).start("Reboot", targets, 5L));
+
+        assertEquals(7, job.getTotal());
+        assertEquals(7, job.getUnchanged());
+        assertEquals(5L, job.getOwnerId());
+        verify(devicesRepository, never()).updateDeviceStatus(any(), any(), any());
+        final long commands = mockingDetails(eventPublisher).getInvocations().stream()
+                .filter(invocation -> invocation.getArgument(0) instanceof DeviceCommandEvent)
+                .count();
+        assertEquals(7, commands);
+    }
+
+    @Test
+    void marksTheDevicesOfAFailedChunkAsFailed() throws InterruptedException {
+        when(devicesRepository.findCommandStates(anyCollection())).thenThrow(new IllegalStateException("database down"));
+
+        final CommandFanOutJob job = await(fanOut(1, 10).start("Deactivate", List.of(
+                new CommandFanOut.Target(1L, "DVC00001"),
+                new CommandFanOut.Target(2L, "DVC00002")), null));
+
+        assertEquals(2, job.getFailed());
+        assertEquals(0, job.getChanged());
+        verify(eventPublisher, never()).publishEvent(any(DeviceStatusChangedEvent.class));
+    }
+
+    @Test
+    void completesAJobWithoutDevicesImmediately() {
+        final CommandFanOutJob job = fanOut(2, 10).start("Activate", List.of(), null);
+
+        assertTrue(job.isCompleted());
+        assertEquals(0, job.getProcessed());
+        assertEquals(job, fanOut.find(job.getId()).orElseThrow());
+    }
+
+    @Test
+    void mapsOperationsToStatusesLikeASingleCommand() {
+        assertEquals(DeviceStatus.ON, CommandFanOut.targetStatus("Activate"));
+        assertEquals(DeviceStatus.OFF, CommandFanOut.targetStatus("Deactivate"));
+        assertNull(CommandFanOut.targetStatus("Reboot"));
+    }
+}
@@ -0,0 +1,88 @@
+package com.iot.system.config;
+
+import com.iot.system.exception.PayloadTooLargeException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RequestDecompressionFilterTest {
+
+    private final RequestDecompressionFilter filter = new RequestDecompressionFilter(1024 * 1024, 100);
+
+    @Test
+    void inflatesGzipBodyAndHidesEncodingHeaders() throws Exception {
+        final byte[] body = readingsJson(200);
+        final AtomicReference<byte[]> received = new AtomicReference<>();
+        final AtomicReference<String> encoding = new AtomicReference<>();
+
+        filter.doFilter(compressedRequest(gzip(body)), new MockHttpServletResponse(), (request, response) -> {
+            encoding.set(((HttpServletRequest) request).getHeader("Content-Encoding"));
+            received.set(request.getInputStream().readAllBytes());
+        });
+
+        assertArrayEquals(body, received.get());
+        assertNull(encoding.get());
+    }
+
+    @Test
+    void rejectsDecompressionBomb() throws Exception {
+        final MockHttpServletRequest bomb = compressedRequest(gzip(new byte[8 * 1024 * 1024]));
+        final FilterChain readAll = (request, response) -> request.getInputStream().readAllBytes();
+
+        assertThrows(PayloadTooLargeException.class, () -> filter.doFilter(bomb, new MockHttpServletResponse(), readAll));
+    }
+
+    @Test
+    void rejectsUnsupportedEncoding() throws Exception {
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/monitoring/MON00001/readings");
+        request.addHeader("Content-Encoding", "br");
+        request.setContent(new byte[]{1, 2, 3});
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+        });
+
+        assertEquals(415, response.getStatus());
+    }
+
+    private static MockHttpServletRequest compressedRequest(final byte[] compressed) {
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/monitoring/MON00001/readings");
+        request.addHeader("Content-Encoding", "gzip");
+        request.setContentType("application/json");
+        request.setContent(compressed);
+        return request;
+    }
+
+    private static byte[] gzip(final byte[] body) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] readingsJson(final int readings) {
+        final StringBuilder timestamps = new StringBuilder();
+        final StringBuilder values = new StringBuilder();
+        for (int i = 0; i < readings; i++) {
+            timestamps.append(i == 0 ? "" : ",").append(1_720_713_600_000L + i * 1000L);
+            values.append(i == 0 ? "" : ",").append(String.format(Locale.ROOT, "%.1f", 20 + Math.sin(i / 30.0) * 3));
+        }
+        return ("[{\"metric\":\"temperature\",\"timestamps\":[" + timestamps + "],\"values\":[" + values + "]}]")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,90 @@
+package com.iot.system.filter;
+
+import com.iot.system.model.DeviceStatus;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FilterCompilerTest {
+
+    private static String normalized(final String expression) {
+        return FilterNormalizer.normalize(FilterParser.parse(expression)).toString();
+    }
+
+    @Test
+    void normalizesEquivalentExpressionsToTheSameText() {
+        assertEquals("deviceStatus==ON;industryType=in=(Energy,Oil)",
+                normalized("industryType =in= (Oil, Energy, Oil) ; deviceStatus==ON"));
+        assertEquals(normalized("a==1;(b==2;c==3)"), normalized("c==3;b==2;a==1;a==1"));
+        assertEquals("a==1;(b==2,c==3)", normalized("(c==3,b==2);a==1"));
+        assertEquals("industryType==Energy", normalized("industryType=in=(Energy)"));
+        assertEquals("deviceName==\"Boiler pump\"", normalized("deviceName=='Boiler pump'"));
+        assertEquals("createdAt=gt=2024-07-01", normalized("createdAt>2024-07-01"));
+    }
+
+    @Test
+    void rejectsMalformedExpressions() {
+        assertThrows(IllegalArgumentException.class, () -> FilterParser.parse("deviceStatus=="));
+        assertThrows(IllegalArgumentException.class, () -> FilterParser.parse("deviceStatus=~ON"));
+        assertThrows(IllegalArgumentException.class, () -> FilterParser.parse("(a==1;b==2"));
+        assertThrows(IllegalArgumentException.class, () -> FilterParser.parse("a==(1,2)"));
+        assertThrows(IllegalArgumentException.class, () -> FilterParser.parse("a==\"open"));
+    }
+
+    @Test
+    void sharesOnePlanBetweenEquivalentExpressions() {
+        final FilterCompiler<Object> compiler = new FilterCompiler<>(FilterSchema.builder()
+                .text("industryType", root -> root.get("industryType"))
+                .enumeration("deviceStatus", DeviceStatus.class, root -> root.get("deviceStatus"))
+                .alias("status", "deviceStatus")
+                .dateTime("createdAt", root -> root.get("createdAt"))
+                .build(), 2);
+
+        final var plan = compiler.compile("deviceStatus==ON;industryType=in=(Energy,Oil)");
+        assertSame(plan, compiler.compile("deviceStatus==ON;industryType=in=(Energy,Oil)"));
+        assertSame(plan, compiler.compile("industryType=in=(Oil,Energy,Oil);deviceStatus==ON"));
+        assertNotSame(plan, compiler.compile("deviceStatus==OFF"));
+    }
+
+    @Test
+    void rejectsUnknownFieldsAndInvalidArgumentsWhenCompiling() {
+        final FilterCompiler<Object> compiler = new FilterCompiler<>(FilterSchema.builder()
+                .enumeration("deviceStatus", DeviceStatus.class, root -> root.get("deviceStatus"))
+                .dateTime("createdAt", root -> root.get("createdAt"))
+                .build(), 16);
+
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile("url==x"));
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile("deviceStatus==BROKEN"));
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile("deviceStatus=gt=ON"));
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile("createdAt==yesterday"));
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile("createdAt=in=(2024-07-01,yesterday)"));
+    }
+
+    @Test
+    void keepsAWildcardInAnInListLiteral() {
+        final FilterCompiler<Object> compiler = new FilterCompiler<>(FilterSchema.builder()
+                .text("industryType", root -> root.get("industryType"))
+                .build(), 16);
+
+        // * is a wildcard in == only, so a single-argument =in= with * must not become ==
+        assertEquals("industryType=in=(Oil*)", compiler.normalize("industryType=in=(Oil*)"));
+        assertEquals("industryType=out=(Oil*)", compiler.normalize("industryType=out=(Oil*)"));
+        assertEquals("industryType==Oil", compiler.normalize("industryType=in=(Oil)"));
+        assertNotSame(compiler.compile("industryType==Oil*"), compiler.compile("industryType=in=(Oil*)"));
+    }
+
+    @Test
+    void acceptsDatesInListsWhateverTheirCount() {
+        final FilterCompiler<Object> compiler = new FilterCompiler<>(FilterSchema.builder()
+                .dateTime("createdAt", root -> root.get("createdAt"))
+                .build(), 16);
+
+        assertEquals("createdAt==2024-07-01", compiler.normalize("createdAt=in=(2024-07-01)"));
+        compiler.compile("createdAt=in=(2024-07-01)");
+        compiler.compile("createdAt=in=(2024-07-01,2024-07-02T10:00)");
+        compiler.compile("createdAt=out=(2024-07-01,2024-07-02)");
+    }
+}
@@ -0,0 +1,260 @@
+package com.iot.system.gateway;
+
+import com.iot.system.telemetry.MonitoredSeries;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MqttBrokerTest {
+
+    private static final String DEVICE = "DEV00001";
+    private static final String PASSWORD = "device-secret";
+
+    private final AtomicInteger ingestedBatches = new AtomicInteger();
+    private ExecutorService workers;
+    private SelectorLoop loop;
+    private MqttBroker broker;
+    private InetSocketAddress address;
+
+    @BeforeEach
+    void startBroker() throws IOException {
+        final MonitoredSeries series = new MonitoredSeries(1, "MON00001", 1, new long[0], 1024, 16);
+        final GatewayIngestion ingestion = new GatewayIngestion(null, null, null) {
+            @Override
+            MonitoredSeries authenticate(final String deviceCode, final String credential) {
+                if (!DEVICE.equals(deviceCode) || !PASSWORD.equals(credential)) {
+                    throw new GatewayException(GatewayProtocol.AUTH_FAILED, "Invalid device credential", true);
+                }
+                return series;
+            }
+
+            @Override
+            int ingest(final MonitoredSeries target, final ByteBuffer batch) {
+                ingestedBatches.incrementAndGet();
+                return batch.remaining();
+            }
+        };
+        workers = Executors.newFixedThreadPool(2);
+        loop = new SelectorLoop("mqtt-broker-test", 60_000);
+        broker = new MqttBroker(loop, ingestion, workers, 65536, 100, 2);
+        address = loop.listen(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), broker);
+        loop.start();
+    }
+
+    @AfterEach
+    void stopBroker() throws InterruptedException {
+        loop.stop();
+        workers.shutdown();
+    }
+
+    @Test
+    void rejectsInvalidCredentials() throws IOException {
+        try (TestClient client = new TestClient(address)) {
+            client.send(MqttCodec.connect("client", DEVICE, "wrong", true, 30));
+            final Packet connack = client.read();
+            assertEquals(MqttCodec.CONNACK, connack.type());
+            assertEquals(MqttCodec.BAD_USERNAME_OR_PASSWORD, connack.body()[1]);
+        }
+    }
+
+    @Test
+    void routesRetainedMessagesCommandsAndReadings() throws IOException {
+        try (TestClient client = new TestClient(address)) {
+            client.connect(true);
+
+            client.send(MqttCodec.publish(new MqttMessage("devices/DEV00001/status", bytes("online"), 1, true), 1, false));
+            assertEquals(MqttCodec.PUBACK, client.read().type());
+
+            client.send(subscribe(2, "devices/DEV00001/+", "devices/DEV00002/commands"));
+            final Packet suback = client.read();
+            assertEquals(MqttCodec.SUBACK, suback.type());
+            assertArrayEquals(new byte[]{0, 2, 1, (byte) MqttCodec.SUBSCRIPTION_FAILURE}, suback.body());
+
+            final Packet retained = client.read();
+            assertEquals(MqttCodec.PUBLISH, retained.type());
+            assertEquals(0x03, retained.flags(), "QoS 1 with the retain flag");
+            assertEquals("devices/DEV00001/status", retained.topic());
+            client.send(MqttCodec.puback(retained.packetId()));
+
+            broker.publish(new MqttMessage(MqttBroker.commandTopic(DEVICE), bytes("{\"operation\":\"Activate\"}"), 1, false));
+            final Packet command = client.read();
+            assertEquals("devices/DEV00001/commands", command.topic());
+            assertEquals(0x02, command.flags());
+            assertEquals("{\"operation\":\"Activate\"}", new String(command.payload(), StandardCharsets.UTF_8));
+            client.send(MqttCodec.puback(command.packetId()));
+
+            client.send(MqttCodec.publish(new MqttMessage("devices/DEV00001/readings", new byte[]{'I', 'T', 1}, 1, false), 7, false));
+            assertEquals("devices/DEV00001/readings", client.read().topic());
+            final Packet puback = client.read();
+            assertEquals(MqttCodec.PUBACK, puback.type());
+            assertEquals(1, ingestedBatches.get());
+        }
+    }
+
+    @Test
+    void keepsTheNewestRetainedTopicsOfADeviceWithoutReadings() throws IOException {
+        try (TestClient client = new TestClient(address)) {
+            client.connect(true);
+            for (final String topic : List.of("status", "firmware", "location")) {
+                client.send(MqttCodec.publish(new MqttMessage("devices/DEV00001/" + topic, bytes(topic), 1, true), 1, false));
+                assertEquals(MqttCodec.PUBACK, client.read().type());
+            }
+            client.send(MqttCodec.publish(new MqttMessage("devices/DEV00001/readings", new byte[]{'I', 'T', 1}, 1, true), 2, false));
+            assertEquals(MqttCodec.PUBACK, client.read().type());
+
+            client.send(subscribe(3, "devices/DEV00001/#"));
+            assertEquals(MqttCodec.SUBACK, client.read().type());
+            assertEquals("devices/DEV00001/firmware", client.read().topic());
+            assertEquals("devices/DEV00001/location", client.read().topic());
+
+            // The next packet is a live message, so nothing else was retained
+            broker.publish(new MqttMessage(MqttBroker.commandTopic(DEVICE), bytes("live"), 0, false));
+            assertEquals("devices/DEV00001/commands", client.read().topic());
+        }
+    }
+
+    @Test
+    void queuesMessagesForPersistentSessionsWhileOffline() throws IOException {
+        try (TestClient client = new TestClient(address)) {
+            client.connect(false);
+            client.send(subscribe(1, "devices/DEV00001/commands"));
+            assertEquals(MqttCodec.SUBACK, client.read().type());
+            client.send(ByteBuffer.wrap(new byte[]{(byte) (MqttCodec.DISCONNECT << 4), 0}));
+            assertEquals(-1, client.in.read());
+        }
+        broker.publish(new MqttMessage(MqttBroker.commandTopic(DEVICE), bytes("queued"), 1, false));
+
+        try (TestClient client = new TestClient(address)) {
+            final Packet connack = client.connect(false);
+            assertEquals(1, connack.body()[0], "session present");
+            final Packet command = client.read();
+            assertEquals("queued", new String(command.payload(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void matchesTopicWildcards() {
+        final MqttTopicTree<String> tree = new MqttTopicTree<>();
+        tree.subscribe("devices/+/commands", "single", 1);
+        tree.subscribe("devices/#", "multi", 0);
+        tree.subscribe("devices/DEV00001/commands", "exact", 0);
+        tree.subscribe("#", "all", 1);
+
+        assertEquals(Map.of("single", 1, "multi", 0, "exact", 0, "all", 1), tree.match("devices/DEV00001/commands"));
+        assertEquals(Map.of("multi", 0, "all", 1), tree.match("devices"));
+        assertEquals(Map.of(), tree.match("$SYS/uptime"));
+
+        tree.unsubscribe("devices/+/commands", "single");
+        assertFalse(tree.match("devices/DEV00002/commands").containsKey("single"));
+
+        assertTrue(MqttTopicTree.isValidFilter("devices/+/readings"));
+        assertFalse(MqttTopicTree.isValidFilter("devices/#/readings"));
+        assertFalse(MqttTopicTree.isValidFilter("devices/DEV+"));
+        assertTrue(MqttTopicTree.matches("devices/+/readings", "devices/DEV00001/readings"));
+        assertFalse(MqttTopicTree.matches("devices/+", "devices/DEV00001/readings"));
+    }
+
+    private static ByteBuffer subscribe(final int packetId, final String... filters) {
+        int length = 2;
+        for (final String filter : filters) {
+            length += 2 + filter.length() + 1;
+        }
+        final ByteBuffer packet = ByteBuffer.allocate(2 + length).put((byte) (MqttCodec.SUBSCRIBE << 4 | 0x02))
+                .put((byte) length).putShort((short) packetId);
+        for (final String filter : filters) {
+            packet.putShort((short) filter.length()).put(bytes(filter)).put((byte) 1);
+        }
+        return packet.flip();
+    }
+
+    private static byte[] bytes(final String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private record Packet(int type, int flags, byte[] body) {
+
+        String topic() {
+            final int length = ((body[0] & 0xFF) << 8) | (body[1] & 0xFF);
+            return new String(body, 2, length, StandardCharsets.UTF_8);
+        }
+
+        int packetId() {
+            final int offset = 2 + topic().length();
+            return ((body[offset] & 0xFF) << 8) | (body[offset + 1] & 0xFF);
+        }
+
+        byte[] payload() {
+            final int offset = 2 + topic().length() + (((flags >> 1) & 0x03) > 0 ? 2 : 0);
+            final byte[] payload = new byte[body.length - offset];
+            System.arraycopy(body, offset, payload, 0, payload.length);
+            return payload;
+        }
+    }
+
+    private static final class TestClient implements AutoCloseable {
+        private final Socket socket;
+        private final OutputStream out;
+        private final DataInputStream in;
+
+        TestClient(final InetSocketAddress address) throws IOException {
+            socket = new Socket(address.getAddress(), address.getPort());
+            socket.setSoTimeout(5000);
+            out = socket.getOutputStream();
+            in = new DataInputStream(socket.getInputStream());
+        }
+
+        Packet connect(final boolean cleanSession) throws IOException {
+            send(MqttCodec.connect("client", DEVICE, PASSWORD, cleanSession, 30));
+            final Packet connack = read();
+            assertEquals(MqttCodec.CONNACK, connack.type());
+            assertEquals(MqttCodec.ACCEPTED, connack.body()[1]);
+            return connack;
+        }
+
+        void send(final ByteBuffer packet) throws IOException {
+            final byte[] bytes = new byte[packet.remaining()];
+            packet.get(bytes);
+            out.write(bytes);
+            out.flush();
+        }
+
+        Packet read() throws IOException {
+            final int header = in.readUnsignedByte();
+            int length = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = in.readUnsignedByte();
+                length |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            final byte[] body = new byte[length];
+            in.readFully(body);
+            return new Packet(header >>> 4, header & 0x0F, body);
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.iot.system.gateway;
+
+import com.iot.system.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SelectorLoopTest {
+
+    @Test
+    void answersFramesInOrderWhilePausedForWorkers() throws Exception {
+        final ExecutorService workers = Executors.newFixedThreadPool(4);
+        final SelectorLoop loop = new SelectorLoop("selector-loop-test", 60_000);
+        final InetSocketAddress address = loop.listen(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                (connection, inbound) -> {
+                    while (!connection.isReadingPaused() && inbound.remaining() >= GatewayProtocol.HEADER_BYTES) {
+                        final int length = inbound.getShort(inbound.position()) & 0xFFFF;
+                        if (inbound.remaining() < GatewayProtocol.HEADER_BYTES + length) {
+                            connection.requireCapacity(GatewayProtocol.HEADER_BYTES + length);
+                            return;
+                        }
+                        inbound.position(inbound.position() + GatewayProtocol.HEADER_BYTES);
+                        final int sum = sum(inbound, length);
+                        connection.pauseReading();
+                        workers.execute(() -> {
+                            connection.send(GatewayProtocol.ack(sum));
+                            connection.resumeReading();
+                        });
+                    }
+                });
+        loop.start();
+        try (Socket socket = new Socket(address.getAddress(), address.getPort())) {
+            // Frames larger than the initial buffer, written back to back, force growing and pausing
+            final OutputStream out = socket.getOutputStream();
+            final int frames = 50;
+            final ByteBuffer all = ByteBuffer.allocate(frames * (GatewayProtocol.HEADER_BYTES + 2000));
+            for (int i = 0; i < frames; i++) {
+                all.putShort((short) 2000).put(GatewayProtocol.READINGS);
+                for (int j = 0; j < 2000; j++) {
+                    all.put((byte) (j == 0 ? i : 0));
+                }
+            }
+            out.write(all.array());
+            out.flush();
+
+            final DataInputStream in = new DataInputStream(socket.getInputStream());
+            for (int i = 0; i < frames; i++) {
+                assertEquals(4, in.readUnsignedShort());
+                assertEquals(GatewayProtocol.ACK, in.readByte());
+                assertEquals(i, in.readInt());
+            }
+        } finally {
+            loop.stop();
+            workers.shutdown();
+        }
+    }
+
+    @Test
+    void encodesHelloAndErrorFrames() {
+        final ByteBuffer hello = GatewayProtocol.hello("DEV00001", "secret");
+        assertEquals(2 + 8 + 6, hello.getShort());
+        assertEquals(GatewayProtocol.HELLO, hello.get());
+        assertEquals("DEV00001", GatewayProtocol.readShortString(hello));
+        assertEquals("secret", GatewayProtocol.readShortString(hello));
+        assertFalse(hello.hasRemaining());
+
+        final ByteBuffer error = GatewayProtocol.error(GatewayProtocol.BUSY, "x".repeat(1000));
+        assertEquals(1 + 255, error.getShort());
+        assertEquals(GatewayProtocol.ERROR, error.get());
+        assertEquals(GatewayProtocol.BUSY, error.get());
+    }
+
+    @Test
+    void verifiesOnlyCredentialsIssuedForTheDevice() {
+        final DeviceCredentials credentials = new DeviceCredentials("test-secret", "jwt-secret", true);
+        final String credential = credentials.issue("DEV00001");
+
+        assertTrue(credentials.verify("DEV00001", credential));
+        assertFalse(credentials.verify("DEV00002", credential));
+        assertFalse(credentials.verify("DEV00001", "not base64!"));
+        assertFalse(new DeviceCredentials("other-secret", "jwt-secret", true).verify("DEV00001", credential));
+    }
+
+    @Test
+    void requiresASecretOfItsOwnWhileTheGatewayIsEnabled() {
+        assertThrows(IllegalArgumentException.class, () -> new DeviceCredentials("", "jwt-secret", true));
+        assertThrows(IllegalArgumentException.class, () -> new DeviceCredentials("jwt-secret", "jwt-secret", true));
+        assertThrows(IllegalArgumentException.class, () -> new DeviceCredentials("jwt-secret", "jwt-secret", false));
+
+        final DeviceCredentials disabled = new DeviceCredentials("", "jwt-secret", false);
+        assertThrows(ServiceUnavailableException.class, () -> disabled.issue("DEV00001"));
+        assertFalse(disabled.verify("DEV00001", "anything"));
+    }
+
+    private static int sum(final ByteBuffer buffer, final int length) {
+        int sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += buffer.get();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,61 @@
+package com.iot.system.heartbeat;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedTimingWheelTest {
+
+    private static final class Timer extends HashedTimingWheel.Entry {
+        private final long deadline;
+
+        private Timer(final long deadline) {
+            this.deadline = deadline;
+        }
+    }
+
+    @Test
+    void expiresEntriesOnTheirDeadlineTickAcrossRounds() {
+        final HashedTimingWheel<Timer> wheel = new HashedTimingWheel<>(100, 8, 0);
+        final List<Timer> timers = new ArrayList<>();
+        for (long deadline = 50; deadline < 5_000; deadline += 130) {
+            final Timer timer = new Timer(deadline);
+            timers.add(timer);
+            wheel.arm(timer, deadline);
+        }
+        final List<Long> firedAt = new ArrayList<>();
+        for (long now = 100; now <= 5_000; now += 100) {
+            final long tick = now;
+            wheel.advance(now, timer -> {
+                assertTrue(timer.deadline <= tick && timer.deadline > tick - 100, "fired at " + tick + " for " + timer.deadline);
+                firedAt.add(timer.deadline);
+            });
+        }
+        assertEquals(timers.size(), firedAt.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelledAndRearmedEntriesFireOnlyAtTheirNewDeadline() {
+        final HashedTimingWheel<Timer> wheel = new HashedTimingWheel<>(10, 4, 0);
+        final Timer cancelled = new Timer(30);
+        final Timer moved = new Timer(40);
+        wheel.arm(cancelled, 30);
+        wheel.arm(moved, 40);
+        wheel.cancel(cancelled);
+        wheel.arm(moved, 200);
+        assertFalse(cancelled.isArmed());
+
+        final List<Timer> fired = new ArrayList<>();
+        wheel.advance(190, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advance(200, fired::add);
+        assertEquals(List.of(moved), fired);
+        assertFalse(moved.isArmed());
+    }
+}
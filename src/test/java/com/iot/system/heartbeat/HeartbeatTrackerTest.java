@@ -0,0 +1,106 @@
+package com.iot.system.heartbeat;
+
+import com.iot.system.event.DeviceStatusChangedEvent;
+import com.iot.system.model.Device;
+import com.iot.system.model.DeviceStatus;
+import com.iot.system.repository.DevicesRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HeartbeatTrackerTest {
+
+    private final DevicesRepository devicesRepository = mock(DevicesRepository.class);
+    private final List<DeviceStatusChangedEvent> events = new CopyOnWriteArrayList<>();
+    private HeartbeatTracker tracker;
+
+    private void start(final long offAfterMs, final long flushIntervalMs, final Object[]... rows) {
+        when(devicesRepository.findHeartbeatStates()).thenReturn(List.of(rows));
+        // Like the application context, the tracker also receives its own status changes
+        tracker = new HeartbeatTracker(devicesRepository, event -> {
+            if (event instanceof DeviceStatusChangedEvent changed) {
+                events.add(changed);
+                tracker.onDeviceStatusChanged(changed);
+            }
+        }, 100, offAfterMs, 10, 64, flushIntervalMs);
+        tracker.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        tracker.stop();
+    }
+
+    private static Object[] row(final DeviceStatus status, final long idleMs) {
+        return new Object[]{1L, "DVC00001", status, LocalDateTime.now().minusNanos(idleMs * 1_000_000)};
+    }
+
+    private static Device device() {
+        final Device device = new Device();
+        device.setId(1L);
+        device.setDeviceCode("DVC00001");
+        device.setDeviceStatus(DeviceStatus.ON);
+        return device;
+    }
+
+    private void awaitStatus(final DeviceStatus status) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (events.stream().noneMatch(event -> event.status() == status) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(events.stream().anyMatch(event -> event.status() == status), "no change to " + status + " in " + events);
+    }
+
+    @Test
+    void demotesASilentDeviceToStandbyThenOffAndWritesTheChanges() throws InterruptedException {
+        start(300, 50, row(DeviceStatus.ON, 0));
+
+        awaitStatus(DeviceStatus.OFF);
+
+        assertEquals(List.of(DeviceStatus.STANDBY, DeviceStatus.OFF), events.stream().map(DeviceStatusChangedEvent::status).toList());
+        verify(devicesRepository, timeout(2000)).updateDeviceStatus(List.of(1L), DeviceStatus.OFF);
+    }
+
+    @Test
+    void aCommittedApiChangeReplacesAnUnflushedDemotion() throws InterruptedException {
+        start(60_000, 60_000, row(DeviceStatus.ON, 150));
+        awaitStatus(DeviceStatus.STANDBY);
+
+        // An operator activates the device before the demotion was flushed
+        tracker.onDeviceStatusChanged(new DeviceStatusChangedEvent(1, "DVC00001", DeviceStatus.STANDBY, DeviceStatus.ON,
+                System.currentTimeMillis()));
+        tracker.stop();
+
+        verify(devicesRepository).updateDeviceStatus(List.of(1L), DeviceStatus.ON);
+        verify(devicesRepository, never()).updateDeviceStatus(any(), eq(DeviceStatus.STANDBY));
+    }
+
+    @Test
+    void aHeartbeatBringsBackADeviceAnOperatorTurnedOff() throws InterruptedException {
+        start(60_000, 60_000);
+        tracker.heartbeat(device());
+        tracker.onDeviceStatusChanged(new DeviceStatusChangedEvent(1, "DVC00001", DeviceStatus.ON, DeviceStatus.OFF,
+                System.currentTimeMillis()));
+
+        tracker.heartbeat(device());
+        awaitStatus(DeviceStatus.ON);
+        tracker.stop();
+
+        assertEquals(DeviceStatus.OFF, events.get(events.size() - 1).previousStatus());
+        verify(devicesRepository).updateDeviceStatus(List.of(1L), DeviceStatus.ON);
+        verify(devicesRepository, never()).updateDeviceStatus(any(), eq(DeviceStatus.OFF));
+    }
+}
@@ -0,0 +1,38 @@
+package com.iot.system.history;
+
+import com.iot.system.model.DeviceStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatusTransitionCodecTest {
+
+    @Test
+    void decodesAppendedTransitionsAsTimestampsFromTheStartOfTheDay() {
+        final long dayStart = 1_720_000_000_000L;
+        final long[] deltas = {0, 1, 127, 1_000, 3_600_000, 86_399_999 - 3_601_128};
+        final DeviceStatus[] statuses = {DeviceStatus.ON, DeviceStatus.STANDBY, DeviceStatus.OFF,
+                DeviceStatus.ON, DeviceStatus.OFF, DeviceStatus.STANDBY};
+        byte[] encoded = null;
+        for (int i = 0; i < deltas.length; i++) {
+            encoded = StatusTransitionCodec.append(encoded, deltas[i], statuses[i]);
+        }
+
+        final List<StatusTransition> transitions = StatusTransitionCodec.decode(encoded, dayStart);
+        assertEquals(deltas.length, transitions.size());
+        long timestamp = dayStart;
+        for (int i = 0; i < deltas.length; i++) {
+            timestamp += deltas[i];
+            assertEquals(new StatusTransition(timestamp, statuses[i]), transitions.get(i));
+        }
+        assertTrue(encoded.length <= deltas.length * 4, "encoded in " + encoded.length + " bytes");
+    }
+
+    @Test
+    void decodesNothingWithoutTransitions() {
+        assertTrue(StatusTransitionCodec.decode(null, 0).isEmpty());
+    }
+}
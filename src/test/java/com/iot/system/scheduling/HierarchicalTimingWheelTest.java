@@ -0,0 +1,91 @@
+package com.iot.system.scheduling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimingWheelTest {
+
+    private static final class Timer extends HierarchicalTimingWheel.Entry {
+        private final long deadline;
+
+        private Timer(final long deadline) {
+            this.deadline = deadline;
+        }
+    }
+
+    @Test
+    void expiresEntriesOnTheirDeadlineTickAcrossLevelsAndOverflow() {
+        // Two levels of four buckets span 16 ticks; later deadlines start in the overflow list
+        final HierarchicalTimingWheel<Timer> wheel = new HierarchicalTimingWheel<>(10, 4, 2, 1_000);
+        final Random random = new Random(42);
+        final List<Timer> timers = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            final Timer timer = new Timer(1_001 + random.nextInt(3_000));
+            timers.add(timer);
+            wheel.arm(timer, timer.deadline);
+        }
+        assertEquals(timers.size(), wheel.size());
+
+        final List<Timer> fired = new ArrayList<>();
+        for (long now = 1_010; now <= 4_010; now += 10) {
+            final long tick = now;
+            wheel.advance(now, timer -> {
+                assertTrue(timer.deadline <= tick && timer.deadline > tick - 10, "fired at " + tick + " for " + timer.deadline);
+                fired.add(timer);
+            });
+        }
+        assertEquals(timers.size(), fired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void catchesUpOnEveryTickWhenAdvancedLate() {
+        final HierarchicalTimingWheel<Timer> wheel = new HierarchicalTimingWheel<>(1, 8, 3, 0);
+        final List<Long> firedDeadlines = new ArrayList<>();
+        for (long deadline = 1; deadline <= 2_000; deadline += 7) {
+            wheel.arm(new Timer(deadline), deadline);
+        }
+        wheel.arm(new Timer(-50), -50);
+
+        wheel.advance(2_000, timer -> firedDeadlines.add(timer.deadline));
+
+        assertEquals(287, firedDeadlines.size());
+        assertEquals(-50, (long) firedDeadlines.get(0));
+        for (int i = 2; i < firedDeadlines.size(); i++) {
+            assertTrue(firedDeadlines.get(i - 1) < firedDeadlines.get(i));
+        }
+    }
+
+    @Test
+    void cancelledAndRearmedEntriesFireOnlyAtTheirNewDeadline() {
+        final HierarchicalTimingWheel<Timer> wheel = new HierarchicalTimingWheel<>(10, 4, 2, 0);
+        final Timer cancelled = new Timer(30);
+        final Timer moved = new Timer(40);
+        final Timer overflowing = new Timer(10_000);
+        wheel.arm(cancelled, 30);
+        wheel.arm(moved, 40);
+        wheel.arm(overflowing, 10_000);
+        wheel.cancel(cancelled);
+        wheel.cancel(overflowing);
+        wheel.arm(moved, 200);
+        assertFalse(cancelled.isArmed());
+        assertFalse(overflowing.isArmed());
+        assertEquals(1, wheel.size());
+
+        final List<Timer> fired = new ArrayList<>();
+        wheel.advance(190, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advance(200, fired::add);
+        assertEquals(List.of(moved), fired);
+        assertFalse(moved.isArmed());
+        wheel.advance(20_000, fired::add);
+        assertEquals(1, fired.size());
+    }
+}
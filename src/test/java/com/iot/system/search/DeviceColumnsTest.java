@@ -0,0 +1,67 @@
+package com.iot.system.search;
+
+import com.iot.system.model.DeviceStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DeviceColumnsTest {
+
+    private static DeviceRow row(final long id, final String name, final DeviceStatus status, final String industryType,
+                                 final String manufacturer, final long... userIds) {
+        return new DeviceRow(id, String.format("DVC%05d", id), name, "Description " + id, status, industryType,
+                manufacturer, id, userIds, new String[]{"User " + userIds[0]});
+    }
+
+    private static DeviceQuery query(final String deviceName, final Long userId, final String sortBy,
+                                     final boolean ascending, final int pageNo, final int pageSize) {
+        return new DeviceQuery(null, null, deviceName, null, null, null, userId, sortBy, ascending, pageNo, pageSize);
+    }
+
+    @Test
+    void countsFacetsOverAllMatchesAndPagesInOrder() {
+        final DeviceColumns columns = new DeviceColumns(0);
+        columns.upsert(row(1, "Boiler pump", DeviceStatus.ON, "Energy", "Acme", 1));
+        columns.upsert(row(2, "Water pump", DeviceStatus.OFF, "Water", "Acme", 1, 2));
+        columns.upsert(row(3, "Meter", DeviceStatus.ON, "Water", null, 2));
+        columns.upsert(row(4, "Pump station", DeviceStatus.STANDBY, "Water", "Globex", 2));
+        columns.upsert(row(5, "Spare PUMP", DeviceStatus.ON, "Energy", "Globex", 1));
+
+        final DeviceSearchResult first = columns.search(query("pump", null, "deviceName", true, 0, 2));
+        assertEquals(4, first.totalElements());
+        assertEquals(List.of(1L, 4L), first.pageIds());
+        assertEquals(Map.of("ON", 2L, "OFF", 1L, "STANDBY", 1L), first.facets().get(DeviceColumns.STATUS_FACET));
+        assertEquals(Map.of("Energy", 2L, "Water", 2L), first.facets().get(DeviceColumns.INDUSTRY_TYPE_FACET));
+        assertEquals(Map.of("Acme", 2L, "Globex", 2L), first.facets().get(DeviceColumns.MANUFACTURER_FACET));
+        assertEquals(List.of(5L, 2L), columns.search(query("pump", null, "deviceName", true, 1, 2)).pageIds());
+        assertEquals(List.of(5L, 4L, 2L), columns.search(query("pump", null, "id", false, 0, 3)).pageIds());
+
+        final DeviceSearchResult ofUser = columns.search(query(null, 2L, "deviceCode", true, 0, 10));
+        assertEquals(List.of(2L, 3L, 4L), ofUser.pageIds());
+        assertEquals(Map.of("Water", 3L), ofUser.facets().get(DeviceColumns.INDUSTRY_TYPE_FACET));
+    }
+
+    @Test
+    void reflectsUpdatesRemovalsAndStatusChanges() {
+        final DeviceColumns columns = new DeviceColumns(0);
+        for (long id = 1; id <= 40; id++) {
+            columns.upsert(row(id, "Sensor " + id, DeviceStatus.ON, "Energy", "Acme", 1));
+        }
+        columns.remove(1);
+        columns.remove(40);
+        columns.upsert(row(2, "Sensor 2", DeviceStatus.ON, "Water", "Acme", 1));
+        columns.setStatus(3, DeviceStatus.OFF);
+
+        final DeviceSearchResult all = columns.search(query(null, null, "id", true, 0, 100));
+        assertEquals(38, all.totalElements());
+        assertEquals(2L, (long) all.pageIds().get(0));
+        assertEquals(39L, (long) all.pageIds().get(37));
+        assertEquals(Map.of("ON", 37L, "OFF", 1L), all.facets().get(DeviceColumns.STATUS_FACET));
+        assertEquals(Map.of("Energy", 37L, "Water", 1L), all.facets().get(DeviceColumns.INDUSTRY_TYPE_FACET));
+        assertEquals(0, columns.search(new DeviceQuery(null, "Unknown", null, null, null, null, null,
+                "id", true, 0, 10)).totalElements());
+    }
+}
@@ -0,0 +1,68 @@
+package com.iot.system.search;
+
+import com.iot.system.event.DeviceStatusChangedEvent;
+import com.iot.system.heartbeat.HeartbeatTracker;
+import com.iot.system.model.DeviceStatus;
+import com.iot.system.repository.DevicesRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DeviceSearchIndexTest {
+
+    private final DevicesRepository devicesRepository = mock(DevicesRepository.class);
+    private final HeartbeatTracker heartbeatTracker = mock(HeartbeatTracker.class);
+    private final DeviceSearchIndex index = new DeviceSearchIndex(devicesRepository, heartbeatTracker, 3_600_000);
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        index.stop();
+    }
+
+    private static List<Object[]> rows(final DeviceStatus status, final long... ids) {
+        final List<Object[]> rows = new ArrayList<>();
+        for (final long id : ids) {
+            rows.add(new Object[]{id, String.format("DVC%05d", id), "Sensor " + id, null, status, "Energy", "Acme",
+                    LocalDateTime.of(2024, 7, 1, 0, 0)});
+        }
+        return rows;
+    }
+
+    private List<Long> withStatus(final DeviceStatus status) {
+        return index.search(new DeviceQuery(status, null, null, null, null, null, null, "id", true, 0, 10)).pageIds();
+    }
+
+    @Test
+    void appliesHeartbeatTransitionsThatAreNotFlushedYet() {
+        when(devicesRepository.findSearchRows(isNull())).thenReturn(rows(DeviceStatus.ON, 1, 2, 3));
+        when(heartbeatTracker.unflushedStatuses()).thenReturn(Map.of(2L, DeviceStatus.STANDBY, 3L, DeviceStatus.OFF));
+
+        index.start();
+
+        assertEquals(List.of(1L), withStatus(DeviceStatus.ON));
+        assertEquals(List.of(2L), withStatus(DeviceStatus.STANDBY));
+        assertEquals(List.of(3L), withStatus(DeviceStatus.OFF));
+    }
+
+    @Test
+    void aTransitionDuringTheLoadWinsOverTheUnflushedOne() {
+        when(heartbeatTracker.unflushedStatuses()).thenReturn(Map.of(1L, DeviceStatus.STANDBY));
+        when(devicesRepository.findSearchRows(isNull())).thenAnswer(invocation -> {
+            index.onDeviceStatusChanged(new DeviceStatusChangedEvent(1, "DVC00001", DeviceStatus.STANDBY, DeviceStatus.ON, 0));
+            return rows(DeviceStatus.ON, 1);
+        });
+
+        index.start();
+
+        assertEquals(List.of(1L), withStatus(DeviceStatus.ON));
+    }
+}
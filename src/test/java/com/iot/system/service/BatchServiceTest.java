@@ -0,0 +1,188 @@
+package com.iot.system.service;
+
+import com.iot.system.dto.BatchOperationRequest;
+import com.iot.system.dto.BatchResponse;
+import com.iot.system.dto.DeviceRequest;
+import com.iot.system.exception.ResourceNotFoundException;
+import com.iot.system.exception.SuccessResponse;
+import com.iot.system.model.Device;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchServiceTest {
+
+    private DeviceService deviceService;
+    private MonitoringService monitoringService;
+    private PlatformTransactionManager transactionManager;
+    private SimpleTransactionStatus transaction;
+    private BatchService batchService;
+
+    @BeforeEach
+    void setUp() {
+        deviceService = mock(DeviceService.class);
+        monitoringService = mock(MonitoringService.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        transaction = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any())).thenReturn(transaction);
+        batchService = new BatchService(deviceService, monitoringService, transactionManager);
+    }
+
+    /**
+     * Runs transaction synchronizations like a real transaction manager, which is how
+     * {@code @TransactionalEventListener} defers its listeners to the commit.
+     */
+    private static final class SynchronizingTransactionManager extends AbstractPlatformTransactionManager {
+        private RuntimeException commitFailure;
+        private boolean committed;
+        private boolean rolledBack;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(final Object transaction, final TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(final DefaultTransactionStatus status) {
+            if (commitFailure != null) {
+                throw commitFailure;
+            }
+            committed = true;
+        }
+
+        @Override
+        protected void doRollback(final DefaultTransactionStatus status) {
+            rolledBack = true;
+        }
+    }
+
+    private static BatchOperationRequest operation(final BatchOperationRequest.Type type, final String deviceCode) {
+        final BatchOperationRequest operation = new BatchOperationRequest();
+        operation.setType(type);
+        operation.setDeviceCode(deviceCode);
+        operation.setDevice(new DeviceRequest());
+        return operation;
+    }
+
+    @Test
+    void runsOperationsInOrderAndCommits() {
+        final Device device = new Device();
+        final SuccessResponse deleted = new SuccessResponse(200, "Device was successfully deleted.");
+        when(deviceService.saveDevice(any())).thenReturn(device);
+        when(deviceService.deleteDevice("DVC00001")).thenReturn(deleted);
+
+        final BatchResponse response = batchService.execute(List.of(
+                operation(BatchOperationRequest.Type.CREATE_DEVICE, null),
+                operation(BatchOperationRequest.Type.DELETE_DEVICE, "DVC00001")));
+
+        assertTrue(response.isCommitted());
+        assertEquals(List.of(200, 200), response.getResults().stream().map(BatchResponse.Result::getStatus).toList());
+        assertSame(device, response.getResults().get(0).getBody());
+        assertSame(deleted, response.getResults().get(1).getBody());
+        assertFalse(transaction.isRollbackOnly());
+        verify(transactionManager).commit(transaction);
+    }
+
+    @Test
+    void rollsBackAndSkipsTheRestWhenAnOperationFails() {
+        when(deviceService.updateDevice(any(), any())).thenThrow(new ResourceNotFoundException("Device not found"));
+
+        final BatchResponse response = batchService.execute(List.of(
+                operation(BatchOperationRequest.Type.CREATE_DEVICE, null),
+                operation(BatchOperationRequest.Type.UPDATE_DEVICE, "DVC99999"),
+                operation(BatchOperationRequest.Type.DELETE_DEVICE, "DVC00001")));
+
+        assertFalse(response.isCommitted());
+        assertEquals(List.of(200, 404, 424), response.getResults().stream().map(BatchResponse.Result::getStatus).toList());
+        assertEquals("Device not found", response.getResults().get(1).getMessage());
+        verify(deviceService, never()).deleteDevice(any());
+        // The transaction manager rolls back a transaction marked rollback-only when asked to commit it
+        assertTrue(transaction.isRollbackOnly());
+    }
+
+    @Test
+    void rejectsMissingFieldsAndOversizedBatches() {
+        final BatchOperationRequest command = operation(BatchOperationRequest.Type.SEND_COMMAND, "DVC00001");
+        final BatchResponse response = batchService.execute(List.of(command));
+        assertEquals(400, response.getResults().get(0).getStatus());
+
+        assertThrows(IllegalArgumentException.class, () -> batchService.execute(new ArrayList<>()));
+        assertThrows(IllegalArgumentException.class, () -> batchService.execute(
+                Collections.nCopies(1001, operation(BatchOperationRequest.Type.DELETE_DEVICE, "DVC00001"))));
+    }
+
+    @Test
+    void runsTheCleanupOfADeleteOnlyWhenTheBatchCommits() {
+        final SynchronizingTransactionManager manager = new SynchronizingTransactionManager();
+        final List<String> cleanedUp = new ArrayList<>();
+        when(deviceService.deleteDevice("DVC00001")).thenAnswer(invocation -> {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cleanedUp.add("DVC00001");
+                }
+            });
+            return new SuccessResponse(200, "Device was successfully deleted.");
+        });
+        when(deviceService.updateDevice(any(), any())).thenThrow(new ResourceNotFoundException("Device not found"));
+        final BatchService batch = new BatchService(deviceService, monitoringService, manager);
+
+        final BatchResponse response = batch.execute(List.of(
+                operation(BatchOperationRequest.Type.DELETE_DEVICE, "DVC00001"),
+                operation(BatchOperationRequest.Type.UPDATE_DEVICE, "DVC99999")));
+
+        assertFalse(response.isCommitted());
+        assertEquals(List.of(200, 404), response.getResults().stream().map(BatchResponse.Result::getStatus).toList());
+        assertTrue(manager.rolledBack);
+        assertFalse(manager.committed);
+        assertTrue(cleanedUp.isEmpty());
+
+        batch.execute(List.of(operation(BatchOperationRequest.Type.DELETE_DEVICE, "DVC00001")));
+        assertTrue(manager.committed);
+        assertEquals(List.of("DVC00001"), cleanedUp);
+    }
+
+    @Test
+    void reportsEveryOperationAsFailedWhenTheCommitFails() {
+        final SynchronizingTransactionManager manager = new SynchronizingTransactionManager();
+        manager.commitFailure = new DataIntegrityViolationException("duplicate key");
+        when(deviceService.saveDevice(any())).thenReturn(new Device());
+        final BatchService batch = new BatchService(deviceService, monitoringService, manager);
+
+        final BatchResponse response = batch.execute(List.of(
+                operation(BatchOperationRequest.Type.CREATE_DEVICE, null),
+                operation(BatchOperationRequest.Type.CREATE_DEVICE, null)));
+
+        assertFalse(response.isCommitted());
+        assertEquals(List.of(500, 500), response.getResults().stream().map(BatchResponse.Result::getStatus).toList());
+        assertEquals("Rolled back because the batch could not be committed", response.getResults().get(0).getMessage());
+        assertNull(response.getResults().get(1).getBody());
+    }
+}
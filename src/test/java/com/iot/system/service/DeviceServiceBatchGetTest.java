@@ -0,0 +1,131 @@
+package com.iot.system.service;
+
+import com.iot.system.dto.DeviceBatchGetResponse;
+import com.iot.system.model.Device;
+import com.iot.system.repository.DevicesRepository;
+import com.iot.system.user.Role;
+import com.iot.system.user.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DeviceServiceBatchGetTest {
+
+    private final DevicesRepository devicesRepository = mock(DevicesRepository.class);
+    private final UserService userService = mock(UserService.class);
+    private final List<List<String>> queries = new ArrayList<>();
+    // Batch gets only use the device repository and the current user
+    private final DeviceService deviceService = new DeviceService(devicesRepository, null, userService, null, null,
+            null, null, null, null, null, null, null, null, null);
+
+    private static User user(final long id, final Role role) {
+        final User user = new User();
+        user.setId(id);
+        user.setRole(role);
+        return user;
+    }
+
+    private static Device device(final String deviceCode, final User... users) {
+        final Device device = new Device();
+        device.setDeviceCode(deviceCode);
+        device.setUsers(List.of(users));
+        return device;
+    }
+
+    private void storeDevices(final Map<String, Device> devices) {
+        when(devicesRepository.findWithUsersByDeviceCodeIn(anyCollection())).thenAnswer(invocation -> {
+            final Collection<String> codes = invocation.getArgument(0);
+            queries.add(List.copyOf(codes));
+            return codes.stream().filter(devices::containsKey).map(devices::get).toList();
+        });
+    }
+
+    @Test
+    void queriesCodesInChunksOfFiveHundred() {
+        final User owner = user(1, Role.USER);
+        when(userService.getCurrentUser()).thenReturn(owner);
+        final List<String> codes = new ArrayList<>();
+        for (int i = 0; i < 1_201; i++) {
+            codes.add(String.format("DVC%05d", i));
+        }
+        storeDevices(Map.of("DVC00000", device("DVC00000", owner), "DVC01200", device("DVC01200", owner)));
+
+        final DeviceBatchGetResponse response = deviceService.getDevicesByDeviceCodes(codes);
+
+        assertEquals(List.of(500, 500, 201), queries.stream().map(List::size).toList());
+        assertEquals(codes, queries.stream().flatMap(List::stream).toList());
+        assertEquals(2, response.getFound());
+        assertEquals(1_199, response.getNotFound());
+        assertEquals(DeviceBatchGetResponse.Status.FOUND, response.getDevices().get("DVC01200").getStatus());
+    }
+
+    @Test
+    void answersEachCodeOnceInTheRequestedOrder() {
+        final User owner = user(1, Role.USER);
+        when(userService.getCurrentUser()).thenReturn(owner);
+        final Device first = device("DVC00001", owner);
+        storeDevices(Map.of("DVC00001", first, "DVC00003", device("DVC00003", owner)));
+
+        final DeviceBatchGetResponse response = deviceService.getDevicesByDeviceCodes(
+                List.of("DVC00003", "DVC00001", "DVC00003", "DVC00002", "DVC00001"));
+
+        assertEquals(List.of(List.of("DVC00003", "DVC00001", "DVC00002")), queries);
+        assertEquals(List.of("DVC00003", "DVC00001", "DVC00002"), List.copyOf(response.getDevices().keySet()));
+        assertSame(first, response.getDevices().get("DVC00001").getDevice());
+        assertEquals(2, response.getFound());
+        assertEquals(1, response.getNotFound());
+    }
+
+    @Test
+    void countsFoundMissingAndForbiddenDevices() {
+        final User owner = user(1, Role.USER);
+        final User other = user(2, Role.USER);
+        storeDevices(Map.of("DVC00001", device("DVC00001", owner), "DVC00002", device("DVC00002", other)));
+        final List<String> codes = List.of("DVC00001", "DVC00002", "DVC00003");
+
+        when(userService.getCurrentUser()).thenReturn(owner);
+        final DeviceBatchGetResponse response = deviceService.getDevicesByDeviceCodes(codes);
+
+        assertEquals(1, response.getFound());
+        assertEquals(1, response.getNotFound());
+        assertEquals(1, response.getForbidden());
+        assertEquals(DeviceBatchGetResponse.Status.FORBIDDEN, response.getDevices().get("DVC00002").getStatus());
+        assertNull(response.getDevices().get("DVC00002").getDevice());
+        assertEquals(DeviceBatchGetResponse.Status.NOT_FOUND, response.getDevices().get("DVC00003").getStatus());
+
+        when(userService.getCurrentUser()).thenReturn(user(3, Role.ADMIN));
+        final DeviceBatchGetResponse asAdmin = deviceService.getDevicesByDeviceCodes(codes);
+
+        assertEquals(2, asAdmin.getFound());
+        assertEquals(1, asAdmin.getNotFound());
+        assertEquals(0, asAdmin.getForbidden());
+    }
+
+    @Test
+    void rejectsEmptyOversizedAndNullCodeLists() {
+        assertThrows(IllegalArgumentException.class, () -> deviceService.getDevicesByDeviceCodes(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> deviceService.getDevicesByDeviceCodes(Arrays.asList("DVC00001", null)));
+        final List<String> tooMany = new ArrayList<>(Collections.nCopies(5_000, "DVC00001"));
+        tooMany.add("DVC00002");
+        // Duplicates count once, so only distinct codes over the limit are rejected
+        assertEquals(2, deviceService.getDevicesByDeviceCodes(tooMany).getNotFound());
+        final List<String> distinct = new ArrayList<>();
+        for (int i = 0; i <= 5_000; i++) {
+            distinct.add(String.format("DVC%05d", i));
+        }
+        assertThrows(IllegalArgumentException.class, () -> deviceService.getDevicesByDeviceCodes(distinct));
+    }
+}
@@ -0,0 +1,55 @@
+package com.iot.system.stats;
+
+import com.iot.system.dto.FleetStatsResponse;
+import com.iot.system.event.DeviceChangedEvent;
+import com.iot.system.event.DeviceStatusChangedEvent;
+import com.iot.system.event.MonitoringChangedEvent;
+import com.iot.system.model.DeviceStatus;
+import com.iot.system.model.MonitoringStatus;
+import com.iot.system.repository.DevicesRepository;
+import com.iot.system.repository.MonitoringRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FleetStatisticsTest {
+
+    @Test
+    void adjustsReconciledCountsWithChangeEvents() {
+        final DevicesRepository devicesRepository = mock(DevicesRepository.class);
+        final MonitoringRepository monitoringRepository = mock(MonitoringRepository.class);
+        when(devicesRepository.countByDeviceStatus(null)).thenReturn(List.<Object[]>of(
+                new Object[]{DeviceStatus.ON, 3L}, new Object[]{DeviceStatus.OFF, 1L}));
+        when(devicesRepository.countByIndustryType(null)).thenReturn(List.<Object[]>of(
+                new Object[]{"Energy", 4L}));
+        when(devicesRepository.countByManufacturer(null)).thenReturn(List.<Object[]>of(
+                new Object[]{"Acme", 2L}, new Object[]{null, 2L}));
+        when(monitoringRepository.countByMonitoringStatus(null)).thenReturn(List.<Object[]>of(
+                new Object[]{MonitoringStatus.ON, 2L}));
+        final FleetStatistics statistics = new FleetStatistics(devicesRepository, monitoringRepository, 60_000);
+        statistics.reconcile();
+
+        final DeviceChangedEvent.Snapshot created = new DeviceChangedEvent.Snapshot(DeviceStatus.STANDBY, "Water", "Acme");
+        statistics.onDeviceChanged(new DeviceChangedEvent(5, "DVC00005", null, created));
+        statistics.onDeviceStatusChanged(new DeviceStatusChangedEvent(5, "DVC00005", null, DeviceStatus.STANDBY, 0));
+        statistics.onDeviceStatusChanged(new DeviceStatusChangedEvent(1, "DVC00001", DeviceStatus.ON, DeviceStatus.OFF, 0));
+        statistics.onDeviceChanged(new DeviceChangedEvent(4, "DVC00004",
+                new DeviceChangedEvent.Snapshot(DeviceStatus.OFF, "Energy", null), null));
+        statistics.onMonitoringChanged(new MonitoringChangedEvent(1,
+                new MonitoringChangedEvent.Snapshot(MonitoringStatus.ON),
+                new MonitoringChangedEvent.Snapshot(MonitoringStatus.STANDBY)));
+
+        final FleetStatsResponse stats = statistics.fleet();
+        assertEquals(4, stats.getDevices());
+        assertEquals(Map.of("ON", 2L, "OFF", 1L, "STANDBY", 1L), stats.getDevicesByStatus());
+        assertEquals(Map.of("Energy", 3L, "Water", 1L), stats.getDevicesByIndustryType());
+        assertEquals(Map.of("Acme", 3L), stats.getDevicesByManufacturer());
+        assertEquals(2, stats.getMonitorings());
+        assertEquals(Map.of("ON", 1L, "STANDBY", 1L), stats.getMonitoringsByStatus());
+    }
+}
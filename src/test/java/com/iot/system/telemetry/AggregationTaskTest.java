@@ -0,0 +1,62 @@
+package com.iot.system.telemetry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AggregationTaskTest {
+
+    private static final long STEP = 60_000;
+
+    @Test
+    void aggregatesChunksLikeAFullScan() {
+        final Random random = new Random(42);
+        final Chunk[] chunks = new Chunk[40];
+        final long[] timestamps = new long[chunks.length * 1000];
+        final double[] values = new double[timestamps.length];
+        long timestamp = 1_720_713_600_000L;
+        int point = 0;
+        for (int c = 0; c < chunks.length; c++) {
+            final SeriesBlock block = new SeriesBlock(1, 1);
+            // Every fourth chunk is small enough to fall inside a single bucket
+            final int size = c % 4 == 0 ? 5 : 1000;
+            for (int i = 0; i < size; i++) {
+                timestamp += 1 + random.nextInt(2000);
+                final double value = Math.round(random.nextGaussian() * 1000) / 10.0;
+                block.append(timestamp, value);
+                timestamps[point] = timestamp;
+                values[point++] = value;
+            }
+            chunks[c] = block.snapshot();
+        }
+
+        final long from = timestamps[10] + 1;
+        final long to = timestamps[point - 10];
+        final long origin = Math.floorDiv(from, STEP) * STEP;
+        final int bucketCount = (int) ((to - origin + STEP - 1) / STEP);
+
+        final BucketAggregates expected = new BucketAggregates(origin, STEP, bucketCount);
+        for (int i = 0; i < point; i++) {
+            if (timestamps[i] >= from && timestamps[i] < to) {
+                expected.add(expected.bucketOf(timestamps[i]), timestamps[i], values[i]);
+            }
+        }
+        final ChunkSlice[] slices = new ChunkSlice[chunks.length];
+        for (int c = 0; c < chunks.length; c++) {
+            slices[c] = new ChunkSlice(chunks[c], from, to);
+        }
+        final BucketAggregates actual = new ForkJoinPool(4)
+                .invoke(new AggregationTask(slices, origin, STEP, bucketCount));
+
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            assertEquals(expected.count(bucket), actual.count(bucket));
+            assertEquals(expected.min(bucket), actual.min(bucket));
+            assertEquals(expected.max(bucket), actual.max(bucket));
+            assertEquals(expected.sum(bucket), actual.sum(bucket), 1e-6);
+            assertEquals(expected.last(bucket), actual.last(bucket));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.iot.system.telemetry;
+
+import com.iot.system.model.AlertRule;
+import com.iot.system.model.AlertRuleType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AlertRuleSetTest {
+
+    private final List<String> transitions = new ArrayList<>();
+    private final AlertRuleSet.TransitionListener listener = (ruleSet, rule, active, timestamp, value) ->
+            transitions.add(ruleSet.ruleId(rule) + (active ? " triggered at " : " resolved at ") + timestamp);
+
+    @Test
+    void thresholdRulesApplyHysteresis() {
+        final AlertRuleSet ruleSet = new AlertRuleSet(1, List.of(
+                rule(1, AlertRuleType.ABOVE, 80, 75, null),
+                rule(2, AlertRuleType.BELOW, 10, 12, null)), Set.of());
+
+        final double[] values = {70, 81, 78, 76, 74, 11, 9, 11.5, 12.5};
+        for (int i = 0; i < values.length; i++) {
+            ruleSet.evaluate(i * 1000L, values[i], listener);
+        }
+
+        assertEquals(List.of("1 triggered at 1000", "1 resolved at 4000", "2 triggered at 6000", "2 resolved at 8000"), transitions);
+    }
+
+    @Test
+    void restoresActiveAlertsAndDetectsRateOfChange() {
+        final AlertRuleSet ruleSet = new AlertRuleSet(1, List.of(
+                rule(1, AlertRuleType.ABOVE, 80, 80, null),
+                rule(2, AlertRuleType.RATE_OF_CHANGE, 5, 2, null)), Set.of(1L));
+
+        ruleSet.evaluate(0, 85, listener);
+        ruleSet.evaluate(1000, 86, listener);
+        ruleSet.evaluate(2000, 60, listener);
+        ruleSet.evaluate(3000, 57, listener);
+        ruleSet.evaluate(4000, 56, listener);
+
+        assertEquals(List.of("1 resolved at 2000", "2 triggered at 2000", "2 resolved at 4000"), transitions);
+    }
+
+    @Test
+    void flatlineTriggersWhenTheValueStopsMoving() {
+        final AlertRuleSet ruleSet = new AlertRuleSet(1, List.of(rule(1, AlertRuleType.FLATLINE, 0.5, 0.5, 10_000L)), Set.of());
+
+        for (long timestamp = 0; timestamp <= 12_000; timestamp += 1000) {
+            ruleSet.evaluate(timestamp, 20 + (timestamp % 2000 == 0 ? 0.2 : -0.2), listener);
+        }
+        ruleSet.evaluate(13_000, 23, listener);
+        ruleSet.evaluate(14_000, 23, listener);
+
+        assertEquals(List.of("1 triggered at 10000", "1 resolved at 13000"), transitions);
+    }
+
+    private static AlertRule rule(final long id, final AlertRuleType type, final double threshold,
+                                  final double clearThreshold, final Long durationMs) {
+        final AlertRule rule = new AlertRule();
+        rule.setId(id);
+        rule.setName("rule " + id);
+        rule.setMetric("temperature");
+        rule.setType(type);
+        rule.setThreshold(threshold);
+        rule.setClearThreshold(clearThreshold);
+        rule.setDurationMs(durationMs);
+        return rule;
+    }
+}
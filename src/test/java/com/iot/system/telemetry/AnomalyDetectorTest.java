@@ -0,0 +1,53 @@
+package com.iot.system.telemetry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnomalyDetectorTest {
+
+    private static final long MINUTE = 60_000L;
+
+    @Test
+    void flagsSpikesWithoutDraggingTheBaseline() {
+        final AnomalyDetector detector = new AnomalyDetector(0.05, 0.02, 4.0, 30);
+        final Random random = new Random(42);
+        long timestamp = 0;
+        for (int i = 0; i < 30; i++) {
+            assertTrue(Double.isNaN(detector.update(timestamp += MINUTE, 20 + random.nextGaussian() * 0.5)), "warming up");
+        }
+        int anomalies = 0;
+        for (int i = 0; i < 500; i++) {
+            if (detector.isAnomalous(detector.update(timestamp += MINUTE, 20 + random.nextGaussian() * 0.5))) {
+                anomalies++;
+            }
+        }
+        assertTrue(anomalies <= 2, "Gaussian noise should rarely exceed 4 sigma, got " + anomalies);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(detector.isAnomalous(detector.update(timestamp += MINUTE, 45)));
+        }
+        assertEquals(20, detector.expected(), 2.0);
+        assertFalse(detector.isAnomalous(detector.update(timestamp + MINUTE, 20.2)));
+    }
+
+    @Test
+    void learnsTheDailyCycle() {
+        final AnomalyDetector detector = new AnomalyDetector(0.05, 0.05, 4.0, 30);
+        final Random random = new Random(7);
+        int anomaliesOnLastDay = 0;
+        for (long timestamp = 0; timestamp < 14 * 24 * 60 * MINUTE; timestamp += 5 * MINUTE) {
+            final double hour = (timestamp / (60 * MINUTE)) % 24;
+            final double value = 20 + 8 * Math.sin(hour / 24 * 2 * Math.PI) + random.nextGaussian() * 0.5;
+            final double score = detector.update(timestamp, value);
+            if (timestamp >= 13 * 24 * 60 * MINUTE && detector.isAnomalous(score)) {
+                anomaliesOnLastDay++;
+            }
+        }
+        assertEquals(0, anomaliesOnLastDay);
+    }
+}
@@ -0,0 +1,89 @@
+package com.iot.system.telemetry;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BinaryReadingDecoderTest {
+
+    @Test
+    void decodesEncodedBatch() {
+        final int[] metricIds = {3, 3, 7, 1};
+        final long[] timestamps = {1_720_713_600_000L, 1_720_713_601_000L, 1_720_713_600_500L, 1_720_713_700_000L};
+        final double[] values = {21.5, -0.25, Double.MAX_VALUE, 64.0};
+
+        final int[] decodedIds = new int[8];
+        final long[] decodedTimestamps = new long[8];
+        final double[] decodedValues = new double[8];
+        final int count = BinaryReadingDecoder.decode(ByteBuffer.wrap(encode(metricIds, timestamps, values)),
+                decodedIds, decodedTimestamps, decodedValues);
+
+        assertEquals(4, count);
+        for (int i = 0; i < count; i++) {
+            assertEquals(metricIds[i], decodedIds[i]);
+            assertEquals(timestamps[i], decodedTimestamps[i]);
+            assertEquals(values[i], decodedValues[i]);
+        }
+    }
+
+    @Test
+    void rejectsTruncatedAndOversizedBatches() {
+        final byte[] batch = encode(new int[]{1, 2}, new long[]{10, 20}, new double[]{1, 2});
+        final byte[] truncated = new byte[batch.length - 3];
+        System.arraycopy(batch, 0, truncated, 0, truncated.length);
+
+        assertThrows(IllegalArgumentException.class, () -> BinaryReadingDecoder.decode(ByteBuffer.wrap(truncated),
+                new int[2], new long[2], new double[2]));
+        assertThrows(IllegalArgumentException.class, () -> BinaryReadingDecoder.decode(ByteBuffer.wrap(batch),
+                new int[1], new long[1], new double[1]));
+    }
+
+    @Test
+    void rejectsCountsAndMetricIdsThatOverflowToNegative() {
+        // A ten-byte varint of all ones is a count of -1
+        final byte[] negativeCount = {'I', 'T', 1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 1, 0};
+        // A metric id of 2^63 reads as Long.MIN_VALUE
+        final byte[] negativeMetricId = {'I', 'T', 1, 1, 0, -128, -128, -128, -128, -128, -128, -128, -128, -128, 1, 0,
+                0, 0, 0, 0, 0, 0, 0, 0};
+
+        assertThrows(IllegalArgumentException.class, () -> BinaryReadingDecoder.decode(ByteBuffer.wrap(negativeCount),
+                new int[4], new long[4], new double[4]));
+        assertThrows(IllegalArgumentException.class, () -> BinaryReadingDecoder.decode(ByteBuffer.wrap(negativeMetricId),
+                new int[4], new long[4], new double[4]));
+    }
+
+    private static byte[] encode(final int[] metricIds, final long[] timestamps, final double[] values) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write('I');
+        out.write('T');
+        out.write(1);
+        writeVarLong(out, metricIds.length);
+        writeVarLong(out, zigZag(timestamps[0]));
+        long previous = timestamps[0];
+        final ByteBuffer value = ByteBuffer.allocate(Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < metricIds.length; i++) {
+            writeVarLong(out, metricIds[i]);
+            writeVarLong(out, zigZag(timestamps[i] - previous));
+            previous = timestamps[i];
+            out.write(value.clear().putDouble(values[i]).array(), 0, Double.BYTES);
+        }
+        return out.toByteArray();
+    }
+
+    private static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static void writeVarLong(final ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
@@ -0,0 +1,87 @@
+package com.iot.system.telemetry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GorillaEncoderTest {
+
+    private static void assertRoundTrip(final long[] timestamps, final double[] values) {
+        final GorillaEncoder encoder = new GorillaEncoder();
+        for (int i = 0; i < timestamps.length; i++) {
+            encoder.append(timestamps[i], values[i]);
+        }
+        assertEquals(timestamps.length, encoder.count());
+
+        final GorillaDecoder decoder = new GorillaDecoder(encoder.toByteArray(), encoder.count());
+        for (int i = 0; i < timestamps.length; i++) {
+            assertTrue(decoder.next());
+            assertEquals(timestamps[i], decoder.timestamp(), "timestamp " + i);
+            // Compare raw bits so NaN payloads and the sign of zero must survive too
+            assertEquals(Double.doubleToRawLongBits(values[i]), Double.doubleToRawLongBits(decoder.value()), "value " + i);
+        }
+        assertFalse(decoder.next());
+    }
+
+    @Test
+    void roundTripsIrregularIntervalsRepeatedValuesNaNAndSignChanges() {
+        final Random random = new Random(7);
+        final int count = 5_000;
+        final long[] timestamps = new long[count];
+        final double[] values = new double[count];
+        long timestamp = 1_720_713_600_000L;
+        double value = 21.5;
+        for (int i = 0; i < count; i++) {
+            // Mostly jittered seconds with gaps of up to three hours and runs of duplicate timestamps
+            timestamp += switch (i % 10) {
+                case 3 -> random.nextInt(10_800_000);
+                case 7 -> 0;
+                default -> 1_000 + random.nextInt(21) - 10;
+            };
+            if (i % 5 != 0) {
+                value = switch (i % 13) {
+                    case 1 -> Double.NaN;
+                    case 2 -> Double.longBitsToDouble(0x7ff8_0000_dead_beefL);
+                    case 4 -> -value;
+                    case 5 -> 0.0;
+                    case 6 -> -0.0;
+                    case 8 -> random.nextGaussian() * 1e9;
+                    case 9 -> Double.NEGATIVE_INFINITY;
+                    case 11 -> Double.MIN_VALUE;
+                    default -> value + (random.nextInt(3) - 1) * 0.1;
+                };
+            }
+            timestamps[i] = timestamp;
+            values[i] = value;
+        }
+
+        assertRoundTrip(timestamps, values);
+    }
+
+    @Test
+    void roundTripsDeltasThatOverflowTheZigZagBuckets() {
+        // Delta-of-deltas of about 2^62 and 2^63 used to fall into the 7 bit bucket
+        final long[] timestamps = {0, 1L << 62, -(1L << 62), Long.MAX_VALUE, Long.MIN_VALUE, 0, Long.MAX_VALUE,
+                Long.MAX_VALUE, Long.MIN_VALUE + 1, 42};
+        final double[] values = new double[timestamps.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 2 == 0 ? 1.0 : -1.0;
+        }
+
+        assertRoundTrip(timestamps, values);
+    }
+
+    @Test
+    void storesASteadySeriesInAFewBitsPerPoint() {
+        final GorillaEncoder encoder = new GorillaEncoder();
+        for (int i = 0; i < 1_000; i++) {
+            encoder.append(1_720_713_600_000L + i * 1_000L, 20.0);
+        }
+        // 128 bits for the first point, 16 for the first delta, then two bits per point
+        assertEquals((128 + 16 + 998 * 2 + 7) / 8, encoder.sizeInBytes());
+    }
+}
@@ -0,0 +1,22 @@
+package com.iot.system.telemetry;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IoThrottleTest {
+
+    @Test
+    void letsAOneSecondBurstThroughAndPacesTheRest() throws InterruptedException {
+        final IoThrottle throttle = new IoThrottle(10_000);
+
+        final long start = System.nanoTime();
+        throttle.acquire(10_000);
+        final long burstMs = (System.nanoTime() - start) / 1_000_000;
+        throttle.acquire(3_000);
+        final long totalMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(burstMs < 100, "burst took " + burstMs + " ms");
+        assertTrue(totalMs >= 250 && totalMs < 2_000, "paced acquire took " + totalMs + " ms");
+    }
+}
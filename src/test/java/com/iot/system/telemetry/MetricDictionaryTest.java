@@ -0,0 +1,91 @@
+package com.iot.system.telemetry;
+
+import com.iot.system.model.TelemetryMetric;
+import com.iot.system.repository.TelemetryMetricRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MetricDictionaryTest {
+
+    private final TelemetryMetricRepository telemetryMetricRepository = mock(TelemetryMetricRepository.class);
+    private final MetricDictionary dictionary = new MetricDictionary(telemetryMetricRepository, 3);
+
+    private static TelemetryMetric metric(final int id, final String name) {
+        final TelemetryMetric metric = new TelemetryMetric();
+        metric.setId(id);
+        metric.setName(name);
+        return metric;
+    }
+
+    @Test
+    void loadsPersistedMetricsWithoutSavingThem() {
+        when(telemetryMetricRepository.findAll()).thenReturn(List.of(metric(1, "temperature"), metric(2, "humidity")));
+
+        dictionary.load();
+
+        assertEquals(2, dictionary.resolve("humidity"));
+        assertEquals(1, (int) dictionary.idOf("temperature"));
+        assertEquals("humidity", dictionary.nameOf(2));
+        assertTrue(dictionary.contains(1));
+        assertFalse(dictionary.contains(3));
+        assertEquals(Map.of("temperature", 1, "humidity", 2), dictionary.snapshot());
+        verify(telemetryMetricRepository, never()).save(any());
+    }
+
+    @Test
+    void savesANewMetricOnceAndCachesItsId() {
+        when(telemetryMetricRepository.findByName("pressure")).thenReturn(Optional.empty());
+        when(telemetryMetricRepository.save(any())).thenReturn(metric(7, "pressure"));
+
+        assertEquals(7, dictionary.resolve("pressure"));
+        assertEquals(7, dictionary.resolve("pressure"));
+
+        assertEquals("pressure", dictionary.nameOf(7));
+        verify(telemetryMetricRepository, times(1)).save(any());
+    }
+
+    @Test
+    void reusesAMetricAnotherInstanceAlreadySaved() {
+        when(telemetryMetricRepository.findByName("voltage")).thenReturn(Optional.of(metric(4, "voltage")));
+
+        assertEquals(4, dictionary.resolve("voltage"));
+        verify(telemetryMetricRepository, never()).save(any());
+    }
+
+    @Test
+    void rejectsNewMetricsPastTheLimitButStillResolvesKnownOnes() {
+        when(telemetryMetricRepository.findAll()).thenReturn(List.of(metric(1, "temperature"), metric(2, "humidity"),
+                metric(3, "pressure")));
+        when(telemetryMetricRepository.findByName(anyString())).thenReturn(Optional.empty());
+        dictionary.load();
+
+        assertThrows(IllegalArgumentException.class, () -> dictionary.resolve("voltage"));
+        assertEquals(3, dictionary.resolve("pressure"));
+        verify(telemetryMetricRepository, never()).save(any());
+    }
+
+    @Test
+    void rejectsMissingBlankAndOverlongNames() {
+        assertThrows(IllegalArgumentException.class, () -> dictionary.resolve(null));
+        assertThrows(IllegalArgumentException.class, () -> dictionary.resolve(" "));
+        assertThrows(IllegalArgumentException.class, () -> dictionary.resolve("m".repeat(65)));
+        assertNull(dictionary.idOf(null));
+        verify(telemetryMetricRepository, never()).findByName(anyString());
+    }
+}
@@ -0,0 +1,50 @@
+package com.iot.system.telemetry;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MonitoredSeriesTest {
+
+    private final MonitoredSeries series = new MonitoredSeries(1, "MON00001", 1, new long[0], 64, 2);
+
+    @Test
+    void storesMetricsInDenseSlotsWhateverTheirIds() {
+        series.admit(1_000_000);
+        series.admit(7);
+        final SeriesBlock block = new SeriesBlock(1, 1_000_000);
+        series.setOpenBlock(1_000_000, block);
+
+        assertEquals(0, series.slotOf(1_000_000));
+        assertEquals(1, series.slotOf(7));
+        assertEquals(-1, series.slotOf(8));
+        assertSame(block, series.openBlock(1_000_000));
+        assertNull(series.openBlock(7));
+        assertEquals(8, series.getOpenBlocks().length);
+    }
+
+    @Test
+    void rejectsNewMetricsOnceFullButKeepsAcceptingKnownOnes() {
+        series.admit(1);
+        series.admit(2);
+
+        assertThrows(IllegalArgumentException.class, () -> series.admit(3));
+        assertThrows(IllegalArgumentException.class, series::checkRoomForMetric);
+        series.admit(2);
+        assertEquals(2, series.metricCount());
+    }
+
+    @Test
+    void neverRejectsReadingsRecoveredFromTheLog() {
+        series.admit(1);
+        series.admit(2);
+
+        // Recovery appends without admitting, e.g. after the limit was lowered
+        series.setOpenBlock(3, new SeriesBlock(1, 3));
+
+        assertEquals(2, series.slotOf(3));
+    }
+}
@@ -0,0 +1,94 @@
+package com.iot.system.telemetry;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantileSketchTest {
+
+    private static final double[] QUANTILES = {0, 0.5, 0.95, 0.99, 1};
+
+    @Test
+    void answersQuantilesWithinRelativeAccuracy() {
+        final Random random = new Random(3);
+        final double[] values = new double[100_000];
+        final QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            // Log-normal, like response times
+            values[i] = Math.exp(3 + random.nextGaussian());
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+        for (final double q : QUANTILES) {
+            final double exact = values[(int) (q * (values.length - 1))];
+            final double estimate = sketch.quantile(q);
+            assertTrue(Math.abs(estimate - exact) <= exact * QuantileSketch.RELATIVE_ACCURACY + 1e-9,
+                    "p" + q * 100 + " was " + estimate + ", expected " + exact);
+        }
+    }
+
+    @Test
+    void mergedAndDecodedSketchesMatchTheCombinedSketch() {
+        final Random random = new Random(11);
+        final QuantileSketch combined = new QuantileSketch();
+        final QuantileSketch merged = new QuantileSketch();
+        for (int part = 0; part < 50; part++) {
+            final QuantileSketch device = new QuantileSketch();
+            for (int i = 0; i < 1_000; i++) {
+                final double value = random.nextGaussian() * 40 + part;
+                device.add(value);
+                combined.add(value);
+            }
+            device.add(0);
+            combined.add(0);
+            merged.merge(QuantileSketch.decode(device.encode()));
+        }
+        assertEquals(combined.count(), merged.count());
+        for (final double q : QUANTILES) {
+            assertEquals(combined.quantile(q), merged.quantile(q));
+        }
+    }
+
+    @Test
+    void countsBinsPastTheRangeOfAnInt() {
+        final QuantileSketch sketch = new QuantileSketch();
+        sketch.add(1);
+        sketch.add(100);
+        sketch.add(100);
+        // Doubling 31 times puts 2^32 values in the bin of 100
+        for (int i = 0; i < 31; i++) {
+            sketch.merge(QuantileSketch.decode(sketch.encode()));
+        }
+
+        final QuantileSketch decoded = QuantileSketch.decode(sketch.encode());
+        assertEquals(3L << 31, decoded.count());
+        assertEquals(1, decoded.quantile(0.3), 0.01);
+        assertEquals(100, decoded.quantile(0.4), 1);
+        assertEquals(100, decoded.quantile(1), 1);
+    }
+
+    @Test
+    void decodesSketchesWrittenWithIntCounts() {
+        final QuantileSketch expected = new QuantileSketch();
+        expected.add(0);
+        expected.add(5);
+        expected.add(5);
+        expected.add(-2);
+        final ByteBuffer legacy = ByteBuffer.allocate(64);
+        legacy.putLong(1).putDouble(-2).putDouble(5);
+        // Bin of 5 with two values, then the bin of 2 with one
+        legacy.putInt((int) Math.ceil(Math.log(5) / Math.log(1.01 / 0.99))).putInt(1).putInt(2);
+        legacy.putInt((int) Math.ceil(Math.log(2) / Math.log(1.01 / 0.99))).putInt(1).putInt(1);
+
+        final QuantileSketch decoded = QuantileSketch.decode(legacy.flip());
+        assertEquals(expected.count(), decoded.count());
+        for (final double q : QUANTILES) {
+            assertEquals(expected.quantile(q), decoded.quantile(q));
+        }
+    }
+}
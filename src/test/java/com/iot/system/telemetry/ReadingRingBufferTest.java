@@ -0,0 +1,43 @@
+package com.iot.system.telemetry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReadingRingBufferTest {
+
+    @Test
+    void rejectsEmptyAndNegativeClaimsWithoutMovingTheTail() {
+        final ReadingRingBuffer buffer = new ReadingRingBuffer(4);
+
+        assertThrows(IllegalArgumentException.class, () -> buffer.claim(0));
+        assertThrows(IllegalArgumentException.class, () -> buffer.claim(-1));
+
+        assertEquals(0, buffer.claim(2));
+        assertEquals(2, buffer.claim(2));
+        assertEquals(-1, buffer.claim(1));
+    }
+
+    @Test
+    void drainsPublishedReadingsAndSkipsDiscardedOnes() {
+        final ReadingRingBuffer buffer = new ReadingRingBuffer(8);
+        final long discarded = buffer.claim(2);
+        final long kept = buffer.claim(2);
+        buffer.publish(kept, new int[]{1, 2}, new long[]{10, 20}, new double[]{1.5, 2.5}, 0, 2, 7);
+        buffer.discard(discarded, 2);
+
+        final List<Long> timestamps = new ArrayList<>();
+        final List<Long> lsns = new ArrayList<>();
+        assertEquals(4, buffer.drain((metricId, timestamp, value, lsn) -> {
+            timestamps.add(timestamp);
+            lsns.add(lsn);
+        }, 16));
+        assertEquals(List.of(10L, 20L), timestamps);
+        assertEquals(List.of(6L, 7L), lsns);
+        assertEquals(0, buffer.size());
+    }
+}
@@ -0,0 +1,48 @@
+package com.iot.system.telemetry;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SeriesRollupsTest {
+
+    @Test
+    void hourlyRollupsMatchRawAggregation() {
+        final long start = 1_720_656_000_000L;
+        final SeriesBlock block = new SeriesBlock(1, 1);
+        for (int i = 0; i < 4000; i++) {
+            block.append(start + i * 5_000L, Math.sin(i / 50.0) * 10);
+        }
+        final Chunk chunk = block.snapshot();
+        final SeriesRollups rollups = new SeriesRollups(1, 1);
+        rollups.fold(chunk);
+
+        final long step = RollupTier.HOUR.width();
+        final long end = start + 5 * step;
+        final BucketAggregates fromRollups = new BucketAggregates(start, step, 5);
+        rollups.aggregate(RollupTier.HOUR, start, end, fromRollups);
+        final BucketAggregates fromRaw = new AggregationTask(new ChunkSlice[]{new ChunkSlice(chunk, start, end)}, start, step, 5)
+                .invoke();
+
+        for (int bucket = 0; bucket < 5; bucket++) {
+            assertEquals(fromRaw.count(bucket), fromRollups.count(bucket));
+            assertEquals(fromRaw.min(bucket), fromRollups.min(bucket));
+            assertEquals(fromRaw.max(bucket), fromRollups.max(bucket));
+            assertEquals(fromRaw.sum(bucket), fromRollups.sum(bucket), 1e-9);
+            assertEquals(fromRaw.last(bucket), fromRollups.last(bucket));
+        }
+
+        final RollupSegment segment = rollups.dirtySegments().stream()
+                .filter(candidate -> candidate.getTier() == RollupTier.HOUR)
+                .findFirst()
+                .orElseThrow();
+        final SeriesRollups restored = new SeriesRollups(1, 1);
+        restored.restore(RollupSegment.decode(RollupTier.HOUR, segment.getSegmentStart(), 1L, segment.encode()));
+        final BucketAggregates fromRestored = new BucketAggregates(start, step, 5);
+        restored.aggregate(RollupTier.HOUR, start, end, fromRestored);
+        for (int bucket = 0; bucket < 5; bucket++) {
+            assertEquals(fromRollups.count(bucket), fromRestored.count(bucket));
+            assertEquals(fromRollups.sum(bucket), fromRestored.sum(bucket));
+        }
+    }
+}
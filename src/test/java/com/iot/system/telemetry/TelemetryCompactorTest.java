@@ -0,0 +1,93 @@
+package com.iot.system.telemetry;
+
+import com.iot.system.model.RetentionPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TelemetryCompactorTest {
+
+    private final ChunkStore chunkStore = mock(ChunkStore.class);
+    private final RetentionPolicyResolver retentionPolicyResolver = mock(RetentionPolicyResolver.class);
+    private final List<String> io = new ArrayList<>();
+
+    private final IoThrottle throttle = new IoThrottle(Long.MAX_VALUE) {
+        @Override
+        public void acquire(final long bytes) {
+            io.add("acquire " + bytes);
+        }
+    };
+    private final TelemetryCompactor compactor = new TelemetryCompactor(chunkStore, mock(RollupStore.class),
+            retentionPolicyResolver, 60_000, 100, 1_000, 1_000_000, throttle);
+
+    private static Chunk chunk(final long start, final int count, final boolean rolledUp) {
+        final Chunk chunk = new Chunk(1, 1, start, start + 9, count, 0, 0, 0, 0, new byte[8], null, 0, start);
+        if (rolledUp) {
+            chunk.markRolledUp();
+        }
+        return chunk;
+    }
+
+    private void keepRawDays(final int rawDays, final SeriesChunks series) {
+        final RetentionPolicy policy = new RetentionPolicy();
+        policy.setRawDays(rawDays);
+        policy.setMinuteDays(0);
+        policy.setHourDays(0);
+        policy.setDayDays(0);
+        when(retentionPolicyResolver.resolveAll()).thenReturn(Map.of(1L, policy));
+        when(chunkStore.monitoringIds()).thenReturn(Set.of(1L));
+        when(chunkStore.series(1L)).thenReturn(Map.of(1, series));
+    }
+
+    @Test
+    void paysForExpiredChunksBeforeDeletingThemInBatches() throws InterruptedException {
+        final SeriesChunks series = new SeriesChunks();
+        keepRawDays(30, series);
+        final List<Chunk> expired = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            expired.add(chunk(i * 10L, 5, true));
+        }
+        when(chunkStore.expired(eq(series), anyLong())).thenReturn(expired);
+        when(chunkStore.delete(eq(series), any())).thenAnswer(invocation -> {
+            final List<Chunk> batch = invocation.getArgument(1);
+            io.add("delete " + batch.size());
+            return ChunkStore.bytes(batch);
+        });
+
+        compactor.compact();
+
+        assertEquals(List.of("acquire 800", "delete 100", "acquire 800", "delete 100", "acquire 400", "delete 50"), io);
+    }
+
+    @Test
+    void mergesRunsOfSmallRolledUpChunksAfterPayingForThem() throws InterruptedException {
+        final SeriesChunks series = new SeriesChunks();
+        series.add(chunk(0, 5, true));
+        series.add(chunk(10, 5, true));
+        series.add(chunk(20, 5, true));
+        // A large chunk ends the run and a chunk the rollup job has not folded yet is left alone
+        series.add(chunk(30, 500, true));
+        series.add(chunk(40, 5, true));
+        series.add(chunk(50, 5, false));
+        keepRawDays(0, series);
+        when(chunkStore.merge(eq(series), any())).thenAnswer(invocation -> {
+            final List<Chunk> run = invocation.getArgument(1);
+            io.add("merge " + run.stream().map(Chunk::getStartTimestamp).toList());
+            return chunk(0, 15, true);
+        });
+
+        compactor.compact();
+
+        assertEquals(List.of("acquire 48", "merge [0, 10, 20]"), io);
+    }
+}
@@ -0,0 +1,120 @@
+package com.iot.system.telemetry;
+
+import com.iot.system.exception.ResourceNotFoundException;
+import com.iot.system.model.Monitoring;
+import com.iot.system.repository.MonitoringRepository;
+import com.iot.system.user.Role;
+import com.iot.system.user.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TelemetrySeriesRegistryTest {
+
+    private final MonitoringRepository monitoringRepository = mock(MonitoringRepository.class);
+    private final TelemetrySeriesRegistry registry = new TelemetrySeriesRegistry(monitoringRepository, 64, 16);
+
+    private static User user(final long id) {
+        final User user = new User();
+        user.setId(id);
+        user.setRole(Role.USER);
+        return user;
+    }
+
+    private static Monitoring monitoring(final long id, final String code, final User owner, final User... users) {
+        final Monitoring monitoring = new Monitoring();
+        monitoring.setId(id);
+        monitoring.setMonitoringCode(code);
+        monitoring.setCreatedBy(owner);
+        monitoring.setUsers(new ArrayList<>(List.of(users)));
+        return monitoring;
+    }
+
+    @Test
+    void loadsEachSeriesOnceAndFindsItByCodeAndId() {
+        when(monitoringRepository.findWithUsersByMonitoringCode("MON00001"))
+                .thenReturn(Optional.of(monitoring(1, "MON00001", user(1))));
+
+        final MonitoredSeries series = registry.resolve("MON00001");
+
+        assertSame(series, registry.resolve("MON00001"));
+        assertSame(series, registry.cached(1));
+        assertSame(series, registry.resolveById(1).orElseThrow());
+        assertEquals(List.of(series), List.copyOf(registry.all()));
+        verify(monitoringRepository, times(1)).findWithUsersByMonitoringCode("MON00001");
+    }
+
+    @Test
+    void rejectsUnknownMonitorings() {
+        when(monitoringRepository.findWithUsersByMonitoringCode("MON00404")).thenReturn(Optional.empty());
+        when(monitoringRepository.findWithUsersById(404L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> registry.resolve("MON00404"));
+        assertTrue(registry.resolveById(404).isEmpty());
+        assertTrue(registry.all().isEmpty());
+    }
+
+    @Test
+    void reloadsADeviceSeriesAfterItsMonitoringWasEvicted() {
+        when(monitoringRepository.findWithUsersByDevice_DeviceCode("DVC00001"))
+                .thenReturn(Optional.of(monitoring(1, "MON00001", user(1))));
+
+        final MonitoredSeries first = registry.resolveByDeviceCode("DVC00001");
+        assertSame(first, registry.resolveByDeviceCode("DVC00001"));
+        registry.evict("MON00001");
+
+        assertNull(registry.cached(1));
+        assertNotSame(first, registry.resolveByDeviceCode("DVC00001"));
+        verify(monitoringRepository, times(2)).findWithUsersByDevice_DeviceCode("DVC00001");
+    }
+
+    @Test
+    void revokesAccessOfUsersRemovedFromTheMonitoring() {
+        final User owner = user(1);
+        final User removed = user(2);
+        when(monitoringRepository.findWithUsersByMonitoringCode("MON00001"))
+                .thenReturn(Optional.of(monitoring(1, "MON00001", owner, removed)));
+        final MonitoredSeries series = registry.resolve("MON00001");
+        assertTrue(series.isAccessibleBy(removed));
+
+        when(monitoringRepository.findWithUsersById(1L)).thenReturn(Optional.of(monitoring(1, "MON00001", owner)));
+        registry.refresh(1);
+
+        assertSame(series, registry.cached(1));
+        assertFalse(series.isAccessibleBy(removed));
+        assertTrue(series.isAccessibleBy(owner));
+    }
+
+    @Test
+    void forgetsDeviceCodesAndDeletedMonitoringsOnRefresh() {
+        when(monitoringRepository.findWithUsersByDevice_DeviceCode("DVC00001"))
+                .thenReturn(Optional.of(monitoring(1, "MON00001", user(1))));
+        final MonitoredSeries series = registry.resolveByDeviceCode("DVC00001");
+
+        // The monitoring moved to another device
+        when(monitoringRepository.findWithUsersById(1L)).thenReturn(Optional.of(monitoring(1, "MON00001", user(1))));
+        registry.refresh(1);
+        when(monitoringRepository.findWithUsersByDevice_DeviceCode("DVC00001")).thenReturn(Optional.empty());
+        assertThrows(ResourceNotFoundException.class, () -> registry.resolveByDeviceCode("DVC00001"));
+        assertSame(series, registry.cached(1));
+
+        when(monitoringRepository.findWithUsersById(1L)).thenReturn(Optional.empty());
+        registry.refresh(1);
+        assertNull(registry.cached(1));
+        assertNull(registry.cached("MON00001"));
+    }
+}
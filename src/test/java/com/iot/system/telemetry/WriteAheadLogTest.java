@@ -0,0 +1,153 @@
+package com.iot.system.telemetry;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteAheadLogTest {
+
+    // Header of 20 bytes and three readings of 20 bytes each
+    private static final int RECORD_BYTES = 80;
+
+    @TempDir
+    Path directory;
+
+    private record Replayed(long lsn, long monitoringId, long[] timestamps) {
+    }
+
+    private WriteAheadLog open(final int segmentSize) throws IOException {
+        final WriteAheadLog log = new WriteAheadLog(directory.toString(), segmentSize, 1);
+        log.open();
+        return log;
+    }
+
+    private static long append(final WriteAheadLog log, final long monitoringId, final long firstTimestamp) {
+        final long[] timestamps = {firstTimestamp, firstTimestamp + 1, firstTimestamp + 2};
+        final long lsn = log.append(monitoringId, new int[]{1, 2, 3}, timestamps, new double[]{0.5, 1.5, 2.5}, 0, 3);
+        log.awaitDurable(lsn);
+        return lsn;
+    }
+
+    private static List<Replayed> replay(final WriteAheadLog log) {
+        final List<Replayed> records = new ArrayList<>();
+        log.replay((lsn, monitoringId, metricIds, timestamps, values, length) ->
+                records.add(new Replayed(lsn, monitoringId, Arrays.copyOf(timestamps, length))));
+        return records;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    @Test
+    void rollsOverToANewSegmentWhenARecordDoesNotFit() throws Exception {
+        final WriteAheadLog log = open(3 * RECORD_BYTES);
+        final List<Long> lsns = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            lsns.add(append(log, 10 + i, i * 100L));
+        }
+        log.close();
+        // Two records fit next to the end marker of a segment
+        assertEquals(3, segments().size());
+
+        final WriteAheadLog reopened = open(3 * RECORD_BYTES);
+        final List<Replayed> records = replay(reopened);
+        reopened.close();
+
+        assertEquals(lsns, records.stream().map(Replayed::lsn).toList());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(10 + i, records.get(i).monitoringId());
+            assertArrayEquals(new long[]{i * 100L, i * 100L + 1, i * 100L + 2}, records.get(i).timestamps());
+        }
+        for (int i = 1; i < lsns.size(); i++) {
+            assertTrue(WriteAheadLog.readingLsn(lsns.get(i - 1), 3, 2) < WriteAheadLog.readingLsn(lsns.get(i), 3, 0));
+        }
+    }
+
+    @Test
+    void stopsReplayingASegmentAtARecordWithABadChecksum() throws Exception {
+        final WriteAheadLog log = open(1024);
+        append(log, 1, 0);
+        append(log, 2, 100);
+        append(log, 3, 200);
+        log.close();
+
+        // Flip one byte of the last reading of the third record, like a write torn by a crash
+        try (FileChannel channel = FileChannel.open(segments().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), 3L * RECORD_BYTES - 3);
+        }
+
+        final WriteAheadLog reopened = open(1024);
+        final List<Replayed> records = replay(reopened);
+        reopened.close();
+
+        assertEquals(List.of(1L, 2L), records.stream().map(Replayed::monitoringId).toList());
+    }
+
+    @Test
+    void stopsReplayingASegmentAtARecordWithACorruptedLength() throws Exception {
+        final WriteAheadLog log = open(1024);
+        append(log, 1, 0);
+        append(log, 2, 100);
+        log.close();
+
+        // A length this large overflows an int when added to the record's offset
+        try (FileChannel channel = FileChannel.open(segments().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE - 4), RECORD_BYTES);
+        }
+
+        final WriteAheadLog reopened = open(1024);
+        final List<Replayed> records = replay(reopened);
+        reopened.close();
+
+        assertEquals(List.of(1L), records.stream().map(Replayed::monitoringId).toList());
+    }
+
+    @Test
+    void replaysDurableRecordsOfALogThatWasNeverClosed() throws Exception {
+        final WriteAheadLog crashed = open(1024);
+        final long first = append(crashed, 7, 1_000);
+        final long second = append(crashed, 7, 2_000);
+
+        // A new process opens the directory while the old segment was neither closed nor deleted
+        final WriteAheadLog recovered = open(1024);
+        final List<Replayed> records = replay(recovered);
+        crashed.close();
+        recovered.close();
+
+        assertEquals(List.of(first, second), records.stream().map(Replayed::lsn).toList());
+        assertArrayEquals(new long[]{2_000, 2_001, 2_002}, records.get(1).timestamps());
+    }
+
+    @Test
+    void deletesSegmentsOnlyBeforeTheGivenOne() throws Exception {
+        final WriteAheadLog log = open(1024);
+        append(log, 1, 0);
+        final long live = log.roll();
+        append(log, 2, 100);
+        log.deleteSegmentsBefore(live);
+        log.close();
+
+        final WriteAheadLog reopened = open(1024);
+        final List<Replayed> records = replay(reopened);
+        reopened.close();
+
+        assertEquals(List.of(2L), records.stream().map(Replayed::monitoringId).toList());
+    }
+}